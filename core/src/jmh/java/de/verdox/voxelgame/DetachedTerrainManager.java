@@ -0,0 +1,68 @@
+package de.verdox.voxelgame;
+
+import com.badlogic.gdx.graphics.Camera;
+import de.verdox.voxel.client.level.ClientWorld;
+import de.verdox.voxel.client.level.TerrainManager;
+import de.verdox.voxel.client.level.chunk.TerrainChunk;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.util.TerrainRenderStats;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+
+/**
+ * Terrain manager over a fixed map of chunks, without regions, meshing threads or a client world
+ */
+record DetachedTerrainManager(Long2ObjectMap<TerrainChunk> chunks) implements TerrainManager {
+    @Override
+    public TerrainChunk getChunkNow(int chunkX, int chunkY, int chunkZ) {
+        return chunks.get(Chunk.computeChunkKey(chunkX, chunkY, chunkZ));
+    }
+
+    @Override
+    public void setCameraChunk(int chunkX, int chunkY, int chunkZ) {
+    }
+
+    @Override
+    public void addChunk(Chunk chunk) {
+    }
+
+    @Override
+    public void removeChunk(Chunk chunk) {
+    }
+
+    @Override
+    public void afterChunkUpdate(Chunk chunk, boolean wasEmptyBefore) {
+    }
+
+    @Override
+    public void afterBorderChange(Chunk chunk, int sides) {
+    }
+
+    @Override
+    public void afterLightChange(TerrainChunk chunk) {
+    }
+
+    @Override
+    public int getCenterChunkX() {
+        return 0;
+    }
+
+    @Override
+    public int getCenterChunkY() {
+        return 0;
+    }
+
+    @Override
+    public int getCenterChunkZ() {
+        return 0;
+    }
+
+    @Override
+    public ClientWorld getWorld() {
+        return null;
+    }
+
+    @Override
+    public int renderTerrain(Camera camera, ClientWorld world, int viewDistanceX, int viewDistanceY, int viewDistanceZ, TerrainRenderStats renderStats) {
+        return 0;
+    }
+}
@@ -0,0 +1,129 @@
+package de.verdox.voxelgame;
+
+import com.badlogic.gdx.math.Frustum;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import de.verdox.voxel.client.renderer.terrain.regions.graph.RegionOctree;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frustum queries per second over the regions within view distance, for 16 camera directions in turn. The octree is compared with
+ * testing every region slot around the camera like the static tree did, which visits slots of regions that are not loaded or have no
+ * faces as well.
+ * <p>
+ * sparse: a surface band of three region layers is loaded, only the region holding the surface of a column has faces.
+ * dense: every region within view distance is loaded and has faces.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class FrustumQueryBenchmark {
+    private static final int REGION_BLOCKS = 64;
+    private static final int RANGE_XZ = 8;
+    private static final int RANGE_Y = 4;
+    private static final int DIRECTIONS = 16;
+
+    @Param({"sparse", "dense"})
+    public String world;
+
+    private RegionOctree<Long> octree;
+    private final LongSet loaded = new LongOpenHashSet();
+    private final LongSet withFaces = new LongOpenHashSet();
+    private final Frustum[] frustums = new Frustum[DIRECTIONS];
+    private final BoundingBox box = new BoundingBox();
+    private int direction;
+    private int found;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        octree = new RegionOctree<>(REGION_BLOCKS, REGION_BLOCKS, REGION_BLOCKS);
+        boolean dense = world.equals("dense");
+        for (int x = -RANGE_XZ; x <= RANGE_XZ; x++) {
+            for (int z = -RANGE_XZ; z <= RANGE_XZ; z++) {
+                int surfaceY = Math.floorMod(x * 7 + z * 3, 3) - 1;
+                for (int y = -RANGE_Y; y <= RANGE_Y; y++) {
+                    if (!dense && Math.abs(y) > 1) {
+                        continue;
+                    }
+                    long key = Chunk.computeChunkKey(x, y, z);
+                    octree.insert(x, y, z, key);
+                    loaded.add(key);
+                    if (dense || y == surfaceY) {
+                        octree.setHasFaces(x, y, z, true);
+                        withFaces.add(key);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < DIRECTIONS; i++) {
+            double angle = 2 * Math.PI * i / DIRECTIONS;
+            frustums[i] = frustum(new Vector3(8, 40, 8), new Vector3((float) Math.cos(angle), -0.3f, (float) Math.sin(angle)));
+        }
+        System.out.printf("%n%s: %d regions loaded, %d with faces, %d octree nodes%n", world, loaded.size(), withFaces.size(), octree.getNodeCount());
+    }
+
+    private Frustum nextFrustum() {
+        direction = (direction + 1) % DIRECTIONS;
+        return frustums[direction];
+    }
+
+    @Benchmark
+    public int octreeQuery() {
+        found = 0;
+        return octree.queryFrustum(nextFrustum(), 0, 0, 0, RANGE_XZ, RANGE_Y, RANGE_XZ, region -> found++);
+    }
+
+    /**
+     * Every slot within view distance, looked up and tested on its own
+     */
+    @Benchmark
+    public int everySlot() {
+        Frustum frustum = nextFrustum();
+        int visible = 0;
+        for (int x = -RANGE_XZ; x <= RANGE_XZ; x++) {
+            for (int y = -RANGE_Y; y <= RANGE_Y; y++) {
+                for (int z = -RANGE_XZ; z <= RANGE_XZ; z++) {
+                    box.min.set(x * REGION_BLOCKS, y * REGION_BLOCKS, z * REGION_BLOCKS);
+                    box.max.set((x + 1) * REGION_BLOCKS, (y + 1) * REGION_BLOCKS, (z + 1) * REGION_BLOCKS);
+                    box.update();
+                    if (!frustum.boundsInFrustum(box)) {
+                        continue;
+                    }
+                    long key = Chunk.computeChunkKey(x, y, z);
+                    if (loaded.contains(key) && withFaces.contains(key)) {
+                        visible++;
+                    }
+                }
+            }
+        }
+        return visible;
+    }
+
+    /**
+     * Symmetric view frustum with a half angle of 40 degrees, built from its planes because Camera.update needs the native libraries
+     */
+    private static Frustum frustum(Vector3 position, Vector3 direction) {
+        direction.nor();
+        Vector3 right = new Vector3(direction).crs(Vector3.Y).nor();
+        Vector3 up = new Vector3(right).crs(direction).nor();
+        float sin = (float) Math.sin(Math.toRadians(40));
+        float cos = (float) Math.cos(Math.toRadians(40));
+
+        Frustum frustum = new Frustum();
+        frustum.planes[0].set(new Vector3(direction).scl(0.1f).add(position), direction);
+        frustum.planes[1].set(new Vector3(direction).scl(1000).add(position), new Vector3(direction).scl(-1));
+        frustum.planes[2].set(position, new Vector3(right).scl(cos).mulAdd(direction, sin));
+        frustum.planes[3].set(position, new Vector3(right).scl(-cos).mulAdd(direction, sin));
+        frustum.planes[4].set(position, new Vector3(up).scl(cos).mulAdd(direction, sin));
+        frustum.planes[5].set(position, new Vector3(up).scl(-cos).mulAdd(direction, sin));
+        return frustum;
+    }
+}
@@ -0,0 +1,137 @@
+package de.verdox.voxelgame;
+
+import de.verdox.voxel.client.level.TerrainManager;
+import de.verdox.voxel.client.level.chunk.TerrainChunk;
+import de.verdox.voxel.client.level.chunk.occupancy.OccupancyMask;
+import de.verdox.voxel.client.level.chunk.proto.ProtoMask;
+import de.verdox.voxel.client.renderer.mesh.chunk.BitOcclusionBasedChunkMeshCalculator;
+import de.verdox.voxel.server.level.generator.BenchmarkNoiseChunkGenerator;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.lighting.ChunkLightAccessor;
+import de.verdox.voxel.shared.lighting.LightPropagator;
+import de.verdox.voxel.shared.util.Direction;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meshes every surface chunk of a lit 3x14x3 chunk column, face by face and greedy. The {@link BenchmarkNoiseChunkGenerator} terrain is a
+ * steep slope where almost every face has its own ambient occlusion, the terraced terrain has flat steps like built or eroded ground.
+ * The time is reported per chunk. The setup prints the faces per chunk and what they cost on the GPU, an instance is three floats,
+ * the vertex path uses four vertices of two floats and six int indices per face.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class GreedyMeshingBenchmark {
+    private static final int MIN_CHUNK_Y = -2;
+    private static final int MAX_CHUNK_Y = 11;
+
+    @Param({"1337", "8008"})
+    public int seed;
+
+    @Param({"noise", "terraced"})
+    public String terrain;
+
+    @Param({"single", "greedy"})
+    public String meshing;
+
+    private BitOcclusionBasedChunkMeshCalculator calculator;
+    private TerrainManager terrainManager;
+    private final List<TerrainChunk> surfaceChunks = new ArrayList<>();
+    private final List<OccupancyMask[]> surfaceNeighbors = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Blocks.bootstrap();
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        BenchmarkNoiseChunkGenerator generator = new BenchmarkNoiseChunkGenerator(seed);
+        LightPropagator propagator = new LightPropagator();
+        Long2ObjectMap<TerrainChunk> terrainChunks = new Long2ObjectOpenHashMap<>();
+        terrainManager = new DetachedTerrainManager(terrainChunks);
+
+        for (int x = 0; x < 3; x++) {
+            for (int z = 0; z < 3; z++) {
+                for (int y = MAX_CHUNK_Y; y >= MIN_CHUNK_Y; y--) {
+                    Chunk chunk = new ChunkBase(world, x, y, z);
+                    if (terrain.equals("noise")) {
+                        generator.generateNoise(chunk);
+                    } else {
+                        generateTerraces(chunk);
+                    }
+                    world.getChunkMap().saveChunkAfterGeneration(chunk);
+                    propagator.computeSkylight(new ChunkLightAccessor(chunk), y == MAX_CHUNK_Y);
+                    terrainChunks.put(Chunk.computeChunkKey(x, y, z), new TerrainChunk(terrainManager, chunk));
+                }
+            }
+        }
+
+        // Nur die mittlere Spalte, dort haben alle Chunks Nachbarn zu allen Seiten
+        for (int y = MIN_CHUNK_Y + 1; y < MAX_CHUNK_Y; y++) {
+            TerrainChunk chunk = terrainChunks.get(Chunk.computeChunkKey(1, y, 1));
+            if (chunk.getChunkOccupancyMask().isChunkEmpty() || chunk.getChunkOccupancyMask().isChunkFullOpaque()) {
+                continue;
+            }
+            OccupancyMask[] neighbors = new OccupancyMask[6];
+            for (Direction direction : Direction.values()) {
+                neighbors[direction.getId()] = terrainChunks.get(Chunk.computeChunkKey(1 + direction.getOffsetX(), y + direction.getOffsetY(), 1 + direction.getOffsetZ())).getChunkOccupancyMask();
+            }
+            surfaceChunks.add(chunk);
+            surfaceNeighbors.add(neighbors);
+        }
+        if (surfaceChunks.isEmpty()) {
+            throw new IllegalStateException("Seed " + seed + " has no surface in the center column");
+        }
+
+        calculator = new BitOcclusionBasedChunkMeshCalculator(meshing.equals("greedy"));
+        int faces = meshAll();
+        int facesPerChunk = faces / surfaceChunks.size();
+        System.out.printf("%n%s, %s, seed %d: %d surface chunks, %d faces per chunk, %d instance bytes per chunk, %d vertex and index bytes per chunk%n",
+                meshing, terrain, seed, surfaceChunks.size(), facesPerChunk, facesPerChunk * 3 * Float.BYTES, facesPerChunk * (4 * 2 * Float.BYTES + 6 * Integer.BYTES));
+    }
+
+    /**
+     * Steps of five by seven blocks, six blocks high
+     */
+    private void generateTerraces(Chunk chunk) {
+        for (int localX = 0; localX < 16; localX++) {
+            for (int localZ = 0; localZ < 16; localZ++) {
+                int height = 8 + Math.floorMod((chunk.getChunkX() * 16 + localX) / 5 + (chunk.getChunkZ() * 16 + localZ) / 7 + seed, 6);
+                for (int localY = 0; localY < 16; localY++) {
+                    if (chunk.getChunkY() * 16 + localY < height) {
+                        chunk.setBlockAt(Blocks.STONE, localX, localY, localZ);
+                    }
+                }
+            }
+        }
+    }
+
+    private int meshAll() {
+        int faces = 0;
+        for (int i = 0; i < surfaceChunks.size(); i++) {
+            TerrainChunk chunk = surfaceChunks.get(i);
+            calculator.calculateChunkMesh(terrainManager, chunk, surfaceNeighbors.get(i), (byte) 0);
+            faces += chunk.getChunkProtoMesh().getAmountFaces(ProtoMask.FaceType.OPAQUE);
+        }
+        return faces;
+    }
+
+    /**
+     * Meshes all surface chunks, divide by the chunk count printed in the setup for the time per chunk
+     */
+    @Benchmark
+    public int meshSurfaceChunks() {
+        return meshAll();
+    }
+}
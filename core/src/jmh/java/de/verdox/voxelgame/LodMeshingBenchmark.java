@@ -0,0 +1,129 @@
+package de.verdox.voxelgame;
+
+import de.verdox.voxel.client.level.TerrainManager;
+import de.verdox.voxel.client.level.chunk.RenderableChunk;
+import de.verdox.voxel.client.level.chunk.TerrainChunk;
+import de.verdox.voxel.client.level.chunk.occupancy.OccupancyMask;
+import de.verdox.voxel.client.level.chunk.proto.ProtoMask;
+import de.verdox.voxel.client.renderer.mesh.chunk.BitOcclusionBasedChunkMeshCalculator;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.lighting.ChunkLightAccessor;
+import de.verdox.voxel.shared.lighting.LightPropagator;
+import de.verdox.voxel.shared.util.Direction;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Greedy meshes every surface chunk of lit terraced terrain at one level of detail. The terraces climb over three chunk layers, so the
+ * inner 3x3 columns hold several surface chunks. The LOD chunks are built in the setup, only the meshing of the downsampled chunks is
+ * measured. The setup prints the faces per chunk for every level.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class LodMeshingBenchmark {
+    private static final int SIZE_XZ = 5;
+    private static final int MAX_CHUNK_Y = 4;
+
+    @Param({"0", "1", "2", "3", "4"})
+    public int lodLevel;
+
+    private BitOcclusionBasedChunkMeshCalculator calculator;
+    private TerrainManager terrainManager;
+    private final List<RenderableChunk> surfaceChunks = new ArrayList<>();
+    private final List<OccupancyMask[]> surfaceNeighbors = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Blocks.bootstrap();
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        LightPropagator propagator = new LightPropagator();
+        Long2ObjectMap<TerrainChunk> terrainChunks = new Long2ObjectOpenHashMap<>();
+        terrainManager = new DetachedTerrainManager(terrainChunks);
+
+        for (int x = 0; x < SIZE_XZ; x++) {
+            for (int z = 0; z < SIZE_XZ; z++) {
+                for (int y = MAX_CHUNK_Y; y >= 0; y--) {
+                    Chunk chunk = new ChunkBase(world, x, y, z);
+                    generateTerraces(chunk);
+                    world.getChunkMap().saveChunkAfterGeneration(chunk);
+                    propagator.computeSkylight(new ChunkLightAccessor(chunk), y == MAX_CHUNK_Y);
+                    terrainChunks.put(Chunk.computeChunkKey(x, y, z), new TerrainChunk(terrainManager, chunk));
+                }
+            }
+        }
+
+        // Nur die inneren Chunks, dort haben alle Nachbarn zu allen Seiten
+        for (int x = 1; x < SIZE_XZ - 1; x++) {
+            for (int z = 1; z < SIZE_XZ - 1; z++) {
+                for (int y = 1; y < MAX_CHUNK_Y; y++) {
+                    TerrainChunk chunk = terrainChunks.get(Chunk.computeChunkKey(x, y, z));
+                    if (chunk.getChunkOccupancyMask().isChunkEmpty() || chunk.getChunkOccupancyMask().isChunkFullOpaque()) {
+                        continue;
+                    }
+                    OccupancyMask[] neighbors = new OccupancyMask[6];
+                    for (Direction direction : Direction.values()) {
+                        TerrainChunk neighbor = terrainChunks.get(Chunk.computeChunkKey(x + direction.getOffsetX(), y + direction.getOffsetY(), z + direction.getOffsetZ()));
+                        neighbors[direction.getId()] = renderable(neighbor).getChunkOccupancyMask();
+                    }
+                    surfaceChunks.add(renderable(chunk));
+                    surfaceNeighbors.add(neighbors);
+                }
+            }
+        }
+
+        calculator = new BitOcclusionBasedChunkMeshCalculator(true);
+        int faces = meshAll();
+        System.out.printf("%nLOD %d: %d surface chunks, %d faces per chunk%n", lodLevel, surfaceChunks.size(), faces / surfaceChunks.size());
+    }
+
+    /**
+     * Steps of five by seven blocks, two blocks high, from 16 up to 60 blocks
+     */
+    private void generateTerraces(Chunk chunk) {
+        for (int localX = 0; localX < 16; localX++) {
+            for (int localZ = 0; localZ < 16; localZ++) {
+                int height = 16 + 2 * Math.floorMod((chunk.getChunkX() * 16 + localX) / 5 + (chunk.getChunkZ() * 16 + localZ) / 7, 23);
+                for (int localY = 0; localY < 16; localY++) {
+                    if (chunk.getChunkY() * 16 + localY < height) {
+                        chunk.setBlockAt(Blocks.STONE, localX, localY, localZ);
+                    }
+                }
+            }
+        }
+    }
+
+    private RenderableChunk renderable(TerrainChunk chunk) {
+        return lodLevel == 0 ? chunk : chunk.getLodChunk(lodLevel);
+    }
+
+    private int meshAll() {
+        int faces = 0;
+        for (int i = 0; i < surfaceChunks.size(); i++) {
+            RenderableChunk chunk = surfaceChunks.get(i);
+            calculator.calculateChunkMesh(terrainManager, chunk, surfaceNeighbors.get(i), (byte) lodLevel);
+            faces += chunk.getChunkProtoMesh().getAmountFaces(ProtoMask.FaceType.OPAQUE);
+        }
+        return faces;
+    }
+
+    /**
+     * Meshes all surface chunks at the level of detail, divide by the chunk count printed in the setup for the time per chunk
+     */
+    @Benchmark
+    public int meshSurfaceChunks() {
+        return meshAll();
+    }
+}
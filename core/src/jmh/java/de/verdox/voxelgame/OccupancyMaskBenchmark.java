@@ -0,0 +1,113 @@
+package de.verdox.voxelgame;
+
+import de.verdox.voxel.client.level.chunk.occupancy.BitsetBasedOccupancyMask;
+import de.verdox.voxel.client.level.chunk.occupancy.ColumnOccupancyMask;
+import de.verdox.voxel.client.level.chunk.occupancy.OccupancyMask;
+import de.verdox.voxel.server.level.generator.BenchmarkNoiseChunkGenerator;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link BitsetBasedOccupancyMask} with the {@link ColumnOccupancyMask} on a surface chunk of
+ * {@link BenchmarkNoiseChunkGenerator} terrain. Column reads are what the chunk mesher does for every face direction.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class OccupancyMaskBenchmark {
+    @Param({"bitset", "column"})
+    public String mask;
+
+    private Chunk chunk;
+    private OccupancyMask occupancyMask;
+    private int nextUpdate;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Blocks.bootstrap();
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        BenchmarkNoiseChunkGenerator generator = new BenchmarkNoiseChunkGenerator(1337);
+        // Ersten Chunk von oben nehmen, der weder leer noch voll ist
+        for (int y = 11; y >= 0 && chunk == null; y--) {
+            Chunk candidate = new ChunkBase(world, 0, y, 0);
+            generator.generateNoise(candidate);
+            if (!candidate.isEmpty()) {
+                chunk = candidate;
+            }
+        }
+        occupancyMask = createMask();
+    }
+
+    private OccupancyMask createMask() {
+        OccupancyMask created = mask.equals("bitset") ? new BitsetBasedOccupancyMask() : new ColumnOccupancyMask();
+        created.setOwner(chunk);
+        created.initFromOwner();
+        return created;
+    }
+
+    @Benchmark
+    public OccupancyMask initFromOwner() {
+        return createMask();
+    }
+
+    /**
+     * Every z column once, like one face direction of the mesher
+     */
+    @Benchmark
+    public long readAllZColumns() {
+        long result = 0;
+        for (int x = 0; x < 16; x++) {
+            for (int y = 0; y < 16; y++) {
+                result ^= occupancyMask.getZColumn(x, y);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Every x and y column once, the other two axes of a binary mesher
+     */
+    @Benchmark
+    public long readAllXAndYColumns() {
+        long result = 0;
+        for (int a = 0; a < 16; a++) {
+            for (int z = 0; z < 16; z++) {
+                result ^= occupancyMask.getXColumn(a, z);
+                result ^= occupancyMask.getYColumn(a, z);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long readAllLodColumns() {
+        long result = 0;
+        for (int x = 0; x < 16; x++) {
+            for (int y = 0; y < 16; y++) {
+                result ^= occupancyMask.getLodColumn(x, y, 4, 16);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Toggles one block on the border of the chunk, which forces the side mask to update
+     */
+    @Benchmark
+    public long updateBorderBlock() {
+        int i = nextUpdate++;
+        BlockBase block = (i & 1) == 0 ? Blocks.STONE : Blocks.AIR;
+        occupancyMask.updateOccupancyMask(block, 0, (i >> 1) & 15, (i >> 5) & 15);
+        return occupancyMask.getSideMask();
+    }
+}
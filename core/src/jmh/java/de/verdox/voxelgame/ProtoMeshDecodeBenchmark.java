@@ -0,0 +1,113 @@
+package de.verdox.voxelgame;
+
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import de.verdox.voxel.client.assets.BlockFaceUVTable;
+import de.verdox.voxel.client.level.TerrainManager;
+import de.verdox.voxel.client.level.chunk.TerrainChunk;
+import de.verdox.voxel.client.level.chunk.occupancy.OccupancyMask;
+import de.verdox.voxel.client.level.chunk.proto.ChunkProtoMesh;
+import de.verdox.voxel.client.level.chunk.proto.ProtoMask;
+import de.verdox.voxel.client.renderer.mesh.chunk.BitOcclusionBasedChunkMeshCalculator;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.data.types.Registries;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.lighting.ChunkLightAccessor;
+import de.verdox.voxel.shared.lighting.LightPropagator;
+import de.verdox.voxel.shared.util.Direction;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes the proto mesh of a lit terrain chunk into instance and vertex buffers, like the region mesher does for every chunk of a region.
+ * The UV table is filled from a headless atlas stub, so no GL context is needed. Run with {@code -prof gc}, the decode itself
+ * should not allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class ProtoMeshDecodeBenchmark {
+    private static final int ATLAS_SIZE = 1024;
+    private static final int TEXTURE_SIZE = 16;
+
+    @Param({"single", "greedy"})
+    public String meshing;
+
+    private ChunkProtoMesh protoMesh;
+    private BlockFaceUVTable uvTable;
+    private final FloatArray instances = new FloatArray();
+    private final FloatArray vertices = new FloatArray();
+    private final IntArray indices = new IntArray();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Blocks.bootstrap();
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        LightPropagator propagator = new LightPropagator();
+        Long2ObjectMap<TerrainChunk> terrainChunks = new Long2ObjectOpenHashMap<>();
+        TerrainManager terrainManager = new DetachedTerrainManager(terrainChunks);
+
+        for (int x = 0; x < 3; x++) {
+            for (int z = 0; z < 3; z++) {
+                for (int y = 1; y >= -1; y--) {
+                    Chunk chunk = new ChunkBase(world, x, y, z);
+                    for (int localX = 0; localX < 16; localX++) {
+                        for (int localZ = 0; localZ < 16; localZ++) {
+                            int height = 8 + ((x * 16 + localX) / 5 + (z * 16 + localZ) / 7) % 6;
+                            for (int localY = 0; localY < 16; localY++) {
+                                if (y * 16 + localY < height) {
+                                    chunk.setBlockAt(Blocks.STONE, localX, localY, localZ);
+                                }
+                            }
+                        }
+                    }
+                    world.getChunkMap().saveChunkAfterGeneration(chunk);
+                    propagator.computeSkylight(new ChunkLightAccessor(chunk), y == 1);
+                    terrainChunks.put(Chunk.computeChunkKey(x, y, z), new TerrainChunk(terrainManager, chunk));
+                }
+            }
+        }
+
+        TerrainChunk center = terrainChunks.get(Chunk.computeChunkKey(1, 0, 1));
+        OccupancyMask[] neighbors = new OccupancyMask[6];
+        for (Direction direction : Direction.values()) {
+            neighbors[direction.getId()] = terrainChunks.get(Chunk.computeChunkKey(1 + direction.getOffsetX(), direction.getOffsetY(), 1 + direction.getOffsetZ())).getChunkOccupancyMask();
+        }
+        new BitOcclusionBasedChunkMeshCalculator(meshing.equals("greedy")).calculateChunkMesh(terrainManager, center, neighbors, (byte) 0);
+        protoMesh = center.getChunkProtoMesh();
+
+        // Atlas-Stub: jede Textur bekommt eine feste Kachel, abhängig vom Namen
+        uvTable = BlockFaceUVTable.create(Registries.BLOCKS.streamEntries().toList(), ATLAS_SIZE, textureName -> {
+            int tilesPerRow = ATLAS_SIZE / TEXTURE_SIZE;
+            int tile = Math.floorMod(textureName.hashCode(), tilesPerRow * tilesPerRow);
+            float u = (float) (tile % tilesPerRow) / tilesPerRow;
+            float v = (float) (tile / tilesPerRow) / tilesPerRow;
+            return new float[]{u, v, u + 1f / tilesPerRow, v + 1f / tilesPerRow};
+        });
+        System.out.printf("%n%s: %d faces%n", meshing, protoMesh.getAmountFaces(ProtoMask.FaceType.OPAQUE));
+    }
+
+    @Benchmark
+    public int appendToInstances() {
+        instances.clear();
+        protoMesh.appendToInstances(ProtoMask.FaceType.OPAQUE, instances, uvTable, 0, 0, 0);
+        return instances.size;
+    }
+
+    @Benchmark
+    public int appendToBuffers() {
+        vertices.clear();
+        indices.clear();
+        protoMesh.appendToBuffers(ProtoMask.FaceType.OPAQUE, vertices, indices, 0, uvTable, (byte) 0, 0, 0, 0);
+        return vertices.size + indices.size;
+    }
+}
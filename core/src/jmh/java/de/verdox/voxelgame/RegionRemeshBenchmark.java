@@ -0,0 +1,151 @@
+package de.verdox.voxelgame;
+
+import com.badlogic.gdx.utils.FloatArray;
+import de.verdox.voxel.client.assets.BlockFaceUVTable;
+import de.verdox.voxel.client.level.TerrainManager;
+import de.verdox.voxel.client.level.chunk.TerrainChunk;
+import de.verdox.voxel.client.level.chunk.occupancy.OccupancyMask;
+import de.verdox.voxel.client.level.chunk.proto.ChunkProtoMesh;
+import de.verdox.voxel.client.level.chunk.proto.ProtoMask;
+import de.verdox.voxel.client.level.chunk.proto.Single;
+import de.verdox.voxel.client.renderer.mesh.chunk.BitOcclusionBasedChunkMeshCalculator;
+import de.verdox.voxel.client.renderer.terrain.regions.mesh.RegionInstanceBuffer;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.data.types.Registries;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.lighting.ChunkLightAccessor;
+import de.verdox.voxel.shared.lighting.LightPropagator;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one edited chunk for the region it lives in. Every chunk of a cubic region holds its own terraced slab, meshed greedy once in
+ * the setup, so only the region side is measured: decoding every chunk into a new array like the region mesher did before, against
+ * decoding the edited chunk into its segment of a {@link RegionInstanceBuffer}. The setup prints how many bytes each way leaves to upload.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class RegionRemeshBenchmark {
+    private static final int ATLAS_SIZE = 1024;
+    private static final int TEXTURE_SIZE = 16;
+    private static final int CHUNK_SIZE = 16;
+
+    /**
+     * Chunks per region axis
+     */
+    @Param({"2", "4", "8"})
+    public int regionSize;
+
+    private ChunkProtoMesh[] protoMeshes;
+    private BlockFaceUVTable uvTable;
+    private RegionInstanceBuffer instanceBuffer;
+    private int editedSlot;
+    private int version;
+    private final FloatArray instances = new FloatArray();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Blocks.bootstrap();
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        LightPropagator propagator = new LightPropagator();
+        Long2ObjectMap<TerrainChunk> terrainChunks = new Long2ObjectOpenHashMap<>();
+        TerrainManager terrainManager = new DetachedTerrainManager(terrainChunks);
+        BitOcclusionBasedChunkMeshCalculator calculator = new BitOcclusionBasedChunkMeshCalculator();
+
+        // Leere Nachbarn, so bekommt jeder Chunk auch seine Seitenflächen
+        Chunk air = new ChunkBase(world, -1, -1, -1);
+        OccupancyMask[] neighbors = new OccupancyMask[6];
+        Arrays.fill(neighbors, new TerrainChunk(terrainManager, air).getChunkOccupancyMask());
+
+        protoMeshes = new ChunkProtoMesh[regionSize * regionSize * regionSize];
+        for (int slot = 0; slot < protoMeshes.length; slot++) {
+            int x = slot % regionSize;
+            int y = slot / regionSize % regionSize;
+            int z = slot / (regionSize * regionSize);
+            Chunk chunk = new ChunkBase(world, x, y, z);
+            for (int localX = 0; localX < CHUNK_SIZE; localX++) {
+                for (int localZ = 0; localZ < CHUNK_SIZE; localZ++) {
+                    int height = 2 + Math.floorMod((x * CHUNK_SIZE + localX) / 5 + (z * CHUNK_SIZE + localZ) / 7 + y, 12);
+                    for (int localY = 0; localY < height; localY++) {
+                        chunk.setBlockAt(Blocks.STONE, localX, localY, localZ);
+                    }
+                }
+            }
+            propagator.computeSkylight(new ChunkLightAccessor(chunk), true);
+            TerrainChunk terrainChunk = new TerrainChunk(terrainManager, chunk);
+            terrainChunks.put(Chunk.computeChunkKey(x, y, z), terrainChunk);
+            calculator.calculateChunkMesh(terrainManager, terrainChunk, neighbors, (byte) 0);
+            protoMeshes[slot] = terrainChunk.getChunkProtoMesh();
+        }
+
+        uvTable = BlockFaceUVTable.create(Registries.BLOCKS.streamEntries().toList(), ATLAS_SIZE, textureName -> {
+            int tilesPerRow = ATLAS_SIZE / TEXTURE_SIZE;
+            int tile = Math.floorMod(textureName.hashCode(), tilesPerRow * tilesPerRow);
+            float u = (float) (tile % tilesPerRow) / tilesPerRow;
+            float v = (float) (tile / tilesPerRow) / tilesPerRow;
+            return new float[]{u, v, u + 1f / tilesPerRow, v + 1f / tilesPerRow};
+        });
+
+        instanceBuffer = new RegionInstanceBuffer(protoMeshes.length);
+        for (int slot = 0; slot < protoMeshes.length; slot++) {
+            instances.clear();
+            decode(slot, instances);
+            instanceBuffer.write(slot, version, instances.items, instances.size);
+        }
+        instanceBuffer.clearDirty();
+        editedSlot = protoMeshes.length / 2;
+
+        int fullFloats = rebuildRegion();
+        int patchedFloats = patchEditedChunk() * Single.FLOATS_PER_INSTANCE;
+        System.out.printf("%n%d chunks per region: %d instances, full rebuild uploads %d bytes, a patch of one chunk %d bytes%n",
+                protoMeshes.length, instanceBuffer.getLiveInstances(), fullFloats * Float.BYTES, patchedFloats * Float.BYTES);
+    }
+
+    private void decode(int slot, FloatArray target) {
+        int x = slot % regionSize;
+        int y = slot / regionSize % regionSize;
+        int z = slot / (regionSize * regionSize);
+        protoMeshes[slot].appendToInstances(ProtoMask.FaceType.OPAQUE, target, uvTable, x * CHUNK_SIZE, y * CHUNK_SIZE, z * CHUNK_SIZE);
+    }
+
+    /**
+     * The region mesher before segments: every chunk is decoded again and the region gets a new array
+     */
+    private int rebuildRegion() {
+        FloatArray region = new FloatArray();
+        for (int slot = 0; slot < protoMeshes.length; slot++) {
+            decode(slot, region);
+        }
+        return region.toArray().length;
+    }
+
+    private int patchEditedChunk() {
+        instances.clear();
+        decode(editedSlot, instances);
+        instanceBuffer.write(editedSlot, ++version, instances.items, instances.size);
+        int dirty = instanceBuffer.getDirtyTo() - instanceBuffer.getDirtyFrom();
+        instanceBuffer.clearDirty();
+        return dirty;
+    }
+
+    @Benchmark
+    public int fullRebuild() {
+        return rebuildRegion();
+    }
+
+    @Benchmark
+    public int patchOneChunk() {
+        return patchEditedChunk();
+    }
+}
@@ -32,6 +32,7 @@ public class GameSession {
         ClientInterface clientInterface = new ClientInterfaceImpl(null);
         LocalServerInterface serverInterface = new LocalServerInterface(localServer, clientInterface);
         instance = new GameSession(clientInterface, serverInterface);
+        serverInterface.start();
         serverInterface.localConnect();
         ;
     }
@@ -0,0 +1,123 @@
+package de.verdox.voxel.client.assets;
+
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import de.verdox.voxel.shared.data.registry.ResourceLocation;
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.block.BlockModel;
+import de.verdox.voxel.shared.level.block.BlockModelType;
+import de.verdox.voxel.shared.util.Direction;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Face definition and atlas coordinates of every block face, indexed by material id and {@link Direction}.
+ * <p>
+ * Resolved once after the block atlas is built, so decoding a proto mesh does not look up models and texture names per face.
+ */
+public class BlockFaceUVTable {
+    private static final int DIRECTIONS = Direction.values().length;
+
+    /**
+     * Returns the atlas coordinates {@code {u, v, u2, v2}} of a texture or null if the atlas does not contain it
+     */
+    public interface TextureResolver {
+        float[] resolve(String textureName);
+    }
+
+    private final BlockModelType.BlockFace[] faces;
+    private final float[] uvs;
+    private final int[] tileU;
+    private final int[] tileV;
+
+    private BlockFaceUVTable(int entries) {
+        this.faces = new BlockModelType.BlockFace[entries];
+        this.uvs = new float[entries * 4];
+        this.tileU = new int[entries];
+        this.tileV = new int[entries];
+    }
+
+    public static BlockFaceUVTable fromAtlas(TextureAtlas textureAtlas, int atlasSize, Collection<BlockBase> blocks) {
+        return create(blocks, atlasSize, textureName -> {
+            TextureRegion region = textureAtlas.findRegion(textureName);
+            if (region == null) {
+                return null;
+            }
+            return new float[]{region.getU(), region.getV(), region.getU2(), region.getV2()};
+        });
+    }
+
+    public static BlockFaceUVTable create(Collection<BlockBase> blocks, int atlasSize, TextureResolver resolver) {
+        int maxMaterialId = 0;
+        for (BlockBase block : blocks) {
+            maxMaterialId = Math.max(maxMaterialId, block.getMaterialID());
+        }
+
+        BlockFaceUVTable table = new BlockFaceUVTable((maxMaterialId + 1) * DIRECTIONS);
+        for (BlockBase block : blocks) {
+            BlockModel model = block.getModel();
+            for (Direction direction : Direction.values()) {
+                List<BlockModelType.BlockFace> facesOfDirection = model.getBlockModelType().getBlockFace(direction);
+                if (facesOfDirection.isEmpty()) {
+                    continue;
+                }
+                int index = indexOf(block.getMaterialID(), direction);
+                BlockModelType.BlockFace face = facesOfDirection.getFirst();
+                table.faces[index] = face;
+
+                ResourceLocation textureName = model.getTextureOfFace(model.getBlockModelType().getNameOfFace(face));
+                float[] uv = textureName != null ? resolver.resolve(textureName.toString()) : null;
+                if (uv == null) {
+                    continue;
+                }
+                System.arraycopy(uv, 0, table.uvs, index * 4, 4);
+                table.tileU[index] = (int) (uv[0] * atlasSize);
+                table.tileV[index] = (int) (uv[1] * atlasSize);
+            }
+        }
+        return table;
+    }
+
+    public static int indexOf(BlockBase block, Direction direction) {
+        return indexOf(block.getMaterialID(), direction);
+    }
+
+    private static int indexOf(int materialId, Direction direction) {
+        return materialId * DIRECTIONS + direction.getId();
+    }
+
+    /**
+     * The first face of the block model in this direction, null if the model has none
+     */
+    public BlockModelType.BlockFace getFace(int index) {
+        return faces[index];
+    }
+
+    public float getU(int index) {
+        return uvs[index * 4];
+    }
+
+    public float getV(int index) {
+        return uvs[index * 4 + 1];
+    }
+
+    public float getU2(int index) {
+        return uvs[index * 4 + 2];
+    }
+
+    public float getV2(int index) {
+        return uvs[index * 4 + 3];
+    }
+
+    /**
+     * Start of the texture in atlas pixels, as the instanced shader expects it
+     */
+    public int getTileU(int index) {
+        return tileU[index];
+    }
+
+    public int getTileV(int index) {
+        return tileV[index];
+    }
+}
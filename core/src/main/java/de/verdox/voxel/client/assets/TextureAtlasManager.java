@@ -8,6 +8,7 @@ import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import de.verdox.voxel.shared.data.registry.ResourceLocation;
 import de.verdox.voxel.shared.level.block.BlockModel;
 import de.verdox.voxel.shared.data.types.BlockModels;
+import de.verdox.voxel.shared.data.types.Registries;
 import lombok.Getter;
 
 import java.util.ArrayList;
@@ -28,6 +29,8 @@ public class TextureAtlasManager {
     private final List<BlockModel> blockModels = new ArrayList<>();
     @Getter
     private TextureAtlas blockTextureAtlas;
+    @Getter
+    private BlockFaceUVTable blockFaceUVTable;
 
     private TextureAtlasManager() {
 
@@ -68,6 +71,7 @@ public class TextureAtlasManager {
                 false
         );
         blockTexturePacker.dispose();
+        blockFaceUVTable = BlockFaceUVTable.fromAtlas(blockTextureAtlas, getBlockTextureAtlasSize(), Registries.BLOCKS.streamEntries().toList());
 
         Gdx.app.log("Atlas", "Block Atlas created with " + blockTextureAtlas.getRegions().size + " regions on " + blockTextureAtlas.getTextures().size + " texture pages.");
     }
@@ -151,19 +151,24 @@ public class ClientWorld extends DelegateWorld {
         return chunk.getBlockAt(localX, localY, localZ);
     }
 
-    @Override
-    public void notifyAddChunk(Chunk chunk) {
+    /**
+     * Adds a chunk the server sent. Singleplayer and multiplayer both hand their chunks over here.
+     */
+    public void receiveChunk(Chunk chunk) {
         GameSession.postRunnable(() -> {
             terrainManager.addChunk(chunk);
             chunkRequestManager.notifyChunkReceived(chunk.getChunkKey());
         });
     }
 
+    @Override
+    public void notifyAddChunk(Chunk chunk) {
+        // Im Singleplayer ist die Serverwelt der Owner. Angezeigt wird trotzdem nur, was der Server schickt, wie im Multiplayer
+    }
+
     @Override
     public void notifyRemoveChunk(Chunk chunk) {
-        GameSession.postRunnable(() -> {
-            terrainManager.removeChunk(chunk);
-        });
+        // Chunks außerhalb der Sichtweite entfernt onCenterChange
     }
 
     @Override
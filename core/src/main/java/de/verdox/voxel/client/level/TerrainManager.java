@@ -20,6 +20,26 @@ public interface TerrainManager {
 
     void afterChunkUpdate(Chunk chunk, boolean wasEmptyBefore);
 
+    /**
+     * Called when blocks on the sides of a chunk changed, the neighbors across these sides cull their border faces against the chunk
+     *
+     * @param sides bit mask of the {@link de.verdox.voxel.shared.util.Direction#getId()} of the changed sides
+     */
+    void afterBorderChange(Chunk chunk, int sides);
+
+    /**
+     * Called when the light of a chunk changed because a block in a neighbor chunk changed
+     */
+    void afterLightChange(TerrainChunk chunk);
+
+    /**
+     * Level of detail the chunk is rendered with, faces toward a neighbor at another level are culled against that level.
+     * Managers without levels of detail render every chunk at the requested level.
+     */
+    default int getRenderedLodLevel(TerrainChunk chunk, int requestedLodLevel) {
+        return requestedLodLevel;
+    }
+
     int getCenterChunkX();
 
     int getCenterChunkY();
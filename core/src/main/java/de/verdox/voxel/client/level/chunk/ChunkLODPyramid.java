@@ -1,23 +1,75 @@
 package de.verdox.voxel.client.level.chunk;
 
-import de.verdox.voxel.client.level.chunk.occupancy.BitsetBasedOccupancyMask;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.data.types.Registries;
 import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.util.lod.GridDim;
 import de.verdox.voxel.shared.util.lod.LODUtil;
+import de.verdox.voxel.shared.util.lod.LodPyramid;
 
+/**
+ * The levels of detail of a terrain chunk. The {@link LodPyramid} and the {@link LODChunk}s are only built once a level is requested,
+ * most chunks near the camera never need them. Afterward every block change of the parent is applied incrementally.
+ */
 public class ChunkLODPyramid {
     private final TerrainChunk parent;
+    private final int maxLodLevel;
+    private final LODChunk[] lodChunks;
 
-    private BitsetBasedOccupancyMask[] masksForLevels;
+    private LodPyramid pyramid;
 
     public ChunkLODPyramid(TerrainChunk parent) {
         this.parent = parent;
-        int maxLODLevel = LODUtil.getMaxLod(parent.getWorld());
-
-        this.masksForLevels = new BitsetBasedOccupancyMask[maxLODLevel];
+        this.maxLodLevel = LODUtil.getMaxLod(parent.getWorld());
+        this.lodChunks = new LODChunk[maxLodLevel];
     }
 
-    public void blockChange(BlockBase newBlock, int localX, int localY, int localZ) {
+    /**
+     * @param lodLevel between 1 and {@link LODUtil#getMaxLod}
+     */
+    public synchronized LODChunk getLodChunk(int lodLevel) {
+        if (lodLevel < 1 || lodLevel > maxLodLevel) {
+            throw new IllegalArgumentException("Lod Level must be between 1 and " + maxLodLevel);
+        }
+        if (pyramid == null) {
+            // Belegt ist alles, was nicht durchsichtig ist, wie in der Occupancy Mask
+            pyramid = new LodPyramid(new GridDim(parent.getSizeX(), parent.getSizeY(), parent.getSizeZ()), maxLodLevel, LodPyramid.Fold.ANY,
+                    id -> !Registries.BLOCKS.byId(id).isTransparent(),
+                    (x, y, z) -> parent.getBlockAt(x, y, z).getMaterialID(),
+                    Blocks.AIR.getMaterialID());
+            pyramid.rebuildFromSource();
+        }
+        LODChunk lodChunk = lodChunks[lodLevel - 1];
+        if (lodChunk == null) {
+            lodChunk = new LODChunk(parent, this, lodLevel);
+            lodChunks[lodLevel - 1] = lodChunk;
+        }
+        return lodChunk;
+    }
 
+    /**
+     * Id of the block a LOD cell shows, air if the cell is empty
+     */
+    synchronized int getLodId(int lodLevel, int lodX, int lodY, int lodZ) {
+        return pyramid.getLodIdOrDefault(lodLevel, lodX, lodY, lodZ);
     }
 
+    public synchronized void blockChange(int localX, int localY, int localZ) {
+        if (pyramid == null) {
+            return;
+        }
+        int changedLevels = pyramid.onCellChange(localX, localY, localZ);
+        while (changedLevels != 0) {
+            int lodLevel = Integer.numberOfTrailingZeros(changedLevels) + 1;
+            changedLevels &= changedLevels - 1;
+
+            LODChunk lodChunk = lodChunks[lodLevel - 1];
+            if (lodChunk == null) {
+                continue;
+            }
+            int lodX = localX >> lodLevel, lodY = localY >> lodLevel, lodZ = localZ >> lodLevel;
+            BlockBase lodBlock = Registries.BLOCKS.byId(pyramid.getLodIdOrDefault(lodLevel, lodX, lodY, lodZ));
+            lodChunk.updateCell(lodBlock, lodX, lodY, lodZ);
+        }
+    }
 }
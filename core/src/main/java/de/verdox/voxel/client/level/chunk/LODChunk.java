@@ -1,11 +1,11 @@
 package de.verdox.voxel.client.level.chunk;
 
-import de.verdox.voxel.client.level.chunk.occupancy.BitsetBasedOccupancyMask;
+import de.verdox.voxel.client.level.chunk.occupancy.ColumnOccupancyMask;
 import de.verdox.voxel.client.level.chunk.occupancy.OccupancyMask;
 import de.verdox.voxel.client.level.chunk.proto.ChunkProtoMesh;
-import de.verdox.voxel.shared.util.lod.LODUtil;
-import de.verdox.voxel.shared.data.registry.ResourceLocation;
 import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.data.types.Registries;
+import de.verdox.voxel.shared.util.lod.LODUtil;
 import de.verdox.voxel.shared.level.block.BlockBase;
 import de.verdox.voxel.shared.level.chunk.Chunk;
 import de.verdox.voxel.shared.level.chunk.DelegateChunk;
@@ -16,43 +16,68 @@ import de.verdox.voxel.shared.level.world.World;
 import de.verdox.voxel.shared.lighting.ChunkLightData;
 import de.verdox.voxel.shared.util.Delegate;
 import de.verdox.voxel.shared.util.Direction;
-import de.verdox.voxel.shared.util.palette.ThreeDimensionalPalette;
-import de.verdox.voxel.shared.util.palette.strategy.PaletteStrategy;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import lombok.Getter;
 
 import java.util.List;
 
+/**
+ * A terrain chunk downsampled to one level of detail, a block of this chunk covers 2^lodLevel blocks of the owner per axis.
+ * <p>
+ * The blocks come from the {@link ChunkLODPyramid} of the owner and are kept up to date by it. The light is the average light of the
+ * transparent blocks of every cell, it is computed again whenever the light of the owner changed.
+ */
 public class LODChunk implements Delegate<TerrainChunk>, RenderableChunk {
     private final TerrainChunk owner;
     @Getter
-    private final OccupancyMask chunkOccupancyMask = new BitsetBasedOccupancyMask();
+    private final OccupancyMask chunkOccupancyMask = new ColumnOccupancyMask();
     @Getter
     private final int lodLevel;
     @Getter
     private final ChunkProtoMesh chunkProtoMesh;
+    @Getter
+    private final ChunkBlockPalette chunkBlockPalette = new ChunkBlockPalette(Blocks.AIR);
 
-    public static LODChunk of(TerrainChunk parent, int lodLevel) {
-        return new LODChunk(parent, lodLevel);
-    }
+    private volatile ChunkLightData chunkLightData;
+    /**
+     * Version of the owner light the current average was computed from
+     */
+    private volatile int averagedLightVersion;
 
-    private LODChunk(TerrainChunk parent, int lodLevel) {
+    LODChunk(TerrainChunk parent, ChunkLODPyramid pyramid, int lodLevel) {
         this.owner = parent;
         this.lodLevel = lodLevel;
-        initLodChunk();
-        initLodLight();
+        this.chunkBlockPalette.setOwner(this);
+        for (int x = 0; x < getSizeX(); x++) {
+            for (int y = 0; y < getSizeY(); y++) {
+                for (int z = 0; z < getSizeZ(); z++) {
+                    int id = pyramid.getLodId(lodLevel, x, y, z);
+                    if (id != Blocks.AIR.getMaterialID()) {
+                        chunkBlockPalette.set((short) x, (short) y, (short) z, Registries.BLOCKS.byId(id));
+                    }
+                }
+            }
+        }
         this.chunkOccupancyMask.setOwner(this);
         this.chunkOccupancyMask.initFromOwner();
         this.chunkProtoMesh = new ChunkProtoMesh(this);
-        this.subscribe(parent);
+        averageLight();
+    }
+
+    /**
+     * Called by the {@link ChunkLODPyramid} when the block of a cell changed
+     */
+    void updateCell(BlockBase lodBlock, int lodX, int lodY, int lodZ) {
+        chunkBlockPalette.set((short) lodX, (short) lodY, (short) lodZ, lodBlock);
+        chunkOccupancyMask.updateOccupancyMask(lodBlock, lodX, lodY, lodZ);
     }
 
+    /**
+     * LOD chunks are derived from their owner, blocks have to be changed there
+     */
     @Override
-    public void setBlockAt(BlockBase newBlock, int localX, int localY, int localZ) {
-        int lodX = localX(localX);
-        int lodY = localY(localY);
-        int lodZ = localZ(localZ);
-        updateBlockAt(lodX, lodY, lodZ, true, true);
-        this.chunkOccupancyMask.updateOccupancyMask(newBlock, lodX, lodY, lodZ);
+    public LongSet setBlockAt(BlockBase newBlock, int localX, int localY, int localZ) {
+        throw new UnsupportedOperationException("LOD chunks can not be changed, change the owner chunk instead");
     }
 
     @Override
@@ -75,11 +100,6 @@ public class LODChunk implements Delegate<TerrainChunk>, RenderableChunk {
         return this.owner.getChunkZ();
     }
 
-    @Override
-    public ChunkBlockPalette getChunkBlockPalette() {
-        return null;
-    }
-
     @Override
     public HeightMap getHeightMap() {
         return this.owner.getHeightMap();
@@ -92,7 +112,10 @@ public class LODChunk implements Delegate<TerrainChunk>, RenderableChunk {
 
     @Override
     public ChunkLightData getChunkLightData() {
-        return null;
+        if (owner.getChunkLightData().getVersion() != averagedLightVersion) {
+            averageLight();
+        }
+        return chunkLightData;
     }
 
     @Override
@@ -112,16 +135,8 @@ public class LODChunk implements Delegate<TerrainChunk>, RenderableChunk {
 
     @Override
     public <SELF extends Chunk> SELF getNeighborChunk(Direction direction) {
-        return (SELF) ((TerrainChunk) this.owner.getNeighborChunk(direction)).getLodChunk(lodLevel);
-    }
-
-    @Override
-    public BlockBase getBlockAt(int localX, int localY, int localZ) {
-        int lodX = localX(localX);
-        int lodY = localY(localY);
-        int lodZ = localZ(localZ);
-        //return super.getBlockAt(lodX, lodY, lodZ);
-        return null;
+        TerrainChunk neighbor = this.owner.getNeighborChunk(direction);
+        return neighbor == null ? null : (SELF) neighbor.getLodChunk(lodLevel);
     }
 
     @Override
@@ -139,87 +154,74 @@ public class LODChunk implements Delegate<TerrainChunk>, RenderableChunk {
         return owner.getSizeZ() / getLodStep();
     }
 
-    private void updateBlockAt(int lodX, int lodY, int lodZ, boolean updateBlocks, boolean updateLights) {
-        BlockBase lodBlock = null;
-        int counter = 0;
-        int accuracy = getLodAccuracy();
-        int lodStep = getLodStep();
-
-        for (int x = 0; x < lodStep; x++) {
-            for (int y = 0; y < lodStep; y++) {
-                for (int z = 0; z < lodStep; z++) {
-                    int relX = (lodX * lodStep) + x;
-                    int relY = (lodY * lodStep) + y;
-                    int relZ = (lodZ * lodStep) + z;
-                    BlockBase blockInParent = owner.getBlockAt(relX, relY, relZ);
-
-                    if (blockInParent != null && !blockInParent.equals(Blocks.AIR)) {
-                        counter++;
-                        if (lodBlock == null) {
-                            lodBlock = blockInParent;
-                        }
-                    }
-
-                    if (counter >= accuracy) {
-                        if (updateBlocks && lodBlock != null) {
-                            //super.setBlockAt(lodBlock, lodX, lodY, lodZ);
-                        }
-                        if (updateLights) {
-                            byte skyLight = owner.getChunkLightData().getSkyLight(lodX + x, lodY + y, lodZ + z);
-                            byte red = owner.getChunkLightData().getBlockRed(lodX + x, lodY + y, lodZ + z);
-                            byte green = owner.getChunkLightData().getBlockGreen(lodX + x, lodY + y, lodZ + z);
-                            byte blue = owner.getChunkLightData().getBlockBlue(lodX + x, lodY + y, lodZ + z);
-                            getChunkLightData().setSkyLight(lodX, lodY, lodZ, skyLight);
-                            getChunkLightData().setBlockLight(lodX, lodY, lodZ, red, green, blue);
-                        }
-                        break;
-                    }
-                }
-            }
-        }
-    }
-
     public int getLodStep() {
         return LODUtil.getLodScale(lodLevel);
     }
 
-    public int getLodAccuracy() {
-        int lodStep = getLodStep();
-        return (int) (lodStep * lodStep * lodStep / 2f);
-    }
-
-    private void initLodChunk() {
-        if (owner.getChunkBlockPalette().getState().equals(ThreeDimensionalPalette.State.EMPTY)) {
-            this.getChunkBlockPalette().setStrategy(new PaletteStrategy.Empty<>(), ThreeDimensionalPalette.State.EMPTY);
-        } else if (owner.getChunkBlockPalette().getState().equals(ThreeDimensionalPalette.State.UNIFORM) && owner
-                .getChunkBlockPalette().getStrategy() instanceof PaletteStrategy.Uniform<?> strategy) {
-
-            this.getChunkBlockPalette().setStrategy(new PaletteStrategy.Uniform<>((BlockBase) strategy.getUniformValue()), ThreeDimensionalPalette.State.UNIFORM);
-        } else {
-            for (int x = 0; x < getSizeX(); x++) {
-                for (int y = 0; y < getSizeY(); y++) {
-                    for (int z = 0; z < getSizeZ(); z++) {
-                        updateBlockAt(x, y, z, true, false);
-                    }
-                }
-            }
+    /**
+     * Averages the light of the transparent blocks of every cell. Cells without transparent blocks average all of their blocks.
+     * The result replaces the light data at once, so meshing threads never see a half computed average.
+     */
+    private synchronized void averageLight() {
+        ChunkLightData ownerLight = owner.getChunkLightData();
+        int version = ownerLight.getVersion();
+        if (chunkLightData != null && version == averagedLightVersion) {
+            return;
         }
-    }
 
-    private void initLodLight() {
-        if (owner.getChunkLightData().getState().equals(ChunkLightData.LightState.UNINITIALIZED)) {
-            return;
-        } else if (owner.getChunkLightData().getState().equals(ChunkLightData.LightState.UNIFORM)) {
-            this.getChunkLightData().setUniform(owner.getChunkLightData().getUniformPacked());
-        } else {
-            for (int x = 0; x < getSizeX(); x++) {
-                for (int y = 0; y < getSizeY(); y++) {
-                    for (int z = 0; z < getSizeZ(); z++) {
-                        updateBlockAt(x, y, z, false, true);
+        ChunkLightData averaged = new ChunkLightData();
+        averaged.setOwner(this);
+        switch (ownerLight.getState()) {
+            case UNINITIALIZED -> averaged.setUniform((short) 0);
+            case UNIFORM -> averaged.setUniform(ownerLight.getUniformPacked());
+            case DETAILED -> {
+                OccupancyMask ownerOccupancy = owner.getChunkOccupancyMask();
+                int step = getLodStep();
+                for (int x = 0; x < getSizeX(); x++) {
+                    for (int y = 0; y < getSizeY(); y++) {
+                        for (int z = 0; z < getSizeZ(); z++) {
+                            int sky = 0, red = 0, green = 0, blue = 0, samples = 0;
+                            int allSky = 0, allRed = 0, allGreen = 0, allBlue = 0;
+                            for (int dx = 0; dx < step; dx++) {
+                                for (int dy = 0; dy < step; dy++) {
+                                    for (int dz = 0; dz < step; dz++) {
+                                        int ox = x * step + dx, oy = y * step + dy, oz = z * step + dz;
+                                        byte s = ownerLight.getSkyLight(ox, oy, oz);
+                                        byte r = ownerLight.getBlockRed(ox, oy, oz);
+                                        byte g = ownerLight.getBlockGreen(ox, oy, oz);
+                                        byte b = ownerLight.getBlockBlue(ox, oy, oz);
+                                        allSky += s;
+                                        allRed += r;
+                                        allGreen += g;
+                                        allBlue += b;
+                                        if (!ownerOccupancy.isOpaque(ox, oy, oz)) {
+                                            sky += s;
+                                            red += r;
+                                            green += g;
+                                            blue += b;
+                                            samples++;
+                                        }
+                                    }
+                                }
+                            }
+                            if (samples == 0) {
+                                sky = allSky;
+                                red = allRed;
+                                green = allGreen;
+                                blue = allBlue;
+                                samples = step * step * step;
+                            }
+                            int half = samples / 2;
+                            averaged.setSkyLight(x, y, z, (byte) ((sky + half) / samples));
+                            averaged.setBlockLight(x, y, z, (byte) ((red + half) / samples), (byte) ((green + half) / samples), (byte) ((blue + half) / samples));
+                        }
                     }
                 }
+                averaged.compact();
             }
         }
+        this.chunkLightData = averaged;
+        this.averagedLightVersion = version;
     }
 
     @Override
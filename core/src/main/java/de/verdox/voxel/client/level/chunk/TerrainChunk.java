@@ -1,10 +1,10 @@
 package de.verdox.voxel.client.level.chunk;
 
-import de.verdox.voxel.client.level.chunk.occupancy.BitsetBasedOccupancyMask;
+import de.verdox.voxel.client.GameSession;
+import de.verdox.voxel.client.level.chunk.occupancy.ColumnOccupancyMask;
 import de.verdox.voxel.client.level.chunk.occupancy.OccupancyMask;
 import de.verdox.voxel.client.level.chunk.proto.ChunkProtoMesh;
 import de.verdox.voxel.client.level.TerrainManager;
-import de.verdox.voxel.shared.util.lod.LODUtil;
 import de.verdox.voxel.shared.level.block.BlockBase;
 import de.verdox.voxel.shared.level.chunk.Chunk;
 import de.verdox.voxel.shared.level.chunk.DelegateChunk;
@@ -13,16 +13,12 @@ import lombok.Getter;
 
 public class TerrainChunk extends DelegateChunk implements RenderableChunk {
     @Getter
-    private final OccupancyMask chunkOccupancyMask = new BitsetBasedOccupancyMask();
+    private final OccupancyMask chunkOccupancyMask = new ColumnOccupancyMask();
     @Getter
     private final TerrainManager terrainManager;
     @Getter
-    private LODChunk currentUsedLod;
-    @Getter
     private final ChunkProtoMesh chunkProtoMesh;
 
-    private final LODChunk[] lods;
-
     private final ChunkLODPyramid chunkLODPyramid;
 
     public TerrainChunk(TerrainManager terrainManager, Chunk owner) {
@@ -32,21 +28,15 @@ public class TerrainChunk extends DelegateChunk implements RenderableChunk {
         this.chunkOccupancyMask.initFromOwner();
         this.chunkProtoMesh = new ChunkProtoMesh(this);
         this.chunkLODPyramid = new ChunkLODPyramid(this);
-
-        this.lods = new LODChunk[LODUtil.getMaxLod(getWorld())];
     }
 
-    public synchronized LODChunk getLodChunk(int lodLevel) {
-/*        int maxLod = LODUtil.getMaxLod(getWorld());
-        if (lodLevel < 0 || lodLevel > maxLod) {
-            throw new IllegalArgumentException("Lod Level must be between 0 and " + maxLod);
-        }
-        // Only cache the last used lod chunk
-        if (currentUsedLod == null || currentUsedLod.getLodLevel() != lodLevel) {
-            currentUsedLod = LODChunk.of(this, lodLevel);
-            currentUsedLod.init();
-        }*/
-        return lods[lodLevel - 1];
+    /**
+     * The downsampled copy of this chunk, built on first use and updated with every block change afterward
+     *
+     * @param lodLevel between 1 and {@link de.verdox.voxel.shared.util.lod.LODUtil#getMaxLod}
+     */
+    public LODChunk getLodChunk(int lodLevel) {
+        return chunkLODPyramid.getLodChunk(lodLevel);
     }
 
     @Override
@@ -62,6 +52,12 @@ public class TerrainChunk extends DelegateChunk implements RenderableChunk {
     @Override
     public void notifySetBlock(BlockBase newBlock, int localX, int localY, int localZ) {
         this.chunkOccupancyMask.updateOccupancyMask(newBlock, localX, localY, localZ);
-        this.chunkLODPyramid.blockChange(newBlock, localX, localY, localZ);
+        this.chunkLODPyramid.blockChange(localX, localY, localZ);
+    }
+
+    @Override
+    public void notifyLightChange() {
+        // Die Blöcke sind gleich geblieben, nur das Licht im Mesh ist veraltet
+        GameSession.postRunnable(() -> terrainManager.afterLightChange(this));
     }
 }
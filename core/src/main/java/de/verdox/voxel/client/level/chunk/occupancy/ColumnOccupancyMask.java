@@ -0,0 +1,212 @@
+package de.verdox.voxel.client.level.chunk.occupancy;
+
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.data.ChunkData;
+import de.verdox.voxel.shared.level.world.World;
+import de.verdox.voxel.shared.util.Direction;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+
+/**
+ * Occupancy stored as one long per column, so every column read is a single array access.
+ * The z columns are the primary storage, the x and y columns are transposed copies that are kept in sync on every update,
+ * so the mesher gets every axis as a bit row. Chunks may be at most {@link World#MAX_CHUNK_SIZE} blocks along every axis.
+ * <p>
+ * The side mask is kept up to date with one opaque counter per face instead of rescanning the faces.
+ */
+public class ColumnOccupancyMask implements OccupancyMask, ChunkData<Chunk> {
+    /**
+     * Lowest bit of every segment for the step sizes 1, 2, 4, ... 64, indexed by the log2 of the step size
+     */
+    private static final long[] SEGMENT_STARTS = new long[7];
+
+    static {
+        for (int log = 0; log < SEGMENT_STARTS.length; log++) {
+            long mask = 0L;
+            for (int bit = 0; bit < 64; bit += 1 << log) {
+                mask |= 1L << bit;
+            }
+            SEGMENT_STARTS[log] = mask;
+        }
+    }
+
+    @Getter
+    @Setter
+    private Chunk owner;
+    private int sx, sy, sz;
+
+    /**
+     * Bits sind z, index = x * sy + y
+     */
+    private long[] zColumns;
+    /**
+     * Bits sind x, index = y * sz + z
+     */
+    private long[] xColumns;
+    /**
+     * Bits sind y, index = x * sz + z
+     */
+    private long[] yColumns;
+
+    private final int[] opaqueOnFace = new int[Direction.values().length];
+    private int sideOcclusionMask;
+    private long totalOpaqueCount;
+
+    @Override
+    public void initFromOwner() {
+        int newSx = owner.getSizeX();
+        int newSy = owner.getSizeY();
+        int newSz = owner.getSizeZ();
+        if (newSx > World.MAX_CHUNK_SIZE || newSy > World.MAX_CHUNK_SIZE || newSz > World.MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Max chunk size is " + World.MAX_CHUNK_SIZE);
+        }
+        if (zColumns == null || newSx != sx || newSy != sy || newSz != sz) {
+            sx = newSx;
+            sy = newSy;
+            sz = newSz;
+            zColumns = new long[sx * sy];
+            xColumns = new long[sy * sz];
+            yColumns = new long[sx * sz];
+        } else {
+            Arrays.fill(zColumns, 0L);
+            Arrays.fill(xColumns, 0L);
+            Arrays.fill(yColumns, 0L);
+        }
+
+        for (int x = 0; x < sx; x++) {
+            for (int y = 0; y < sy; y++) {
+                long column = 0L;
+                for (int z = 0; z < sz; z++) {
+                    if (!owner.getBlockAt(x, y, z).isTransparent()) {
+                        column |= 1L << z;
+                        xColumns[y * sz + z] |= 1L << x;
+                        yColumns[x * sz + z] |= 1L << y;
+                    }
+                }
+                zColumns[x * sy + y] = column;
+            }
+        }
+        countFaces();
+    }
+
+    @Override
+    public boolean isOpaque(int localX, int localY, int localZ) {
+        return (zColumns[localX * sy + localY] & (1L << localZ)) != 0;
+    }
+
+    @Override
+    public void updateOccupancyMask(BlockBase block, int x, int y, int z) {
+        int index = x * sy + y;
+        long bit = 1L << z;
+        boolean wasOpaque = (zColumns[index] & bit) != 0;
+        boolean nowOpaque = !block.isTransparent();
+        if (wasOpaque == nowOpaque) {
+            return;
+        }
+
+        // Alle drei Ansichten gleichzeitig umschalten
+        zColumns[index] ^= bit;
+        xColumns[y * sz + z] ^= 1L << x;
+        yColumns[x * sz + z] ^= 1L << y;
+
+        int delta = nowOpaque ? 1 : -1;
+        totalOpaqueCount += delta;
+        if (x == 0) opaqueOnFace[Direction.WEST.getId()] += delta;
+        if (x == sx - 1) opaqueOnFace[Direction.EAST.getId()] += delta;
+        if (y == 0) opaqueOnFace[Direction.DOWN.getId()] += delta;
+        if (y == sy - 1) opaqueOnFace[Direction.UP.getId()] += delta;
+        if (z == 0) opaqueOnFace[Direction.NORTH.getId()] += delta;
+        if (z == sz - 1) opaqueOnFace[Direction.SOUTH.getId()] += delta;
+        computeSideMask();
+    }
+
+    @Override
+    public long getTotalOpaque() {
+        return totalOpaqueCount;
+    }
+
+    @Override
+    public boolean isChunkFullOpaque() {
+        return totalOpaqueCount == (long) sx * sy * sz;
+    }
+
+    @Override
+    public boolean isChunkEmpty() {
+        return totalOpaqueCount == 0;
+    }
+
+    @Override
+    public long getZColumn(int x, int y) {
+        return zColumns[x * sy + y];
+    }
+
+    @Override
+    public long getXColumn(int y, int z) {
+        return xColumns[y * sz + z];
+    }
+
+    @Override
+    public long getYColumn(int x, int z) {
+        return yColumns[x * sz + z];
+    }
+
+    /**
+     * Folds the column with ORs so the lowest bit of every segment holds the whole segment, then packs those bits together.
+     * Step sizes that are no power of two fall back to the segment loop.
+     */
+    @Override
+    public long getLodColumn(int x, int y, int stepSize, int sz) {
+        long base = getZColumn(x, y);
+        if (stepSize == 1) {
+            return base;
+        }
+        if (Integer.bitCount(stepSize) != 1) {
+            return OccupancyMask.super.getLodColumn(x, y, stepSize, sz);
+        }
+        long folded = base;
+        for (int shift = 1; shift < stepSize; shift <<= 1) {
+            folded |= folded >>> shift;
+        }
+        long columnBits = sz == 64 ? ~0L : (1L << sz) - 1;
+        return Long.compress(folded, SEGMENT_STARTS[Integer.numberOfTrailingZeros(stepSize)] & columnBits);
+    }
+
+    @Override
+    public long getSideMask() {
+        return sideOcclusionMask;
+    }
+
+    private void countFaces() {
+        long total = 0;
+        Arrays.fill(opaqueOnFace, 0);
+        for (int x = 0; x < sx; x++) {
+            for (int y = 0; y < sy; y++) {
+                long column = zColumns[x * sy + y];
+                int count = Long.bitCount(column);
+                total += count;
+                if (x == 0) opaqueOnFace[Direction.WEST.getId()] += count;
+                if (x == sx - 1) opaqueOnFace[Direction.EAST.getId()] += count;
+                if (y == 0) opaqueOnFace[Direction.DOWN.getId()] += count;
+                if (y == sy - 1) opaqueOnFace[Direction.UP.getId()] += count;
+                opaqueOnFace[Direction.NORTH.getId()] += (int) (column & 1L);
+                opaqueOnFace[Direction.SOUTH.getId()] += (int) ((column >>> (sz - 1)) & 1L);
+            }
+        }
+        totalOpaqueCount = total;
+        computeSideMask();
+    }
+
+    private void computeSideMask() {
+        int m = 0;
+        if (opaqueOnFace[Direction.WEST.getId()] == sy * sz) m |= 1 << Direction.WEST.getId();
+        if (opaqueOnFace[Direction.EAST.getId()] == sy * sz) m |= 1 << Direction.EAST.getId();
+        if (opaqueOnFace[Direction.DOWN.getId()] == sx * sz) m |= 1 << Direction.DOWN.getId();
+        if (opaqueOnFace[Direction.UP.getId()] == sx * sz) m |= 1 << Direction.UP.getId();
+        if (opaqueOnFace[Direction.NORTH.getId()] == sx * sy) m |= 1 << Direction.NORTH.getId();
+        if (opaqueOnFace[Direction.SOUTH.getId()] == sx * sy) m |= 1 << Direction.SOUTH.getId();
+        sideOcclusionMask = m;
+    }
+}
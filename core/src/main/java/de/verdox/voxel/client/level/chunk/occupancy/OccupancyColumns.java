@@ -0,0 +1,18 @@
+package de.verdox.voxel.client.level.chunk.occupancy;
+
+/**
+ * Read access to the opaque blocks of a chunk as bit columns. This is all the mesher reads from the neighbor chunks.
+ */
+public interface OccupancyColumns {
+    boolean isOpaque(int localX, int localY, int localZ);
+
+    /**
+     * Bit z is set if the block at (x, y, z) is opaque
+     */
+    long getZColumn(int x, int y);
+
+    /**
+     * Bit x is set if the block at (x, y, z) is opaque
+     */
+    long getXColumn(int y, int z);
+}
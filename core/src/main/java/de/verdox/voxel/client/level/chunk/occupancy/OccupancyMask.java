@@ -4,9 +4,7 @@ import de.verdox.voxel.shared.level.block.BlockBase;
 import de.verdox.voxel.shared.level.chunk.Chunk;
 import de.verdox.voxel.shared.level.chunk.data.ChunkData;
 
-public interface OccupancyMask extends ChunkData<Chunk> {
-    boolean isOpaque(int localX, int localY, int localZ);
-
+public interface OccupancyMask extends ChunkData<Chunk>, OccupancyColumns {
     void updateOccupancyMask(BlockBase block, int x, int y, int z);
 
     long getTotalOpaque();
@@ -17,7 +15,29 @@ public interface OccupancyMask extends ChunkData<Chunk> {
 
     boolean isChunkEmpty();
 
-    long getZColumn(int x, int y);
+    @Override
+    default long getXColumn(int y, int z) {
+        long column = 0L;
+        for (int x = 0; x < getOwner().getSizeX(); x++) {
+            if (isOpaque(x, y, z)) {
+                column |= 1L << x;
+            }
+        }
+        return column;
+    }
+
+    /**
+     * Bit y is set if the block at (x, y, z) is opaque
+     */
+    default long getYColumn(int x, int z) {
+        long column = 0L;
+        for (int y = 0; y < getOwner().getSizeY(); y++) {
+            if (isOpaque(x, y, z)) {
+                column |= 1L << y;
+            }
+        }
+        return column;
+    }
 
     default long getLodColumn(int x, int y, int stepSize, int sz) {
         long base = getZColumn(x, y);
@@ -0,0 +1,126 @@
+package de.verdox.voxel.client.level.chunk.occupancy;
+
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.util.Direction;
+
+/**
+ * Read only view of a neighbor chunk that is rendered at another level of detail than the meshed chunk, in the cells of the meshed chunk.
+ * The mesher only asks for the layer that touches the meshed chunk, so only that layer is answered correctly.
+ * <p>
+ * A coarser neighbor covers a cell if its own cell is occupied, an OR-folded cell is drawn as a full cube. A finer neighbor only covers a
+ * cell if all of its blocks on the touching side are occupied, otherwise the face is kept so no crack opens along the region border.
+ */
+public class SeamOccupancyMask implements OccupancyColumns {
+    private final OccupancyColumns neighbor;
+    private final Chunk owner;
+    private final Direction direction;
+    private final int lodShift;
+
+    /**
+     * @param owner     the meshed chunk, its sizes are the sizes of this view
+     * @param direction from the meshed chunk to the neighbor
+     * @param lodShift  level of the neighbor minus the level of the meshed chunk
+     */
+    public SeamOccupancyMask(OccupancyColumns neighbor, Chunk owner, Direction direction, int lodShift) {
+        this.neighbor = neighbor;
+        this.owner = owner;
+        this.direction = direction;
+        this.lodShift = lodShift;
+    }
+
+    @Override
+    public boolean isOpaque(int localX, int localY, int localZ) {
+        if (lodShift >= 0) {
+            return neighbor.isOpaque(localX >> lodShift, localY >> lodShift, localZ >> lodShift);
+        }
+        return coversFineCell(touchingColumn(localX, localY), localZ);
+    }
+
+    @Override
+    public long getZColumn(int x, int y) {
+        if (lodShift == 0) {
+            return neighbor.getZColumn(x, y);
+        }
+        int sz = owner.getSizeZ();
+        long column = 0L;
+        if (lodShift > 0) {
+            long coarse = neighbor.getZColumn(x >> lodShift, y >> lodShift);
+            for (int z = 0; z < sz; z++) {
+                column |= (coarse >>> (z >> lodShift) & 1L) << z;
+            }
+            return column;
+        }
+
+        long fine = touchingColumn(x, y);
+        for (int z = 0; z < sz; z++) {
+            if (coversFineCell(fine, z)) {
+                column |= 1L << z;
+            }
+        }
+        return column;
+    }
+
+    @Override
+    public long getXColumn(int y, int z) {
+        if (lodShift == 0) {
+            return neighbor.getXColumn(y, z);
+        }
+        int sx = owner.getSizeX();
+        long column = 0L;
+        if (lodShift > 0) {
+            long coarse = neighbor.getXColumn(y >> lodShift, z >> lodShift);
+            for (int x = 0; x < sx; x++) {
+                column |= (coarse >>> (x >> lodShift) & 1L) << x;
+            }
+            return column;
+        }
+
+        // Pro Zelle nur die berührenden feinen Spalten lesen, nicht die ganze Spalte der Zelle aufbauen
+        for (int x = 0; x < sx; x++) {
+            if (coversFineCell(touchingColumn(x, y), z)) {
+                column |= 1L << x;
+            }
+        }
+        return column;
+    }
+
+    /**
+     * AND of the fine z columns of the neighbor that lie in the touching layer of the cell column (x, y)
+     */
+    private long touchingColumn(int x, int y) {
+        int shift = -lodShift;
+        int fromX = touchingFrom(x, shift, direction.getOffsetX()), toX = touchingTo(x, shift, direction.getOffsetX());
+        int fromY = touchingFrom(y, shift, direction.getOffsetY()), toY = touchingTo(y, shift, direction.getOffsetY());
+        long fine = -1L;
+        for (int fineX = fromX; fineX < toX; fineX++) {
+            for (int fineY = fromY; fineY < toY; fineY++) {
+                fine &= neighbor.getZColumn(fineX, fineY);
+            }
+        }
+        return fine;
+    }
+
+    /**
+     * True if the touching fine blocks of cell z in the folded column are all opaque
+     */
+    private boolean coversFineCell(long fine, int z) {
+        int shift = -lodShift;
+        int step = 1 << shift;
+        long segment = direction.getOffsetZ() == 0 ? (step >= Long.SIZE ? -1L : (1L << step) - 1L) : 1L << (direction.getOffsetZ() > 0 ? 0 : step - 1);
+        long bits = segment << (z << shift);
+        return (fine & bits) == bits;
+    }
+
+    /**
+     * First fine index of a cell, only the touching layer along the axis of the direction
+     */
+    private static int touchingFrom(int cell, int shift, int offset) {
+        int from = cell << shift;
+        return offset < 0 ? from + (1 << shift) - 1 : from;
+    }
+
+    private static int touchingTo(int cell, int shift, int offset) {
+        int from = cell << shift;
+        return offset > 0 ? from + 1 : from + (1 << shift);
+    }
+}
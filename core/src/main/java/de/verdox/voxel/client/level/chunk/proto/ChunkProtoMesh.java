@@ -1,13 +1,14 @@
 package de.verdox.voxel.client.level.chunk.proto;
 
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.utils.FloatArray;
 import com.badlogic.gdx.utils.IntArray;
+import de.verdox.voxel.client.assets.BlockFaceUVTable;
 import de.verdox.voxel.shared.level.chunk.Chunk;
 import de.verdox.voxel.shared.util.Direction;
 import lombok.Getter;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Holds vertex information for every block in a compact format
@@ -20,6 +21,16 @@ public class ChunkProtoMesh {
     @Getter
     private final Chunk parent;
     private final ProtoMeshStorage[][] facesPerMask;
+    /**
+     * Source of all versions, so a replaced proto mesh never reaches the version of the one it replaces
+     */
+    private static final AtomicInteger VERSIONS = new AtomicInteger();
+    /**
+     * Changes with every change of the stored faces, region meshes compare it to skip chunks that did not change.
+     * Written by the meshing threads and read by the region thread.
+     */
+    @Getter
+    private volatile int version = VERSIONS.incrementAndGet();
 
     public ChunkProtoMesh(Chunk parent) {
         this.parent = parent;
@@ -35,7 +46,14 @@ public class ChunkProtoMesh {
         return storage;
     }
 
-    public void appendToBuffers(ProtoMask.FaceType faceType, FloatArray vertices, IntArray indices, int baseVertexIndexOffset, TextureAtlas textureAtlas, byte lodLevel, int offsetXInBlocks, int offsetYInBlocks, int offsetZInBlocks) {
+    /**
+     * Called after the data of a face is written. A region update that reads the new version sees the whole face.
+     */
+    void markChanged() {
+        version = VERSIONS.incrementAndGet();
+    }
+
+    public void appendToBuffers(ProtoMask.FaceType faceType, FloatArray vertices, IntArray indices, int baseVertexIndexOffset, BlockFaceUVTable uvTable, byte lodLevel, int offsetXInBlocks, int offsetYInBlocks, int offsetZInBlocks) {
         ProtoMeshStorage[] storagesForType = facesPerMask[faceType.ordinal()];
         if (storagesForType == null) {
             return;
@@ -52,13 +70,13 @@ public class ChunkProtoMesh {
 
             int faceCount = storage.getFaceCount();
 
-            mask.appendToBuffers(this, faceType, vertices, indices, vertexIndexOffset, textureAtlas, lodLevel, offsetXInBlocks, offsetYInBlocks, offsetZInBlocks);
+            mask.appendToBuffers(this, faceType, vertices, indices, vertexIndexOffset, uvTable, lodLevel, offsetXInBlocks, offsetYInBlocks, offsetZInBlocks);
 
             vertexIndexOffset += faceCount * mask.getVerticesPerFace();
         }
     }
 
-    public void appendToInstances(ProtoMask.FaceType faceType, FloatArray instances, TextureAtlas textureAtlas, int offsetXInBlocks, int offsetYInBlocks, int offsetZInBlocks) {
+    public void appendToInstances(ProtoMask.FaceType faceType, FloatArray instances, BlockFaceUVTable uvTable, int offsetXInBlocks, int offsetYInBlocks, int offsetZInBlocks) {
         ProtoMeshStorage[] storagesForType = facesPerMask[faceType.ordinal()];
         if (storagesForType == null) {
             return;
@@ -70,7 +88,7 @@ public class ChunkProtoMesh {
             if (storage == null) {
                 continue;
             }
-            mask.appendToInstances(this, faceType, instances, textureAtlas, offsetXInBlocks, offsetYInBlocks, offsetZInBlocks);
+            mask.appendToInstances(this, faceType, instances, uvTable, offsetXInBlocks, offsetYInBlocks, offsetZInBlocks);
         }
     }
 
@@ -129,6 +147,7 @@ public class ChunkProtoMesh {
         for (int i = 0; i < this.facesPerMask.length; i++) {
             Arrays.fill(facesPerMask[i], null);
         }
+        markChanged();
     }
 
     public int getLocalXByteSize() {
@@ -150,11 +169,24 @@ public class ChunkProtoMesh {
         public final byte x, y, z;
         public final Direction direction;
         public final byte ao, sky, red, green, blue;
+        /**
+         * Blocks the quad grows beyond one block along U and V, zero for single faces
+         */
+        public final int deltaU, deltaV;
 
         public FaceData(
                 byte x, byte y, byte z, Direction direction,
                 byte ao, byte sky, byte red,
                 byte green, byte blue
+        ) {
+            this(x, y, z, direction, ao, sky, red, green, blue, 0, 0);
+        }
+
+        public FaceData(
+                byte x, byte y, byte z, Direction direction,
+                byte ao, byte sky, byte red,
+                byte green, byte blue,
+                int deltaU, int deltaV
         ) {
             this.x = x;
             this.y = y;
@@ -165,6 +197,8 @@ public class ChunkProtoMesh {
             this.red = red;
             this.green = green;
             this.blue = blue;
+            this.deltaU = deltaU;
+            this.deltaV = deltaV;
         }
     }
 }
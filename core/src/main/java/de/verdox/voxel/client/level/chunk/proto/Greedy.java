@@ -0,0 +1,304 @@
+package de.verdox.voxel.client.level.chunk.proto;
+
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import de.verdox.voxel.client.assets.BlockFaceUVTable;
+import de.verdox.voxel.client.assets.TextureAtlasManager;
+import de.verdox.voxel.client.level.mesh.block.face.SingleBlockFace;
+import de.verdox.voxel.client.renderer.GraphicalConstants;
+import de.verdox.voxel.shared.level.block.BlockModelType;
+import de.verdox.voxel.shared.util.Direction;
+import de.verdox.voxel.shared.util.LightUtil;
+import de.verdox.voxel.shared.util.lod.LODUtil;
+import lombok.Getter;
+
+/**
+ * Merged quads of the greedy mesher. Stores the same fields as {@link Single} plus how many blocks the quad grows beyond one block
+ * along the U and V direction of its {@link Direction}.
+ * <p>
+ * The stored block is the block at the first corner of the quad, so the quad grows along U and V from there, exactly like a
+ * {@link BlockModelType.BlockFace#full(Direction, int, int)} face.
+ */
+public class Greedy extends ProtoMask {
+    @Getter
+    private final byte maskId;
+
+    Greedy(byte maskId) {
+        this.maskId = maskId;
+    }
+
+    public void storeFace(
+            ChunkProtoMesh chunkProtoMesh,
+            FaceType faceType,
+            byte x, byte y, byte z,
+            Direction dir, byte ao,
+            byte skyLight, byte redLight,
+            byte greenLight, byte blueLight,
+            int deltaU, int deltaV
+    ) {
+        ProtoMeshStorage storage = chunkProtoMesh.getStorage(faceType, this);
+        byte localXByteSize = (byte) chunkProtoMesh.getLocalXByteSize();
+        byte localYByteSize = (byte) chunkProtoMesh.getLocalYByteSize();
+        byte localZByteSize = (byte) chunkProtoMesh.getLocalZByteSize();
+        byte deltaByteSize = getDeltaByteSize(localXByteSize, localYByteSize, localZByteSize);
+
+        int bitsPerFace = getBitSizePerFace(localXByteSize, localYByteSize, localZByteSize);
+        long bitOffset = (long) storage.getFaceCount() * bitsPerFace;
+
+        storage.writeBitsAt(bitOffset, x, localXByteSize);
+        bitOffset += localXByteSize;
+
+        storage.writeBitsAt(bitOffset, y, localYByteSize);
+        bitOffset += localYByteSize;
+
+        storage.writeBitsAt(bitOffset, z, localZByteSize);
+        bitOffset += localZByteSize;
+
+        storage.writeBitsAt(bitOffset, dir.getId(), GraphicalConstants.DIRECTION_BIT_SIZE);
+        bitOffset += GraphicalConstants.DIRECTION_BIT_SIZE;
+
+        storage.writeBitsAt(bitOffset, ao, Single.AO_SIZE_BITS);
+        bitOffset += Single.AO_SIZE_BITS;
+
+        storage.writeBitsAt(bitOffset, skyLight, Single.SKY_LIGHT_B);
+        bitOffset += Single.SKY_LIGHT_B;
+
+        storage.writeBitsAt(bitOffset, redLight, Single.RED_LIGHT_B);
+        bitOffset += Single.RED_LIGHT_B;
+
+        storage.writeBitsAt(bitOffset, greenLight, Single.GREEN_LIGHT_B);
+        bitOffset += Single.GREEN_LIGHT_B;
+
+        storage.writeBitsAt(bitOffset, blueLight, Single.BLUE_LIGHT_B);
+        bitOffset += Single.BLUE_LIGHT_B;
+
+        storage.writeBitsAt(bitOffset, deltaU, deltaByteSize);
+        bitOffset += deltaByteSize;
+
+        storage.writeBitsAt(bitOffset, deltaV, deltaByteSize);
+
+        storage.faceCount++;
+        chunkProtoMesh.markChanged();
+    }
+
+    @Override
+    public ChunkProtoMesh.FaceData get(ChunkProtoMesh chunkProtoMesh, FaceType faceType, int index) {
+        ProtoMeshStorage storage = chunkProtoMesh.getStorage(faceType, this);
+        byte localXByteSize = (byte) chunkProtoMesh.getLocalXByteSize();
+        byte localYByteSize = (byte) chunkProtoMesh.getLocalYByteSize();
+        byte localZByteSize = (byte) chunkProtoMesh.getLocalZByteSize();
+        byte deltaByteSize = getDeltaByteSize(localXByteSize, localYByteSize, localZByteSize);
+
+        int bitsPerFace = getBitSizePerFace(localXByteSize, localYByteSize, localZByteSize);
+        int offset = index * bitsPerFace;
+
+        byte x = (byte) storage.readBits(offset, localXByteSize);
+        offset += localXByteSize;
+
+        byte y = (byte) storage.readBits(offset, localYByteSize);
+        offset += localYByteSize;
+
+        byte z = (byte) storage.readBits(offset, localZByteSize);
+        offset += localZByteSize;
+
+        Direction d = DIRECTIONS[(int) storage.readBits(offset, GraphicalConstants.DIRECTION_BIT_SIZE)];
+        offset += GraphicalConstants.DIRECTION_BIT_SIZE;
+
+        byte ao = (byte) storage.readBits(offset, Single.AO_SIZE_BITS);
+        offset += Single.AO_SIZE_BITS;
+
+        byte sky = (byte) storage.readBits(offset, Single.SKY_LIGHT_B);
+        offset += Single.SKY_LIGHT_B;
+
+        byte red = (byte) storage.readBits(offset, Single.RED_LIGHT_B);
+        offset += Single.RED_LIGHT_B;
+
+        byte green = (byte) storage.readBits(offset, Single.GREEN_LIGHT_B);
+        offset += Single.GREEN_LIGHT_B;
+
+        byte blue = (byte) storage.readBits(offset, Single.BLUE_LIGHT_B);
+        offset += Single.BLUE_LIGHT_B;
+
+        int deltaU = (int) storage.readBits(offset, deltaByteSize);
+        offset += deltaByteSize;
+
+        int deltaV = (int) storage.readBits(offset, deltaByteSize);
+
+        return new ChunkProtoMesh.FaceData(x, y, z, d, ao, sky, red, green, blue, deltaU, deltaV);
+    }
+
+    @Override
+    public int getFloatsPerVertex() {
+        return 2;
+    }
+
+    @Override
+    public int getVerticesPerFace() {
+        return 4;
+    }
+
+    @Override
+    public int getIndicesPerFace() {
+        return 6;
+    }
+
+    @Override
+    public void appendToBuffers(ChunkProtoMesh chunkProtoMesh, FaceType faceType, FloatArray vertices, IntArray indices, int baseVertexIndex, BlockFaceUVTable uvTable, byte lodLevel, int offsetXInBlocks, int offsetYInBlocks, int offsetZInBlocks) {
+        ProtoMeshStorage storage = chunkProtoMesh.getStorage(faceType, this);
+        byte localXByteSize = (byte) chunkProtoMesh.getLocalXByteSize();
+        byte localYByteSize = (byte) chunkProtoMesh.getLocalYByteSize();
+        byte localZByteSize = (byte) chunkProtoMesh.getLocalZByteSize();
+        byte deltaByteSize = getDeltaByteSize(localXByteSize, localYByteSize, localZByteSize);
+        int bitsPerFace = getBitSizePerFace(localXByteSize, localYByteSize, localZByteSize);
+        float lodScale = LODUtil.getLodScale(lodLevel);
+        int atlasSize = TextureAtlasManager.getInstance().getBlockTextureAtlasSize();
+        int textureSize = TextureAtlasManager.getInstance().getBlockTextureSize();
+
+        vertices.ensureCapacity(storage.getFaceCount() * getVerticesPerFace() * getFloatsPerVertex());
+        indices.ensureCapacity(storage.getFaceCount() * getIndicesPerFace());
+
+        for (int faceId = 0; faceId < storage.getFaceCount(); faceId++) {
+            int faceBaseVertexIdx = baseVertexIndex + faceId * getVerticesPerFace();
+            int offset = faceId * bitsPerFace;
+
+            byte x = (byte) storage.readBits(offset, localXByteSize);
+            offset += localXByteSize;
+
+            byte y = (byte) storage.readBits(offset, localYByteSize);
+            offset += localYByteSize;
+
+            byte z = (byte) storage.readBits(offset, localZByteSize);
+            offset += localZByteSize;
+
+            Direction d = DIRECTIONS[(int) storage.readBits(offset, GraphicalConstants.DIRECTION_BIT_SIZE)];
+            offset += GraphicalConstants.DIRECTION_BIT_SIZE;
+
+            byte ao = (byte) storage.readBits(offset, Single.AO_SIZE_BITS);
+            offset += Single.AO_SIZE_BITS;
+
+            byte sky = (byte) storage.readBits(offset, Single.SKY_LIGHT_B);
+            offset += Single.SKY_LIGHT_B;
+
+            byte red = (byte) storage.readBits(offset, Single.RED_LIGHT_B);
+            offset += Single.RED_LIGHT_B;
+
+            byte green = (byte) storage.readBits(offset, Single.GREEN_LIGHT_B);
+            offset += Single.GREEN_LIGHT_B;
+
+            byte blue = (byte) storage.readBits(offset, Single.BLUE_LIGHT_B);
+            offset += Single.BLUE_LIGHT_B;
+
+            int deltaU = (int) storage.readBits(offset, deltaByteSize);
+            offset += deltaByteSize;
+
+            int deltaV = (int) storage.readBits(offset, deltaByteSize);
+
+            int uvIndex = BlockFaceUVTable.indexOf(chunkProtoMesh.getParent().getBlockAt(x, y, z), d);
+            float packedUVAndLight = SingleBlockFace.packTileUVAndLightsForCorner(atlasSize, textureSize, uvTable.getU(uvIndex), uvTable.getV(uvIndex), sky, red, green, blue);
+
+            float[] u = d.getUDirection();
+            float[] v = d.getVDirection();
+            // Ecken in der Reihenfolge (0,0), (1,0), (0,1), (1,1) wie im Instanced-Shader
+            for (int corner = 0; corner < getVerticesPerFace(); corner++) {
+                int cornerU = (corner & 1) * (deltaU + 1);
+                int cornerV = (corner >> 1) * (deltaV + 1);
+                int cornerX = (int) (cornerAxis(x, d.getNx(), u[0], v[0], cornerU, cornerV) * lodScale) + offsetXInBlocks;
+                int cornerY = (int) (cornerAxis(y, d.getNy(), u[1], v[1], cornerU, cornerV) * lodScale) + offsetYInBlocks;
+                int cornerZ = (int) (cornerAxis(z, d.getNz(), u[2], v[2], cornerU, cornerV) * lodScale) + offsetZInBlocks;
+                vertices.add(SingleBlockFace.packPositionAndAOForCorner(cornerX, cornerY, cornerZ, LightUtil.unpackAo(ao, corner)));
+                vertices.add(packedUVAndLight);
+            }
+
+            indices.add(faceBaseVertexIdx + 0);
+            indices.add(faceBaseVertexIdx + 1);
+            indices.add(faceBaseVertexIdx + 3);
+            indices.add(faceBaseVertexIdx + 3);
+            indices.add(faceBaseVertexIdx + 2);
+            indices.add(faceBaseVertexIdx + 0);
+        }
+    }
+
+    @Override
+    public void appendToInstances(ChunkProtoMesh chunkProtoMesh, FaceType faceType, FloatArray floatBuffer, BlockFaceUVTable uvTable, int offsetXInBlocks, int offsetYInBlocks, int offsetZInBlocks) {
+        ProtoMeshStorage storage = chunkProtoMesh.getStorage(faceType, this);
+        byte localXByteSize = (byte) chunkProtoMesh.getLocalXByteSize();
+        byte localYByteSize = (byte) chunkProtoMesh.getLocalYByteSize();
+        byte localZByteSize = (byte) chunkProtoMesh.getLocalZByteSize();
+        byte deltaByteSize = getDeltaByteSize(localXByteSize, localYByteSize, localZByteSize);
+        int bitsPerFace = getBitSizePerFace(localXByteSize, localYByteSize, localZByteSize);
+
+        floatBuffer.ensureCapacity(storage.getFaceCount() * Single.FLOATS_PER_INSTANCE);
+
+        for (int faceId = 0; faceId < storage.getFaceCount(); faceId++) {
+            int offset = faceId * bitsPerFace;
+
+            byte x = (byte) storage.readBits(offset, localXByteSize);
+            offset += localXByteSize;
+
+            byte y = (byte) storage.readBits(offset, localYByteSize);
+            offset += localYByteSize;
+
+            byte z = (byte) storage.readBits(offset, localZByteSize);
+            offset += localZByteSize;
+
+            Direction d = DIRECTIONS[(int) storage.readBits(offset, GraphicalConstants.DIRECTION_BIT_SIZE)];
+            offset += GraphicalConstants.DIRECTION_BIT_SIZE;
+
+            byte ao = (byte) storage.readBits(offset, Single.AO_SIZE_BITS);
+            offset += Single.AO_SIZE_BITS;
+
+            byte sky = (byte) storage.readBits(offset, Single.SKY_LIGHT_B);
+            offset += Single.SKY_LIGHT_B;
+
+            byte red = (byte) storage.readBits(offset, Single.RED_LIGHT_B);
+            offset += Single.RED_LIGHT_B;
+
+            byte green = (byte) storage.readBits(offset, Single.GREEN_LIGHT_B);
+            offset += Single.GREEN_LIGHT_B;
+
+            byte blue = (byte) storage.readBits(offset, Single.BLUE_LIGHT_B);
+            offset += Single.BLUE_LIGHT_B;
+
+            int deltaU = (int) storage.readBits(offset, deltaByteSize);
+            offset += deltaByteSize;
+
+            int deltaV = (int) storage.readBits(offset, deltaByteSize);
+
+            int uvIndex = BlockFaceUVTable.indexOf(chunkProtoMesh.getParent().getBlockAt(x, y, z), d);
+
+            Single.writeFaceToInstances(
+                    floatBuffer, d,
+                    uvTable.getTileU(uvIndex), uvTable.getTileV(uvIndex),
+                    x, y, z,
+                    ao,
+                    sky, red, green, blue,
+                    deltaU, deltaV,
+                    offsetXInBlocks, offsetYInBlocks, offsetZInBlocks
+            );
+        }
+    }
+
+    /**
+     * One axis of a quad corner, the same formula as the instanced vertex shader
+     */
+    private static float cornerAxis(int block, int normal, float u, float v, int cornerU, int cornerV) {
+        return block + 0.5f + 0.5f * normal - 0.5f * u - 0.5f * v + u * cornerU + v * cornerV;
+    }
+
+    /**
+     * A quad grows at most to the size of the chunk, so the delta needs as many bits as the largest local coordinate
+     */
+    private static byte getDeltaByteSize(byte localXByteSize, byte localYByteSize, byte localZByteSize) {
+        return (byte) Math.max(localXByteSize, Math.max(localYByteSize, localZByteSize));
+    }
+
+    private int getBitSizePerFace(byte localXByteSize, byte localYByteSize, byte localZByteSize) {
+        return localXByteSize
+                + localYByteSize
+                + localZByteSize
+                + GraphicalConstants.DIRECTION_BIT_SIZE
+                + Single.AO_SIZE_BITS
+                + Single.SKY_LIGHT_B + Single.RED_LIGHT_B + Single.GREEN_LIGHT_B + Single.BLUE_LIGHT_B
+                + 2 * getDeltaByteSize(localXByteSize, localYByteSize, localZByteSize);
+    }
+}
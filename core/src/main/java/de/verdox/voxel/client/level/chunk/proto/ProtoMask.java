@@ -1,10 +1,16 @@
 package de.verdox.voxel.client.level.chunk.proto;
 
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.utils.FloatArray;
 import com.badlogic.gdx.utils.IntArray;
+import de.verdox.voxel.client.assets.BlockFaceUVTable;
+import de.verdox.voxel.shared.util.Direction;
 
 public abstract class ProtoMask {
+    /**
+     * Cached, {@link Direction#values()} copies the array on every call
+     */
+    protected static final Direction[] DIRECTIONS = Direction.values();
+
     public abstract byte getMaskId();
 
     public abstract ChunkProtoMesh.FaceData get(ChunkProtoMesh chunkProtoMesh, FaceType faceType, int index);
@@ -29,13 +35,13 @@ public abstract class ProtoMask {
             FloatArray vertices,
             IntArray indices,
             int baseVertexIndex,
-            TextureAtlas textureAtlas,
+            BlockFaceUVTable uvTable,
             byte lodLevel,
             int offsetXInBlocks, int offsetYInBlocks, int offsetZInBlocks
     );
 
     public abstract void appendToInstances(
-            ChunkProtoMesh chunkProtoMesh, FaceType faceType, FloatArray floatBuffer, TextureAtlas textureAtlas,
+            ChunkProtoMesh chunkProtoMesh, FaceType faceType, FloatArray floatBuffer, BlockFaceUVTable uvTable,
             int offsetXInBlocks, int offsetYInBlocks, int offsetZInBlocks);
 
 
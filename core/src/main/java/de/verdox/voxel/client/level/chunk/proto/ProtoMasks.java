@@ -9,6 +9,7 @@ public class ProtoMasks {
     @Getter
     private static final List<ProtoMask> MASKS = new ObjectArrayList<>();
     public static final Single SINGLE_PER_FACE = register(new Single((byte) 0));
+    public static final Greedy GREEDY = register(new Greedy((byte) 1));
 
     public static int getAmountMasks() {
         return MASKS.size();
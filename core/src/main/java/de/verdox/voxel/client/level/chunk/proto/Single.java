@@ -1,15 +1,12 @@
 package de.verdox.voxel.client.level.chunk.proto;
 
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.FloatArray;
 import com.badlogic.gdx.utils.IntArray;
+import de.verdox.voxel.client.assets.BlockFaceUVTable;
 import de.verdox.voxel.client.assets.TextureAtlasManager;
 import de.verdox.voxel.client.level.mesh.block.face.SingleBlockFace;
 import de.verdox.voxel.client.renderer.GraphicalConstants;
 import de.verdox.voxel.shared.util.lod.LODUtil;
-import de.verdox.voxel.shared.data.registry.ResourceLocation;
-import de.verdox.voxel.shared.level.block.BlockBase;
 import de.verdox.voxel.shared.level.block.BlockModelType;
 import de.verdox.voxel.shared.util.BitPackingUtil;
 import de.verdox.voxel.shared.util.Direction;
@@ -22,6 +19,15 @@ public class Single extends ProtoMask {
     public static final byte RED_LIGHT_B = 4;
     public static final byte GREEN_LIGHT_B = 4;
     public static final byte BLUE_LIGHT_B = 4;
+    public static final int FLOATS_PER_INSTANCE = 3;
+    /**
+     * Direction id that no face uses, the instanced shader moves such instances out of the clip volume
+     */
+    public static final int HIDDEN_DIRECTION_ID = 7;
+    /**
+     * Instance that is never drawn, fills unused space of region instance buffers
+     */
+    public static final float[] HIDDEN_INSTANCE = {0f, BitPackingUtil.packToFloat(0, HIDDEN_DIRECTION_ID, GraphicalConstants.DIRECTION_BIT_SIZE), 0f};
 
     @Getter
     private final byte maskId;
@@ -76,6 +82,7 @@ public class Single extends ProtoMask {
         storage.writeBitsAt(bitOffset, blueLight, BLUE_LIGHT_B);
 
         storage.faceCount++;
+        chunkProtoMesh.markChanged();
     }
 
     public ChunkProtoMesh.FaceData get(ChunkProtoMesh chunkProtoMesh, FaceType faceType, int index) {
@@ -96,7 +103,7 @@ public class Single extends ProtoMask {
         byte z = (byte) storage.readBits(offset, localZByteSize);
         offset += localZByteSize;
 
-        Direction d = Direction.values()[(int) storage.readBits(offset, GraphicalConstants.DIRECTION_BIT_SIZE)];
+        Direction d = DIRECTIONS[(int) storage.readBits(offset, GraphicalConstants.DIRECTION_BIT_SIZE)];
         offset += GraphicalConstants.DIRECTION_BIT_SIZE;
 
         byte ao = (byte) storage.readBits(offset, AO_SIZE_BITS);
@@ -132,18 +139,23 @@ public class Single extends ProtoMask {
     }
 
     @Override
-    public void appendToBuffers(ChunkProtoMesh chunkProtoMesh, FaceType faceType, FloatArray vertices, IntArray indices, int baseVertexIndex, TextureAtlas textureAtlas, byte lodLevel, int offsetXInBlocks, int offsetYInBlocks, int offsetZInBlocks) {
+    public void appendToBuffers(ChunkProtoMesh chunkProtoMesh, FaceType faceType, FloatArray vertices, IntArray indices, int baseVertexIndex, BlockFaceUVTable uvTable, byte lodLevel, int offsetXInBlocks, int offsetYInBlocks, int offsetZInBlocks) {
         ProtoMeshStorage storage = chunkProtoMesh.getStorage(faceType, this);
         byte localXByteSize = (byte) chunkProtoMesh.getLocalXByteSize();
         byte localYByteSize = (byte) chunkProtoMesh.getLocalYByteSize();
         byte localZByteSize = (byte) chunkProtoMesh.getLocalZByteSize();
+        int bitsPerFace = getBitSizePerFace(localXByteSize, localYByteSize, localZByteSize);
 
         int vertsPerFace = getVerticesPerFace();
+        float lodScale = LODUtil.getLodScale(lodLevel);
+        int atlasSize = TextureAtlasManager.getInstance().getBlockTextureAtlasSize();
+        int textureSize = TextureAtlasManager.getInstance().getBlockTextureSize();
+
+        vertices.ensureCapacity(storage.getFaceCount() * vertsPerFace * getFloatsPerVertex());
+        indices.ensureCapacity(storage.getFaceCount() * getIndicesPerFace());
 
         for (int faceId = 0; faceId < storage.getFaceCount(); faceId++) {
             int faceBaseVertexIdx = baseVertexIndex + faceId * vertsPerFace;
-
-            int bitsPerFace = getBitSizePerFace(localXByteSize, localYByteSize, localZByteSize);
             int offset = faceId * bitsPerFace;
 
             byte localX = (byte) storage.readBits(offset, localXByteSize);
@@ -155,7 +167,7 @@ public class Single extends ProtoMask {
             byte localZ = (byte) storage.readBits(offset, localZByteSize);
             offset += localZByteSize;
 
-            Direction faceDir = Direction.values()[(int) storage.readBits(offset, GraphicalConstants.DIRECTION_BIT_SIZE)];
+            Direction faceDir = DIRECTIONS[(int) storage.readBits(offset, GraphicalConstants.DIRECTION_BIT_SIZE)];
             offset += GraphicalConstants.DIRECTION_BIT_SIZE;
 
             byte ambientOcclusion = (byte) storage.readBits(offset, AO_SIZE_BITS);
@@ -172,51 +184,25 @@ public class Single extends ProtoMask {
 
             byte blue = (byte) storage.readBits(offset, BLUE_LIGHT_B);
 
-            BlockBase blockBase = chunkProtoMesh.getParent().getBlockAt(localX, localY, localZ);
-            BlockModelType.BlockFace blockFaceDefinition = blockBase.getModel().getBlockModelType().getBlockFace(faceDir).getFirst();
-            ResourceLocation textureName = blockBase.getModel().getTextureOfFace(blockBase.getModel().getBlockModelType().getNameOfFace(blockFaceDefinition));
-
-            TextureRegion region = null;
-            if (textureName != null) {
-                region = textureAtlas.findRegion(textureName.toString());
-            }
-
-            float lodScale = LODUtil.getLodScale(lodLevel);
-
-
-            float[][] corners = new float[][]{
-                    {blockFaceDefinition.c1().getCornerX(localX, lodScale), blockFaceDefinition.c1().getCornerY(localY, lodScale), blockFaceDefinition.c1().getCornerZ(localZ, lodScale)},
-                    {blockFaceDefinition.c2().getCornerX(localX, lodScale), blockFaceDefinition.c2().getCornerY(localY, lodScale), blockFaceDefinition.c2().getCornerZ(localZ, lodScale)},
-                    {blockFaceDefinition.c3().getCornerX(localX, lodScale), blockFaceDefinition.c3().getCornerY(localY, lodScale), blockFaceDefinition.c3().getCornerZ(localZ, lodScale)},
-                    {blockFaceDefinition.c4().getCornerX(localX, lodScale), blockFaceDefinition.c4().getCornerY(localY, lodScale), blockFaceDefinition.c4().getCornerZ(localZ, lodScale)}
-            };
-
-            float uLen = (int) (Math.abs(corners[1][0] - corners[0][0]) + Math.abs(corners[1][1] - corners[0][1]) + Math.abs(corners[1][2] - corners[0][2]));
-            float vLen = Math.abs(corners[3][0] - corners[0][0]) + Math.abs(corners[3][1] - corners[0][1]) + Math.abs(corners[3][2] - corners[0][2]);
-
-            float[] c0 = {0f, 0f};
-            float[] c1 = {0f, vLen};
-            float[] c2 = {uLen, 0f};
-            float[] c3 = {uLen, vLen};
-
-            float[][] uv = new float[][]{
-                    c0,
-                    c1,
-                    c2,
-                    c3,
-            };
-
+            int uvIndex = BlockFaceUVTable.indexOf(chunkProtoMesh.getParent().getBlockAt(localX, localY, localZ), faceDir);
+            BlockModelType.BlockFace blockFaceDefinition = uvTable.getFace(uvIndex);
 
             // Atlas-Region
-            float uStart = region.getU(), vStart = region.getV();
-            float tileU = region.getU2() - uStart;
-            float tileV = region.getV2() - vStart;
-
-            for (int i = 0; i < getVerticesPerFace(); i++) {
-                float u = uv[i][0], v = uv[i][1];
-
-                writeCornerPositionToBuffer(vertices, corners, i, ambientOcclusion, offsetXInBlocks, offsetYInBlocks, offsetZInBlocks);
-                writeCornerUVAndLightToBuffer(vertices, u, v, uLen, vLen, uStart, vStart, tileU, tileV, sky, red, green, blue);
+            float uStart = uvTable.getU(uvIndex), vStart = uvTable.getV(uvIndex);
+            float tileU = uvTable.getU2(uvIndex) - uStart;
+            float tileV = uvTable.getV2(uvIndex) - vStart;
+
+            for (int i = 0; i < vertsPerFace; i++) {
+                BlockModelType.BlockFace.BlockModelCoordinate corner = getCorner(blockFaceDefinition, i);
+                int x = (int) corner.getCornerX(localX, lodScale) + offsetXInBlocks;
+                int y = (int) corner.getCornerY(localY, lodScale) + offsetYInBlocks;
+                int z = (int) corner.getCornerZ(localZ, lodScale) + offsetZInBlocks;
+                vertices.add(SingleBlockFace.packPositionAndAOForCorner(x, y, z, LightUtil.unpackAo(ambientOcclusion, i)));
+
+                // Ecke 0 und 1 liegen am Anfang der Kachel in U, Ecke 0 und 2 am Anfang in V
+                float atlasU = uStart + (i >> 1) * tileU;
+                float atlasV = vStart + (i & 1) * tileV;
+                vertices.add(SingleBlockFace.packTileUVAndLightsForCorner(atlasSize, textureSize, atlasU, atlasV, sky, red, green, blue));
             }
 
             indices.add(faceBaseVertexIdx + 0);
@@ -229,15 +215,16 @@ public class Single extends ProtoMask {
     }
 
     @Override
-    public void appendToInstances(ChunkProtoMesh chunkProtoMesh, FaceType faceType, FloatArray floatBuffer, TextureAtlas textureAtlas, int offsetXInBlocks, int offsetYInBlocks, int offsetZInBlocks) {
+    public void appendToInstances(ChunkProtoMesh chunkProtoMesh, FaceType faceType, FloatArray floatBuffer, BlockFaceUVTable uvTable, int offsetXInBlocks, int offsetYInBlocks, int offsetZInBlocks) {
         ProtoMeshStorage storage = chunkProtoMesh.getStorage(faceType, this);
         byte localXByteSize = (byte) chunkProtoMesh.getLocalXByteSize();
         byte localYByteSize = (byte) chunkProtoMesh.getLocalYByteSize();
         byte localZByteSize = (byte) chunkProtoMesh.getLocalZByteSize();
-        int blockAtlasSize = TextureAtlasManager.getInstance().getBlockTextureAtlasSize();
+        int bitsPerFace = getBitSizePerFace(localXByteSize, localYByteSize, localZByteSize);
+
+        floatBuffer.ensureCapacity(storage.getFaceCount() * FLOATS_PER_INSTANCE);
 
         for (int faceId = 0; faceId < storage.getFaceCount(); faceId++) {
-            int bitsPerFace = getBitSizePerFace(localXByteSize, localYByteSize, localZByteSize);
             int offset = faceId * bitsPerFace;
 
             byte localX = (byte) storage.readBits(offset, localXByteSize);
@@ -249,7 +236,7 @@ public class Single extends ProtoMask {
             byte localZ = (byte) storage.readBits(offset, localZByteSize);
             offset += localZByteSize;
 
-            Direction faceDir = Direction.values()[(int) storage.readBits(offset, GraphicalConstants.DIRECTION_BIT_SIZE)];
+            Direction faceDir = DIRECTIONS[(int) storage.readBits(offset, GraphicalConstants.DIRECTION_BIT_SIZE)];
             offset += GraphicalConstants.DIRECTION_BIT_SIZE;
 
             byte ambientOcclusion = (byte) storage.readBits(offset, AO_SIZE_BITS);
@@ -266,34 +253,30 @@ public class Single extends ProtoMask {
 
             byte blue = (byte) storage.readBits(offset, BLUE_LIGHT_B);
 
-            BlockBase blockBase = chunkProtoMesh.getParent().getBlockAt(localX, localY, localZ);
-            BlockModelType.BlockFace blockFaceDefinition = blockBase.getModel().getBlockModelType().getBlockFace(faceDir).getFirst();
-            ResourceLocation textureName = blockBase.getModel().getTextureOfFace(blockBase.getModel().getBlockModelType().getNameOfFace(blockFaceDefinition));
-
-            TextureRegion region = null;
-            if (textureName != null) {
-                region = textureAtlas.findRegion(textureName.toString());
-            }
-
-            float uStart = region.getU(), vStart = region.getV();
+            int uvIndex = BlockFaceUVTable.indexOf(chunkProtoMesh.getParent().getBlockAt(localX, localY, localZ), faceDir);
 
             writeFaceToInstances(
                     floatBuffer, faceDir,
-                    (int) (uStart * blockAtlasSize), (int) (vStart * blockAtlasSize),
+                    uvTable.getTileU(uvIndex), uvTable.getTileV(uvIndex),
                     localX, localY, localZ,
                     ambientOcclusion,
                     sky, red, green, blue,
+                    0, 0,
                     offsetXInBlocks, offsetYInBlocks, offsetZInBlocks
             );
         }
     }
 
-    private void writeFaceToInstances(
+    /**
+     * Writes one instance. Every instance is three floats, the third one holds how many blocks the quad grows beyond one block along U and V.
+     */
+    static void writeFaceToInstances(
             FloatArray instanceBuffer,
             Direction faceDir,
             int u, int v,
             byte localX, byte localY, byte localZ,
             byte aoPacked, byte skyLight, byte redLight, byte greenLight, byte blueLight,
+            int deltaU, int deltaV,
             int offsetXInBlocks, int offsetYInBlocks, int offsetZInBlocks
     ) {
         int meshX = localX + offsetXInBlocks;
@@ -337,41 +320,21 @@ public class Single extends ProtoMask {
         packedDirUVAndLight = BitPackingUtil.packToFloat(packedDirUVAndLight, offset, blueLight, BLUE_LIGHT_B);
         offset += BLUE_LIGHT_B;
 
+        float packedQuadSize = BitPackingUtil.packToFloat(0, deltaU, GraphicalConstants.MAX_BYTE_SIZE_SHADER_COORDINATES);
+        packedQuadSize = BitPackingUtil.packToFloat(packedQuadSize, GraphicalConstants.MAX_BYTE_SIZE_SHADER_COORDINATES, deltaV, GraphicalConstants.MAX_BYTE_SIZE_SHADER_COORDINATES);
+
         instanceBuffer.add(packedCoordsAndAO);
         instanceBuffer.add(packedDirUVAndLight);
+        instanceBuffer.add(packedQuadSize);
     }
 
-    private void writeCornerPositionToBuffer(FloatArray vertices, float[][] corners, int cornerIndex, byte aoPacked, int offsetXInBlocks, int offsetYInBlocks, int offsetZInBlocks) {
-        int x = (int) corners[cornerIndex][0] + offsetXInBlocks;
-        int y = (int) corners[cornerIndex][1] + offsetYInBlocks;
-        int z = (int) corners[cornerIndex][2] + offsetZInBlocks;
-
-
-        byte aoAtCorner = LightUtil.unpackAo(aoPacked, cornerIndex);
-
-        float packedPositionAndAo = SingleBlockFace.packPositionAndAOForCorner(x, y, z, aoAtCorner);
-
-        vertices.add(packedPositionAndAo);
-    }
-
-    private void writeCornerUVAndLightToBuffer(
-            FloatArray vertices,
-            float u, float v,
-            float uLen, float vLen,
-            float uStart, float vStart,
-            float tileU, float tileV,
-            byte sky, byte red, byte green, byte blue
-    ) {
-        float localU = u / uLen;
-        float localV = v / vLen;
-
-        float atlasU = uStart + localU * tileU;
-        float atlasV = vStart + localV * tileV;
-
-        float packed = SingleBlockFace.packTileUVAndLightsForCorner(TextureAtlasManager.getInstance().getBlockTextureAtlasSize(), TextureAtlasManager.getInstance().getBlockTextureSize(), atlasU, atlasV,
-                sky, red, green, blue
-        );
-        vertices.add(packed);
+    static BlockModelType.BlockFace.BlockModelCoordinate getCorner(BlockModelType.BlockFace blockFace, int cornerIndex) {
+        return switch (cornerIndex) {
+            case 0 -> blockFace.c1();
+            case 1 -> blockFace.c2();
+            case 2 -> blockFace.c3();
+            default -> blockFace.c4();
+        };
     }
 
     private int getBitSizePerFace(byte localXByteSize, byte localYByteSize, byte localZByteSize) {
@@ -5,14 +5,19 @@ import de.verdox.voxel.client.assets.TextureAtlasManager;
 import de.verdox.voxel.client.level.mesh.block.face.BlockFace;
 import de.verdox.voxel.client.level.mesh.block.face.GreedyBlockFace;
 import de.verdox.voxel.client.level.mesh.block.face.SingleBlockFace;
+import de.verdox.voxel.client.renderer.mesh.chunk.BinaryGreedyMesher;
 import de.verdox.voxel.client.renderer.terrain.regions.RegionalizedTerrainManager;
 import de.verdox.voxel.shared.util.lod.LODUtil;
 import de.verdox.voxel.client.util.RegionalLock;
+import de.verdox.voxel.shared.data.registry.ResourceLocation;
+import de.verdox.voxel.shared.level.block.BlockModelType;
 import de.verdox.voxel.shared.level.chunk.Chunk;
 import de.verdox.voxel.shared.util.Direction;
 import de.verdox.voxel.shared.util.RegionBounds;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.shorts.Short2ObjectMap;
@@ -71,9 +76,19 @@ public class TerrainFaceStorageImpl implements TerrainFaceStorage {
         return chunkFacesInRegion.values().stream().mapToInt(value -> value.sizeCount.get()).sum();
     }
 
+    /**
+     * Merges the faces of every slice with the {@link BinaryGreedyMesher}. Faces are merged if they share the block face, texture,
+     * light and ambient occlusion. Faces that are already merged are copied as they are.
+     */
     @Override
     public TerrainFaceStorage createGreedyMeshedCopy(int lodLevel) {
-        throw new UnsupportedOperationException();
+        TerrainFaceStorageImpl copy = new TerrainFaceStorageImpl(terrainManager, (byte) lodLevel);
+        for (Long2ObjectMap.Entry<ChunkFaces> chunkFacesEntry : this.chunkFacesInRegion.long2ObjectEntrySet()) {
+            ChunkFaces target = copy.new ChunkFaces();
+            chunkFacesEntry.getValue().mergeInto(target);
+            copy.chunkFacesInRegion.put(chunkFacesEntry.getLongKey(), target);
+        }
+        return copy;
     }
 
     @Override
@@ -181,6 +196,14 @@ public class TerrainFaceStorageImpl implements TerrainFaceStorage {
             return directions.isEmpty();
         }
 
+        private void mergeInto(ChunkFaces target) {
+            for (FacesOfDirection facesOfDirection : directions.values()) {
+                for (FacesOfDirection.FaceSlice faceSlice : facesOfDirection.slicesPerW.values()) {
+                    faceSlice.mergeInto(target);
+                }
+            }
+        }
+
         @Override
         public void forEachFace(BlockFacesConsumer consumer) {
             for (FacesOfDirection value : directions.values()) {
@@ -327,11 +350,11 @@ public class TerrainFaceStorageImpl implements TerrainFaceStorage {
                     //lock.writeLock().lock();
                     try {
                         if (blockFace instanceof GreedyBlockFace greedyBlockFace) {
-                            int deltaU = greedyBlockFace.getDeltaU();
-                            int deltaV = greedyBlockFace.getDeltaV();
+                            int lastU = u + greedyBlockFace.getExtraU();
+                            int lastV = v + greedyBlockFace.getExtraV();
 
-                            for (int du = u; du <= deltaU; du++) {
-                                for (int dv = v; dv <= deltaV; dv++) {
+                            for (int du = u; du <= lastU; du++) {
+                                for (int dv = v; dv <= lastV; dv++) {
                                     removeBlockFace(du, dv);
                                     short idx = computeIndex(du, dv);
                                     facesInSlice.put(idx, freshId);
@@ -370,8 +393,8 @@ public class TerrainFaceStorageImpl implements TerrainFaceStorage {
 
                             if (old instanceof GreedyBlockFace g) {
                                 int u0 = g.getUCoord(direction), v0 = g.getVCoord(direction);
-                                for (int du = u0; du <= g.getDeltaU(); du++) {
-                                    for (int dv = v0; dv <= g.getDeltaV(); dv++) {
+                                for (int du = u0; du <= u0 + g.getExtraU(); du++) {
+                                    for (int dv = v0; dv <= v0 + g.getExtraV(); dv++) {
                                         facesInSlice.remove(computeIndex(du, dv));
                                     }
                                 }
@@ -386,6 +409,40 @@ public class TerrainFaceStorageImpl implements TerrainFaceStorage {
                     }
                 }
 
+                private void mergeInto(ChunkFaces target) {
+                    // Zeilen sind v, Bits sind u
+                    long[] rows = new long[64];
+                    long[] keys = new long[64 * 64];
+                    SingleBlockFace[] faces = new SingleBlockFace[64 * 64];
+                    Object2IntMap<GreedyGroup> groups = new Object2IntOpenHashMap<>();
+
+                    for (BlockFace blockFace : blockFaces.values()) {
+                        int u = blockFace.getUCoord(direction);
+                        int v = blockFace.getVCoord(direction);
+                        if (!(blockFace instanceof SingleBlockFace single) || blockFace instanceof GreedyBlockFace || u >= 64 || v >= 64) {
+                            target.addBlockFace(blockFace);
+                            continue;
+                        }
+                        GreedyGroup group = new GreedyGroup(single.getBlockFaceDefinition(), single.getTextureId(), single.getLightPacked(), single.getAoPacked());
+                        if (!groups.containsKey(group)) {
+                            groups.put(group, groups.size());
+                        }
+                        int groupId = groups.getInt(group);
+                        rows[v] |= 1L << u;
+                        keys[v * 64 + u] = groupId;
+                        faces[v * 64 + u] = single;
+                    }
+
+                    BinaryGreedyMesher.mergeSlice(rows, keys, rows.length, 64, (row, bit, rowCount, bitCount, key) -> {
+                        SingleBlockFace first = faces[row * 64 + bit];
+                        if (rowCount == 1 && bitCount == 1) {
+                            target.addBlockFace(first);
+                            return;
+                        }
+                        target.addBlockFace(first.expandU(bitCount - 1).expandV(rowCount - 1));
+                    });
+                }
+
                 private short computeIndex(int u, int v) {
                     return (short) (u + getSizeU(direction) * v);
                 }
@@ -411,6 +468,9 @@ public class TerrainFaceStorageImpl implements TerrainFaceStorage {
         }
     }
 
+    private record GreedyGroup(BlockModelType.BlockFace blockFace, ResourceLocation textureId, float lightPacked, byte aoPacked) {
+    }
+
     private long computeOffsetKey(int chunkCoordinateInRegionX, int chunkCoordinateInRegionY, int chunkCoordinateInRegionZ) {
         return Chunk.computeChunkKey(chunkCoordinateInRegionX, chunkCoordinateInRegionY, chunkCoordinateInRegionZ);
     }
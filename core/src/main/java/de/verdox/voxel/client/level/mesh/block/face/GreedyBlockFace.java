@@ -17,6 +17,25 @@ public class GreedyBlockFace extends SingleBlockFace {
         this.deltaV = (short) deltaV;
     }
 
+    /**
+     * Blocks this face grows beyond one block along {@link BlockFace#getUCoord(Direction, short, short, short)}.
+     * For EAST and WEST the model U axis is the V coordinate, so the deltas are stored flipped.
+     */
+    public int getExtraU() {
+        return isFlipped() ? deltaV : deltaU;
+    }
+
+    /**
+     * Blocks this face grows beyond one block along {@link BlockFace#getVCoord(Direction, short, short, short)}
+     */
+    public int getExtraV() {
+        return isFlipped() ? deltaU : deltaV;
+    }
+
+    private boolean isFlipped() {
+        return getBlockFaceDefinition().direction().equals(Direction.EAST) || getBlockFaceDefinition().direction().equals(Direction.WEST);
+    }
+
     @Override
     protected float getULength() {
         return super.getULength() + deltaU;
@@ -4,10 +4,14 @@ import com.esotericsoftware.kryonet.Client;
 import de.verdox.voxel.client.GameSession;
 import de.verdox.voxel.client.level.ClientWorld;
 import de.verdox.voxel.shared.VoxelBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.DelegateChunk;
 import de.verdox.voxel.shared.network.packet.client.ClientInterface;
 import de.verdox.voxel.shared.network.packet.serializer.ChunkSerializer;
 import de.verdox.voxel.shared.network.packet.server.ServerSetPlayerWorldPacket;
 import de.verdox.voxel.shared.network.packet.server.ServerWorldExistPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerBlockDeltaPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkBatchPacket;
 import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkPacket;
 
 import java.util.Map;
@@ -51,19 +55,52 @@ public class ClientInterfaceImpl implements ClientInterface {
 
     @Override
     public void receive(ServerChunkPacket packet) {
-        if (packet.chunkBase.getWorld() == null) {
-            LOGGER.warning("Received chunk with unknown world");
+        receiveChunk(packet.chunkBase);
+    }
+
+    @Override
+    public void receive(ServerChunkBatchPacket packet) {
+        for (Chunk chunk : packet.getChunks()) {
+            receiveChunk(chunk);
+        }
+    }
+
+    @Override
+    public void receive(ServerBlockDeltaPacket packet) {
+        ClientWorld clientWorld = GameSession.getInstance().getCurrentWorld();
+        if (clientWorld == null || !packet.getWorld().equals(clientWorld.getUuid())) {
             return;
         }
-        if (!packet.getChunkBase().getWorld().getUuid().equals(GameSession.getInstance().getCurrentWorld().getUuid())) {
-            LOGGER.warning("Received chunk with for world " + packet.getChunkBase().getWorld().getUuid() + " that is not the current world");
+        Chunk chunk = clientWorld.getChunkNow(packet.getChunkX(), packet.getChunkY(), packet.getChunkZ());
+        if (chunk == null) {
+            // Der Chunk ist noch unterwegs und enthält die Änderungen dann schon
             return;
         }
-        ClientWorld clientWorld = GameSession.getInstance().getCurrentWorld();
-        if (!isLocalHost()) {
-            clientWorld.notifyAddChunk(packet.chunkBase);
-        } else {
-            clientWorld.getChunkRequestManager().notifyChunkReceived(packet.chunkBase.getChunkKey());
+        boolean wasEmptyBefore = chunk.isEmpty();
+        if (!isLocalHost() && chunk instanceof DelegateChunk terrainChunk) {
+            // Beim Localhost teilen sich Client und Server die Chunks, die Änderungen sind dort schon angekommen
+            packet.applyTo(terrainChunk.getOwner());
+        }
+        // Änderungen am Rand legen auch Faces der Nachbarn frei
+        int touchedSides = packet.getTouchedSides(chunk);
+        GameSession.postRunnable(() -> {
+            clientWorld.getTerrainManager().afterChunkUpdate(chunk, wasEmptyBefore);
+            if (touchedSides != 0) {
+                clientWorld.getTerrainManager().afterBorderChange(chunk, touchedSides);
+            }
+        });
+    }
+
+    @Override
+    public void receiveChunk(Chunk chunk) {
+        if (chunk == null || chunk.getWorld() == null) {
+            LOGGER.warning("Received chunk with unknown world");
+            return;
+        }
+        if (!chunk.getWorld().getUuid().equals(GameSession.getInstance().getCurrentWorld().getUuid())) {
+            LOGGER.warning("Received chunk with for world " + chunk.getWorld().getUuid() + " that is not the current world");
+            return;
         }
+        GameSession.getInstance().getCurrentWorld().receiveChunk(chunk);
     }
 }
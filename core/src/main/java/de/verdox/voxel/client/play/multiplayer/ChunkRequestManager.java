@@ -9,6 +9,7 @@ import de.verdox.voxel.client.renderer.debug.DebuggableOnScreen;
 import de.verdox.voxel.shared.VoxelBase;
 import de.verdox.voxel.shared.level.chunk.Chunk;
 import de.verdox.voxel.shared.network.packet.client.ClientRequestChunkPacket;
+import de.verdox.voxel.shared.network.packet.client.ClientRequestChunksPacket;
 import de.verdox.voxel.shared.util.ThreadUtil;
 
 import java.util.concurrent.*;
@@ -117,6 +118,7 @@ public class ChunkRequestManager implements DebuggableOnScreen {
         float now = getCurrentTimeSeconds();
 
         int requestCounter = CHUNKS_PER_TICK;
+        ClientRequestChunksPacket.Builder batch = newBatch();
 
         while (requestCounter > 0 && !pendingQueue.isEmpty()) {
             long key = pendingQueue.removeFirst();
@@ -128,10 +130,33 @@ public class ChunkRequestManager implements DebuggableOnScreen {
             if (isChunkLoaded(chunkX, chunkY, chunkZ)) {
                 continue;
             }
-            sendRequest(key, chunkX, chunkY, chunkZ, now);
+            if (!batch.add(chunkX, chunkY, chunkZ)) {
+                sendBatch(batch);
+                batch = newBatch();
+                if (!batch.add(chunkX, chunkY, chunkZ)) {
+                    sendRequest(key, chunkX, chunkY, chunkZ, now);
+                }
+            }
             requested++;
             requestCounter--;
         }
+        sendBatch(batch);
+    }
+
+    private ClientRequestChunksPacket.Builder newBatch() {
+        return new ClientRequestChunksPacket.Builder(clientWorld.getUuid(), centerX, centerY, centerZ);
+    }
+
+    /**
+     * Sends the collected requests as one packet instead of one packet per chunk
+     */
+    private void sendBatch(ClientRequestChunksPacket.Builder batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        ClientRequestChunksPacket packet = batch.build();
+        VoxelBase.getInstance().clientInterface(clientInterface -> clientInterface.sendToServer(packet));
+        requestedChunksThisTick += packet.size();
     }
 
     /**
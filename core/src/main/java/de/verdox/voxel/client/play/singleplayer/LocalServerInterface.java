@@ -2,6 +2,7 @@ package de.verdox.voxel.client.play.singleplayer;
 
 import com.esotericsoftware.kryonet.Server;
 import de.verdox.voxel.server.network.ServerInterfaceImpl;
+import de.verdox.voxel.shared.level.chunk.Chunk;
 import de.verdox.voxel.shared.network.packet.client.ClientInterface;
 import it.unimi.dsi.fastutil.ints.IntSet;
 
@@ -17,6 +18,20 @@ public class LocalServerInterface extends ServerInterfaceImpl {
         onConnect(LOCAL_CONNECTION_ID);
     }
 
+    /**
+     * The local client gets the server chunk itself, without a packet, queue or copy. It shares the chunk with the server
+     * and sees block changes through the chunk delegates, the block deltas only trigger the remesh.
+     */
+    @Override
+    protected void deliverChunk(int connectionId, Chunk chunk) {
+        if (connectionId == LOCAL_CONNECTION_ID) {
+            blockDeltaTracker.watch(connectionId, chunk);
+            localClientInterface.receiveChunk(chunk);
+        } else {
+            super.deliverChunk(connectionId, chunk);
+        }
+    }
+
     @Override
     public <PACKET> void sendToPlayer(PACKET packet, int connectionId) {
         if (connectionId == LOCAL_CONNECTION_ID) {
@@ -22,7 +22,22 @@ public class BlockRenderer {
             RenderableChunk chunk, BlockModelType.BlockFace blockFace, byte lodLevel,
             int localX, int localY, int localZ
     ) {
+        int shading = computeFaceShading(terrainManager, chunk, blockFace, lodLevel, localX, localY, localZ);
 
+        ChunkProtoMesh chunkProtoMesh = chunk.getChunkProtoMesh();
+        ProtoMasks.SINGLE_PER_FACE.storeFace(chunkProtoMesh, ProtoMask.FaceType.OPAQUE, (byte) localX, (byte) localY, (byte) localZ, blockFace.direction(),
+                shadingAo(shading), shadingSky(shading), shadingRed(shading), shadingGreen(shading), shadingBlue(shading));
+    }
+
+    /**
+     * Ambient occlusion of the four corners and the light in front of a face in one int.
+     * Bit-Layout: [ blue:4 | green:4 | red:4 | sky:4 | ao:8 ], two faces with the same value look the same.
+     */
+    public static int computeFaceShading(
+            TerrainManager terrainManager,
+            RenderableChunk chunk, BlockModelType.BlockFace blockFace, byte lodLevel,
+            int localX, int localY, int localZ
+    ) {
         float lightPacked = getLightValueAt(terrainManager, chunk, blockFace.direction(), localX, localY, localZ, lodLevel);
 
         byte c1Ao = computeCornerOcclusion(terrainManager, chunk, blockFace.direction(), blockFace.c1(), localX, localY, localZ, lodLevel);
@@ -36,8 +51,31 @@ public class BlockRenderer {
         byte blueLight = LightUtil.unpackBlueFromFloat(lightPacked);
 
         byte aoPacked = LightUtil.packAo(c1Ao, c2Ao, c3Ao, c4Ao);
-        ChunkProtoMesh chunkProtoMesh = chunk.getChunkProtoMesh();
-        ProtoMasks.SINGLE_PER_FACE.storeFace(chunkProtoMesh, ProtoMask.FaceType.OPAQUE, (byte) localX, (byte) localY, (byte) localZ, blockFace.direction(), aoPacked, skyLight, redLight, greenLight, blueLight);
+        return (aoPacked & 0xFF)
+                | (skyLight & 0xF) << 8
+                | (redLight & 0xF) << 12
+                | (greenLight & 0xF) << 16
+                | (blueLight & 0xF) << 20;
+    }
+
+    public static byte shadingAo(int shading) {
+        return (byte) shading;
+    }
+
+    public static byte shadingSky(int shading) {
+        return (byte) (shading >>> 8 & 0xF);
+    }
+
+    public static byte shadingRed(int shading) {
+        return (byte) (shading >>> 12 & 0xF);
+    }
+
+    public static byte shadingGreen(int shading) {
+        return (byte) (shading >>> 16 & 0xF);
+    }
+
+    public static byte shadingBlue(int shading) {
+        return (byte) (shading >>> 20 & 0xF);
     }
 
     public static BlockFace generateBlockFace(
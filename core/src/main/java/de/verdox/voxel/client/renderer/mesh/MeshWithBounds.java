@@ -9,7 +9,14 @@ import de.verdox.voxel.client.util.InstancedTerrainMesh;
 import gaiasky.util.gdx.mesh.IntMesh;
 
 public interface MeshWithBounds {
-    void setPos(float x, float y, float z);
+    default void setPos(float x, float y, float z) {
+        setPos(x, y, z, 1);
+    }
+
+    /**
+     * @param scale uniform scale of the mesh, meshes of a level of detail are built in cells and scaled back to blocks
+     */
+    void setPos(float x, float y, float z, float scale);
 
     void render(Camera camera);
 
@@ -30,8 +37,8 @@ public interface MeshWithBounds {
         }
 
         @Override
-        public void setPos(float x, float y, float z) {
-            worldTransform.setToTranslation(x, y, z);
+        public void setPos(float x, float y, float z, float scale) {
+            worldTransform.setToTranslationAndScaling(x, y, z, scale, scale, scale);
         }
 
         @Override
@@ -0,0 +1,67 @@
+package de.verdox.voxel.client.renderer.mesh.chunk;
+
+/**
+ * Merges the visible faces of one slice into rectangles.
+ * <p>
+ * A slice is given as rows of face bits, one long per row, and one key per face. Faces are only merged if their keys are equal,
+ * so the key has to contain everything that is drawn once per quad (block, ambient occlusion and light).
+ * A run is first grown along the bits of its row, then the following rows are tested with one AND against the bits of the run.
+ */
+public class BinaryGreedyMesher {
+
+    /**
+     * Receives one merged rectangle, starting at {@code row} and {@code bit} and spanning {@code rowCount} rows and {@code bitCount} bits
+     */
+    public interface QuadConsumer {
+        void consume(int row, int bit, int rowCount, int bitCount, long key);
+    }
+
+    /**
+     * @param rows     face bits per row, cleared while merging
+     * @param keys     key per face, index = row * stride + bit
+     * @param rowCount amount of rows in the slice
+     * @param stride   row length of the key array, at least the highest used bit + 1
+     * @param consumer receives every merged rectangle
+     * @return the amount of emitted rectangles
+     */
+    public static int mergeSlice(long[] rows, long[] keys, int rowCount, int stride, QuadConsumer consumer) {
+        int quads = 0;
+        for (int row = 0; row < rowCount; row++) {
+            long bits = rows[row];
+            while (bits != 0L) {
+                int start = Long.numberOfTrailingZeros(bits);
+                long key = keys[row * stride + start];
+
+                // Lauf entlang der Bits der Zeile
+                int end = start + 1;
+                while (end < 64 && (bits >>> end & 1L) != 0L && keys[row * stride + end] == key) {
+                    end++;
+                }
+                int length = end - start;
+                long run = length == 64 ? ~0L : ((1L << length) - 1) << start;
+                bits &= ~run;
+
+                // Folgezeilen übernehmen, solange sie den ganzen Lauf mit gleichem Key enthalten
+                int height = 1;
+                while (row + height < rowCount && (rows[row + height] & run) == run && sameKey(keys, (row + height) * stride, start, end, key)) {
+                    rows[row + height] &= ~run;
+                    height++;
+                }
+
+                consumer.consume(row, start, height, length, key);
+                quads++;
+            }
+            rows[row] = 0L;
+        }
+        return quads;
+    }
+
+    private static boolean sameKey(long[] keys, int rowOffset, int start, int end, long key) {
+        for (int bit = start; bit < end; bit++) {
+            if (keys[rowOffset + bit] != key) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
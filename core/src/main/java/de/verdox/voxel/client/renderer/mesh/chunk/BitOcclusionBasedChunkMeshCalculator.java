@@ -1,7 +1,11 @@
 package de.verdox.voxel.client.renderer.mesh.chunk;
 
 import de.verdox.voxel.client.level.TerrainManager;
+import de.verdox.voxel.client.level.chunk.proto.ProtoMask;
+import de.verdox.voxel.client.level.chunk.proto.ProtoMasks;
+import de.verdox.voxel.client.level.chunk.occupancy.OccupancyColumns;
 import de.verdox.voxel.client.level.chunk.occupancy.OccupancyMask;
+import de.verdox.voxel.client.level.chunk.occupancy.SeamOccupancyMask;
 import de.verdox.voxel.client.renderer.mesh.BlockRenderer;
 import de.verdox.voxel.client.level.chunk.RenderableChunk;
 import de.verdox.voxel.client.level.chunk.TerrainChunk;
@@ -9,12 +13,28 @@ import de.verdox.voxel.client.renderer.terrain.regions.RegionalizedTerrainManage
 import de.verdox.voxel.shared.data.registry.ResourceLocation;
 import de.verdox.voxel.shared.data.types.Blocks;
 import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.block.BlockModelType;
 import de.verdox.voxel.shared.util.Direction;
 
+import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.CompletableFuture;
 
+/**
+ * Computes the visible faces of a chunk from the column bitmasks of the {@link OccupancyMask}.
+ * With greedy meshing the faces of every slice are merged by the {@link BinaryGreedyMesher} into {@link ProtoMasks#GREEDY} quads,
+ * otherwise every face is stored on its own.
+ */
 public class BitOcclusionBasedChunkMeshCalculator implements ChunkMeshCalculator {
+    private final boolean greedyMeshing;
+
+    public BitOcclusionBasedChunkMeshCalculator() {
+        this(true);
+    }
+
+    public BitOcclusionBasedChunkMeshCalculator(boolean greedyMeshing) {
+        this.greedyMeshing = greedyMeshing;
+    }
+
     @Override
     public void calculateChunkMesh(TerrainChunk chunk, int lodLevel) {
         long start = System.nanoTime();
@@ -34,56 +54,184 @@ public class BitOcclusionBasedChunkMeshCalculator implements ChunkMeshCalculator
             lookupChunk = chunk.getLodChunk(lodLevel);
         }
 
-        lookupChunk.getChunkProtoMesh().clear();
-
-        int sx = lookupChunk.getSizeX();
-        int sy = lookupChunk.getSizeY();
-        int sz = lookupChunk.getSizeZ();
-
-
-        OccupancyMask occupancyMask = lookupChunk.getChunkOccupancyMask();
-
-        OccupancyMask[] neighOcc = new OccupancyMask[6];
+        OccupancyColumns[] neighOcc = new OccupancyColumns[6];
         for (int i = 0; i < Direction.values().length; i++) {
             Direction d = Direction.values()[i];
             TerrainChunk nc = chunk.getNeighborChunk(d);
             if (nc != null) {
-                neighOcc[i] = lodLevel == 0 ? nc.getChunkOccupancyMask() : nc.getLodChunk(lodLevel).getChunkOccupancyMask();
+                // Am Rand der Region kann der Nachbar eine andere Detailstufe haben
+                int neighborLod = chunk.getTerrainManager().getRenderedLodLevel(nc, lodLevel);
+                OccupancyMask neighborMask = neighborLod == 0 ? nc.getChunkOccupancyMask() : nc.getLodChunk(neighborLod).getChunkOccupancyMask();
+                neighOcc[i] = neighborLod == lodLevel ? neighborMask : new SeamOccupancyMask(neighborMask, lookupChunk, d, neighborLod - lodLevel);
             } else {
                 // This only happens on view distance edges
                 neighOcc[i] = null;
             }
         }
 
+        if (calculateChunkMesh(chunk.getTerrainManager(), lookupChunk, neighOcc, (byte) lodLevel)) {
+            long duration = System.nanoTime() - start;
+            chunkCalculatorThroughput.add(duration);
+        }
+    }
 
-        CompletableFuture[] futures = new CompletableFuture[Direction.values().length];
-        boolean calculatedAnything = false;
+    /**
+     * Fills the proto mesh of the lookup chunk. Directions without a neighbor mask are skipped.
+     *
+     * @param neighOcc occupancy mask of the neighbor chunk per {@link Direction#getId()}
+     * @return true if faces were computed for at least one direction
+     */
+    public boolean calculateChunkMesh(TerrainManager terrainManager, RenderableChunk lookupChunk, OccupancyColumns[] neighOcc, byte lodLevel) {
+        lookupChunk.getChunkProtoMesh().clear();
+
+        int sx = lookupChunk.getSizeX();
+        int sy = lookupChunk.getSizeY();
+        int sz = lookupChunk.getSizeZ();
 
+        OccupancyMask occupancyMask = lookupChunk.getChunkOccupancyMask();
+
+        long[] rows = null;
+        long[] keys = null;
+        if (greedyMeshing) {
+            int maxSize = Math.max(sx, Math.max(sy, sz));
+            rows = new long[maxSize];
+            keys = new long[maxSize * maxSize];
+        }
+
+        boolean calculatedAnything = false;
         for (int dirId = 0; dirId < Direction.values().length; dirId++) {
             //if ((occupancyMask.getSideMask() & (1L << dirId)) != 0) continue;
 
             Direction d = Direction.values()[dirId];
-            OccupancyMask neighborOcclusionMap = neighOcc[dirId];
-
-            if (neighborOcclusionMap != null) {
-                //generateBlockFacesForDirection(blockFaces, (byte) lodLevel, d, sx, sy, occupancyMask, neighborOcclusionMap, sz, lookupChunk);
-                generateBlockFacesForDirection(chunk.getTerrainManager(), (byte) lodLevel, d, sx, sy, occupancyMask, neighborOcclusionMap, sz, lookupChunk);
-                futures[dirId] = CompletableFuture.completedFuture(null);
-                calculatedAnything = true;
-                //futures[dirId] = CompletableFuture.runAsync(() -> generateBlockFacesForDirection(chunk.getTerrainManager(), blockFaces, (byte) lodLevel, d, sx, sy, occupancyMask, neighborOcclusionMap, sz, lookupChunk), service2);
+            OccupancyColumns neighborOcclusionMap = neighOcc[dirId];
+
+            if (neighborOcclusionMap == null) {
+                continue;
+            }
+            if (greedyMeshing) {
+                generateGreedyQuadsForDirection(terrainManager, lodLevel, d, sx, sy, sz, occupancyMask, neighborOcclusionMap, lookupChunk, rows, keys);
             } else {
-                futures[dirId] = CompletableFuture.completedFuture(null);
+                generateBlockFacesForDirection(terrainManager, lodLevel, d, sx, sy, occupancyMask, neighborOcclusionMap, sz, lookupChunk);
             }
+            calculatedAnything = true;
         }
+        return calculatedAnything;
+    }
 
-        CompletableFuture.allOf(futures).join();
-        if(calculatedAnything) {
-            long duration = System.nanoTime() - start;
-            chunkCalculatorThroughput.add(duration);
+    /**
+     * Builds the face rows of every slice orthogonal to the direction and merges them.
+     * EAST/WEST slices are x with rows y and bits z, UP/DOWN slices are y with rows x and bits z, NORTH/SOUTH slices are z with rows y and bits x.
+     */
+    private static void generateGreedyQuadsForDirection(TerrainManager terrainManager, byte lodLevel, Direction d, int sx, int sy, int sz, OccupancyMask occupancyMask, OccupancyColumns neighborOcclusionMap, RenderableChunk lookupChunk, long[] rows, long[] keys) {
+        int dx = d.getOffsetX(), dy = d.getOffsetY(), dz = d.getOffsetZ();
+
+        int slices, rowCount, stride;
+        switch (d) {
+            case EAST, WEST -> {
+                slices = sx;
+                rowCount = sy;
+                stride = sz;
+            }
+            case UP, DOWN -> {
+                slices = sy;
+                rowCount = sx;
+                stride = sz;
+            }
+            default -> {
+                slices = sz;
+                rowCount = sy;
+                stride = sx;
+            }
         }
+
+        for (int w = 0; w < slices; w++) {
+            boolean anyFace = false;
+            for (int row = 0; row < rowCount; row++) {
+                long faceBits = switch (d) {
+                    case EAST, WEST -> occupancyMask.getZColumn(w, row) & ~(w + dx >= 0 && w + dx < sx
+                            ? occupancyMask.getZColumn(w + dx, row)
+                            : neighborOcclusionMap.getZColumn(lookupChunk.localX(w + dx), row));
+                    case UP, DOWN -> occupancyMask.getZColumn(row, w) & ~(w + dy >= 0 && w + dy < sy
+                            ? occupancyMask.getZColumn(row, w + dy)
+                            : neighborOcclusionMap.getZColumn(row, lookupChunk.localY(w + dy)));
+                    case NORTH, SOUTH -> occupancyMask.getXColumn(row, w) & ~(w + dz >= 0 && w + dz < sz
+                            ? occupancyMask.getXColumn(row, w + dz)
+                            : neighborOcclusionMap.getXColumn(row, lookupChunk.localZ(w + dz)));
+                };
+
+                long remaining = faceBits;
+                while (remaining != 0L) {
+                    int bit = Long.numberOfTrailingZeros(remaining);
+                    remaining &= remaining - 1;
+
+                    int x = d.getOffsetX() != 0 ? w : d.getOffsetY() != 0 ? row : bit;
+                    int y = d.getOffsetY() != 0 ? w : row;
+                    int z = d.getOffsetZ() != 0 ? w : bit;
+
+                    BlockBase block = lookupChunk.getBlockAt(x, y, z);
+                    if (block.equals(Blocks.AIR)) {
+                        throw new IllegalStateException("The occupancy mask produced a coordinate with an AIR block");
+                    }
+                    List<BlockModelType.BlockFace> faces = block.getModel().getBlockModelType().getBlockFace(d);
+                    if (faces.isEmpty()) {
+                        faceBits &= ~(1L << bit);
+                        continue;
+                    }
+                    int shading = BlockRenderer.computeFaceShading(terrainManager, lookupChunk, faces.getFirst(), lodLevel, x, y, z);
+                    keys[row * stride + bit] = (long) block.getMaterialID() << 32 | (shading & 0xFFFFFFFFL);
+                }
+                rows[row] = faceBits;
+                anyFace |= faceBits != 0L;
+            }
+            if (!anyFace) {
+                continue;
+            }
+
+            int slice = w;
+            BinaryGreedyMesher.mergeSlice(rows, keys, rowCount, stride, (row, bit, height, length, key) -> {
+                int minX, minY, minZ, sizeX, sizeY, sizeZ;
+                switch (d) {
+                    case EAST, WEST -> {
+                        minX = slice; minY = row; minZ = bit;
+                        sizeX = 1; sizeY = height; sizeZ = length;
+                    }
+                    case UP, DOWN -> {
+                        minX = row; minY = slice; minZ = bit;
+                        sizeX = height; sizeY = 1; sizeZ = length;
+                    }
+                    default -> {
+                        minX = bit; minY = row; minZ = slice;
+                        sizeX = length; sizeY = height; sizeZ = 1;
+                    }
+                }
+                storeGreedyQuad(lookupChunk, d, minX, minY, minZ, sizeX, sizeY, sizeZ, (int) key);
+            });
+        }
+    }
+
+    /**
+     * Quads grow from their first corner along U and V of the direction. Where U or V points to negative coordinates the first corner
+     * is at the far end of the box, so the stored block is moved there.
+     */
+    private static void storeGreedyQuad(RenderableChunk lookupChunk, Direction d, int minX, int minY, int minZ, int sizeX, int sizeY, int sizeZ, int shading) {
+        float[] u = d.getUDirection();
+        float[] v = d.getVDirection();
+
+        int x = u[0] < 0 || v[0] < 0 ? minX + sizeX - 1 : minX;
+        int y = u[1] < 0 || v[1] < 0 ? minY + sizeY - 1 : minY;
+        int z = u[2] < 0 || v[2] < 0 ? minZ + sizeZ - 1 : minZ;
+
+        int sizeU = u[0] != 0 ? sizeX : u[1] != 0 ? sizeY : sizeZ;
+        int sizeV = v[0] != 0 ? sizeX : v[1] != 0 ? sizeY : sizeZ;
+
+        ProtoMasks.GREEDY.storeFace(lookupChunk.getChunkProtoMesh(), ProtoMask.FaceType.OPAQUE,
+                (byte) x, (byte) y, (byte) z, d,
+                BlockRenderer.shadingAo(shading), BlockRenderer.shadingSky(shading), BlockRenderer.shadingRed(shading),
+                BlockRenderer.shadingGreen(shading), BlockRenderer.shadingBlue(shading),
+                sizeU - 1, sizeV - 1);
     }
 
-    private static void generateBlockFacesForDirection(TerrainManager terrainManager, byte lodLevel, Direction d, int sx, int sy, OccupancyMask occupancyMask, OccupancyMask neighborOcclusionMap, int sz, RenderableChunk lookupChunk) {
+    private static void generateBlockFacesForDirection(TerrainManager terrainManager, byte lodLevel, Direction d, int sx, int sy, OccupancyMask occupancyMask, OccupancyColumns neighborOcclusionMap, int sz, RenderableChunk lookupChunk) {
         int dx = d.getOffsetX(), dy = d.getOffsetY(), dz = d.getOffsetZ();
 
         Objects.requireNonNull(neighborOcclusionMap, "Can only create a chunk mesh for a chunk that has all neighbors");
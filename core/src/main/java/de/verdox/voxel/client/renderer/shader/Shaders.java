@@ -16,6 +16,15 @@ public class Shaders {
 
     public static final VertexAttributes SINGLE_OPAQUE_ATTRIBUTES = new VertexAttributes(SINGLE_OPAQUE_ATTRIBUTES_ARRAY);
 
+    /**
+     * Per instance attributes, a_quad_size holds how many blocks greedy quads grow beyond one block along U and V
+     */
+    public static final VertexAttribute[] INSTANCED_OPAQUE_ATTRIBUTES_ARRAY = new VertexAttribute[]{
+            new VertexAttribute(VertexAttributes.Usage.Position, 1, "a_position_and_ao"),
+            new VertexAttribute(VertexAttributes.Usage.TextureCoordinates, 1, "a_texCoord_and_light"),
+            new VertexAttribute(VertexAttributes.Usage.Generic, 1, "a_quad_size")
+    };
+
     public static final ShaderProgram SINGLE_PER_CORNER_OPAQUE_BLOCK_SHADER = new ShaderProgram(
             Gdx.files.internal("voxel/shaders/core/blockface/single/single_opaque_face.vsh"),
             Gdx.files.internal("voxel/shaders/core/blockface/single/single_opaque_face.fsh")
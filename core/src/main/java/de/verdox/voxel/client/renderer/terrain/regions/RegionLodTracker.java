@@ -0,0 +1,87 @@
+package de.verdox.voxel.client.renderer.terrain.regions;
+
+import de.verdox.voxel.shared.util.lod.LODUtil;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+
+/**
+ * The level of detail every region is meshed for. A region keeps its level until the exact level left the band of that level by more
+ * than the hysteresis, so a camera moving back and forth over a chunk border does not remesh the same regions again and again.
+ * Every change of a level is counted as one transition remesh.
+ * <p>
+ * The render graph updates the levels, the meshing threads read them.
+ */
+public class RegionLodTracker {
+    /**
+     * A quarter level, about 19% of the distance at which a level starts
+     */
+    public static final double DEFAULT_HYSTERESIS = 0.25;
+
+    private final Long2IntMap targetLods = new Long2IntOpenHashMap();
+    private final int maxLod;
+    private final double hysteresis;
+    private long transitions;
+
+    /**
+     * @param hysteresis in levels, 0 switches as soon as the rounded level changes
+     */
+    public RegionLodTracker(int maxLod, double hysteresis) {
+        this.maxLod = maxLod;
+        this.hysteresis = hysteresis;
+        this.targetLods.defaultReturnValue(-1);
+    }
+
+    /**
+     * Level a region at the given level should switch to, the current level if the exact level is still within its band
+     */
+    public static int nextLodLevel(int currentLod, double exactLod, int maxLod, double hysteresis) {
+        int lodLevel = LODUtil.toLodLevel(exactLod, maxLod);
+        if (currentLod < 0 || lodLevel == currentLod) {
+            return lodLevel;
+        }
+        if (lodLevel > currentLod) {
+            return exactLod >= currentLod + 1 + hysteresis ? lodLevel : currentLod;
+        }
+        return exactLod < currentLod - hysteresis ? lodLevel : currentLod;
+    }
+
+    /**
+     * Moves the level of the region toward the exact level.
+     *
+     * @return true if the level changed and the region has to be remeshed. Seeing a region for the first time is no transition,
+     * its first mesh is built at that level anyway.
+     */
+    public synchronized boolean update(long regionKey, double exactLod) {
+        int current = targetLods.get(regionKey);
+        int next = nextLodLevel(current, exactLod, maxLod, hysteresis);
+        if (next == current) {
+            return false;
+        }
+        targetLods.put(regionKey, next);
+        if (current < 0) {
+            return false;
+        }
+        transitions++;
+        return true;
+    }
+
+    /**
+     * The level the region is meshed for. A region that was never updated gets the rounded exact level.
+     */
+    public synchronized int getLodLevel(long regionKey, double exactLod) {
+        int current = targetLods.get(regionKey);
+        if (current < 0) {
+            current = LODUtil.toLodLevel(exactLod, maxLod);
+            targetLods.put(regionKey, current);
+        }
+        return current;
+    }
+
+    public synchronized void remove(long regionKey) {
+        targetLods.remove(regionKey);
+    }
+
+    public synchronized long getTransitions() {
+        return transitions;
+    }
+}
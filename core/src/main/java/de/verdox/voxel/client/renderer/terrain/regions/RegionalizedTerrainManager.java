@@ -32,6 +32,8 @@ public class RegionalizedTerrainManager implements TerrainManager {
     private final ClientWorld world;
     @Getter
     private final ChunkLightEngine lightEngine;
+    @Getter
+    private final RegionLodTracker lodTracker;
     private final Long2ObjectMap<TerrainRegion> terrainRegions = new Long2ObjectOpenHashMap<>();
     private final Long2IntMap highestRegions = new Long2IntOpenHashMap();
     private final Long2IntMap lowestRegions = new Long2IntOpenHashMap();
@@ -49,9 +51,10 @@ public class RegionalizedTerrainManager implements TerrainManager {
         Gdx.app.log("Terrain Manager", "Initialized terrain manager with size [" + regionSizeX + ", " + regionSizeY + ", " + regionSizeZ + "]");
         this.world = world;
         this.bounds = new RegionBounds(regionSizeX, regionSizeY, regionSizeZ);
+        this.lodTracker = new RegionLodTracker(LODUtil.getMaxLod(world), RegionLodTracker.DEFAULT_HYSTERESIS);
         this.meshService = new TerrainMeshService(this, regionMeshCalculator, chunkMeshCalculator);
 
-        this.regionBasedTerrainRenderGraph = new OctreeRegionBasedTerrainRenderGraph(this, 4, 8, ClientBase.clientSettings.horizontalViewDistance, ClientBase.clientSettings.verticalViewDistance, ClientBase.clientSettings.horizontalViewDistance);
+        this.regionBasedTerrainRenderGraph = new OctreeRegionBasedTerrainRenderGraph(this);
         this.lightEngine = new ChunkLightEngine();
     }
 
@@ -86,7 +89,6 @@ public class RegionalizedTerrainManager implements TerrainManager {
         int regionZ = bounds.getRegionZ(chunk.getChunkZ());
 
         long regionKey = Chunk.computeChunkKey(regionX, regionY, regionZ);
-        regionBasedTerrainRenderGraph.addRegion(regionX, regionY, regionZ);
 
         TerrainRegion terrainRegion;
         if (!terrainRegions.containsKey(regionKey)) {
@@ -109,6 +111,7 @@ public class RegionalizedTerrainManager implements TerrainManager {
             terrainRegion = terrainRegions.get(regionKey);
         }
         terrainRegion.addChunk(chunk);
+        regionBasedTerrainRenderGraph.addRegion(regionX, regionY, regionZ);
 
         long heightKey = Chunk.computeChunkKey(regionX, 0, regionZ);
         if (!highestRegions.containsKey(heightKey) || regionY > highestRegions.get(heightKey)) {
@@ -132,6 +135,7 @@ public class RegionalizedTerrainManager implements TerrainManager {
             terrainRegion.removeChunk(chunk);
             if (terrainRegion.isEmpty()) {
                 terrainRegions.remove(regionKey);
+                lodTracker.remove(regionKey);
 
                 for (int i = 0; i < Direction.values().length; i++) {
                     Direction dir = Direction.values()[i];
@@ -173,6 +177,33 @@ public class RegionalizedTerrainManager implements TerrainManager {
         }
     }
 
+    @Override
+    public void afterBorderChange(Chunk chunk, int sides) {
+        for (int i = 0; i < Direction.values().length; i++) {
+            Direction direction = Direction.values()[i];
+            if ((sides & (1 << direction.getId())) == 0) {
+                continue;
+            }
+            TerrainChunk neighbor = getChunkNow(chunk.getChunkX() + direction.getOffsetX(), chunk.getChunkY() + direction.getOffsetY(), chunk.getChunkZ() + direction.getOffsetZ());
+            // Leere Nachbarn haben keine Faces, die freigelegt werden könnten
+            if (neighbor != null && !neighbor.isEmpty()) {
+                remeshChunk(neighbor);
+            }
+        }
+    }
+
+    @Override
+    public void afterLightChange(TerrainChunk chunk) {
+        remeshChunk(chunk);
+    }
+
+    private void remeshChunk(TerrainChunk chunk) {
+        TerrainRegion terrainRegion = getRegionOfChunk(chunk.getChunkX(), chunk.getChunkY(), chunk.getChunkZ());
+        if (terrainRegion != null && terrainRegion.getTerrainChunk(chunk) == chunk) {
+            meshService.createChunkMesh(terrainRegion, chunk);
+        }
+    }
+
     @Override
     public int renderTerrain(Camera camera, ClientWorld world, int viewDistanceX, int viewDistanceY, int viewDistanceZ, TerrainRenderStats renderStats) {
         return regionBasedTerrainRenderGraph.renderTerrain(camera, world, viewDistanceX, viewDistanceY, viewDistanceZ, renderStats);
@@ -198,19 +229,51 @@ public class RegionalizedTerrainManager implements TerrainManager {
         return getRegion(regionX, lowestRegions.getOrDefault(heightKey, 0), regionZ);
     }
 
-    public int computeLodLevel(
-            int centerRegionX, int centerRegionY, int centerRegionZ,
-            int targetRegionX, int targetRegionY, int targetRegionZ
-    ) {
-        return LODUtil.computeLodLevel(
+    /**
+     * Level of detail of the region by the distance of the camera chunk to it, not rounded to a level
+     */
+    public double computeExactLod(TerrainRegion region) {
+        return LODUtil.computeExactLod(
                 getBounds(),
                 ClientBase.clientSettings.horizontalViewDistance, ClientBase.clientSettings.verticalViewDistance, ClientBase.clientSettings.horizontalViewDistance,
                 getWorld().getChunkSizeX(),
                 getWorld().getChunkSizeY(),
                 getWorld().getChunkSizeZ(),
-                centerRegionX, centerRegionY, centerRegionZ,
-                targetRegionX, targetRegionY, targetRegionZ,
+                centerChunkX, centerChunkY, centerChunkZ,
+                region.getRegionX(), region.getRegionY(), region.getRegionZ(),
                 LODUtil.getMaxLod(getWorld())
         );
     }
+
+    /**
+     * The level of detail the region is meshed for
+     */
+    public int getLodLevel(TerrainRegion region) {
+        return lodTracker.getLodLevel(region.getRegionKey(), computeExactLod(region));
+    }
+
+    /**
+     * Called by the render graph for every visible region. A changed level remeshes the region and the chunks of its neighbors that
+     * touch it, their border faces were culled against the old level.
+     */
+    public int updateLodLevel(TerrainRegion region) {
+        double exactLod = computeExactLod(region);
+        if (lodTracker.update(region.getRegionKey(), exactLod)) {
+            meshService.requestLodChange(region);
+            for (int i = 0; i < Direction.values().length; i++) {
+                Direction direction = Direction.values()[i];
+                TerrainRegion neighbor = region.getNeighbor(direction);
+                if (neighbor != null) {
+                    meshService.remeshBorder(neighbor, direction.getOpposite());
+                }
+            }
+        }
+        return lodTracker.getLodLevel(region.getRegionKey(), exactLod);
+    }
+
+    @Override
+    public int getRenderedLodLevel(TerrainChunk chunk, int requestedLodLevel) {
+        TerrainRegion terrainRegion = getRegionOfChunk(chunk.getChunkX(), chunk.getChunkY(), chunk.getChunkZ());
+        return terrainRegion == null ? requestedLodLevel : getLodLevel(terrainRegion);
+    }
 }
@@ -1,11 +1,15 @@
 package de.verdox.voxel.client.renderer.terrain.regions;
 
+import com.badlogic.gdx.utils.FloatArray;
 import de.verdox.voxel.client.assets.TextureAtlasManager;
 import de.verdox.voxel.client.level.ClientWorld;
+import de.verdox.voxel.client.level.chunk.proto.Single;
 import de.verdox.voxel.client.renderer.mesh.MeshWithBounds;
 import de.verdox.voxel.client.renderer.shader.Shaders;
+import de.verdox.voxel.client.renderer.terrain.regions.mesh.RegionInstanceBuffer;
 import de.verdox.voxel.client.util.InstancedTerrainMesh;
 import de.verdox.voxel.shared.util.TerrainRenderStats;
+import de.verdox.voxel.shared.util.lod.LODUtil;
 import gaiasky.util.gdx.mesh.IntMesh;
 import lombok.Getter;
 import lombok.Setter;
@@ -29,10 +33,12 @@ public class TerrainMesh {
     private float[] vertices;
     private int[] intIndices;
 
-    private float[] instances;
+    private RegionInstanceBuffer instanceBuffer;
+    private InstancedTerrainMesh instancedTerrainMesh;
+    private int uploadedInstances;
+    private int uploadedCapacity;
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
-    private int amountInstanceVertices;
 
 
     public int getAmountOfBlockFaces() {
@@ -43,8 +49,8 @@ public class TerrainMesh {
         if (this.vertices != null) {
             stats.amountFloatVerticesVRAM += vertices.length;
         }
-        if (this.instances != null) {
-            stats.amountFloatVerticesVRAM += instances.length;
+        if (this.instanceBuffer != null) {
+            stats.amountFloatVerticesVRAM += instanceBuffer.getEnd() * Single.FLOATS_PER_INSTANCE;
         }
         if (this.intIndices != null) {
             stats.amountIntIndicesVRAM += intIndices.length;
@@ -72,15 +78,55 @@ public class TerrainMesh {
         }
     }
 
-    public void setInstances(float[] instances, int amountFaces, int amountVertices, int lodLevel) {
+    /**
+     * The segmented instance buffer of this region. It is emptied when the region switches its level of detail, because every chunk
+     * has to be decoded again then.
+     */
+    public RegionInstanceBuffer getOrCreateInstanceBuffer(int slots, int lodLevel) {
+        lock.writeLock().lock();
+        try {
+            if (instanceBuffer == null || instanceBuffer.getSlots() != slots) {
+                instanceBuffer = new RegionInstanceBuffer(slots);
+            } else if (this.lodLevel != lodLevel) {
+                instanceBuffer.clear();
+            }
+            this.lodLevel = lodLevel;
+            return instanceBuffer;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void writeChunkInstances(int slot, int version, FloatArray instances) {
+        lock.writeLock().lock();
+        try {
+            instanceBuffer.write(slot, version, instances.items, instances.size);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeChunkInstances(int slot) {
+        lock.writeLock().lock();
+        try {
+            instanceBuffer.remove(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Called after all chunk segments were patched, marks the mesh dirty if any instance changed
+     */
+    public void finishInstanceUpdate(int amountFaces, int amountVertices) {
         lock.writeLock().lock();
         try {
-            this.instances = instances;
             this.amountBlockFaces = amountFaces;
-            this.amountInstanceVertices = amountVertices;
+            this.numVertices = amountVertices;
+            if (instanceBuffer.isDirty()) {
+                this.dirty = true;
+            }
         } finally {
-            this.dirty = true;
-            this.lodLevel = lodLevel;
             lock.writeLock().unlock();
         }
     }
@@ -99,6 +145,8 @@ public class TerrainMesh {
                 vertices = null;
                 intIndices = null;
             }
+            instancedTerrainMesh = null;
+            instanceBuffer = null;
         } finally {
             lock.writeLock().unlock();
         }
@@ -115,20 +163,17 @@ public class TerrainMesh {
 
         lock.writeLock().lock();
         try {
+            if (instanceBuffer != null) {
+                uploadInstances();
+                this.calculatedMesh.setPos(offsetX, offsetY, offsetZ, LODUtil.getLodScale(lodLevel));
+                return calculatedMesh;
+            }
 
             if (this.calculatedMesh != null) {
                 this.calculatedMesh.dispose();
             }
 
-            if (instances != null) {
-                InstancedTerrainMesh instancedTerrainMesh = new InstancedTerrainMesh(
-                        amountInstanceVertices,
-                        Shaders.SINGLE_OPAQUE_ATTRIBUTES_ARRAY
-                );
-
-                instancedTerrainMesh.setInstances(instances);
-                this.calculatedMesh = new MeshWithBounds.InstancedBasedMesh(instancedTerrainMesh, Shaders.SINGLE_INSTANCED_OPAQUE_BLOCK_SHADER, TextureAtlasManager.getInstance().getBlockTextureAtlas(), 0);
-            } else if (vertices != null && intIndices != null && numVertices > 0 && numIntIndices > 0) {
+            if (vertices != null && intIndices != null && numVertices > 0 && numIntIndices > 0) {
                 IntMesh mesh = new IntMesh(
                         true,
                         numVertices,
@@ -153,4 +198,32 @@ public class TerrainMesh {
             lock.writeLock().unlock();
         }
     }
+
+    /**
+     * Uploads the instance buffer. Only the dirty range is copied as long as the buffer did not grow or move segments to its end.
+     */
+    private void uploadInstances() {
+        int floats = Single.FLOATS_PER_INSTANCE;
+        int capacity = instanceBuffer.getData().length / floats;
+        if (instancedTerrainMesh == null || capacity > uploadedCapacity) {
+            if (this.calculatedMesh != null) {
+                this.calculatedMesh.dispose();
+            }
+            instancedTerrainMesh = new InstancedTerrainMesh(capacity, Shaders.INSTANCED_OPAQUE_ATTRIBUTES_ARRAY);
+            instancedTerrainMesh.setInstances(instanceBuffer.getData(), 0, instanceBuffer.getEnd() * floats);
+            uploadedCapacity = capacity;
+            uploadedInstances = instanceBuffer.getEnd();
+            this.calculatedMesh = new MeshWithBounds.InstancedBasedMesh(instancedTerrainMesh, Shaders.SINGLE_INSTANCED_OPAQUE_BLOCK_SHADER, TextureAtlasManager.getInstance().getBlockTextureAtlas(), 0);
+        } else if (instanceBuffer.getEnd() != uploadedInstances) {
+            instancedTerrainMesh.setInstances(instanceBuffer.getData(), 0, instanceBuffer.getEnd() * floats);
+            uploadedInstances = instanceBuffer.getEnd();
+        } else if (instanceBuffer.isDirty()) {
+            int from = instanceBuffer.getDirtyFrom();
+            int to = Math.min(instanceBuffer.getDirtyTo(), uploadedInstances);
+            if (from < to) {
+                instancedTerrainMesh.updateInstances(instanceBuffer.getData(), from * floats, (to - from) * floats);
+            }
+        }
+        instanceBuffer.clearDirty();
+    }
 }
@@ -6,6 +6,8 @@ import de.verdox.voxel.client.level.chunk.TerrainChunk;
 import de.verdox.voxel.client.renderer.terrain.regions.mesh.RegionMeshCalculator;
 import de.verdox.voxel.client.renderer.debug.DebugScreen;
 import de.verdox.voxel.client.renderer.debug.DebuggableOnScreen;
+import de.verdox.voxel.shared.util.Direction;
+import de.verdox.voxel.shared.util.RegionBounds;
 import de.verdox.voxel.shared.util.ThreadUtil;
 import de.verdox.voxel.shared.util.concurrent.CoalescingScheduler;
 
@@ -47,33 +49,77 @@ public class TerrainMeshService implements DebuggableOnScreen {
         if (skip(chunk)) return;
 
         long ck = chunk.getChunkKey();
-        long rk = region.getRegionKey();
 
         chunkSched.request(ck, () -> {
-            int lod = terrainManager.computeLodLevel(
-                    terrainManager.getCenterRegionX(), terrainManager.getCenterRegionY(), terrainManager.getCenterRegionZ(),
-                    region.getRegionX(), region.getRegionY(), region.getRegionZ()
-            );
-            chunkMeshCalculator.calculateChunkMesh(chunk, lod);
-
-            regionSched.request(rk, () -> {
-                int regionLod = terrainManager.computeLodLevel(
-                        terrainManager.getCenterRegionX(), terrainManager.getCenterRegionY(), terrainManager.getCenterRegionZ(),
-                        region.getRegionX(), region.getRegionY(), region.getRegionZ()
-                );
-                regionMeshCalculator.updateTerrainMesh(region, regionLod);
-            });
+            meshChunk(chunk, terrainManager.getLodLevel(region));
+            requestRegionUpdate(region);
         });
     }
 
+    /**
+     * The chunk scheduler and a level of detail change of the region can mesh the same chunk at the same time.
+     * Both write into the same proto mesh, so meshing of one chunk is serialized on the chunk.
+     */
+    private void meshChunk(TerrainChunk chunk, int lodLevel) {
+        synchronized (chunk) {
+            chunkMeshCalculator.calculateChunkMesh(chunk, lodLevel);
+        }
+    }
+
     public void removeChunkMesh(TerrainRegion region, TerrainChunk chunk) {
-        regionSched.request(region.getRegionKey(), () -> {
-            int lod = terrainManager.computeLodLevel(
-                    terrainManager.getCenterRegionX(), terrainManager.getCenterRegionY(), terrainManager.getCenterRegionZ(),
-                    region.getRegionX(), region.getRegionY(), region.getRegionZ()
-            );
-            regionMeshCalculator.updateTerrainMesh(region, lod);
-        });
+        requestRegionUpdate(region);
+    }
+
+    /**
+     * Called when the level of detail of a region changed, the old mesh stays visible until the new one is done
+     */
+    public void requestLodChange(TerrainRegion region) {
+        requestRegionUpdate(region);
+    }
+
+    /**
+     * Remeshes the chunks of the region that lie on the given side, after the neighbor region on that side changed its level of detail
+     */
+    public void remeshBorder(TerrainRegion region, Direction side) {
+        RegionBounds bounds = region.getBounds();
+        for (TerrainChunk chunk : region.getChunksInRegion()) {
+            if (chunk == null) {
+                continue;
+            }
+            boolean onSide = switch (side) {
+                case EAST, WEST -> isOnSide(bounds.getOffsetX(chunk.getChunkX()), bounds.regionSizeX(), side.getOffsetX());
+                case UP, DOWN -> isOnSide(bounds.getOffsetY(chunk.getChunkY()), bounds.regionSizeY(), side.getOffsetY());
+                case NORTH, SOUTH -> isOnSide(bounds.getOffsetZ(chunk.getChunkZ()), bounds.regionSizeZ(), side.getOffsetZ());
+            };
+            if (onSide) {
+                createChunkMesh(region, chunk);
+            }
+        }
+    }
+
+    private static boolean isOnSide(int offset, int regionSize, int direction) {
+        return offset == (direction > 0 ? regionSize - 1 : 0);
+    }
+
+    private void requestRegionUpdate(TerrainRegion region) {
+        // Immer derselbe Job pro Region, der Scheduler wiederholt bei Koaleszenz den ersten übergebenen
+        regionSched.request(region.getRegionKey(), () -> updateRegion(region));
+    }
+
+    private void updateRegion(TerrainRegion region) {
+        int lod = terrainManager.getLodLevel(region);
+        TerrainMesh terrainMesh = region.getTerrainMesh();
+        if (terrainMesh != null && terrainMesh.getLodLevel() != lod) {
+            // Die Chunk Meshes der neuen Detailstufe können veraltet sein, sie wurden nur gepflegt solange die Region sie benutzt hat
+            for (TerrainChunk chunk : region.getChunksInRegion()) {
+                if (chunk != null && !skip(chunk)) {
+                    meshChunk(chunk, lod);
+                }
+            }
+        }
+        regionMeshCalculator.updateTerrainMesh(region, lod);
+        TerrainMesh updated = region.getTerrainMesh();
+        terrainManager.getRegionBasedTerrainRenderGraph().updateRegionMesh(region.getRegionX(), region.getRegionY(), region.getRegionZ(), updated != null && updated.getAmountOfBlockFaces() > 0);
     }
 
     @Override
@@ -81,5 +127,6 @@ public class TerrainMeshService implements DebuggableOnScreen {
         debugScreen.addDebugTextLine(ChunkMeshCalculator.chunkCalculatorThroughput.format());
         debugScreen.addDebugTextLine(RegionMeshCalculator.regionCalculatorThroughput.format());
         debugScreen.addDebugTextLine(chunkSched.metrics("Chunks") + " | " + regionSched.metrics("Regions"));
+        debugScreen.addDebugTextLine("LOD transitions: " + terrainManager.getLodTracker().getTransitions());
     }
 }
@@ -165,6 +165,17 @@ public class TerrainRegion implements LightAccessor {
             airRegions += 1;
         }
         computeRegionSideMask(chunk.getWorld());
+
+        // Nur den geänderten Chunk neu meshen, die Region wird danach aus den Chunk-Meshes zusammengesetzt
+        TerrainChunk terrainChunk = getTerrainChunk(chunk);
+        if (terrainChunk == null) {
+            return;
+        }
+        if (terrainChunk.isEmpty()) {
+            terrainManager.getMeshService().removeChunkMesh(this, terrainChunk);
+        } else {
+            terrainManager.getMeshService().createChunkMesh(this, terrainChunk);
+        }
     }
 
     @Override
@@ -325,6 +336,15 @@ public class TerrainRegion implements LightAccessor {
         return terrainManager.getRegion(regionX + x, regionY + y, regionZ + z);
     }
 
+    @Override
+    public void compactLight() {
+        for (TerrainChunk terrainChunk : chunksInRegion) {
+            if (terrainChunk != null) {
+                terrainChunk.getChunkLightData().compact();
+            }
+        }
+    }
+
     void linkNeighbor(Direction direction, TerrainRegion neighbor) {
         neighbors[direction.getId()] = neighbor;
         neighbor.neighbors[direction.getOpposite().getId()] = this;
@@ -132,10 +132,8 @@ public class NaiveRegionBasedTerrainRenderGraph implements RegionBasedTerrainRen
 
             if (terrainMesh != null && terrainMesh.getAmountOfBlockFaces() != 0 /*&& terrainMesh.isComplete()*/) {
 
-                int lodLevel = terrainManager.computeLodLevel(regionX, regionY, regionZ, nx, ny, nz);
-                if (terrainMesh.getLodLevel() != lodLevel) {
-                    continue;
-                }
+                // Plant bei einem Wechsel der Detailstufe das Neu-Meshen ein, der alte Mesh bleibt sichtbar bis der neue fertig ist
+                terrainManager.updateLodLevel(terrainRegion);
 
                 int minBlockX = terrainRegion.getBounds().getMinBlockX(regionX, world.getChunkSizeX());
                 int minBlockY = terrainRegion.getBounds().getMinBlockY(regionY, world.getChunkSizeY());
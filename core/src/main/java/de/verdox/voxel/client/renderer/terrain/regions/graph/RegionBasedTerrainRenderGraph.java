@@ -9,5 +9,11 @@ public interface RegionBasedTerrainRenderGraph {
 
     void removeRegion(int x, int y, int z);
 
+    /**
+     * Called after the mesh of a region was rebuilt
+     */
+    default void updateRegionMesh(int x, int y, int z, boolean hasFaces) {
+    }
+
     int renderTerrain(Camera camera, ClientWorld world, int viewDistanceX, int viewDistanceY, int viewDistanceZ, TerrainRenderStats renderStats);
 }
@@ -0,0 +1,327 @@
+package de.verdox.voxel.client.renderer.terrain.regions.graph;
+
+import com.badlogic.gdx.math.Frustum;
+import com.badlogic.gdx.math.Plane;
+import com.badlogic.gdx.math.Vector3;
+import lombok.Getter;
+
+import java.util.function.Consumer;
+
+/**
+ * Sparse octree over absolute region coordinates. Only loaded regions have a leaf, a node exists as long as one region below it is loaded.
+ * Every node knows which of its children are occupied and which of them hold a region with faces, so a frustum query only walks down
+ * to regions it may draw.
+ * <p>
+ * A node of level n covers 2^n regions per axis, so inserting and removing walks one path of O(log n) nodes. The root doubles toward a
+ * region outside of it when that region is inserted and shrinks to its only child after removals. The tree follows the loaded regions
+ * around the player that way: when the camera crosses a region only the center of the query moves, nothing is rebuilt.
+ * <p>
+ * Not thread safe, the render graph synchronizes the access.
+ */
+public class RegionOctree<T> {
+    private static final int ALL_PLANES = (1 << 6) - 1;
+
+    private final int regionBlocksX, regionBlocksY, regionBlocksZ;
+    private Node<T> root;
+    @Getter
+    private int size;
+    @Getter
+    private int nodeCount;
+
+    // Zustand der laufenden Frustum-Abfrage
+    private Frustum frustum;
+    private int minRegionX, minRegionY, minRegionZ, maxRegionX, maxRegionY, maxRegionZ;
+    private Consumer<T> callback;
+
+    /**
+     * @param regionBlocksX size of one region in blocks along x, used for the bounding boxes of the nodes
+     */
+    public RegionOctree(int regionBlocksX, int regionBlocksY, int regionBlocksZ) {
+        this.regionBlocksX = regionBlocksX;
+        this.regionBlocksY = regionBlocksY;
+        this.regionBlocksZ = regionBlocksZ;
+    }
+
+    /**
+     * Level of the root, -1 if the tree is empty
+     */
+    public int getDepth() {
+        return root == null ? -1 : root.level;
+    }
+
+    public T get(int regionX, int regionY, int regionZ) {
+        Node<T> node = root;
+        if (node == null || !node.contains(regionX, regionY, regionZ)) {
+            return null;
+        }
+        while (node != null && node.level > 0) {
+            node = node.children[node.childIndex(regionX, regionY, regionZ)];
+        }
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Adds the region or replaces the value of an already loaded region, a replaced region keeps its face flag
+     *
+     * @return the replaced value
+     */
+    public T insert(int regionX, int regionY, int regionZ, T value) {
+        if (root == null) {
+            root = new Node<>(regionX, regionY, regionZ, 0);
+            nodeCount++;
+        }
+        while (!root.contains(regionX, regionY, regionZ)) {
+            root = root.grow(regionX, regionY, regionZ);
+            nodeCount++;
+        }
+
+        Node<T> node = root;
+        while (node.level > 0) {
+            int i = node.childIndex(regionX, regionY, regionZ);
+            if (node.children[i] == null) {
+                node.children[i] = node.createChild(i);
+                node.occupiedMask |= 1 << i;
+                nodeCount++;
+            }
+            node = node.children[i];
+        }
+
+        T old = node.value;
+        if (old == null) {
+            size++;
+        }
+        node.value = value;
+        return old;
+    }
+
+    /**
+     * @return the removed value, null if the region was not loaded
+     */
+    public T remove(int regionX, int regionY, int regionZ) {
+        if (root == null || !root.contains(regionX, regionY, regionZ)) {
+            return null;
+        }
+        T removed = remove(root, regionX, regionY, regionZ);
+        if (removed == null) {
+            return null;
+        }
+        size--;
+        if (root.isEmpty()) {
+            root = null;
+            nodeCount--;
+            return removed;
+        }
+        // Die Wurzel rückt zu den verbliebenen Regionen nach
+        while (root.level > 0 && Integer.bitCount(root.occupiedMask) == 1) {
+            root = root.children[Integer.numberOfTrailingZeros(root.occupiedMask)];
+            nodeCount--;
+        }
+        return removed;
+    }
+
+    private T remove(Node<T> node, int regionX, int regionY, int regionZ) {
+        if (node.level == 0) {
+            T value = node.value;
+            node.value = null;
+            node.meshedMask = 0;
+            return value;
+        }
+        int i = node.childIndex(regionX, regionY, regionZ);
+        Node<T> child = node.children[i];
+        if (child == null) {
+            return null;
+        }
+        T removed = remove(child, regionX, regionY, regionZ);
+        if (child.isEmpty()) {
+            node.children[i] = null;
+            node.occupiedMask &= ~(1 << i);
+            nodeCount--;
+        }
+        node.updateMeshedBit(i, child);
+        return removed;
+    }
+
+    /**
+     * Marks whether the mesh of a loaded region has faces, regions without faces are skipped by the frustum query
+     *
+     * @return false if the region is not loaded
+     */
+    public boolean setHasFaces(int regionX, int regionY, int regionZ, boolean hasFaces) {
+        if (root == null || !root.contains(regionX, regionY, regionZ)) {
+            return false;
+        }
+        return setHasFaces(root, regionX, regionY, regionZ, hasFaces);
+    }
+
+    private boolean setHasFaces(Node<T> node, int regionX, int regionY, int regionZ, boolean hasFaces) {
+        if (node.level == 0) {
+            if (node.value == null) {
+                return false;
+            }
+            node.meshedMask = hasFaces ? 1 : 0;
+            return true;
+        }
+        int i = node.childIndex(regionX, regionY, regionZ);
+        Node<T> child = node.children[i];
+        if (child == null || !setHasFaces(child, regionX, regionY, regionZ, hasFaces)) {
+            return false;
+        }
+        node.updateMeshedBit(i, child);
+        return true;
+    }
+
+    /**
+     * Calls the callback for every region with faces that lies within the range around the center region and intersects the frustum.
+     * Subtrees without faces, out of range or outside of the frustum are skipped. A node that lies completely in front of a plane does
+     * not test its children against that plane again.
+     *
+     * @param rangeX regions to each side of the center along x
+     * @return the amount of regions passed to the callback
+     */
+    public int queryFrustum(Frustum frustum, int centerRegionX, int centerRegionY, int centerRegionZ, int rangeX, int rangeY, int rangeZ, Consumer<T> callback) {
+        if (root == null) {
+            return 0;
+        }
+        this.frustum = frustum;
+        this.callback = callback;
+        this.minRegionX = centerRegionX - rangeX;
+        this.minRegionY = centerRegionY - rangeY;
+        this.minRegionZ = centerRegionZ - rangeZ;
+        this.maxRegionX = centerRegionX + rangeX;
+        this.maxRegionY = centerRegionY + rangeY;
+        this.maxRegionZ = centerRegionZ + rangeZ;
+        try {
+            return query(root, ALL_PLANES);
+        } finally {
+            this.frustum = null;
+            this.callback = null;
+        }
+    }
+
+    private int query(Node<T> node, int planeMask) {
+        if (node.meshedMask == 0 || !isInRange(node)) {
+            return 0;
+        }
+        if (planeMask != 0) {
+            planeMask = cullPlanes(node, planeMask);
+            if (planeMask < 0) {
+                return 0;
+            }
+        }
+        if (node.level == 0) {
+            callback.accept(node.value);
+            return 1;
+        }
+        int found = 0;
+        for (int bits = node.meshedMask; bits != 0; bits &= bits - 1) {
+            found += query(node.children[Integer.numberOfTrailingZeros(bits)], planeMask);
+        }
+        return found;
+    }
+
+    private boolean isInRange(Node<T> node) {
+        int extent = (1 << node.level) - 1;
+        return node.originX <= maxRegionX && node.originX + extent >= minRegionX
+                && node.originY <= maxRegionY && node.originY + extent >= minRegionY
+                && node.originZ <= maxRegionZ && node.originZ + extent >= minRegionZ;
+    }
+
+    /**
+     * Tests the box of the node against the planes still in the mask
+     *
+     * @return -1 if the box lies behind one plane, otherwise the mask without the planes the box lies completely in front of
+     */
+    private int cullPlanes(Node<T> node, int planeMask) {
+        int regions = 1 << node.level;
+        float minX = (float) node.originX * regionBlocksX;
+        float minY = (float) node.originY * regionBlocksY;
+        float minZ = (float) node.originZ * regionBlocksZ;
+        float maxX = minX + (float) regions * regionBlocksX;
+        float maxY = minY + (float) regions * regionBlocksY;
+        float maxZ = minZ + (float) regions * regionBlocksZ;
+
+        Plane[] planes = frustum.planes;
+        for (int i = 0; i < planes.length; i++) {
+            if ((planeMask & (1 << i)) == 0) {
+                continue;
+            }
+            Plane plane = planes[i];
+            Vector3 normal = plane.normal;
+            // Die Ecke am weitesten vor der Ebene entscheidet, ob die Box dahinter liegt, die gegenüberliegende ob sie ganz davor liegt
+            float farthest = normal.dot(normal.x >= 0 ? maxX : minX, normal.y >= 0 ? maxY : minY, normal.z >= 0 ? maxZ : minZ) + plane.d;
+            if (farthest < 0) {
+                return -1;
+            }
+            float nearest = normal.dot(normal.x >= 0 ? minX : maxX, normal.y >= 0 ? minY : maxY, normal.z >= 0 ? minZ : maxZ) + plane.d;
+            if (nearest >= 0) {
+                planeMask &= ~(1 << i);
+            }
+        }
+        return planeMask;
+    }
+
+    private static final class Node<T> {
+        private final int originX, originY, originZ;
+        private final int level;
+        private final Node<T>[] children;
+        private T value;
+        private int occupiedMask;
+        /**
+         * Children with faces below them, a leaf uses the first bit for its own region
+         */
+        private int meshedMask;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Node(int originX, int originY, int originZ, int level) {
+            this.originX = originX;
+            this.originY = originY;
+            this.originZ = originZ;
+            this.level = level;
+            this.children = level > 0 ? new Node[8] : null;
+        }
+
+        private boolean contains(int regionX, int regionY, int regionZ) {
+            return (regionX - originX) >>> level == 0 && (regionY - originY) >>> level == 0 && (regionZ - originZ) >>> level == 0;
+        }
+
+        private int childIndex(int regionX, int regionY, int regionZ) {
+            int half = level - 1;
+            return ((regionX - originX) >>> half & 1) | ((regionY - originY) >>> half & 1) << 1 | ((regionZ - originZ) >>> half & 1) << 2;
+        }
+
+        private Node<T> createChild(int i) {
+            int half = 1 << (level - 1);
+            return new Node<>(originX + (i & 1) * half, originY + (i >> 1 & 1) * half, originZ + (i >> 2 & 1) * half, level - 1);
+        }
+
+        /**
+         * The parent of this node, with this node as its only child. The parent extends toward the region on every axis.
+         */
+        private Node<T> grow(int regionX, int regionY, int regionZ) {
+            int size = 1 << level;
+            Node<T> parent = new Node<>(
+                    regionX < originX ? originX - size : originX,
+                    regionY < originY ? originY - size : originY,
+                    regionZ < originZ ? originZ - size : originZ,
+                    level + 1
+            );
+            int i = parent.childIndex(originX, originY, originZ);
+            parent.children[i] = this;
+            parent.occupiedMask = 1 << i;
+            parent.updateMeshedBit(i, this);
+            return parent;
+        }
+
+        private void updateMeshedBit(int i, Node<T> child) {
+            if (child.meshedMask != 0 && !child.isEmpty()) {
+                meshedMask |= 1 << i;
+            } else {
+                meshedMask &= ~(1 << i);
+            }
+        }
+
+        private boolean isEmpty() {
+            return level == 0 ? value == null : occupiedMask == 0;
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package de.verdox.voxel.client.renderer.terrain.regions.mesh;
 
-import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.utils.FloatArray;
 import com.badlogic.gdx.utils.IntArray;
+import de.verdox.voxel.client.assets.BlockFaceUVTable;
 import de.verdox.voxel.client.assets.TextureAtlasManager;
 import de.verdox.voxel.client.level.chunk.RenderableChunk;
 import de.verdox.voxel.client.level.chunk.TerrainChunk;
+import de.verdox.voxel.client.level.chunk.proto.ChunkProtoMesh;
 import de.verdox.voxel.client.level.chunk.proto.ProtoMask;
 import de.verdox.voxel.client.renderer.terrain.regions.TerrainRegion;
 import de.verdox.voxel.client.renderer.terrain.regions.TerrainMesh;
 
 public class BufferedRegionMeshCalculator implements RegionMeshCalculator {
+    /**
+     * Scratch buffer per region meshing thread, a chunk is decoded into it and then copied into its segment of the region
+     */
+    private final ThreadLocal<FloatArray> instanceBuffers = ThreadLocal.withInitial(FloatArray::new);
+
     @Override
     public void updateTerrainMesh(TerrainRegion terrainRegion, int lodLevel) {
         terrainRegion.setRenderedChunks(0);
@@ -23,12 +29,12 @@ public class BufferedRegionMeshCalculator implements RegionMeshCalculator {
 
         TerrainMesh terrainMesh = terrainRegion.getOrCreateMesh();
 
-        TextureAtlas textureAtlas = TextureAtlasManager.getInstance().getBlockTextureAtlas();
+        BlockFaceUVTable uvTable = TextureAtlasManager.getInstance().getBlockFaceUVTable();
 
-        FloatArray verts = new FloatArray();
-        IntArray idxs = new IntArray();
+        //FloatArray verts = new FloatArray();
+        //IntArray idxs = new IntArray();
 
-        FloatArray instances = new FloatArray();
+        FloatArray instances = instanceBuffers.get();
 
         int numVertices = 0;
         int numIndices = 0;
@@ -36,26 +42,38 @@ public class BufferedRegionMeshCalculator implements RegionMeshCalculator {
         int vertexIndexOffset = 0;
 
         TerrainChunk[] chunks = terrainRegion.getChunksInRegion();
+        RegionInstanceBuffer instanceBuffer = terrainMesh.getOrCreateInstanceBuffer(chunks.length, lodLevel);
         for (int i = 0; i < chunks.length; i++) {
             TerrainChunk terrainChunk = chunks[i];
             if (terrainChunk == null || terrainChunk.isEmpty()) {
+                if (instanceBuffer.hasSegment(i)) {
+                    terrainMesh.removeChunkInstances(i);
+                }
                 continue;
             }
             RenderableChunk renderableChunk = terrainChunk;
             if (lodLevel != 0) {
                 renderableChunk = terrainChunk.getLodChunk(lodLevel);
             }
+            ChunkProtoMesh protoMesh = renderableChunk.getChunkProtoMesh();
 
-            int offsetXInBlocks = terrainRegion.getBounds().getOffsetX(terrainChunk.getChunkX()) * terrainRegion.getTerrainManager().getWorld().getChunkSizeX();
-            int offsetYInBlocks = terrainRegion.getBounds().getOffsetY(terrainChunk.getChunkY()) * terrainRegion.getTerrainManager().getWorld().getChunkSizeY();
-            int offsetZInBlocks = terrainRegion.getBounds().getOffsetZ(terrainChunk.getChunkZ()) * terrainRegion.getTerrainManager().getWorld().getChunkSizeZ();
+            // Version vor dem Dekodieren lesen, ein gleichzeitiges Neu-Meshen erzwingt so beim nächsten Update einen neuen Patch
+            int version = protoMesh.getVersion();
+            if (!instanceBuffer.hasSegment(i) || instanceBuffer.getVersion(i) != version) {
+                // In Zellen der Detailstufe, der Mesh wird beim Rendern wieder um 2^lodLevel skaliert
+                int offsetXInBlocks = terrainRegion.getBounds().getOffsetX(terrainChunk.getChunkX()) * renderableChunk.getSizeX();
+                int offsetYInBlocks = terrainRegion.getBounds().getOffsetY(terrainChunk.getChunkY()) * renderableChunk.getSizeY();
+                int offsetZInBlocks = terrainRegion.getBounds().getOffsetZ(terrainChunk.getChunkZ()) * renderableChunk.getSizeZ();
 
-            renderableChunk.getChunkProtoMesh().appendToBuffers(ProtoMask.FaceType.OPAQUE, verts, idxs, vertexIndexOffset, textureAtlas, (byte) lodLevel, offsetXInBlocks, offsetYInBlocks, offsetZInBlocks);
-            renderableChunk.getChunkProtoMesh().appendToInstances(ProtoMask.FaceType.OPAQUE, instances, textureAtlas, offsetXInBlocks, offsetYInBlocks, offsetZInBlocks);
+                instances.clear();
+                //protoMesh.appendToBuffers(ProtoMask.FaceType.OPAQUE, verts, idxs, vertexIndexOffset, uvTable, (byte) lodLevel, offsetXInBlocks, offsetYInBlocks, offsetZInBlocks);
+                protoMesh.appendToInstances(ProtoMask.FaceType.OPAQUE, instances, uvTable, offsetXInBlocks, offsetYInBlocks, offsetZInBlocks);
+                terrainMesh.writeChunkInstances(i, version, instances);
+            }
 
-            int storageVertices = renderableChunk.getChunkProtoMesh().getAmountVertices(ProtoMask.FaceType.OPAQUE);
-            int storageIndices = renderableChunk.getChunkProtoMesh().getAmountIndices(ProtoMask.FaceType.OPAQUE);
-            int storageFaces = renderableChunk.getChunkProtoMesh().getAmountFaces(ProtoMask.FaceType.OPAQUE);
+            int storageVertices = protoMesh.getAmountVertices(ProtoMask.FaceType.OPAQUE);
+            int storageIndices = protoMesh.getAmountIndices(ProtoMask.FaceType.OPAQUE);
+            int storageFaces = instanceBuffer.getLength(i);
 
             numVertices += storageVertices;
             numIndices += storageIndices;
@@ -64,13 +82,8 @@ public class BufferedRegionMeshCalculator implements RegionMeshCalculator {
             terrainRegion.setRenderedChunks(terrainRegion.getRenderedChunks() + 1);
         }
 
-        if (amountFaces > 0) {
-            verts.shrink();
-            idxs.shrink();
-            instances.shrink();
-            //terrainMesh.setMeshData(verts.toArray(), idxs.toArray(), amountFaces, numVertices, numIndices, lodLevel);
-            terrainMesh.setInstances(instances.toArray(), amountFaces, numVertices, lodLevel);
-        }
+        //terrainMesh.setMeshData(verts.toArray(), idxs.toArray(), amountFaces, numVertices, numIndices, lodLevel);
+        terrainMesh.finishInstanceUpdate(amountFaces, numVertices);
 
         terrainRegion.setRenderedFaces(amountFaces);
         long duration = System.nanoTime() - start;
@@ -0,0 +1,217 @@
+package de.verdox.voxel.client.renderer.terrain.regions.mesh;
+
+import de.verdox.voxel.client.level.chunk.proto.Single;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Instance data of one region, laid out as one segment per chunk slot of the region.
+ * <p>
+ * Every segment reserves some slack, so a chunk can be replaced or grow a little in place. A segment that outgrows its slack moves to the
+ * end of the buffer. Space that no chunk uses is filled with {@link Single#HIDDEN_INSTANCE}, so the whole buffer can be drawn at once.
+ * All changes are collected in one dirty instance range, only this range has to be uploaded again as long as {@link #getEnd()} stays the same.
+ */
+public class RegionInstanceBuffer {
+    private static final int FLOATS = Single.FLOATS_PER_INSTANCE;
+    private static final int MIN_SLACK = 8;
+
+    private final int[] segmentOffset;
+    private final int[] segmentLength;
+    private final int[] segmentCapacity;
+    private final int[] segmentVersion;
+
+    @Getter
+    private float[] data = new float[0];
+    /**
+     * Instances up to the end of the last segment, this is what has to be drawn
+     */
+    @Getter
+    private int end;
+    /**
+     * Instances that belong to a chunk, without slack and holes
+     */
+    @Getter
+    private int liveInstances;
+    private int holeInstances;
+
+    @Getter
+    private int dirtyFrom = Integer.MAX_VALUE;
+    @Getter
+    private int dirtyTo;
+
+    public RegionInstanceBuffer(int slots) {
+        this.segmentOffset = new int[slots];
+        this.segmentLength = new int[slots];
+        this.segmentCapacity = new int[slots];
+        this.segmentVersion = new int[slots];
+        Arrays.fill(segmentCapacity, -1);
+    }
+
+    public int getSlots() {
+        return segmentCapacity.length;
+    }
+
+    public boolean hasSegment(int slot) {
+        return segmentCapacity[slot] >= 0;
+    }
+
+    /**
+     * The version of the proto mesh the segment was written from
+     */
+    public int getVersion(int slot) {
+        return segmentVersion[slot];
+    }
+
+    public int getLength(int slot) {
+        return hasSegment(slot) ? segmentLength[slot] : 0;
+    }
+
+    /**
+     * Replaces the instances of one chunk slot
+     *
+     * @param version   version of the proto mesh the instances were decoded from
+     * @param instances source array
+     * @param floats    amount of floats to copy, a multiple of the floats per instance
+     */
+    public void write(int slot, int version, float[] instances, int floats) {
+        int length = floats / FLOATS;
+        if (!hasSegment(slot)) {
+            allocateAtEnd(slot, length);
+        } else if (length > segmentCapacity[slot]) {
+            int offset = segmentOffset[slot];
+            if (offset + segmentCapacity[slot] == end) {
+                // Letztes Segment, wächst einfach nach hinten
+                int capacity = withSlack(length);
+                ensureCapacity(offset + capacity);
+                segmentCapacity[slot] = capacity;
+                end = offset + capacity;
+                markDirty(offset + segmentLength[slot], end);
+            } else {
+                hide(offset, segmentCapacity[slot]);
+                markDirty(offset, offset + segmentCapacity[slot]);
+                holeInstances += segmentCapacity[slot];
+                liveInstances -= segmentLength[slot];
+                allocateAtEnd(slot, length);
+            }
+        }
+
+        int offset = segmentOffset[slot];
+        int oldLength = segmentLength[slot];
+        System.arraycopy(instances, 0, data, offset * FLOATS, length * FLOATS);
+        if (oldLength > length) {
+            hide(offset + length, oldLength - length);
+        }
+        markDirty(offset, offset + Math.max(length, oldLength));
+
+        liveInstances += length - oldLength;
+        segmentLength[slot] = length;
+        segmentVersion[slot] = version;
+
+        if (holeInstances > end / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Hides the instances of a chunk slot, the space becomes a hole until the next compaction
+     */
+    public void remove(int slot) {
+        if (!hasSegment(slot)) {
+            return;
+        }
+        int offset = segmentOffset[slot];
+        int capacity = segmentCapacity[slot];
+        hide(offset, capacity);
+        markDirty(offset, offset + capacity);
+        liveInstances -= segmentLength[slot];
+
+        if (offset + capacity == end) {
+            end = offset;
+        } else {
+            holeInstances += capacity;
+        }
+        segmentCapacity[slot] = -1;
+        segmentLength[slot] = 0;
+    }
+
+    /**
+     * Removes every segment, for example when the region switches its level of detail
+     */
+    public void clear() {
+        Arrays.fill(segmentCapacity, -1);
+        Arrays.fill(segmentLength, 0);
+        hide(0, end);
+        markDirty(0, end);
+        end = 0;
+        liveInstances = 0;
+        holeInstances = 0;
+    }
+
+    public boolean isDirty() {
+        return dirtyFrom < dirtyTo;
+    }
+
+    public void clearDirty() {
+        dirtyFrom = Integer.MAX_VALUE;
+        dirtyTo = 0;
+    }
+
+    private void allocateAtEnd(int slot, int length) {
+        int capacity = withSlack(length);
+        ensureCapacity(end + capacity);
+        segmentOffset[slot] = end;
+        segmentCapacity[slot] = capacity;
+        segmentLength[slot] = 0;
+        end += capacity;
+    }
+
+    /**
+     * Moves all segments to the front in slot order and drops the holes
+     */
+    private void compact() {
+        float[] compacted = new float[data.length];
+        int offset = 0;
+        for (int slot = 0; slot < getSlots(); slot++) {
+            if (!hasSegment(slot)) {
+                continue;
+            }
+            System.arraycopy(data, segmentOffset[slot] * FLOATS, compacted, offset * FLOATS, segmentCapacity[slot] * FLOATS);
+            segmentOffset[slot] = offset;
+            offset += segmentCapacity[slot];
+        }
+        data = compacted;
+        hide(offset, data.length / FLOATS - offset);
+        markDirty(0, Math.max(end, offset));
+        end = offset;
+        holeInstances = 0;
+    }
+
+    private void ensureCapacity(int instances) {
+        int oldInstances = data.length / FLOATS;
+        if (instances <= oldInstances) {
+            return;
+        }
+        int newInstances = Math.max(instances, oldInstances + (oldInstances >> 1));
+        data = Arrays.copyOf(data, newInstances * FLOATS);
+        hide(oldInstances, newInstances - oldInstances);
+    }
+
+    private void hide(int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            System.arraycopy(Single.HIDDEN_INSTANCE, 0, data, i * FLOATS, FLOATS);
+        }
+    }
+
+    private void markDirty(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        dirtyFrom = Math.min(dirtyFrom, from);
+        dirtyTo = Math.max(dirtyTo, to);
+    }
+
+    private static int withSlack(int length) {
+        return length + Math.max(MIN_SLACK, length >> 3);
+    }
+}
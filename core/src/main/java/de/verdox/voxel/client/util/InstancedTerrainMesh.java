@@ -27,8 +27,15 @@ public class InstancedTerrainMesh implements Disposable {
         this.mesh.setVertices(baseCorners);
     }
 
-    public void setInstances(float[] instances, int instanceOffset, int numInstances) {
-        this.mesh.setInstanceData(instances, instanceOffset, numInstances);
+    public void setInstances(float[] instances, int floatOffset, int floatCount) {
+        this.mesh.setInstanceData(instances, floatOffset, floatCount);
+    }
+
+    /**
+     * Replaces a range of already uploaded instances, the amount of drawn instances stays the same
+     */
+    public void updateInstances(float[] instances, int floatOffset, int floatCount) {
+        this.mesh.updateInstanceData(floatOffset, instances, floatOffset, floatCount);
     }
 
     public void setInstances(float[] instances) {
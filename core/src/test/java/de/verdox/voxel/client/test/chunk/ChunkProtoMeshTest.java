@@ -1,14 +1,25 @@
 package de.verdox.voxel.client.test.chunk;
 
+import com.badlogic.gdx.utils.FloatArray;
+import de.verdox.voxel.client.assets.BlockFaceUVTable;
 import de.verdox.voxel.client.level.chunk.proto.ChunkProtoMesh;
 import de.verdox.voxel.client.level.chunk.proto.ProtoMask;
 import de.verdox.voxel.client.level.chunk.proto.ProtoMasks;
+import de.verdox.voxel.client.renderer.GraphicalConstants;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.util.BitPackingUtil;
 import de.verdox.voxel.shared.util.Direction;
 import de.verdox.voxel.shared.util.LightUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.UUID;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -52,6 +63,55 @@ public class ChunkProtoMeshTest {
         };
     }
 
+    @Test
+    @DisplayName("A replaced proto mesh never reaches the version of the old one")
+    void testVersionsAreUniqueAcrossInstances() {
+        ChunkProtoMesh replacement = new ChunkProtoMesh(null);
+        assertNotEquals(mesh.getVersion(), replacement.getVersion());
+
+        // Gleich viele Änderungen auf beiden, die Region darf das alte Segment trotzdem nicht behalten
+        int before = mesh.getVersion();
+        ProtoMasks.SINGLE_PER_FACE.storeFace(mesh, ProtoMask.FaceType.OPAQUE, (byte) 1, (byte) 2, (byte) 3, Direction.UP, (byte) 0, (byte) 15, (byte) 0, (byte) 0, (byte) 0);
+        mesh.clear();
+        assertNotEquals(before, mesh.getVersion());
+        replacement.clear();
+        replacement.clear();
+        assertNotEquals(mesh.getVersion(), replacement.getVersion());
+    }
+
+    @Test
+    @DisplayName("A region update in the middle of a write does not keep the final version")
+    void testVersionIsPublishedAfterTheFaceIsWritten() {
+        int[] seenVersion = {-1};
+        int[] seenFaces = {-1};
+        ChunkProtoMesh meshedConcurrently = new ChunkProtoMesh(null) {
+            @Override
+            public int getLocalXByteSize() {
+                return 4;
+            }
+
+            @Override
+            public int getLocalYByteSize() {
+                return 4;
+            }
+
+            @Override
+            public int getLocalZByteSize() {
+                // Die Region dekodiert, während das Face gerade geschrieben wird
+                if (getAmountFaces(ProtoMask.FaceType.OPAQUE) == 1 && seenVersion[0] == -1) {
+                    seenVersion[0] = getVersion();
+                    seenFaces[0] = getAmountFaces(ProtoMask.FaceType.OPAQUE);
+                }
+                return 4;
+            }
+        };
+        ProtoMasks.SINGLE_PER_FACE.storeFace(meshedConcurrently, ProtoMask.FaceType.OPAQUE, (byte) 1, (byte) 2, (byte) 3, Direction.UP, (byte) 0, (byte) 15, (byte) 0, (byte) 0, (byte) 0);
+        ProtoMasks.SINGLE_PER_FACE.storeFace(meshedConcurrently, ProtoMask.FaceType.OPAQUE, (byte) 4, (byte) 5, (byte) 6, Direction.UP, (byte) 0, (byte) 15, (byte) 0, (byte) 0, (byte) 0);
+
+        assertEquals(1, seenFaces[0]);
+        assertNotEquals(seenVersion[0], meshedConcurrently.getVersion(), "The next region update has to decode the second face");
+    }
+
     @Test
     @DisplayName("Single face write-read consistency for fixed values")
     void testSingleFaceWriteRead() {
@@ -113,4 +173,24 @@ public class ChunkProtoMeshTest {
             assertEquals(4, data.blue, "BlueLight mismatch at index " + i);
         }
     }
+
+    @Test
+    @DisplayName("Instances take the atlas tile from the UV table")
+    void testInstancesUseUVTable() {
+        Blocks.bootstrap();
+        Chunk chunk = new ChunkBase(new LevelWorld(UUID.randomUUID()), 0, 0, 0);
+        chunk.setBlockAt(Blocks.STONE, 3, 4, 5);
+        ChunkProtoMesh protoMesh = new ChunkProtoMesh(chunk);
+        ProtoMasks.SINGLE_PER_FACE.storeFace(protoMesh, ProtoMask.FaceType.OPAQUE, (byte) 3, (byte) 4, (byte) 5, Direction.UP, (byte) 0, (byte) 15, (byte) 0, (byte) 0, (byte) 0);
+
+        BlockFaceUVTable uvTable = BlockFaceUVTable.create(List.of(Blocks.STONE), 1024, textureName -> new float[]{32f / 1024, 48f / 1024, 48f / 1024, 64f / 1024});
+        FloatArray instances = new FloatArray();
+        protoMesh.appendToInstances(ProtoMask.FaceType.OPAQUE, instances, uvTable, 0, 0, 0);
+
+        assertEquals(3, instances.size, "One instance should be three floats");
+        int directionBits = GraphicalConstants.DIRECTION_BIT_SIZE;
+        assertEquals(Direction.UP.getId(), BitPackingUtil.unpackFromFloat(instances.get(1), 0, directionBits), "Direction should match");
+        assertEquals(32, BitPackingUtil.unpackFromFloat(instances.get(1), directionBits, 6), "Tile U should come from the table");
+        assertEquals(48, BitPackingUtil.unpackFromFloat(instances.get(1), directionBits + 6, 6), "Tile V should come from the table");
+    }
 }
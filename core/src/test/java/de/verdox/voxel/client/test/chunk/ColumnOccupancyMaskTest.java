@@ -0,0 +1,97 @@
+package de.verdox.voxel.client.test.chunk;
+
+import de.verdox.voxel.client.level.chunk.occupancy.BitsetBasedOccupancyMask;
+import de.verdox.voxel.client.level.chunk.occupancy.ColumnOccupancyMask;
+import de.verdox.voxel.client.level.chunk.occupancy.OccupancyMask;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.util.Direction;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+
+public class ColumnOccupancyMaskTest {
+    @BeforeAll
+    public static void setup() {
+        Blocks.bootstrap();
+    }
+
+    @Test
+    public void testMatchesBitsetMaskAfterUpdates() {
+        Chunk chunk = new ChunkBase(new LevelWorld(UUID.randomUUID()), 0, 0, 0);
+        Random random = new Random(3);
+        for (int i = 0; i < 1500; i++) {
+            chunk.setBlockAt(Blocks.STONE, random.nextInt(16), random.nextInt(16), random.nextInt(16));
+        }
+        OccupancyMask reference = createMask(new BitsetBasedOccupancyMask(), chunk);
+        OccupancyMask columns = createMask(new ColumnOccupancyMask(), chunk);
+        assertSameMask(reference, columns);
+
+        for (int i = 0; i < 3000; i++) {
+            int x = random.nextInt(16), y = random.nextInt(16), z = random.nextInt(16);
+            var block = random.nextBoolean() ? Blocks.STONE : Blocks.AIR;
+            reference.updateOccupancyMask(block, x, y, z);
+            columns.updateOccupancyMask(block, x, y, z);
+        }
+        assertSameMask(reference, columns);
+    }
+
+    @Test
+    public void testSideMaskFollowsUpdates() {
+        Chunk chunk = new ChunkBase(new LevelWorld(UUID.randomUUID()), 0, 0, 0);
+        chunk.fillBox(Blocks.STONE, 0, 0, 0, 15, 15, 15);
+        OccupancyMask mask = createMask(new ColumnOccupancyMask(), chunk);
+        Assertions.assertTrue(mask.isChunkFullOpaque());
+        Assertions.assertEquals(0b111111, mask.getSideMask());
+
+        // Eine Ecke öffnet drei Seiten
+        mask.updateOccupancyMask(Blocks.AIR, 15, 0, 0);
+        long expected = 0b111111 & ~(1L << Direction.EAST.getId()) & ~(1L << Direction.DOWN.getId()) & ~(1L << Direction.NORTH.getId());
+        Assertions.assertEquals(expected, mask.getSideMask());
+        Assertions.assertEquals(16 * 16 * 16 - 1, mask.getTotalOpaque());
+
+        mask.updateOccupancyMask(Blocks.STONE, 15, 0, 0);
+        Assertions.assertEquals(0b111111, mask.getSideMask());
+    }
+
+    @Test
+    public void testLodColumnFoldsSegments() {
+        Chunk chunk = new ChunkBase(new LevelWorld(UUID.randomUUID()), 0, 0, 0);
+        chunk.setBlockAt(Blocks.STONE, 2, 3, 1);
+        chunk.setBlockAt(Blocks.STONE, 2, 3, 6);
+        chunk.setBlockAt(Blocks.STONE, 2, 3, 15);
+        OccupancyMask mask = createMask(new ColumnOccupancyMask(), chunk);
+
+        Assertions.assertEquals(0b1000_0000_0100_0010L, mask.getLodColumn(2, 3, 1, 16));
+        Assertions.assertEquals(0b1000_1001L, mask.getLodColumn(2, 3, 2, 16));
+        Assertions.assertEquals(0b1011L, mask.getLodColumn(2, 3, 4, 16));
+        Assertions.assertEquals(0b11L, mask.getLodColumn(2, 3, 8, 16));
+        Assertions.assertEquals(0b1L, mask.getLodColumn(2, 3, 16, 16));
+    }
+
+    private static OccupancyMask createMask(OccupancyMask mask, Chunk owner) {
+        mask.setOwner(owner);
+        mask.initFromOwner();
+        return mask;
+    }
+
+    private static void assertSameMask(OccupancyMask expected, OccupancyMask actual) {
+        Assertions.assertEquals(expected.getTotalOpaque(), actual.getTotalOpaque());
+        Assertions.assertEquals(expected.getSideMask(), actual.getSideMask());
+        for (int a = 0; a < 16; a++) {
+            for (int b = 0; b < 16; b++) {
+                Assertions.assertEquals(expected.getZColumn(a, b), actual.getZColumn(a, b));
+                Assertions.assertEquals(expected.getXColumn(a, b), actual.getXColumn(a, b));
+                Assertions.assertEquals(expected.getYColumn(a, b), actual.getYColumn(a, b));
+                for (int step = 2; step <= 16; step <<= 1) {
+                    Assertions.assertEquals(expected.getLodColumn(a, b, step, 16), actual.getLodColumn(a, b, step, 16));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package de.verdox.voxel.client.test.chunk;
+
+import com.badlogic.gdx.graphics.Camera;
+import de.verdox.voxel.client.level.ClientWorld;
+import de.verdox.voxel.client.level.TerrainManager;
+import de.verdox.voxel.client.level.chunk.TerrainChunk;
+import de.verdox.voxel.client.level.chunk.occupancy.OccupancyMask;
+import de.verdox.voxel.client.level.chunk.proto.ChunkProtoMesh;
+import de.verdox.voxel.client.level.chunk.proto.ProtoMask;
+import de.verdox.voxel.client.level.chunk.proto.ProtoMasks;
+import de.verdox.voxel.client.renderer.mesh.chunk.BinaryGreedyMesher;
+import de.verdox.voxel.client.renderer.mesh.chunk.BitOcclusionBasedChunkMeshCalculator;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.lighting.ChunkLightAccessor;
+import de.verdox.voxel.shared.lighting.LightPropagator;
+import de.verdox.voxel.shared.util.Direction;
+import de.verdox.voxel.shared.util.TerrainRenderStats;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+public class GreedyMeshingTest {
+    @BeforeAll
+    public static void setup() {
+        Blocks.bootstrap();
+    }
+
+    @Test
+    public void testUniformSliceIsOneQuad() {
+        long[] rows = new long[16];
+        long[] keys = new long[16 * 16];
+        Arrays.fill(rows, 0xFFFFL);
+        int[] quad = new int[4];
+        int quads = BinaryGreedyMesher.mergeSlice(rows, keys, 16, 16, (row, bit, rowCount, bitCount, key) -> {
+            quad[0] = row;
+            quad[1] = bit;
+            quad[2] = rowCount;
+            quad[3] = bitCount;
+        });
+        Assertions.assertEquals(1, quads);
+        Assertions.assertArrayEquals(new int[]{0, 0, 16, 16}, quad);
+    }
+
+    @Test
+    public void testQuadsCoverEveryFaceOnce() {
+        Random random = new Random(7);
+        for (int run = 0; run < 200; run++) {
+            long[] rows = new long[16];
+            long[] keys = new long[16 * 16];
+            for (int row = 0; row < 16; row++) {
+                rows[row] = random.nextLong() | (run % 2 == 0 ? 0L : random.nextLong());
+                for (int bit = 0; bit < 16; bit++) {
+                    keys[row * 16 + bit] = random.nextInt(2);
+                }
+                rows[row] &= 0xFFFFL;
+            }
+            long[] expected = rows.clone();
+            long[] covered = new long[16];
+            BinaryGreedyMesher.mergeSlice(rows, keys, 16, 16, (row, bit, rowCount, bitCount, key) -> {
+                for (int r = row; r < row + rowCount; r++) {
+                    for (int b = bit; b < bit + bitCount; b++) {
+                        Assertions.assertEquals(0L, covered[r] & (1L << b), "Face covered twice");
+                        Assertions.assertEquals(key, keys[r * 16 + b], "Quad merges faces with different keys");
+                        covered[r] |= 1L << b;
+                    }
+                }
+            });
+            Assertions.assertArrayEquals(expected, covered);
+        }
+    }
+
+    @Test
+    public void testGreedyFaceWriteRead() {
+        ChunkProtoMesh mesh = new ChunkProtoMesh(null) {
+            @Override
+            public int getLocalXByteSize() {
+                return 4;
+            }
+
+            @Override
+            public int getLocalYByteSize() {
+                return 4;
+            }
+
+            @Override
+            public int getLocalZByteSize() {
+                return 4;
+            }
+        };
+        for (int i = 0; i < 40; i++) {
+            ProtoMasks.GREEDY.storeFace(mesh, ProtoMask.FaceType.OPAQUE, (byte) (i & 15), (byte) ((i + 3) & 15), (byte) ((i + 7) & 15),
+                    Direction.values()[i % 6], (byte) (i * 5), (byte) 15, (byte) 0, (byte) 3, (byte) 4, i & 15, (i * 3) & 15);
+        }
+        for (int i = 0; i < 40; i++) {
+            ChunkProtoMesh.FaceData data = ProtoMasks.GREEDY.get(mesh, ProtoMask.FaceType.OPAQUE, i);
+            Assertions.assertEquals(i & 15, data.x);
+            Assertions.assertEquals((i + 3) & 15, data.y);
+            Assertions.assertEquals((i + 7) & 15, data.z);
+            Assertions.assertEquals(Direction.values()[i % 6], data.direction);
+            Assertions.assertEquals((byte) (i * 5), data.ao);
+            Assertions.assertEquals(15, data.sky);
+            Assertions.assertEquals(3, data.green);
+            Assertions.assertEquals(i & 15, data.deltaU);
+            Assertions.assertEquals((i * 3) & 15, data.deltaV);
+        }
+    }
+
+    /**
+     * Meshes a lit terrain chunk face by face and greedy, every single face has to be covered by exactly one quad with the same shading
+     */
+    @Test
+    public void testGreedyMeshCoversSingleFaces() {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        Long2ObjectMap<TerrainChunk> terrainChunks = new Long2ObjectOpenHashMap<>();
+        TerrainManager terrainManager = new DetachedTerrainManager(terrainChunks);
+        Random random = new Random(11);
+
+        LightPropagator propagator = new LightPropagator();
+        for (int x = 0; x < 3; x++) {
+            for (int z = 0; z < 3; z++) {
+                for (int y = 2; y >= 0; y--) {
+                    Chunk chunk = new ChunkBase(world, x, y, z);
+                    for (int localX = 0; localX < 16; localX++) {
+                        for (int localZ = 0; localZ < 16; localZ++) {
+                            int height = 20 + ((x * 16 + localX) / 5 + (z * 16 + localZ) / 7) % 6;
+                            for (int localY = 0; localY < 16; localY++) {
+                                int globalY = y * 16 + localY;
+                                if (globalY < height && random.nextInt(40) != 0) {
+                                    chunk.setBlockAt(Blocks.STONE, localX, localY, localZ);
+                                }
+                            }
+                        }
+                    }
+                    world.getChunkMap().saveChunkAfterGeneration(chunk);
+                    propagator.computeSkylight(new ChunkLightAccessor(chunk), y == 2);
+                    terrainChunks.put(Chunk.computeChunkKey(x, y, z), new TerrainChunk(terrainManager, chunk));
+                }
+            }
+        }
+
+        TerrainChunk center = terrainChunks.get(Chunk.computeChunkKey(1, 1, 1));
+        OccupancyMask[] neighbors = new OccupancyMask[6];
+        for (Direction direction : Direction.values()) {
+            neighbors[direction.getId()] = terrainChunks.get(Chunk.computeChunkKey(1 + direction.getOffsetX(), 1 + direction.getOffsetY(), 1 + direction.getOffsetZ())).getChunkOccupancyMask();
+        }
+
+        new BitOcclusionBasedChunkMeshCalculator(false).calculateChunkMesh(terrainManager, center, neighbors, (byte) 0);
+        ChunkProtoMesh mesh = center.getChunkProtoMesh();
+        Map<List<Integer>, List<Integer>> singleFaces = new HashMap<>();
+        for (int i = 0; i < mesh.getAmountFaces(ProtoMask.FaceType.OPAQUE); i++) {
+            ChunkProtoMesh.FaceData face = ProtoMasks.SINGLE_PER_FACE.get(mesh, ProtoMask.FaceType.OPAQUE, i);
+            singleFaces.put(List.of((int) face.x, (int) face.y, (int) face.z, (int) face.direction.getId()), shadingOf(face));
+        }
+        int amountSingleFaces = singleFaces.size();
+
+        new BitOcclusionBasedChunkMeshCalculator(true).calculateChunkMesh(terrainManager, center, neighbors, (byte) 0);
+        int amountQuads = mesh.getAmountFaces(ProtoMask.FaceType.OPAQUE);
+        for (int i = 0; i < amountQuads; i++) {
+            ChunkProtoMesh.FaceData quad = ProtoMasks.GREEDY.get(mesh, ProtoMask.FaceType.OPAQUE, i);
+            float[] u = quad.direction.getUDirection();
+            float[] v = quad.direction.getVDirection();
+            for (int du = 0; du <= quad.deltaU; du++) {
+                for (int dv = 0; dv <= quad.deltaV; dv++) {
+                    List<Integer> position = List.of(
+                            quad.x + (int) (u[0] * du + v[0] * dv),
+                            quad.y + (int) (u[1] * du + v[1] * dv),
+                            quad.z + (int) (u[2] * du + v[2] * dv),
+                            (int) quad.direction.getId());
+                    List<Integer> shading = singleFaces.remove(position);
+                    Assertions.assertNotNull(shading, "Quad covers a face that is not visible or covered twice " + position);
+                    Assertions.assertEquals(shading, shadingOf(quad));
+                }
+            }
+        }
+        Assertions.assertTrue(singleFaces.isEmpty(), singleFaces.size() + " faces are not covered");
+        Assertions.assertTrue(amountQuads < amountSingleFaces, amountQuads + " quads for " + amountSingleFaces + " faces");
+    }
+
+    private static List<Integer> shadingOf(ChunkProtoMesh.FaceData face) {
+        return List.of((int) face.ao, (int) face.sky, (int) face.red, (int) face.green, (int) face.blue);
+    }
+
+    private record DetachedTerrainManager(Long2ObjectMap<TerrainChunk> chunks) implements TerrainManager {
+        @Override
+        public TerrainChunk getChunkNow(int chunkX, int chunkY, int chunkZ) {
+            return chunks.get(Chunk.computeChunkKey(chunkX, chunkY, chunkZ));
+        }
+
+        @Override
+        public void setCameraChunk(int chunkX, int chunkY, int chunkZ) {
+        }
+
+        @Override
+        public void addChunk(Chunk chunk) {
+        }
+
+        @Override
+        public void removeChunk(Chunk chunk) {
+        }
+
+        @Override
+        public void afterChunkUpdate(Chunk chunk, boolean wasEmptyBefore) {
+        }
+
+        @Override
+        public void afterBorderChange(Chunk chunk, int sides) {
+        }
+
+        @Override
+        public void afterLightChange(TerrainChunk chunk) {
+        }
+
+        @Override
+        public int getCenterChunkX() {
+            return 0;
+        }
+
+        @Override
+        public int getCenterChunkY() {
+            return 0;
+        }
+
+        @Override
+        public int getCenterChunkZ() {
+            return 0;
+        }
+
+        @Override
+        public ClientWorld getWorld() {
+            return null;
+        }
+
+        @Override
+        public int renderTerrain(Camera camera, ClientWorld world, int viewDistanceX, int viewDistanceY, int viewDistanceZ, TerrainRenderStats renderStats) {
+            return 0;
+        }
+    }
+}
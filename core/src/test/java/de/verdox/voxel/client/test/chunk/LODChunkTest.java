@@ -0,0 +1,96 @@
+package de.verdox.voxel.client.test.chunk;
+
+import de.verdox.voxel.client.level.chunk.LODChunk;
+import de.verdox.voxel.client.level.chunk.TerrainChunk;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.lighting.ChunkLightAccessor;
+import de.verdox.voxel.shared.lighting.LightPropagator;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LODChunk: blocks and occupancy built from the LOD pyramid of the owner, updated with its block changes, and averaged light
+ */
+public class LODChunkTest {
+    private final LevelWorld world = new LevelWorld(UUID.randomUUID());
+
+    @BeforeAll
+    public static void setup() {
+        Blocks.bootstrap();
+    }
+
+    @Test
+    void testSingleBlockSurvivesEveryLevel() {
+        Chunk chunk = new ChunkBase(world, 0, 0, 0);
+        chunk.setBlockAt(Blocks.STONE, 5, 5, 5);
+        TerrainChunk terrainChunk = new TerrainChunk(null, chunk);
+
+        for (int level = 1; level <= 4; level++) {
+            LODChunk lodChunk = terrainChunk.getLodChunk(level);
+            int cell = 5 >> level;
+            assertEquals(16 >> level, lodChunk.getSizeX());
+            assertEquals(Blocks.STONE, lodChunk.getBlockAt(cell, cell, cell), "Level " + level);
+            assertTrue(lodChunk.getChunkOccupancyMask().isOpaque(cell, cell, cell));
+            assertEquals(1, lodChunk.getChunkOccupancyMask().getTotalOpaque());
+        }
+        assertSame(terrainChunk.getLodChunk(2), terrainChunk.getLodChunk(2));
+        assertThrows(IllegalArgumentException.class, () -> terrainChunk.getLodChunk(0));
+    }
+
+    @Test
+    void testBlockChangesUpdateBuiltLevels() {
+        Chunk chunk = new ChunkBase(world, 0, 0, 0);
+        TerrainChunk terrainChunk = new TerrainChunk(null, chunk);
+        LODChunk[] lodChunks = new LODChunk[4];
+        for (int level = 1; level <= 4; level++) {
+            lodChunks[level - 1] = terrainChunk.getLodChunk(level);
+        }
+
+        Random random = new Random(3);
+        for (int change = 0; change < 500; change++) {
+            int x = random.nextInt(16), y = random.nextInt(16), z = random.nextInt(16);
+            chunk.setBlockAt(random.nextInt(3) == 0 ? Blocks.STONE : Blocks.AIR, x, y, z);
+        }
+
+        // Ein frischer Aufbau über denselben Blöcken muss genauso aussehen
+        TerrainChunk rebuilt = new TerrainChunk(null, chunk);
+        for (int level = 1; level <= 4; level++) {
+            LODChunk expected = rebuilt.getLodChunk(level);
+            LODChunk actual = lodChunks[level - 1];
+            for (int x = 0; x < expected.getSizeX(); x++) {
+                for (int y = 0; y < expected.getSizeY(); y++) {
+                    for (int z = 0; z < expected.getSizeZ(); z++) {
+                        assertEquals(expected.getBlockAt(x, y, z), actual.getBlockAt(x, y, z), "Level " + level + " at " + x + ", " + y + ", " + z);
+                        assertEquals(expected.getChunkOccupancyMask().isOpaque(x, y, z), actual.getChunkOccupancyMask().isOpaque(x, y, z));
+                    }
+                }
+            }
+            assertEquals(expected.getChunkOccupancyMask().getTotalOpaque(), actual.getChunkOccupancyMask().getTotalOpaque());
+        }
+    }
+
+    @Test
+    void testLightIsAveragedOverTransparentBlocks() {
+        Chunk chunk = new ChunkBase(world, 0, 0, 0);
+        chunk.fillBox(Blocks.STONE, 0, 0, 0, 15, 2, 15);
+        new LightPropagator().computeSkylight(new ChunkLightAccessor(chunk), true);
+        TerrainChunk terrainChunk = new TerrainChunk(null, chunk);
+        LODChunk lodChunk = terrainChunk.getLodChunk(1);
+
+        // y 2 ist Stein, y 3 Luft: die Zelle übernimmt das Licht der Luft statt es mit dem Stein zu halbieren
+        assertEquals(chunk.getChunkLightData().getSkyLight(4, 3, 4), lodChunk.getChunkLightData().getSkyLight(2, 1, 2));
+        assertEquals(15, lodChunk.getChunkLightData().getSkyLight(2, 5, 2));
+        assertEquals(chunk.getChunkLightData().getSkyLight(4, 0, 4), lodChunk.getChunkLightData().getSkyLight(2, 0, 2));
+
+        chunk.getChunkLightData().setUniform((short) 0);
+        assertEquals(0, lodChunk.getChunkLightData().getSkyLight(2, 5, 2), "Changed light of the owner should be averaged again");
+    }
+}
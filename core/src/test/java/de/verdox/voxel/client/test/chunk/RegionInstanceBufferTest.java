@@ -0,0 +1,159 @@
+package de.verdox.voxel.client.test.chunk;
+
+import de.verdox.voxel.client.level.chunk.proto.Single;
+import de.verdox.voxel.client.renderer.terrain.regions.mesh.RegionInstanceBuffer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RegionInstanceBuffer: segments per chunk slot, patched in place with hidden instances filling the gaps
+ */
+public class RegionInstanceBufferTest {
+    private static final int FLOATS = Single.FLOATS_PER_INSTANCE;
+
+    /**
+     * Instances whose first float carries the slot and a running number, so every instance can be traced back
+     */
+    private static float[] instances(int slot, int count) {
+        float[] data = new float[count * FLOATS];
+        for (int i = 0; i < count; i++) {
+            data[i * FLOATS] = slot * 1000 + i + 1;
+            data[i * FLOATS + 1] = 1f;
+            data[i * FLOATS + 2] = 1f;
+        }
+        return data;
+    }
+
+    private static void assertSegment(RegionInstanceBuffer buffer, int slot, int count, int offset) {
+        float[] data = buffer.getData();
+        for (int i = 0; i < count; i++) {
+            assertEquals(slot * 1000 + i + 1, data[(offset + i) * FLOATS], "Instance " + i + " of slot " + slot);
+        }
+    }
+
+    private static void assertHidden(RegionInstanceBuffer buffer, int from, int to) {
+        float[] data = buffer.getData();
+        for (int i = from; i < to; i++) {
+            for (int f = 0; f < FLOATS; f++) {
+                assertEquals(Float.floatToRawIntBits(Single.HIDDEN_INSTANCE[f]), Float.floatToRawIntBits(data[i * FLOATS + f]), "Instance " + i + " should be hidden");
+            }
+        }
+    }
+
+    private static int countLive(RegionInstanceBuffer buffer) {
+        float[] data = buffer.getData();
+        int live = 0;
+        for (int i = 0; i < buffer.getEnd(); i++) {
+            if (data[i * FLOATS] != 0) {
+                live++;
+            }
+        }
+        return live;
+    }
+
+    @Test
+    @DisplayName("Segments are laid out in write order, slack is hidden")
+    void testWriteLayout() {
+        RegionInstanceBuffer buffer = new RegionInstanceBuffer(4);
+        buffer.write(2, 1, instances(2, 5), 5 * FLOATS);
+        buffer.write(0, 1, instances(0, 3), 3 * FLOATS);
+
+        // Mindestens 8 Instanzen Reserve pro Segment
+        assertEquals(13 + 11, buffer.getEnd());
+        assertEquals(8, buffer.getLiveInstances());
+        assertSegment(buffer, 2, 5, 0);
+        assertHidden(buffer, 5, 13);
+        assertSegment(buffer, 0, 3, 13);
+        assertHidden(buffer, 16, buffer.getData().length / FLOATS);
+        assertTrue(buffer.hasSegment(0));
+        assertFalse(buffer.hasSegment(1));
+        assertEquals(1, buffer.getVersion(2));
+    }
+
+    @Test
+    @DisplayName("Replacing a chunk within its slack only dirties its own segment")
+    void testReplaceInPlace() {
+        RegionInstanceBuffer buffer = new RegionInstanceBuffer(3);
+        buffer.write(0, 1, instances(0, 10), 10 * FLOATS);
+        buffer.write(1, 1, instances(1, 10), 10 * FLOATS);
+        buffer.write(2, 1, instances(2, 10), 10 * FLOATS);
+        int end = buffer.getEnd();
+        buffer.clearDirty();
+
+        buffer.write(1, 2, instances(1, 14), 14 * FLOATS);
+        assertEquals(end, buffer.getEnd(), "Growing within the slack should not move anything");
+        assertEquals(18, buffer.getDirtyFrom());
+        assertEquals(18 + 14, buffer.getDirtyTo());
+        assertSegment(buffer, 1, 14, 18);
+        assertEquals(2, buffer.getVersion(1));
+        buffer.clearDirty();
+
+        buffer.write(1, 3, instances(1, 4), 4 * FLOATS);
+        assertEquals(18, buffer.getDirtyFrom());
+        assertEquals(18 + 14, buffer.getDirtyTo(), "The old tail has to be hidden as well");
+        assertSegment(buffer, 1, 4, 18);
+        assertHidden(buffer, 18 + 4, 36);
+        assertSegment(buffer, 2, 10, 36);
+        assertEquals(24, buffer.getLiveInstances());
+        assertEquals(24, countLive(buffer));
+    }
+
+    @Test
+    @DisplayName("The last segment grows in place, any other segment moves to the end")
+    void testGrowAndRelocate() {
+        RegionInstanceBuffer buffer = new RegionInstanceBuffer(2);
+        buffer.write(0, 1, instances(0, 100), 100 * FLOATS);
+        buffer.write(1, 1, instances(1, 10), 10 * FLOATS);
+        assertEquals(112 + 18, buffer.getEnd());
+        buffer.clearDirty();
+
+        buffer.write(1, 2, instances(1, 40), 40 * FLOATS);
+        assertEquals(112 + 48, buffer.getEnd(), "Last segment should grow in place");
+        assertSegment(buffer, 1, 40, 112);
+        assertEquals(112, buffer.getDirtyFrom());
+        buffer.clearDirty();
+
+        buffer.write(0, 2, instances(0, 150), 150 * FLOATS);
+        assertHidden(buffer, 0, 112);
+        assertSegment(buffer, 0, 150, 160);
+        assertSegment(buffer, 1, 40, 112);
+        assertEquals(0, buffer.getDirtyFrom());
+        assertEquals(190, buffer.getLiveInstances());
+        assertEquals(190, countLive(buffer));
+    }
+
+    @Test
+    @DisplayName("Removing chunks hides them, enough holes compact the buffer")
+    void testRemoveAndCompact() {
+        RegionInstanceBuffer buffer = new RegionInstanceBuffer(3);
+        buffer.write(0, 1, instances(0, 40), 40 * FLOATS);
+        buffer.write(1, 1, instances(1, 10), 10 * FLOATS);
+        buffer.write(2, 1, instances(2, 40), 40 * FLOATS);
+
+        buffer.remove(2);
+        assertEquals(66, buffer.getEnd(), "Removing the last segment should shrink the buffer");
+        assertHidden(buffer, 66, buffer.getData().length / FLOATS);
+
+        buffer.remove(0);
+        assertEquals(66, buffer.getEnd(), "A hole stays until compaction");
+        assertHidden(buffer, 0, 48);
+        assertEquals(10, buffer.getLiveInstances());
+
+        // Danach ist mehr als die Hälfte Lücke, der Puffer wird zusammengeschoben
+        buffer.write(2, 2, instances(2, 10), 10 * FLOATS);
+        assertEquals(36, buffer.getEnd());
+        assertSegment(buffer, 1, 10, 0);
+        assertSegment(buffer, 2, 10, 18);
+        assertHidden(buffer, 28, buffer.getData().length / FLOATS);
+        assertEquals(20, buffer.getLiveInstances());
+        assertEquals(20, countLive(buffer));
+
+        buffer.clear();
+        assertEquals(0, buffer.getEnd());
+        assertEquals(0, buffer.getLiveInstances());
+        assertFalse(buffer.hasSegment(1));
+        assertHidden(buffer, 0, buffer.getData().length / FLOATS);
+    }
+}
@@ -0,0 +1,108 @@
+package de.verdox.voxel.client.test.chunk;
+
+import de.verdox.voxel.client.renderer.terrain.regions.RegionLodTracker;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.util.RegionBounds;
+import de.verdox.voxel.shared.util.lod.LODUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RegionLodTracker: transition remeshes counted along camera paths over a row of regions, without a renderer
+ */
+public class RegionLodTrackerTest {
+    private static final RegionBounds BOUNDS = new RegionBounds(4, 4, 4);
+    private static final int VIEW_DISTANCE = 16;
+    private static final int CHUNK_SIZE = 16;
+    private static final int MAX_LOD = 4;
+    private static final int REGIONS = 16;
+
+    private static double exactLod(int cameraChunkX, int regionX) {
+        return LODUtil.computeExactLod(BOUNDS, VIEW_DISTANCE, VIEW_DISTANCE, VIEW_DISTANCE, CHUNK_SIZE, CHUNK_SIZE, CHUNK_SIZE,
+                cameraChunkX, 0, 0, regionX, 0, 0, MAX_LOD);
+    }
+
+    private static int plainLod(int cameraChunkX, int regionX) {
+        return LODUtil.toLodLevel(exactLod(cameraChunkX, regionX), MAX_LOD);
+    }
+
+    /**
+     * Moves the camera along the path and updates every region like the render graph does each frame
+     *
+     * @return the transition remeshes
+     */
+    private static long walk(RegionLodTracker tracker, int... cameraChunksX) {
+        for (int cameraChunkX : cameraChunksX) {
+            for (int regionX = 0; regionX < REGIONS; regionX++) {
+                tracker.update(Chunk.computeChunkKey(regionX, 0, 0), exactLod(cameraChunkX, regionX));
+            }
+        }
+        return tracker.getTransitions();
+    }
+
+    @Test
+    void testHysteresisBand() {
+        assertEquals(1, RegionLodTracker.nextLodLevel(1, 1.9, MAX_LOD, 0.25));
+        assertEquals(1, RegionLodTracker.nextLodLevel(1, 2.2, MAX_LOD, 0.25), "Within the hysteresis above the band");
+        assertEquals(2, RegionLodTracker.nextLodLevel(1, 2.25, MAX_LOD, 0.25));
+        assertEquals(1, RegionLodTracker.nextLodLevel(1, 0.8, MAX_LOD, 0.25), "Within the hysteresis below the band");
+        assertEquals(0, RegionLodTracker.nextLodLevel(1, 0.7, MAX_LOD, 0.25));
+        assertEquals(3, RegionLodTracker.nextLodLevel(1, 3.5, MAX_LOD, 0.25), "Far jumps go straight to the new level");
+        assertEquals(MAX_LOD, RegionLodTracker.nextLodLevel(-1, 9, MAX_LOD, 0.25));
+        assertEquals(2, RegionLodTracker.nextLodLevel(1, 2.0, MAX_LOD, 0), "Without hysteresis the rounded level wins");
+    }
+
+    @Test
+    void testFirstLevelIsNoTransition() {
+        RegionLodTracker tracker = new RegionLodTracker(MAX_LOD, RegionLodTracker.DEFAULT_HYSTERESIS);
+        assertEquals(0, walk(tracker, 0));
+        assertEquals(plainLod(0, REGIONS - 1), tracker.getLodLevel(Chunk.computeChunkKey(REGIONS - 1, 0, 0), 0));
+        assertEquals(MAX_LOD, tracker.getLodLevel(Chunk.computeChunkKey(99, 0, 0), 9), "Unknown regions start at the rounded level");
+    }
+
+    @Test
+    void testStraightPathRemeshesEveryLevelChangeOnce() {
+        int[] path = new int[REGIONS * BOUNDS.regionSizeX()];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = i;
+        }
+        long expected = 0;
+        for (int regionX = 0; regionX < REGIONS; regionX++) {
+            for (int i = 1; i < path.length; i++) {
+                expected += Math.abs(plainLod(path[i], regionX) - plainLod(path[i - 1], regionX));
+            }
+        }
+        assertTrue(expected > 0);
+
+        // Auf einem geraden Weg wechselt jede Region nur, wenn sich ihre gerundete Stufe ändert, die Hysterese spart höchstens
+        assertEquals(expected, walk(new RegionLodTracker(MAX_LOD, 0), path));
+        assertTrue(walk(new RegionLodTracker(MAX_LOD, RegionLodTracker.DEFAULT_HYSTERESIS), path) <= expected);
+    }
+
+    @Test
+    void testJitterOverAChunkBorderDoesNotThrash() {
+        // Eine Kamera-Position suchen, an der eine Region beim Schritt auf den nächsten Chunk die Stufe wechselt
+        int border = -1;
+        int flippingRegions = 0;
+        for (int cameraChunkX = 0; cameraChunkX < REGIONS * BOUNDS.regionSizeX() && border < 0; cameraChunkX++) {
+            for (int regionX = 0; regionX < REGIONS; regionX++) {
+                if (plainLod(cameraChunkX, regionX) != plainLod(cameraChunkX + 1, regionX)) {
+                    border = cameraChunkX;
+                    flippingRegions++;
+                }
+            }
+        }
+        assertTrue(border >= 0);
+
+        int[] jitter = new int[200];
+        for (int i = 0; i < jitter.length; i++) {
+            jitter[i] = border + (i & 1);
+        }
+        long withoutHysteresis = walk(new RegionLodTracker(MAX_LOD, 0), jitter);
+        long withHysteresis = walk(new RegionLodTracker(MAX_LOD, RegionLodTracker.DEFAULT_HYSTERESIS), jitter);
+
+        assertEquals((long) (jitter.length - 1) * flippingRegions, withoutHysteresis);
+        assertTrue(withHysteresis <= flippingRegions, "At most the first step may switch, got " + withHysteresis);
+    }
+}
@@ -0,0 +1,158 @@
+package de.verdox.voxel.client.test.chunk;
+
+import com.badlogic.gdx.math.Frustum;
+import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.collision.BoundingBox;
+import de.verdox.voxel.client.renderer.terrain.regions.graph.RegionOctree;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RegionOctree: inserting and removing regions, the face flags and the frustum query against a brute force test of
+ * every region
+ */
+public class RegionOctreeTest {
+    private static final int REGION_BLOCKS = 64;
+    private static final int RANGE = 6;
+
+    private static long key(int regionX, int regionY, int regionZ) {
+        return Chunk.computeChunkKey(regionX, regionY, regionZ);
+    }
+
+    @Test
+    void testInsertAndRemove() {
+        RegionOctree<Long> octree = new RegionOctree<>(REGION_BLOCKS, REGION_BLOCKS, REGION_BLOCKS);
+        assertEquals(-1, octree.getDepth());
+
+        octree.insert(0, 0, 0, key(0, 0, 0));
+        assertEquals(0, octree.getDepth());
+        octree.insert(-3, 5, 7, key(-3, 5, 7));
+        octree.insert(-3, 5, 7, key(-3, 5, 7));
+        assertEquals(2, octree.getSize());
+        assertEquals(key(-3, 5, 7), octree.get(-3, 5, 7));
+        assertNull(octree.get(-3, 5, 6));
+        assertTrue(octree.getDepth() >= 3);
+
+        assertNull(octree.remove(1, 1, 1));
+        assertEquals(key(0, 0, 0), octree.remove(0, 0, 0));
+        assertEquals(1, octree.getSize());
+        assertEquals(0, octree.getDepth(), "The root follows the remaining region");
+        assertEquals(1, octree.getNodeCount());
+        assertEquals(key(-3, 5, 7), octree.get(-3, 5, 7));
+
+        assertEquals(key(-3, 5, 7), octree.remove(-3, 5, 7));
+        assertEquals(0, octree.getSize());
+        assertEquals(0, octree.getNodeCount());
+        assertEquals(-1, octree.getDepth());
+    }
+
+    @Test
+    void testRegionsWithoutFacesArePruned() {
+        RegionOctree<Long> octree = new RegionOctree<>(REGION_BLOCKS, REGION_BLOCKS, REGION_BLOCKS);
+        Frustum frustum = frustum(0, 0, 0, 1, 0, 0);
+        for (int x = 1; x <= 4; x++) {
+            octree.insert(x, 0, 0, key(x, 0, 0));
+        }
+        assertEquals(0, octree.queryFrustum(frustum, 0, 0, 0, RANGE, RANGE, RANGE, region -> fail()));
+
+        assertTrue(octree.setHasFaces(3, 0, 0, true));
+        assertFalse(octree.setHasFaces(3, 1, 0, true), "Unloaded regions have no flag");
+        LongSet found = new LongOpenHashSet();
+        assertEquals(1, octree.queryFrustum(frustum, 0, 0, 0, RANGE, RANGE, RANGE, region -> found.add(region.longValue())));
+        assertTrue(found.contains(key(3, 0, 0)));
+
+        // Der Bereich um das Zentrum begrenzt die Abfrage
+        assertEquals(0, octree.queryFrustum(frustum, 0, 0, 0, 2, 2, 2, region -> fail()));
+
+        octree.insert(3, 0, 0, key(3, 0, 0));
+        assertEquals(1, octree.queryFrustum(frustum, 0, 0, 0, RANGE, RANGE, RANGE, region -> {
+        }), "Replacing a region keeps its flag");
+        octree.setHasFaces(3, 0, 0, false);
+        assertEquals(0, octree.queryFrustum(frustum, 0, 0, 0, RANGE, RANGE, RANGE, region -> fail()));
+    }
+
+    @Test
+    void testFrustumQueryMatchesBruteForceWhileTheCameraMoves() {
+        Random random = new Random(42);
+        RegionOctree<Long> octree = new RegionOctree<>(REGION_BLOCKS, REGION_BLOCKS, REGION_BLOCKS);
+        LongSet meshed = new LongOpenHashSet();
+        int span = 3 * RANGE;
+        for (int x = -span; x <= span; x++) {
+            for (int y = -2; y <= 2; y++) {
+                for (int z = -span; z <= span; z++) {
+                    if (random.nextInt(3) != 0) {
+                        continue;
+                    }
+                    octree.insert(x, y, z, key(x, y, z));
+                    if (random.nextBoolean()) {
+                        octree.setHasFaces(x, y, z, true);
+                        meshed.add(key(x, y, z));
+                    }
+                }
+            }
+        }
+        int nodes = octree.getNodeCount();
+        int visible = 0;
+
+        // Die Kamera läuft über mehrere Regionen, der Baum bleibt dabei unverändert
+        for (int step = 0; step < 40; step++) {
+            float blockX = -span * REGION_BLOCKS / 2f + step * REGION_BLOCKS * 0.7f;
+            float blockZ = step * 13;
+            Frustum frustum = frustum(blockX, 30, blockZ, (float) Math.cos(step * 0.4), -0.2f, (float) Math.sin(step * 0.4));
+            int centerX = Math.floorDiv((int) blockX, REGION_BLOCKS);
+            int centerZ = Math.floorDiv((int) blockZ, REGION_BLOCKS);
+
+            LongSet expected = new LongOpenHashSet();
+            BoundingBox box = new BoundingBox();
+            for (long regionKey : meshed) {
+                int x = Chunk.unpackChunkX(regionKey);
+                int y = Chunk.unpackChunkY(regionKey);
+                int z = Chunk.unpackChunkZ(regionKey);
+                if (Math.abs(x - centerX) > RANGE || Math.abs(y) > RANGE || Math.abs(z - centerZ) > RANGE) {
+                    continue;
+                }
+                box.min.set(x * REGION_BLOCKS, y * REGION_BLOCKS, z * REGION_BLOCKS);
+                box.max.set((x + 1) * REGION_BLOCKS, (y + 1) * REGION_BLOCKS, (z + 1) * REGION_BLOCKS);
+                box.update();
+                if (frustum.boundsInFrustum(box)) {
+                    expected.add(regionKey);
+                }
+            }
+
+            LongSet found = new LongOpenHashSet();
+            int amount = octree.queryFrustum(frustum, centerX, 0, centerZ, RANGE, RANGE, RANGE, region -> found.add(region.longValue()));
+            assertEquals(expected, found, "Camera step " + step);
+            assertEquals(expected.size(), amount);
+            assertEquals(nodes, octree.getNodeCount());
+            visible += amount;
+        }
+        assertTrue(visible > 0);
+    }
+
+    /**
+     * Symmetric view frustum with a half angle of 40 degrees, built from its planes because Camera.update needs the native libraries
+     */
+    private static Frustum frustum(float x, float y, float z, float directionX, float directionY, float directionZ) {
+        Vector3 position = new Vector3(x, y, z);
+        Vector3 direction = new Vector3(directionX, directionY, directionZ).nor();
+        Vector3 right = new Vector3(direction).crs(Vector3.Y).nor();
+        Vector3 up = new Vector3(right).crs(direction).nor();
+        float sin = (float) Math.sin(Math.toRadians(40));
+        float cos = (float) Math.cos(Math.toRadians(40));
+
+        Frustum frustum = new Frustum();
+        frustum.planes[0].set(new Vector3(direction).scl(0.1f).add(position), direction);
+        frustum.planes[1].set(new Vector3(direction).scl(1000).add(position), new Vector3(direction).scl(-1));
+        frustum.planes[2].set(position, new Vector3(right).scl(cos).mulAdd(direction, sin));
+        frustum.planes[3].set(position, new Vector3(right).scl(-cos).mulAdd(direction, sin));
+        frustum.planes[4].set(position, new Vector3(up).scl(cos).mulAdd(direction, sin));
+        frustum.planes[5].set(position, new Vector3(up).scl(-cos).mulAdd(direction, sin));
+        return frustum;
+    }
+}
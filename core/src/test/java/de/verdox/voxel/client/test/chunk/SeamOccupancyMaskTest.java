@@ -0,0 +1,113 @@
+package de.verdox.voxel.client.test.chunk;
+
+import de.verdox.voxel.client.level.chunk.LODChunk;
+import de.verdox.voxel.client.level.chunk.TerrainChunk;
+import de.verdox.voxel.client.level.chunk.occupancy.SeamOccupancyMask;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.util.Direction;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SeamOccupancyMask: the touching layer of a neighbor at another level of detail, seen in the cells of the meshed chunk
+ */
+public class SeamOccupancyMaskTest {
+    private final LevelWorld world = new LevelWorld(UUID.randomUUID());
+
+    @BeforeAll
+    public static void setup() {
+        Blocks.bootstrap();
+    }
+
+    @Test
+    void testFinerNeighborNeedsTheWholeTouchingSide() {
+        // Nachbar im Osten in voller Auflösung: eine geschlossene Wand auf x = 0 mit einem Loch
+        Chunk neighbor = new ChunkBase(world, 1, 0, 0);
+        neighbor.fillBox(Blocks.STONE, 0, 0, 0, 0, 15, 15);
+        neighbor.setBlockAt(Blocks.AIR, 0, 5, 7);
+        TerrainChunk neighborChunk = new TerrainChunk(null, neighbor);
+        LODChunk meshed = new TerrainChunk(null, new ChunkBase(world, 0, 0, 0)).getLodChunk(1);
+
+        SeamOccupancyMask seam = new SeamOccupancyMask(neighborChunk.getChunkOccupancyMask(), meshed, Direction.EAST, -1);
+        assertFalse(seam.isOpaque(0, 2, 3), "The hole has to keep the face of the coarse cell");
+        assertTrue(seam.isOpaque(0, 2, 2));
+        assertTrue(seam.isOpaque(0, 7, 7));
+        assertEquals(0xFFL & ~(1L << 3), seam.getZColumn(0, 2));
+
+        // Nur die Schicht an der Grenze zählt, nicht die ganze Zelle
+        Chunk thinWall = new ChunkBase(world, 1, 0, 0);
+        thinWall.fillBox(Blocks.STONE, 1, 0, 0, 1, 15, 15);
+        SeamOccupancyMask behindGap = new SeamOccupancyMask(new TerrainChunk(null, thinWall).getChunkOccupancyMask(), meshed, Direction.EAST, -1);
+        assertEquals(0L, behindGap.getZColumn(0, 0));
+    }
+
+    @Test
+    void testFinerNeighborOnTheNegativeSide() {
+        // Nachbar im Westen: seine letzte Schicht x = 15 berührt den Chunk
+        Chunk neighbor = new ChunkBase(world, -1, 0, 0);
+        neighbor.fillBox(Blocks.STONE, 15, 0, 0, 15, 15, 15);
+        TerrainChunk neighborChunk = new TerrainChunk(null, neighbor);
+        LODChunk meshed = new TerrainChunk(null, new ChunkBase(world, 0, 0, 0)).getLodChunk(2);
+
+        SeamOccupancyMask seam = new SeamOccupancyMask(neighborChunk.getChunkOccupancyMask(), meshed, Direction.WEST, -2);
+        assertEquals(0xFL, seam.getZColumn(3, 1));
+
+        // Nach Norden liegt die berührende Schicht in z, also in den Bits der Spalte
+        Chunk north = new ChunkBase(world, 0, 0, -1);
+        north.fillBox(Blocks.STONE, 0, 0, 15, 15, 15, 15);
+        SeamOccupancyMask northSeam = new SeamOccupancyMask(new TerrainChunk(null, north).getChunkOccupancyMask(), meshed, Direction.NORTH, -2);
+        assertEquals(1L << 3, northSeam.getZColumn(1, 1));
+        assertTrue(northSeam.isOpaque(2, 0, 3));
+        assertFalse(northSeam.isOpaque(2, 0, 2));
+    }
+
+    @Test
+    void testCoarserNeighborCoversWholeCells() {
+        // Ein einzelner Block macht die ganze grobe Zelle voll
+        Chunk neighbor = new ChunkBase(world, 1, 0, 0);
+        neighbor.setBlockAt(Blocks.STONE, 1, 5, 5);
+        TerrainChunk neighborChunk = new TerrainChunk(null, neighbor);
+        TerrainChunk meshed = new TerrainChunk(null, new ChunkBase(world, 0, 0, 0));
+
+        SeamOccupancyMask seam = new SeamOccupancyMask(neighborChunk.getLodChunk(1).getChunkOccupancyMask(), meshed, Direction.EAST, 1);
+        assertEquals(0b11L << 4, seam.getZColumn(0, 4));
+        assertEquals(0b11L << 4, seam.getZColumn(0, 5));
+        assertEquals(0L, seam.getZColumn(0, 6));
+        assertTrue(seam.isOpaque(0, 4, 5));
+        assertEquals(0b11L, seam.getXColumn(4, 5));
+    }
+
+    @Test
+    void testXColumnsMatchTheZColumns() {
+        // Nachbar im Süden mit einer löchrigen Wand auf z = 0, einmal feiner und einmal gröber als der Chunk
+        Chunk neighbor = new ChunkBase(world, 0, 0, 1);
+        neighbor.fillBox(Blocks.STONE, 0, 0, 0, 15, 15, 0);
+        neighbor.setBlockAt(Blocks.AIR, 6, 3, 0);
+        neighbor.setBlockAt(Blocks.AIR, 13, 9, 0);
+        TerrainChunk neighborChunk = new TerrainChunk(null, neighbor);
+        TerrainChunk meshedChunk = new TerrainChunk(null, new ChunkBase(world, 0, 0, 0));
+
+        SeamOccupancyMask finer = new SeamOccupancyMask(neighborChunk.getChunkOccupancyMask(), meshedChunk.getLodChunk(1), Direction.SOUTH, -1);
+        SeamOccupancyMask coarser = new SeamOccupancyMask(neighborChunk.getLodChunk(1).getChunkOccupancyMask(), meshedChunk, Direction.SOUTH, 1);
+        for (SeamOccupancyMask seam : new SeamOccupancyMask[]{finer, coarser}) {
+            int size = seam == finer ? 8 : 16;
+            for (int y = 0; y < size; y++) {
+                long xColumn = seam.getXColumn(y, 0);
+                for (int x = 0; x < size; x++) {
+                    boolean opaque = (seam.getZColumn(x, y) & 1L) != 0;
+                    assertEquals(opaque, (xColumn >>> x & 1L) != 0, "x " + x + " y " + y);
+                    assertEquals(opaque, seam.isOpaque(x, y, 0));
+                }
+            }
+        }
+        assertEquals(0xFFL & ~(1L << 3), finer.getXColumn(1, 0));
+        assertEquals(0xFFFFL, coarser.getXColumn(3, 0), "The coarse cells of the holes are still occupied");
+    }
+}
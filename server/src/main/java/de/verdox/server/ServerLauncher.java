@@ -3,17 +3,54 @@ package de.verdox.server;
 import com.esotericsoftware.kryonet.Server;
 import de.verdox.server.heart.TickThread;
 import de.verdox.server.network.ServerConnectionListener;
+import de.verdox.voxel.server.level.chunk.ChunkResidencyPolicy;
+import de.verdox.voxel.server.level.chunk.storage.RegionFileChunkStorage;
+import de.verdox.voxel.server.network.ServerInterfaceImpl;
 import de.verdox.voxel.shared.Bootstrap;
 import de.verdox.voxel.shared.VoxelBase;
+import de.verdox.voxel.shared.level.world.World;
+import lombok.Getter;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.UUID;
 
 /**
  * Launches the server application.
  */
+@Getter
 public class ServerLauncher {
+    public static final int DEFAULT_PORT = 54000;
+    private static final Path WORLD_DIRECTORY = Path.of("world");
+
+    private final Server server;
+    private final TickThread tickThread;
+    private final ServerInterfaceImpl serverInterface;
+    private final World world;
+
+    private ServerLauncher(Server server, TickThread tickThread, ServerInterfaceImpl serverInterface, World world) {
+        this.server = server;
+        this.tickThread = tickThread;
+        this.serverInterface = serverInterface;
+        this.world = world;
+    }
+
     public static void main(String[] args) {
+        try {
+            ServerLauncher launcher = start(DEFAULT_PORT, WORLD_DIRECTORY);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> launcher.getWorld().getChunkMap().close(), "Chunk Map Shutdown"));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Starts a server on the port whose standard world is saved in the world directory.
+     * Used by {@link #main(String[])} and by tools that run the server in their own process, like the load test.
+     */
+    public static ServerLauncher start(int port, Path worldDirectory) throws IOException {
+        VoxelBase.createNewVoxelBase();
         int writeBufferSize  = 1024 * 1024 * 16;
         int objectBufferSize = 1024 * 1024 * 16;
 
@@ -23,15 +60,49 @@ public class ServerLauncher {
         Bootstrap.bootstrap(server.getKryo());
 
         try {
-            server.bind(54000);
+            server.bind(port);
         } catch (IOException e) {
-            e.printStackTrace();
+            server.stop();
+            throw e;
         }
         TickThread tickThread = new TickThread(20);
         tickThread.start();
 
-        VoxelBase.getInstance().createWorld(UUID.randomUUID());
+        World world = VoxelBase.getInstance().createWorld(readOrCreateWorldUUID(worldDirectory));
+        world.getChunkMap().setChunkStorage(new RegionFileChunkStorage(worldDirectory.resolve("region")));
+        // Loaded chunks may use up to half of the heap before the least recently used ones are evicted
+        world.getChunkMap().setResidencyPolicy(ChunkResidencyPolicy.heapBudget(Runtime.getRuntime().maxMemory() / 2));
 
+        // Without a server interface every received packet would be dropped
+        ServerInterfaceImpl serverInterface = new ServerInterfaceImpl(server);
+        serverInterface.start();
+        VoxelBase.getInstance().setServerInterface(serverInterface);
         server.addListener(new ServerConnectionListener());
+        return new ServerLauncher(server, tickThread, serverInterface, world);
+    }
+
+    /**
+     * Disconnects all players, stops ticking and saves the world.
+     */
+    public void stop() {
+        server.stop();
+        tickThread.interrupt();
+        serverInterface.close();
+        world.getChunkMap().close();
+        world.getChunkMap().getWorld().getWorldGenerator().close();
+    }
+
+    /**
+     * The world uuid is kept next to the region files so a restarted server finds its saved chunks again.
+     */
+    private static UUID readOrCreateWorldUUID(Path worldDirectory) throws IOException {
+        Path uuidFile = worldDirectory.resolve("uuid");
+        if (Files.exists(uuidFile)) {
+            return UUID.fromString(Files.readString(uuidFile).trim());
+        }
+        UUID uuid = UUID.randomUUID();
+        Files.createDirectories(worldDirectory);
+        Files.writeString(uuidFile, uuid.toString());
+        return uuid;
     }
 }
@@ -2,8 +2,9 @@ package de.verdox.server.heart;
 
 import lombok.Getter;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 public class TickThread extends Thread {
@@ -25,8 +26,16 @@ public class TickThread extends Thread {
      * Anzahl bisher ausgeführter Ticks
      */
     @Getter
-    private long tickCount = 0;
-    private final List<Ticking> tickSubscriber = new ArrayList<>();
+    private volatile long tickCount = 0;
+    private final List<Ticking> tickSubscriber = new CopyOnWriteArrayList<>();
+    /**
+     * Längster Tick seit der letzten Abfrage von {@link #pollStats()} in Nanosekunden
+     */
+    private final AtomicLong maxTickNanos = new AtomicLong();
+    /**
+     * Wie weit die Schleife seit der letzten Abfrage maximal hinter ihrem Zeitplan lag in Nanosekunden
+     */
+    private final AtomicLong maxLagNanos = new AtomicLong();
 
     /**
      * Erzeugt eine neue TickLoop.
@@ -38,10 +47,29 @@ public class TickThread extends Thread {
         this.tickIntervalNanos = 1_000_000_000L / ticksPerSecond;
     }
 
+    /**
+     * Der Subscriber wird ab dem nächsten Tick aufgerufen
+     */
+    public void subscribe(Ticking ticking) {
+        tickSubscriber.add(ticking);
+    }
+
+    public void unsubscribe(Ticking ticking) {
+        tickSubscriber.remove(ticking);
+    }
+
+    /**
+     * Returns the tick statistics since the last call and starts collecting new ones.
+     */
+    public TickStats pollStats() {
+        return new TickStats(tickCount, maxTickNanos.getAndSet(0), maxLagNanos.getAndSet(0));
+    }
+
     @Override
     public void start() {
-        super.start();
+        // Vor dem Start setzen, sonst kann run() die Schleife sofort wieder verlassen
         running = true;
+        super.start();
     }
 
     @Override
@@ -63,6 +91,7 @@ public class TickThread extends Thread {
             // so viele Ticks abarbeiten wie möglich
             while (accumulator >= tickIntervalNanos) {
                 tickCount++;
+                maxLagNanos.accumulateAndGet(accumulator - tickIntervalNanos, Math::max);
                 long tickStart = System.nanoTime();
                 try {
                     for (Ticking subscriber : tickSubscriber) {
@@ -75,6 +104,7 @@ public class TickThread extends Thread {
                     }
 
                     long tickDuration = System.nanoTime() - tickStart;
+                    maxTickNanos.accumulateAndGet(tickDuration, Math::max);
                     if (tickDuration > tickIntervalNanos) {
                         long lagMillis = (tickDuration - tickIntervalNanos) / 1_000_000;
                         LOGGER.warning("Tick " + tickCount + " took " + lagMillis + " ms longer than "
@@ -99,4 +129,12 @@ public class TickThread extends Thread {
             }
         }
     }
+
+    /**
+     * @param tickCount    ticks executed since the start
+     * @param maxTickNanos the longest tick since the last poll
+     * @param maxLagNanos  how far the loop was behind its schedule at most since the last poll
+     */
+    public record TickStats(long tickCount, long maxTickNanos, long maxLagNanos) {
+    }
 }
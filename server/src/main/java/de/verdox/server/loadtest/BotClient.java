@@ -0,0 +1,304 @@
+package de.verdox.server.loadtest;
+
+import com.esotericsoftware.kryonet.Client;
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.Listener;
+import de.verdox.voxel.shared.Bootstrap;
+import de.verdox.voxel.shared.VoxelBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.world.World;
+import de.verdox.voxel.shared.network.packet.client.ClientInputPacket;
+import de.verdox.voxel.shared.network.packet.client.ClientRequestChunksPacket;
+import de.verdox.voxel.shared.network.packet.server.ServerSetPlayerWorldPacket;
+import de.verdox.voxel.shared.network.packet.server.ServerWorldExistPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerBlockDeltaPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkBatchPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkPacket;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.LongPredicate;
+
+/**
+ * A headless player. Follows its {@link MovementPath}, sends its input every tick and requests the chunks of its view
+ * the same way the ChunkRequestManager of the client does: shell by shell around the current chunk, at most
+ * {@link #CHUNKS_PER_TICK} per tick and again from scratch whenever it enters another chunk.
+ * Chunks that leave the view are forgotten and requested again when the bot comes back.
+ */
+public class BotClient extends Listener {
+    /**
+     * Same limit as the ChunkRequestManager
+     */
+    private static final int CHUNKS_PER_TICK = 2000;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    /**
+     * Has to hold the largest chunk batch of the server
+     */
+    private static final int OBJECT_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    @Getter
+    private final int index;
+    private final MovementPath.Type pathType;
+    private final long seed;
+    private final float blocksPerSecond;
+    private final int horizontalRadius;
+    private final int verticalRadius;
+    private final Client client = new Client(WRITE_BUFFER_SIZE, OBJECT_BUFFER_SIZE);
+
+    private MovementPath path;
+    private UUID world;
+    private int chunkSizeX, chunkSizeY, chunkSizeZ;
+    private boolean hasCenter;
+    private int centerX, centerY, centerZ;
+    private int centerChanges;
+
+    private final LongArrayFIFOQueue pendingQueue = new LongArrayFIFOQueue();
+    private final LongSet loadedChunks = new LongOpenHashSet();
+    /**
+     * When a chunk was requested for the first time since it was last loaded
+     */
+    private final Long2LongMap requestedAt = new Long2LongOpenHashMap();
+    private final LongArrayList latenciesMicros = new LongArrayList();
+
+    private long connectedAt;
+    private long packetsSent;
+    private long packetsReceived;
+    private long chunksRequested;
+    private long chunksReceived;
+    private long chunksAbandoned;
+    private long deltaPackets;
+
+    public BotClient(int index, MovementPath.Type pathType, long seed, float blocksPerSecond, int horizontalRadius, int verticalRadius) {
+        this.index = index;
+        this.pathType = pathType;
+        this.seed = seed;
+        this.blocksPerSecond = blocksPerSecond;
+        this.horizontalRadius = horizontalRadius;
+        this.verticalRadius = verticalRadius;
+    }
+
+    public void connect(String host, int port) throws IOException {
+        client.start();
+        Bootstrap.bootstrap(client.getKryo());
+        client.addListener(this);
+        synchronized (this) {
+            connectedAt = System.nanoTime();
+        }
+        client.connect(5000, host, port);
+    }
+
+    /**
+     * Id of the connection on the server
+     */
+    public int getConnectionId() {
+        return client.getID();
+    }
+
+    public boolean isConnected() {
+        return client.isConnected();
+    }
+
+    public void close() {
+        client.stop();
+    }
+
+    /**
+     * One client tick, called 20 times per second by the load test
+     */
+    public synchronized void tick(float seconds) {
+        if (path == null || !client.isConnected()) {
+            return;
+        }
+        path.move(seconds);
+        ClientInputPacket input = new ClientInputPacket();
+        input.moveX = path.getMoveX() / Math.max(blocksPerSecond, 1e-6f);
+        input.moveZ = path.getMoveZ() / Math.max(blocksPerSecond, 1e-6f);
+        input.yaw = path.getYaw();
+        send(input);
+
+        int chunkX = Chunk.chunkX(chunkSizeX, (int) Math.floor(path.getX()));
+        int chunkZ = Chunk.chunkZ(chunkSizeZ, (int) Math.floor(path.getZ()));
+        if (!hasCenter || chunkX != centerX || chunkZ != centerZ) {
+            changeCenter(chunkX, centerY, chunkZ);
+        }
+        requestChunks();
+    }
+
+    @Override
+    public void received(Connection connection, Object object) {
+        synchronized (this) {
+            packetsReceived++;
+        }
+        if (object instanceof ServerWorldExistPacket packet) {
+            // Ohne bekannte Welt werden empfangene Chunks beim Lesen verworfen
+            synchronized (VoxelBase.getInstance()) {
+                VoxelBase.getInstance().createWorld(packet.world.getUuid());
+            }
+        } else if (object instanceof ServerSetPlayerWorldPacket packet) {
+            spawn(packet);
+        } else if (object instanceof ServerChunkBatchPacket packet) {
+            long now = System.nanoTime();
+            synchronized (this) {
+                for (Chunk chunk : packet.getChunks()) {
+                    receiveChunk(chunk.getChunkKey(), now);
+                }
+            }
+        } else if (object instanceof ServerChunkPacket packet) {
+            long now = System.nanoTime();
+            synchronized (this) {
+                receiveChunk(packet.chunkBase.getChunkKey(), now);
+            }
+        } else if (object instanceof ServerBlockDeltaPacket) {
+            synchronized (this) {
+                deltaPackets++;
+            }
+        }
+    }
+
+    private synchronized void spawn(ServerSetPlayerWorldPacket packet) {
+        World spawnWorld;
+        synchronized (VoxelBase.getInstance()) {
+            spawnWorld = VoxelBase.getInstance().createWorld(packet.uuid);
+        }
+        world = packet.uuid;
+        chunkSizeX = spawnWorld.getChunkSizeX();
+        chunkSizeY = spawnWorld.getChunkSizeY();
+        chunkSizeZ = spawnWorld.getChunkSizeZ();
+        centerY = Chunk.chunkY(chunkSizeY, (int) Math.floor(packet.y));
+        hasCenter = false;
+        path = MovementPath.create(pathType, seed, packet.x, packet.z, blocksPerSecond);
+    }
+
+    private void receiveChunk(long chunkKey, long now) {
+        chunksReceived++;
+        if (isInView(chunkKey)) {
+            loadedChunks.add(chunkKey);
+        }
+        if (requestedAt.containsKey(chunkKey)) {
+            latenciesMicros.add((now - requestedAt.remove(chunkKey)) / 1000);
+        }
+    }
+
+    private void changeCenter(int chunkX, int chunkY, int chunkZ) {
+        hasCenter = true;
+        centerX = chunkX;
+        centerY = chunkY;
+        centerZ = chunkZ;
+        centerChanges++;
+
+        LongPredicate outOfView = chunkKey -> !isInView(chunkKey);
+        loadedChunks.removeIf(outOfView);
+        int before = requestedAt.size();
+        requestedAt.keySet().removeIf(outOfView);
+        chunksAbandoned += before - requestedAt.size();
+
+        pendingQueue.clear();
+        int maxRadius = Math.max(horizontalRadius, verticalRadius);
+        for (int r = 0; r <= maxRadius; r++) {
+            for (int dx = -r; dx <= r; dx++) {
+                for (int dy = -r; dy <= r; dy++) {
+                    for (int dz = -r; dz <= r; dz++) {
+                        // nur die Punkte auf der Oberfläche der Schale r innerhalb der Sichtweite
+                        if (Math.max(Math.max(Math.abs(dx), Math.abs(dy)), Math.abs(dz)) != r) {
+                            continue;
+                        }
+                        if (Math.abs(dx) > horizontalRadius || Math.abs(dy) > verticalRadius || Math.abs(dz) > horizontalRadius) {
+                            continue;
+                        }
+                        long chunkKey = Chunk.computeChunkKey(centerX + dx, centerY + dy, centerZ + dz);
+                        if (!loadedChunks.contains(chunkKey)) {
+                            pendingQueue.enqueue(chunkKey);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void requestChunks() {
+        long now = System.nanoTime();
+        int requestCounter = CHUNKS_PER_TICK;
+        ClientRequestChunksPacket.Builder batch = new ClientRequestChunksPacket.Builder(world, centerX, centerY, centerZ);
+        while (requestCounter > 0 && !pendingQueue.isEmpty()) {
+            long chunkKey = pendingQueue.dequeueLong();
+            if (loadedChunks.contains(chunkKey)) {
+                continue;
+            }
+            if (!batch.add(Chunk.unpackChunkX(chunkKey), Chunk.unpackChunkY(chunkKey), Chunk.unpackChunkZ(chunkKey))) {
+                send(batch.build());
+                batch = new ClientRequestChunksPacket.Builder(world, centerX, centerY, centerZ);
+                batch.add(Chunk.unpackChunkX(chunkKey), Chunk.unpackChunkY(chunkKey), Chunk.unpackChunkZ(chunkKey));
+            }
+            // Wie der Client fragt der Bot erneut an, die Latenz zählt ab der ersten Anfrage
+            if (!requestedAt.containsKey(chunkKey)) {
+                requestedAt.put(chunkKey, now);
+            }
+            chunksRequested++;
+            requestCounter--;
+        }
+        if (!batch.isEmpty()) {
+            send(batch.build());
+        }
+    }
+
+    private boolean isInView(long chunkKey) {
+        return Math.abs(Chunk.unpackChunkX(chunkKey) - centerX) <= horizontalRadius
+                && Math.abs(Chunk.unpackChunkY(chunkKey) - centerY) <= verticalRadius
+                && Math.abs(Chunk.unpackChunkZ(chunkKey) - centerZ) <= horizontalRadius;
+    }
+
+    private void send(Object packet) {
+        client.sendTCP(packet);
+        packetsSent++;
+    }
+
+    /**
+     * The counters of this bot so far
+     */
+    public synchronized BotStats stats() {
+        double seconds = Math.max(1e-9, (System.nanoTime() - connectedAt) / 1e9);
+        long[] latencies = latenciesMicros.toLongArray();
+        Arrays.sort(latencies);
+        return new BotStats(index, pathType, client.getID(), seconds, centerChanges,
+                chunksRequested, chunksReceived, chunksAbandoned, requestedAt.size(), latencies.length,
+                percentileMillis(latencies, 0.5), percentileMillis(latencies, 0.95), percentileMillis(latencies, 0.99),
+                latencies.length == 0 ? Double.NaN : latencies[latencies.length - 1] / 1000d,
+                packetsSent, packetsReceived, deltaPackets);
+    }
+
+    private static double percentileMillis(long[] sortedMicros, double quantile) {
+        if (sortedMicros.length == 0) {
+            return Double.NaN;
+        }
+        int index = (int) Math.ceil(quantile * sortedMicros.length) - 1;
+        return sortedMicros[Math.max(0, Math.min(sortedMicros.length - 1, index))] / 1000d;
+    }
+
+    /**
+     * @param seconds           time since the bot connected
+     * @param chunksRequested   chunk requests sent, a chunk requested again counts again
+     * @param chunksAbandoned   requested chunks that left the view before they arrived
+     * @param chunksOutstanding requested chunks in view that did not arrive yet
+     * @param latencySamples    chunks whose latency from the first request until arrival was measured
+     */
+    public record BotStats(int index, MovementPath.Type path, int connectionId, double seconds, int centerChanges,
+                           long chunksRequested, long chunksReceived, long chunksAbandoned, int chunksOutstanding,
+                           int latencySamples, double latencyP50Millis, double latencyP95Millis, double latencyP99Millis,
+                           double latencyMaxMillis, long packetsSent, long packetsReceived, long deltaPackets) {
+        public double packetsSentPerSecond() {
+            return packetsSent / seconds;
+        }
+
+        public double packetsReceivedPerSecond() {
+            return packetsReceived / seconds;
+        }
+    }
+}
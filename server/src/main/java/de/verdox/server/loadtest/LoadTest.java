@@ -0,0 +1,211 @@
+package de.verdox.server.loadtest;
+
+import de.verdox.server.ServerLauncher;
+import de.verdox.server.heart.TickThread;
+import de.verdox.voxel.server.network.ChunkSendScheduler;
+import de.verdox.voxel.shared.VoxelBase;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.util.ThreadUtil;
+import de.verdox.voxel.shared.util.concurrent.TickTimings;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Headless load test for capacity planning. Starts a server on localhost, connects {@link BotClient}s one after another
+ * and writes a report with chunk latency and packet rate per bot and the tick, chunk send and block delta lag of the server per second.
+ * <p>
+ * Usage: {@code gradle :server:loadTest -PloadTestArgs="--bots 32 --duration 60"}
+ * <ul>
+ *     <li>--bots: amount of bots (16)</li>
+ *     <li>--duration: seconds to measure after the last bot connected (30)</li>
+ *     <li>--ramp: seconds over which the bots connect (5)</li>
+ *     <li>--view: horizontal and vertical view distance in chunks (8,4)</li>
+ *     <li>--speed: blocks per second a bot moves (8)</li>
+ *     <li>--seed: seed of the movement paths (1)</li>
+ *     <li>--port: port of the server (54000)</li>
+ *     <li>--host: connects to an already running server instead, tick lag and server queues are not reported then</li>
+ *     <li>--out: directory of the report (build/load-test)</li>
+ * </ul>
+ * A run starts with a fresh world, so runs with the same arguments are comparable.
+ */
+public class LoadTest {
+    private static final Logger LOGGER = Logger.getLogger(LoadTest.class.getSimpleName());
+    private static final long BOT_TICK_MILLIS = 50;
+
+    public record Settings(int bots, int durationSeconds, int rampSeconds, int horizontalRadius, int verticalRadius,
+                           float blocksPerSecond, long seed, int port, String host, Path out) {
+        public static Settings parse(String[] args) {
+            int bots = 16, duration = 30, ramp = 5, horizontalRadius = 8, verticalRadius = 4, port = ServerLauncher.DEFAULT_PORT;
+            float speed = 8;
+            long seed = 1;
+            String host = null;
+            Path out = Path.of("build", "load-test");
+            for (int i = 0; i + 1 < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--bots" -> bots = Integer.parseInt(value);
+                    case "--duration" -> duration = Integer.parseInt(value);
+                    case "--ramp" -> ramp = Integer.parseInt(value);
+                    case "--view" -> {
+                        String[] radii = value.split(",");
+                        horizontalRadius = Integer.parseInt(radii[0]);
+                        verticalRadius = Integer.parseInt(radii.length > 1 ? radii[1] : radii[0]);
+                    }
+                    case "--speed" -> speed = Float.parseFloat(value);
+                    case "--seed" -> seed = Long.parseLong(value);
+                    case "--port" -> port = Integer.parseInt(value);
+                    case "--host" -> host = value;
+                    case "--out" -> out = Path.of(value);
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            return new Settings(bots, duration, ramp, horizontalRadius, verticalRadius, speed, seed, port, host, out);
+        }
+
+        public boolean inProcess() {
+            return host == null;
+        }
+    }
+
+    /**
+     * One line of the per second report. Chunk sending and block delta flushing run on their own executors and not on the
+     * server tick, their longest run and lag are reported on their own. All timings are NaN against a remote server.
+     *
+     * @param ticks           server ticks during this second, -1 against a remote server
+     * @param chunkQueueDepth chunks waiting in the send queues of all bots, -1 against a remote server
+     */
+    public record Sample(int second, int connectedBots, long ticks, double maxTickMillis, double maxTickLagMillis,
+                         double maxChunkSendMillis, double maxChunkSendLagMillis, double maxDeltaFlushMillis, double maxDeltaFlushLagMillis,
+                         long chunksReceived, long packetsReceived, int chunkQueueDepth) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = Settings.parse(args);
+        LoadTestReport report = run(settings);
+        report.write(settings.out());
+        LOGGER.info(report.summary());
+        System.exit(0);
+    }
+
+    public static LoadTestReport run(Settings settings) throws IOException, InterruptedException {
+        Blocks.bootstrap();
+        Path worldDirectory = null;
+        ServerLauncher server = null;
+        if (settings.inProcess()) {
+            worldDirectory = Files.createTempDirectory("voxel-load-test");
+            server = ServerLauncher.start(settings.port(), worldDirectory);
+        } else {
+            VoxelBase.createNewVoxelBase();
+        }
+        String host = settings.inProcess() ? "localhost" : settings.host();
+
+        List<BotClient> bots = new ObjectArrayList<>();
+        List<Sample> samples = new ObjectArrayList<>();
+        ScheduledExecutorService botTicker = Executors.newSingleThreadScheduledExecutor(ThreadUtil.createFactoryForName("Load Test Bot Ticker", true));
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(ThreadUtil.createFactoryForName("Load Test Sampler", true));
+        try {
+            ServerLauncher sampledServer = server;
+            long[] lastTotals = new long[3];
+            int[] second = new int[1];
+            if (sampledServer != null) {
+                lastTotals[2] = sampledServer.getTickThread().pollStats().tickCount();
+                sampledServer.getServerInterface().pollChunkSendTimings();
+                sampledServer.getServerInterface().pollBlockDeltaTimings();
+            }
+            sampler.scheduleAtFixedRate(() -> samples.add(sample(++second[0], bots, sampledServer, lastTotals)), 1, 1, TimeUnit.SECONDS);
+
+            long rampPause = settings.bots() > 0 ? TimeUnit.SECONDS.toMillis(settings.rampSeconds()) / settings.bots() : 0;
+            for (int i = 0; i < settings.bots(); i++) {
+                MovementPath.Type path = MovementPath.Type.values()[i % MovementPath.Type.values().length];
+                BotClient bot = new BotClient(i, path, settings.seed() * 31 + i, settings.blocksPerSecond(), settings.horizontalRadius(), settings.verticalRadius());
+                bot.connect(host, settings.port());
+                synchronized (bots) {
+                    bots.add(bot);
+                }
+                botTicker.scheduleAtFixedRate(() -> bot.tick(BOT_TICK_MILLIS / 1000f), BOT_TICK_MILLIS, BOT_TICK_MILLIS, TimeUnit.MILLISECONDS);
+                Thread.sleep(rampPause);
+            }
+            Thread.sleep(TimeUnit.SECONDS.toMillis(settings.durationSeconds()));
+
+            botTicker.shutdownNow();
+            sampler.shutdownNow();
+            sampler.awaitTermination(5, TimeUnit.SECONDS);
+            List<BotClient.BotStats> botStats = new ObjectArrayList<>();
+            List<ChunkSendScheduler.ConnectionStats> queueStats = new ObjectArrayList<>();
+            for (BotClient bot : bots) {
+                botStats.add(bot.stats());
+                queueStats.add(server != null ? server.getServerInterface().getChunkSendStats(bot.getConnectionId()) : null);
+            }
+            // Der Sampler ist beendet, die Samples ändern sich nicht mehr
+            return new LoadTestReport(settings, botStats, queueStats, samples);
+        } finally {
+            botTicker.shutdownNow();
+            sampler.shutdownNow();
+            bots.forEach(BotClient::close);
+            if (server != null) {
+                server.stop();
+            }
+            if (worldDirectory != null) {
+                deleteRecursively(worldDirectory);
+            }
+        }
+    }
+
+    private static Sample sample(int second, List<BotClient> bots, ServerLauncher server, long[] lastTotals) {
+        List<BotClient> all;
+        synchronized (bots) {
+            all = List.copyOf(bots);
+        }
+        // Die Summen laufen über alle Bots, sonst fallen die Zähler eines getrennten Bots heraus und die Rate wird negativ
+        long chunks = 0, packets = 0;
+        int connected = 0;
+        int queueDepth = server != null ? 0 : -1;
+        for (BotClient bot : all) {
+            BotClient.BotStats stats = bot.stats();
+            chunks += stats.chunksReceived();
+            packets += stats.packetsReceived();
+            if (!bot.isConnected()) {
+                continue;
+            }
+            connected++;
+            if (server != null) {
+                queueDepth += server.getServerInterface().getChunkSendStats(bot.getConnectionId()).queueDepth();
+            }
+        }
+        long chunksThisSecond = chunks - lastTotals[0];
+        long packetsThisSecond = packets - lastTotals[1];
+        lastTotals[0] = chunks;
+        lastTotals[1] = packets;
+
+        if (server == null) {
+            return new Sample(second, connected, -1, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+                    chunksThisSecond, packetsThisSecond, queueDepth);
+        }
+        TickThread.TickStats tickStats = server.getTickThread().pollStats();
+        long ticksThisSecond = tickStats.tickCount() - lastTotals[2];
+        lastTotals[2] = tickStats.tickCount();
+        TickTimings.Stats chunkSend = server.getServerInterface().pollChunkSendTimings();
+        TickTimings.Stats deltaFlush = server.getServerInterface().pollBlockDeltaTimings();
+        return new Sample(second, connected, ticksThisSecond, tickStats.maxTickNanos() / 1e6, tickStats.maxLagNanos() / 1e6,
+                chunkSend.maxTickNanos() / 1e6, chunkSend.maxLagNanos() / 1e6, deltaFlush.maxTickNanos() / 1e6, deltaFlush.maxLagNanos() / 1e6,
+                chunksThisSecond, packetsThisSecond, queueDepth);
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            LOGGER.warning("Could not delete " + directory + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package de.verdox.server.loadtest;
+
+import de.verdox.voxel.server.network.ChunkSendScheduler;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Result of a {@link LoadTest} run. Written as three files:
+ * <ul>
+ *     <li>bots.csv: one line per bot with chunk latency, packet rates and its send queue on the server</li>
+ *     <li>samples.csv: one line per second with connected bots, server ticks, tick, chunk send and block delta lag and received chunks</li>
+ *     <li>summary.json: the settings of the run and the aggregated numbers</li>
+ * </ul>
+ */
+@Getter
+public class LoadTestReport {
+    private final LoadTest.Settings settings;
+    private final List<BotClient.BotStats> bots;
+    /**
+     * Send queue of each bot on the server, entries are null against a remote server
+     */
+    private final List<ChunkSendScheduler.ConnectionStats> queues;
+    private final List<LoadTest.Sample> samples;
+
+    public LoadTestReport(LoadTest.Settings settings, List<BotClient.BotStats> bots, List<ChunkSendScheduler.ConnectionStats> queues, List<LoadTest.Sample> samples) {
+        this.settings = settings;
+        this.bots = bots;
+        this.queues = queues;
+        this.samples = samples;
+    }
+
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve("bots.csv"), botsCsv());
+        Files.writeString(directory.resolve("samples.csv"), samplesCsv());
+        Files.writeString(directory.resolve("summary.json"), summaryJson());
+    }
+
+    public String botsCsv() {
+        StringBuilder csv = new StringBuilder("bot,path,connection,seconds,center_changes,chunks_requested,chunks_received,chunks_abandoned,chunks_outstanding,"
+                + "latency_samples,latency_p50_ms,latency_p95_ms,latency_p99_ms,latency_max_ms,packets_sent_per_s,packets_received_per_s,delta_packets,"
+                + "server_queue_depth,server_sent_chunks,server_dropped_chunks\n");
+        for (int i = 0; i < bots.size(); i++) {
+            BotClient.BotStats bot = bots.get(i);
+            ChunkSendScheduler.ConnectionStats queue = queues.get(i);
+            csv.append(format("%d,%s,%d,%.1f,%d,%d,%d,%d,%d,%d,%.2f,%.2f,%.2f,%.2f,%.1f,%.1f,%d,",
+                    bot.index(), bot.path(), bot.connectionId(), bot.seconds(), bot.centerChanges(), bot.chunksRequested(), bot.chunksReceived(),
+                    bot.chunksAbandoned(), bot.chunksOutstanding(), bot.latencySamples(), bot.latencyP50Millis(), bot.latencyP95Millis(),
+                    bot.latencyP99Millis(), bot.latencyMaxMillis(), bot.packetsSentPerSecond(), bot.packetsReceivedPerSecond(), bot.deltaPackets()));
+            csv.append(queue != null ? format("%d,%d,%d", queue.queueDepth(), queue.sentChunks(), queue.droppedChunks()) : ",,").append('\n');
+        }
+        return csv.toString();
+    }
+
+    public String samplesCsv() {
+        StringBuilder csv = new StringBuilder("second,connected_bots,ticks,max_tick_ms,max_tick_lag_ms,max_chunk_send_ms,max_chunk_send_lag_ms,"
+                + "max_delta_flush_ms,max_delta_flush_lag_ms,chunks_received,packets_received,chunk_queue_depth\n");
+        for (LoadTest.Sample sample : samples) {
+            csv.append(format("%d,%d,%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,%d,%d,%d\n", sample.second(), sample.connectedBots(), sample.ticks(), sample.maxTickMillis(),
+                    sample.maxTickLagMillis(), sample.maxChunkSendMillis(), sample.maxChunkSendLagMillis(), sample.maxDeltaFlushMillis(),
+                    sample.maxDeltaFlushLagMillis(), sample.chunksReceived(), sample.packetsReceived(), sample.chunkQueueDepth()));
+        }
+        return csv.toString();
+    }
+
+    public String summaryJson() {
+        LoadTest.Settings s = settings;
+        return format("""
+                        {
+                          "settings": {"bots": %d, "durationSeconds": %d, "rampSeconds": %d, "horizontalRadius": %d, "verticalRadius": %d, "blocksPerSecond": %.1f, "seed": %d, "host": %s},
+                          "connectedBots": %d,
+                          "chunksReceived": %d,
+                          "chunksPerSecond": %.1f,
+                          "latencyP50MillisMedian": %s,
+                          "latencyP95MillisWorst": %s,
+                          "latencyP99MillisWorst": %s,
+                          "packetsReceivedPerSecondPerBot": %.1f,
+                          "packetsSentPerSecondPerBot": %.1f,
+                          "ticksPerSecond": %s,
+                          "maxTickMillis": %s,
+                          "maxTickLagMillis": %s,
+                          "maxChunkSendMillis": %s,
+                          "maxChunkSendLagMillis": %s,
+                          "maxDeltaFlushMillis": %s,
+                          "maxDeltaFlushLagMillis": %s,
+                          "droppedChunks": %d
+                        }
+                        """,
+                s.bots(), s.durationSeconds(), s.rampSeconds(), s.horizontalRadius(), s.verticalRadius(), s.blocksPerSecond(), s.seed(),
+                s.inProcess() ? "null" : "\"" + s.host() + "\"",
+                connectedBots(), chunksReceived(), chunksPerSecond(),
+                json(medianOf(bots.stream().mapToDouble(BotClient.BotStats::latencyP50Millis).toArray())),
+                json(maxOf(bots.stream().mapToDouble(BotClient.BotStats::latencyP95Millis).toArray())),
+                json(maxOf(bots.stream().mapToDouble(BotClient.BotStats::latencyP99Millis).toArray())),
+                bots.stream().mapToDouble(BotClient.BotStats::packetsReceivedPerSecond).average().orElse(0),
+                bots.stream().mapToDouble(BotClient.BotStats::packetsSentPerSecond).average().orElse(0),
+                json(ticksPerSecond()),
+                json(maxOf(samples.stream().mapToDouble(LoadTest.Sample::maxTickMillis).toArray())),
+                json(maxOf(samples.stream().mapToDouble(LoadTest.Sample::maxTickLagMillis).toArray())),
+                json(maxOf(samples.stream().mapToDouble(LoadTest.Sample::maxChunkSendMillis).toArray())),
+                json(maxOf(samples.stream().mapToDouble(LoadTest.Sample::maxChunkSendLagMillis).toArray())),
+                json(maxOf(samples.stream().mapToDouble(LoadTest.Sample::maxDeltaFlushMillis).toArray())),
+                json(maxOf(samples.stream().mapToDouble(LoadTest.Sample::maxDeltaFlushLagMillis).toArray())),
+                queues.stream().mapToLong(queue -> queue != null ? queue.droppedChunks() : 0).sum());
+    }
+
+    /**
+     * One line for the log
+     */
+    public String summary() {
+        return format("%d/%d bots, %.0f chunks/s, chunk latency p50 %.1f ms (median bot) p99 %.1f ms (worst bot), %s ticks/s, "
+                        + "max lag: tick %.1f ms, chunk send %.1f ms, delta flush %.1f ms",
+                connectedBots(), settings.bots(), chunksPerSecond(),
+                medianOf(bots.stream().mapToDouble(BotClient.BotStats::latencyP50Millis).toArray()),
+                maxOf(bots.stream().mapToDouble(BotClient.BotStats::latencyP99Millis).toArray()),
+                json(ticksPerSecond()), maxOf(samples.stream().mapToDouble(LoadTest.Sample::maxTickLagMillis).toArray()),
+                maxOf(samples.stream().mapToDouble(LoadTest.Sample::maxChunkSendLagMillis).toArray()),
+                maxOf(samples.stream().mapToDouble(LoadTest.Sample::maxDeltaFlushLagMillis).toArray()));
+    }
+
+    private int connectedBots() {
+        return samples.isEmpty() ? 0 : samples.get(samples.size() - 1).connectedBots();
+    }
+
+    private long chunksReceived() {
+        return bots.stream().mapToLong(BotClient.BotStats::chunksReceived).sum();
+    }
+
+    private double chunksPerSecond() {
+        return samples.isEmpty() ? 0 : (double) samples.stream().mapToLong(LoadTest.Sample::chunksReceived).sum() / samples.size();
+    }
+
+    private double ticksPerSecond() {
+        return samples.stream().mapToLong(LoadTest.Sample::ticks).filter(ticks -> ticks >= 0).average().orElse(Double.NaN);
+    }
+
+    private static double medianOf(double[] values) {
+        double[] known = Arrays.stream(values).filter(value -> !Double.isNaN(value)).sorted().toArray();
+        return known.length == 0 ? Double.NaN : known[known.length / 2];
+    }
+
+    private static double maxOf(double[] values) {
+        return Arrays.stream(values).filter(value -> !Double.isNaN(value)).max().orElse(Double.NaN);
+    }
+
+    /**
+     * JSON has no NaN, unknown values are written as null
+     */
+    private static String json(double value) {
+        return Double.isNaN(value) ? "null" : format("%.2f", value);
+    }
+
+    private static String format(String format, Object... args) {
+        return String.format(Locale.ROOT, format, args);
+    }
+}
@@ -0,0 +1,126 @@
+package de.verdox.server.loadtest;
+
+import lombok.Getter;
+
+import java.util.Random;
+
+/**
+ * Scripted movement of a bot on the xz plane. The same type, seed and start position always produce the same path,
+ * so two load test runs move their bots identically.
+ */
+@Getter
+public abstract class MovementPath {
+    public enum Type {
+        /**
+         * Stands at the spawn, only requests its view once
+         */
+        IDLE,
+        /**
+         * Walks in a circle and keeps crossing the same chunks
+         */
+        CIRCLE,
+        /**
+         * Walks straight away from the spawn and keeps needing new chunks
+         */
+        LINE,
+        /**
+         * Changes its direction every few seconds
+         */
+        RANDOM_WALK
+    }
+
+    private final Type type;
+    protected float x, z;
+    protected float moveX, moveZ;
+
+    protected MovementPath(Type type, float x, float z) {
+        this.type = type;
+        this.x = x;
+        this.z = z;
+    }
+
+    public static MovementPath create(Type type, long seed, float startX, float startZ, float blocksPerSecond) {
+        Random random = new Random(seed);
+        return switch (type) {
+            case IDLE -> new MovementPath(type, startX, startZ) {
+                @Override
+                public void move(float seconds) {
+                }
+            };
+            case CIRCLE -> new Circle(startX, startZ, blocksPerSecond, 32 + random.nextInt(96), random.nextBoolean());
+            case LINE -> new Walk(type, startX, startZ, blocksPerSecond, random, Float.MAX_VALUE);
+            case RANDOM_WALK -> new Walk(type, startX, startZ, blocksPerSecond, random, 4);
+        };
+    }
+
+    /**
+     * Moves the bot by the time of one tick
+     */
+    public abstract void move(float seconds);
+
+    /**
+     * Heading in degrees like the client camera, 0 looks along negative z
+     */
+    public float getYaw() {
+        return (float) Math.toDegrees(Math.atan2(-moveX, -moveZ));
+    }
+
+    private static class Circle extends MovementPath {
+        private final float centerX, centerZ;
+        private final float radius;
+        private final float angularSpeed;
+        private float angle;
+
+        Circle(float startX, float startZ, float blocksPerSecond, float radius, boolean clockwise) {
+            super(Type.CIRCLE, startX, startZ);
+            // Der Kreis beginnt im Spawn
+            this.centerX = startX - radius;
+            this.centerZ = startZ;
+            this.radius = radius;
+            this.angularSpeed = (clockwise ? -1 : 1) * blocksPerSecond / radius;
+        }
+
+        @Override
+        public void move(float seconds) {
+            angle += angularSpeed * seconds;
+            float newX = centerX + radius * (float) Math.cos(angle);
+            float newZ = centerZ + radius * (float) Math.sin(angle);
+            moveX = (newX - x) / Math.max(seconds, 1e-6f);
+            moveZ = (newZ - z) / Math.max(seconds, 1e-6f);
+            x = newX;
+            z = newZ;
+        }
+    }
+
+    private static class Walk extends MovementPath {
+        private final float blocksPerSecond;
+        private final Random random;
+        private final float secondsPerHeading;
+        private float headingTime;
+
+        Walk(Type type, float startX, float startZ, float blocksPerSecond, Random random, float secondsPerHeading) {
+            super(type, startX, startZ);
+            this.blocksPerSecond = blocksPerSecond;
+            this.random = random;
+            this.secondsPerHeading = secondsPerHeading;
+            changeHeading();
+        }
+
+        @Override
+        public void move(float seconds) {
+            headingTime += seconds;
+            if (headingTime >= secondsPerHeading) {
+                headingTime = 0;
+                changeHeading();
+            }
+            x += moveX * seconds;
+            z += moveZ * seconds;
+        }
+
+        private void changeHeading() {
+            double heading = random.nextDouble() * 2 * Math.PI;
+            moveX = (float) Math.cos(heading) * blocksPerSecond;
+            moveZ = (float) Math.sin(heading) * blocksPerSecond;
+        }
+    }
+}
@@ -17,6 +17,7 @@ public class ServerConnectionListener extends Listener {
 
     @Override
     public void disconnected(Connection connection) {
+        VoxelBase.getInstance().serverInterface(serverInterface -> serverInterface.onDisconnect(connection.getID()));
         connection.close();
     }
 }
@@ -0,0 +1,185 @@
+package de.verdox.voxelgame;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryonet.Client;
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.Listener;
+import com.esotericsoftware.kryonet.Server;
+import de.verdox.voxel.server.level.chunk.ChunkChangeJournal;
+import de.verdox.voxel.server.level.generator.BenchmarkNoiseChunkGenerator;
+import de.verdox.voxel.server.network.ServerInterfaceImpl;
+import de.verdox.voxel.shared.VoxelBase;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.World;
+import de.verdox.voxel.shared.network.packet.PacketRegistry;
+import de.verdox.voxel.shared.network.packet.client.ClientRequestChunkPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerBlockDeltaPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkBatchPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkPacket;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one block edit through kryonet on localhost, sent as a {@link ServerBlockDeltaPacket} ("delta") or by resending the
+ * whole chunk ("full"). The delta is flushed right away, the wait for the next delta tick (half a tick on average) is not included.
+ * The bytes of a delta for 1 up to {@link ChunkChangeJournal#MAX_CHANGES} edits and of a full resend of the same surface chunk are
+ * printed during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class BlockDeltaBenchmark {
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    @Param({"delta", "full"})
+    public String update;
+
+    private World world;
+    private Server server;
+    private Client client;
+    private FlushingServerInterface serverInterface;
+    private final BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+    private Chunk serverChunk;
+    private int connectionId;
+    private int edit;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Blocks.bootstrap();
+        VoxelBase.createNewVoxelBase();
+        world = VoxelBase.getInstance().createWorld(UUID.randomUUID());
+        printSizes();
+
+        server = new Server(BUFFER_SIZE, BUFFER_SIZE);
+        new PacketRegistry(server.getKryo());
+        serverInterface = new FlushingServerInterface(server);
+        serverInterface.start();
+        server.addListener(new Listener() {
+            @Override
+            public void connected(Connection connection) {
+                serverInterface.onConnect(connection.getID());
+            }
+
+            @Override
+            public void received(Connection connection, Object object) {
+                serverInterface.receive(object, connection.getID());
+            }
+        });
+        int port = findFreePort();
+        server.bind(port);
+        server.start();
+
+        // Deltas aus dem regulären Tick werden beim vollen Neusenden nicht mitgezählt
+        Class<?> expected = update.equals("delta") ? ServerBlockDeltaPacket.class : ServerChunkPacket.class;
+        client = new Client(BUFFER_SIZE, BUFFER_SIZE);
+        new PacketRegistry(client.getKryo());
+        client.addListener(new Listener() {
+            @Override
+            public void received(Connection connection, Object object) {
+                if (object instanceof ServerChunkBatchPacket || expected.isInstance(object)) {
+                    received.add(object);
+                }
+            }
+        });
+        client.start();
+        client.connect(5000, "localhost", port);
+        client.sendTCP(new ClientRequestChunkPacket(world.getUuid(), 0, 3, 0));
+        if (received.poll(30, TimeUnit.SECONDS) == null) {
+            throw new IllegalStateException("The chunk was not sent");
+        }
+        serverChunk = world.getChunkMap().getChunk(0, 3, 0).orElseThrow();
+        connectionId = server.getConnections()[0].getID();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.stop();
+        server.stop();
+        serverInterface.close();
+        world.getChunkMap().getWorld().getWorldGenerator().close();
+    }
+
+    @Benchmark
+    public Object sendEdit() throws InterruptedException {
+        edit++;
+        serverChunk.setBlockAt(edit % 2 == 0 ? Blocks.STONE : Blocks.AIR, edit % 16, 8, (edit / 16) % 16);
+        if (update.equals("delta")) {
+            serverInterface.flushBlockDeltas();
+        } else {
+            serverInterface.sendToPlayer(ServerChunkPacket.fromGameChunk((ChunkBase) serverChunk), connectionId);
+        }
+        Object packet = received.poll(5, TimeUnit.SECONDS);
+        if (packet == null) {
+            throw new IllegalStateException("The edit was not sent");
+        }
+        return packet;
+    }
+
+    private void printSizes() {
+        Kryo kryo = new Kryo();
+        new PacketRegistry(kryo);
+
+        // Der größte Chunk der Säule liegt an der Oberfläche, dort wird auch am meisten gebaut
+        Chunk chunk = null;
+        for (int y = 0; y < 8; y++) {
+            Chunk candidate = new ChunkBase(world, 2, y, -1);
+            new BenchmarkNoiseChunkGenerator().generateNoise(candidate);
+            if (chunk == null || fullResendSize(kryo, candidate) > fullResendSize(kryo, chunk)) {
+                chunk = candidate;
+            }
+        }
+        ChunkChangeJournal journal = new ChunkChangeJournal(chunk);
+
+        Random random = new Random(3);
+        for (int edits : new int[]{1, 16, 64, ChunkChangeJournal.MAX_CHANGES}) {
+            for (int i = 0; i < edits; i++) {
+                chunk.setBlockAt(random.nextBoolean() ? Blocks.AIR : Blocks.STONE, random.nextInt(16), random.nextInt(16), random.nextInt(16));
+            }
+            ServerBlockDeltaPacket packet = journal.drain();
+            int deltaBytes = sizeOf(kryo, packet);
+            System.out.printf("%n%d edits: delta %d bytes (%.1f per edit), full resend %d bytes", packet.changeCount(), deltaBytes, deltaBytes / (double) packet.changeCount(), fullResendSize(kryo, chunk));
+        }
+        System.out.println();
+    }
+
+    private int fullResendSize(Kryo kryo, Chunk chunk) {
+        ServerChunkBatchPacket fullResend = new ServerChunkBatchPacket(world.getUuid());
+        fullResend.add(chunk);
+        return sizeOf(kryo, fullResend);
+    }
+
+    private static int sizeOf(Kryo kryo, Object packet) {
+        Output output = new Output(1024, -1);
+        kryo.writeClassAndObject(output, packet);
+        return output.position();
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static class FlushingServerInterface extends ServerInterfaceImpl {
+        private FlushingServerInterface(Server server) {
+            super(server);
+        }
+
+        private void flushBlockDeltas() {
+            blockDeltaTracker.flush();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package de.verdox.voxelgame;
+
+import de.verdox.voxel.shared.data.registry.ResourceLocation;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.data.types.Registries;
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Chunk#getBlockAt} throughput for different block registry sizes. The legacy benchmark measures the previous
+ * id lookup that streamed over all registry entries. One operation equals one block read.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class BlockLookupBenchmark {
+    private static final int CHUNK_SIZE = 16;
+    private static final int BLOCK_COUNT = CHUNK_SIZE * CHUNK_SIZE * CHUNK_SIZE;
+
+    @Param({"10", "1000", "10000"})
+    public int registrySize;
+
+    private Chunk chunk;
+    private int[] materialIds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Every parameter runs in its own fork, so the global registry can be filled up here
+        Blocks.bootstrap();
+        for (int i = Registries.BLOCKS.getAmountValues(); i < registrySize; i++) {
+            BlockBase block = new BlockBase();
+            Registries.BLOCKS.register(block, ResourceLocation.of("benchmark_block_" + i));
+            block.setMaterialID((short) Registries.BLOCKS.getIdOrThrow(block));
+        }
+        Registries.BLOCKS.freeze();
+
+        LevelWorld world = new LevelWorld(UUID.randomUUID(), (byte) CHUNK_SIZE, (byte) CHUNK_SIZE, (byte) CHUNK_SIZE);
+        chunk = new ChunkBase(world, 0, 0, 0);
+        materialIds = new int[BLOCK_COUNT];
+
+        Random random = new Random(42);
+        int i = 0;
+        for (int x = 0; x < CHUNK_SIZE; x++) {
+            for (int y = 0; y < CHUNK_SIZE; y++) {
+                for (int z = 0; z < CHUNK_SIZE; z++) {
+                    BlockBase block = Registries.BLOCKS.byId(random.nextInt(registrySize));
+                    chunk.setBlockAt(block, x, y, z);
+                    materialIds[i++] = block.getMaterialID();
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK_COUNT)
+    public void getBlockAt(Blackhole blackhole) {
+        for (int x = 0; x < CHUNK_SIZE; x++) {
+            for (int y = 0; y < CHUNK_SIZE; y++) {
+                for (int z = 0; z < CHUNK_SIZE; z++) {
+                    blackhole.consume(chunk.getBlockAt(x, y, z));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK_COUNT)
+    public void legacyStreamLookup(Blackhole blackhole) {
+        for (int id : materialIds) {
+            blackhole.consume(Registries.BLOCKS.streamEntries().filter(blockBase -> blockBase.getMaterialID() == id).findFirst().orElse(null));
+        }
+    }
+}
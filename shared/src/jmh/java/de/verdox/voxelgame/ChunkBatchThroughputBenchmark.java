@@ -0,0 +1,150 @@
+package de.verdox.voxelgame;
+
+import com.esotericsoftware.kryonet.Client;
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.Listener;
+import com.esotericsoftware.kryonet.Server;
+import de.verdox.voxel.server.network.ServerInterfaceImpl;
+import de.verdox.voxel.shared.VoxelBase;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.world.World;
+import de.verdox.voxel.shared.network.packet.PacketRegistry;
+import de.verdox.voxel.shared.network.packet.client.ClientRequestChunkPacket;
+import de.verdox.voxel.shared.network.packet.client.ClientRequestChunksPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkBatchPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkPacket;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends already generated chunks end to end through kryonet on localhost, once with one request packet per chunk and once with
+ * batched requests. The responses are always batched by the ChunkSendScheduler. One operation delivers all 1024 chunks, so the chunks per
+ * second are 1024 divided by the time per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class ChunkBatchThroughputBenchmark {
+    private static final int RADIUS_XZ = 8;
+    private static final int RADIUS_Y = 4;
+    private static final int BUFFER_SIZE = 1024 * 1024 * 16;
+
+    @Param({"single", "batched"})
+    public String requests;
+
+    private Server server;
+    private Client client;
+    private ServerInterfaceImpl serverInterface;
+    private World world;
+    private volatile CountDownLatch received;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Blocks.bootstrap();
+        VoxelBase.createNewVoxelBase();
+        world = VoxelBase.getInstance().createWorld(UUID.randomUUID());
+
+        server = new Server(BUFFER_SIZE, BUFFER_SIZE);
+        new PacketRegistry(server.getKryo());
+        serverInterface = new ServerInterfaceImpl(server);
+        serverInterface.start();
+        server.addListener(new Listener() {
+            @Override
+            public void connected(Connection connection) {
+                serverInterface.onConnect(connection.getID());
+            }
+
+            @Override
+            public void received(Connection connection, Object object) {
+                serverInterface.receive(object, connection.getID());
+            }
+        });
+        int port = findFreePort();
+        server.bind(port);
+        server.start();
+
+        client = new Client(BUFFER_SIZE, BUFFER_SIZE);
+        new PacketRegistry(client.getKryo());
+        client.addListener(new Listener() {
+            @Override
+            public void received(Connection connection, Object object) {
+                int chunks = object instanceof ServerChunkPacket ? 1 : object instanceof ServerChunkBatchPacket batch ? batch.size() : 0;
+                for (int i = 0; i < chunks; i++) {
+                    received.countDown();
+                }
+            }
+        });
+        client.start();
+        client.connect(5000, "localhost", port);
+
+        // Nur die Übertragung messen, nicht die Generierung
+        CompletableFuture<?>[] futures = new CompletableFuture[chunkCount()];
+        int i = 0;
+        for (int x = -RADIUS_XZ; x < RADIUS_XZ; x++) {
+            for (int y = -RADIUS_Y; y < RADIUS_Y; y++) {
+                for (int z = -RADIUS_XZ; z < RADIUS_XZ; z++) {
+                    futures[i++] = world.getChunkMap().getOrCreateChunkAsync(x, y, z, chunk -> {});
+                }
+            }
+        }
+        CompletableFuture.allOf(futures).get(60, TimeUnit.SECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.stop();
+        server.stop();
+        serverInterface.close();
+        world.getChunkMap().getWorld().getWorldGenerator().close();
+    }
+
+    @Benchmark
+    public void requestAllChunks() throws InterruptedException {
+        received = new CountDownLatch(chunkCount());
+        if (requests.equals("single")) {
+            for (int x = -RADIUS_XZ; x < RADIUS_XZ; x++) {
+                for (int y = -RADIUS_Y; y < RADIUS_Y; y++) {
+                    for (int z = -RADIUS_XZ; z < RADIUS_XZ; z++) {
+                        client.sendTCP(new ClientRequestChunkPacket(world.getUuid(), x, y, z));
+                    }
+                }
+            }
+        } else {
+            ClientRequestChunksPacket.Builder builder = new ClientRequestChunksPacket.Builder(world.getUuid(), 0, 0, 0);
+            for (int x = -RADIUS_XZ; x < RADIUS_XZ; x++) {
+                for (int y = -RADIUS_Y; y < RADIUS_Y; y++) {
+                    for (int z = -RADIUS_XZ; z < RADIUS_XZ; z++) {
+                        if (!builder.add(x, y, z)) {
+                            client.sendTCP(builder.build());
+                            builder = new ClientRequestChunksPacket.Builder(world.getUuid(), 0, 0, 0);
+                            builder.add(x, y, z);
+                        }
+                    }
+                }
+            }
+            client.sendTCP(builder.build());
+        }
+        if (!received.await(60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException(received.getCount() + " chunks are missing");
+        }
+    }
+
+    private static int chunkCount() {
+        return (2 * RADIUS_XZ) * (2 * RADIUS_Y) * (2 * RADIUS_XZ);
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
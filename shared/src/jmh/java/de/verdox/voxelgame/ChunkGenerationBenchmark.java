@@ -0,0 +1,110 @@
+package de.verdox.voxelgame;
+
+import de.verdox.voxel.server.level.generator.BenchmarkNoiseChunkGenerator;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import personthecat.fastnoise.FastNoise;
+import personthecat.fastnoise.data.FractalType;
+import personthecat.fastnoise.data.NoiseType;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunks generated per second with {@link BenchmarkNoiseChunkGenerator} (bulk column fills)
+ * compared to the previous implementation that wrote every block with {@link Chunk#setBlockAt}.
+ * One operation equals one chunk of a 8x12x8 chunk column area.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class ChunkGenerationBenchmark {
+    private static final int CHUNKS_XZ = 8;
+    private static final int CHUNKS_Y = 12;
+    private static final int CHUNK_COUNT = CHUNKS_XZ * CHUNKS_Y * CHUNKS_XZ;
+
+    private final FastNoise noise = FastNoise.builder()
+            .type(NoiseType.PERLIN)
+            .fractal(FractalType.FBM)
+            .frequency(0.01f)
+            .build();
+
+    private LevelWorld world;
+    private BenchmarkNoiseChunkGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        world = new LevelWorld(UUID.randomUUID());
+        generator = new BenchmarkNoiseChunkGenerator();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_COUNT)
+    public void bulkFill(Blackhole blackhole) {
+        for (int x = 0; x < CHUNKS_XZ; x++) {
+            for (int y = 0; y < CHUNKS_Y; y++) {
+                for (int z = 0; z < CHUNKS_XZ; z++) {
+                    Chunk chunk = new ChunkBase(world, x, y, z);
+                    generator.generateNoise(chunk);
+                    blackhole.consume(chunk);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_COUNT)
+    public void setBlockPerVoxel(Blackhole blackhole) {
+        for (int x = 0; x < CHUNKS_XZ; x++) {
+            for (int y = 0; y < CHUNKS_Y; y++) {
+                for (int z = 0; z < CHUNKS_XZ; z++) {
+                    Chunk chunk = new ChunkBase(world, x, y, z);
+                    generatePerVoxel(chunk);
+                    blackhole.consume(chunk);
+                }
+            }
+        }
+    }
+
+    /**
+     * The generator loop before the bulk fill API
+     */
+    private void generatePerVoxel(Chunk gameChunk) {
+        int minHeight = 40;
+        int noiseMaxHeight = 145;
+
+        int maxHeightGenerated = 40 + 145;
+        int maxChunkYToGenerateNoiseIn = Chunk.chunkY(gameChunk.getWorld(), maxHeightGenerated);
+
+        if (gameChunk.getChunkY() > maxChunkYToGenerateNoiseIn) {
+            return;
+        }
+
+        for (int x = 0; x < gameChunk.getWorld().getChunkSizeX(); x++) {
+            for (int z = 0; z < gameChunk.getWorld().getChunkSizeZ(); z++) {
+                int globalX = gameChunk.globalX(x);
+                int globalZ = gameChunk.globalZ(z);
+                int heightAtPos = (int) (noise.getNoise(globalX, globalZ) * noiseMaxHeight) + minHeight;
+
+                int chunkYOfMaxHeight = Chunk.chunkY(gameChunk.getWorld(), heightAtPos);
+
+                if (chunkYOfMaxHeight == gameChunk.getChunkY()) {
+                    for (int y = 0; y < gameChunk.localY(heightAtPos); y++) {
+                        gameChunk.setBlockAt(Blocks.STONE, x, y, z);
+                    }
+                } else if (chunkYOfMaxHeight > gameChunk.getChunkY()) {
+                    for (int y = 0; y < gameChunk.getWorld().getChunkSizeY(); y++) {
+                        gameChunk.setBlockAt(Blocks.STONE, x, y, z);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package de.verdox.voxelgame;
+
+import de.verdox.voxel.server.level.generator.BenchmarkNoiseChunkGenerator;
+import de.verdox.voxel.shared.data.registry.ResourceLocation;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.data.types.Registries;
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.chunk.data.palette.ChunkBlockPalette;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.util.palette.strategy.PaletteStrategy;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory and get / set throughput of paletted chunks from generated terrain, stored with local palette ids
+ * (the default) or promoted to global registry ids. The registry is filled up to {@link #REGISTRY_SIZE} blocks
+ * so global ids need realistic bit widths. The memory per chunk is printed during setup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class ChunkPaletteBenchmark {
+    private static final int REGISTRY_SIZE = 1024;
+    private static final int CHUNKS_XZ = 8;
+    private static final int CHUNKS_Y = 12;
+    private static final int SETS_PER_CHUNK = 64;
+
+    @Param({"local", "global"})
+    public String palette;
+
+    private Chunk[] chunks;
+    private int[] setPositions;
+    private BlockBase replacement;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Blocks.bootstrap();
+        for (int i = Registries.BLOCKS.getAmountValues(); i < REGISTRY_SIZE; i++) {
+            BlockBase block = new BlockBase();
+            Registries.BLOCKS.register(block, ResourceLocation.of("benchmark_block_" + i));
+            block.setMaterialID((short) Registries.BLOCKS.getIdOrThrow(block));
+        }
+        replacement = Registries.BLOCKS.byId(REGISTRY_SIZE - 1);
+
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        BenchmarkNoiseChunkGenerator generator = new BenchmarkNoiseChunkGenerator();
+        List<Chunk> paletted = new ObjectArrayList<>();
+        for (int x = 0; x < CHUNKS_XZ; x++) {
+            for (int y = 0; y < CHUNKS_Y; y++) {
+                for (int z = 0; z < CHUNKS_XZ; z++) {
+                    Chunk chunk = new ChunkBase(world, x, y, z);
+                    generator.generateNoise(chunk);
+                    if (chunk.getChunkBlockPalette().getStrategy() instanceof PaletteStrategy.PalettedLocalID<BlockBase> local) {
+                        if (palette.equals("global")) {
+                            local.promoteToGlobal();
+                        }
+                        paletted.add(chunk);
+                    }
+                }
+            }
+        }
+        chunks = paletted.toArray(new Chunk[0]);
+
+        Random random = new Random(42);
+        setPositions = new int[chunks.length * SETS_PER_CHUNK];
+        for (int i = 0; i < setPositions.length; i++) {
+            setPositions[i] = random.nextInt(16 * 16 * 16);
+        }
+
+        long storageBytes = 0;
+        for (Chunk chunk : chunks) {
+            PaletteStrategy.Paletted<?> strategy = (PaletteStrategy.Paletted<?>) chunk.getChunkBlockPalette().getStrategy();
+            storageBytes += strategy.getStorage().bytesFor(strategy.getStorage().getBitsPerBlock());
+        }
+        System.out.printf("%n%s palette: %d paletted chunks, %.1f storage bytes per chunk%n", palette, chunks.length, (double) storageBytes / chunks.length);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(16 * 16 * 16)
+    public void getBlockAt(Blackhole blackhole) {
+        ChunkBlockPalette blockPalette = nextChunk().getChunkBlockPalette();
+        for (short x = 0; x < 16; x++) {
+            for (short y = 0; y < 16; y++) {
+                for (short z = 0; z < 16; z++) {
+                    blackhole.consume(blockPalette.get(x, y, z));
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets blocks in one chunk and restores the previous ones afterward, so the chunks keep their state.
+     */
+    @Benchmark
+    @OperationsPerInvocation(SETS_PER_CHUNK * 2)
+    public void setBlock(Blackhole blackhole) {
+        int offset = cursor * SETS_PER_CHUNK;
+        ChunkBlockPalette blockPalette = nextChunk().getChunkBlockPalette();
+        for (int i = 0; i < SETS_PER_CHUNK; i++) {
+            int idx = setPositions[offset + i];
+            short x = (short) (idx & 15), y = (short) ((idx >>> 4) & 15), z = (short) (idx >>> 8);
+            BlockBase previous = blockPalette.get(x, y, z);
+            blockPalette.set(x, y, z, replacement);
+            blockPalette.set(x, y, z, previous);
+        }
+        blackhole.consume(blockPalette);
+    }
+
+    private Chunk nextChunk() {
+        Chunk chunk = chunks[cursor];
+        cursor = (cursor + 1) % chunks.length;
+        return chunk;
+    }
+}
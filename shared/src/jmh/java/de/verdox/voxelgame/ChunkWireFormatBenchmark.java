@@ -0,0 +1,129 @@
+package de.verdox.voxelgame;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import de.verdox.voxel.server.level.generator.BenchmarkNoiseChunkGenerator;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.network.packet.PacketRegistry;
+import de.verdox.voxel.shared.network.packet.serializer.ChunkSerializer;
+import de.verdox.voxel.shared.network.packet.serializer.ChunkWireFormat;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size and encode / decode time of generated chunks in the previous raw format ("legacy", int coordinates followed by
+ * {@link ChunkSerializer#writeChunkData}) and the {@link ChunkWireFormat} with and without deflate.
+ * The chunks get a simple sky light so the light data is not trivially uniform. The bytes per chunk are printed during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class ChunkWireFormatBenchmark {
+    private static final int CHUNKS_XZ = 8;
+    private static final int CHUNKS_Y = 12;
+
+    @Param({"legacy", "raw", "deflated"})
+    public String format;
+
+    private Kryo kryo;
+    private LevelWorld world;
+    private ChunkWireFormat wireFormat;
+    private Chunk[] chunks;
+    private byte[][] encoded;
+    private Output output;
+    private Input input;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Blocks.bootstrap();
+        kryo = new Kryo();
+        new PacketRegistry(kryo);
+        wireFormat = format.equals("deflated") ? ChunkWireFormat.DEFLATED : ChunkWireFormat.RAW;
+        output = new Output(64 * 1024, -1);
+        input = new Input();
+
+        world = new LevelWorld(UUID.randomUUID());
+        BenchmarkNoiseChunkGenerator generator = new BenchmarkNoiseChunkGenerator();
+        chunks = new Chunk[CHUNKS_XZ * CHUNKS_Y * CHUNKS_XZ];
+        int i = 0;
+        for (int x = 0; x < CHUNKS_XZ; x++) {
+            for (int y = 0; y < CHUNKS_Y; y++) {
+                for (int z = 0; z < CHUNKS_XZ; z++) {
+                    Chunk chunk = new ChunkBase(world, x, y, z);
+                    generator.generateNoise(chunk);
+                    applySkyLight(chunk);
+                    chunks[i++] = chunk;
+                }
+            }
+        }
+
+        encoded = new byte[chunks.length][];
+        long bytes = 0;
+        for (i = 0; i < chunks.length; i++) {
+            output.setPosition(0);
+            encode(chunks[i]);
+            encoded[i] = output.toBytes();
+            bytes += encoded[i].length;
+        }
+        System.out.printf("%n%s: %d chunks, %.1f bytes per chunk%n", format, chunks.length, (double) bytes / chunks.length);
+    }
+
+    @Benchmark
+    public Output encode() {
+        output.setPosition(0);
+        encode(chunks[cursor]);
+        cursor = (cursor + 1) % chunks.length;
+        return output;
+    }
+
+    @Benchmark
+    public Chunk decode() {
+        input.setBuffer(encoded[cursor]);
+        cursor = (cursor + 1) % chunks.length;
+        if (format.equals("legacy")) {
+            Chunk chunk = new ChunkBase(world, input.readInt(), input.readInt(), input.readInt());
+            ChunkSerializer.readChunkData(kryo, input, chunk);
+            return chunk;
+        }
+        return wireFormat.read(kryo, input, world, 0, 0, 0);
+    }
+
+    private void encode(Chunk chunk) {
+        if (format.equals("legacy")) {
+            output.writeInt(chunk.getChunkX());
+            output.writeInt(chunk.getChunkY());
+            output.writeInt(chunk.getChunkZ());
+            ChunkSerializer.writeChunkData(kryo, output, chunk);
+        } else {
+            wireFormat.write(kryo, output, chunk, 0, 0, 0);
+        }
+    }
+
+    /**
+     * Full sky light above the highest block of each column, none below
+     */
+    private static void applySkyLight(Chunk chunk) {
+        chunk.getChunkLightData().setUniform((byte) 15, (byte) 0, (byte) 0, (byte) 0);
+        for (int x = 0; x < chunk.getSizeX(); x++) {
+            for (int z = 0; z < chunk.getSizeZ(); z++) {
+                int top = chunk.getSizeY() - 1;
+                while (top >= 0 && chunk.getBlockAt(x, top, z) == Blocks.AIR) {
+                    top--;
+                }
+                for (int y = 0; y <= top; y++) {
+                    chunk.getChunkLightData().setSkyLight(x, y, z, (byte) 0);
+                }
+            }
+        }
+    }
+}
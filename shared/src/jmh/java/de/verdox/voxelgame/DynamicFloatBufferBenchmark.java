@@ -1,5 +1,6 @@
 package de.verdox.voxelgame;
 
+import de.verdox.voxel.shared.util.buffer.PlainDynamicFloatBuffer;
 import org.openjdk.jmh.annotations.*;
 
 import java.util.concurrent.TimeUnit;
@@ -23,11 +24,11 @@ public class DynamicFloatBufferBenchmark {
         public int initialCapacity;
 
         public float[] sampleData;
-        public SIMDDynamicFloatBuffer dfb;
+        public PlainDynamicFloatBuffer dfb;
 
         @org.openjdk.jmh.annotations.Setup(org.openjdk.jmh.annotations.Level.Invocation)
         public void setup() {
-            dfb = new SIMDDynamicFloatBuffer(initialCapacity);
+            dfb = new PlainDynamicFloatBuffer(initialCapacity, false);
             sampleData = new float[initialCapacity];
             for (int i = 0; i < initialCapacity; i++) {
                 sampleData[i] = i * 0.5f;
@@ -65,12 +66,12 @@ public class DynamicFloatBufferBenchmark {
         public int initialCapacity;
 
         public float[] sampleData;
-        public SIMDDynamicFloatBuffer dfb;
+        public PlainDynamicFloatBuffer dfb;
 
         /** Bei jeder Invocation neu: Buffer vorbefüllt, damit setSIMD überschreiben kann */
         @Setup(Level.Invocation)
         public void setup() {
-            dfb = new SIMDDynamicFloatBuffer(initialCapacity);
+            dfb = new PlainDynamicFloatBuffer(initialCapacity, false);
             sampleData = new float[initialCapacity];
             for (int i = 0; i < sampleData.length; i++) {
                 sampleData[i] = i * 0.5f;
@@ -96,11 +97,11 @@ public class DynamicFloatBufferBenchmark {
         public int initialCapacity;
 
         public float[] sampleData;
-        public SIMDDynamicFloatBuffer dfb;
+        public PlainDynamicFloatBuffer dfb;
 
         @Setup(Level.Invocation)
         public void setup() {
-            dfb = new SIMDDynamicFloatBuffer(initialCapacity);
+            dfb = new PlainDynamicFloatBuffer(initialCapacity, false);
             sampleData = new float[initialCapacity];
             for (int i = 0; i < sampleData.length; i++) {
                 sampleData[i] = i * 0.5f;
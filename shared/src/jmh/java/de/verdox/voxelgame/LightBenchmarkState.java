@@ -1,40 +1,177 @@
 package de.verdox.voxelgame;
 
-import de.verdox.voxel.test.light.DummyLightAccessor;
+import de.verdox.voxel.server.level.generator.BenchmarkNoiseChunkGenerator;
+import de.verdox.voxel.shared.data.registry.ResourceLocation;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.data.types.Registries;
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.lighting.ChunkLightAccessor;
+import de.verdox.voxel.shared.lighting.LightPropagator;
 import org.openjdk.jmh.annotations.*;
-import java.util.concurrent.ThreadLocalRandom;
 
-@State(Scope.Benchmark)
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * A lit 4x12x4 chunk world of {@link BenchmarkNoiseChunkGenerator} terrain with a fixed seed. Lamps of every color stand on the surface,
+ * so block light has real sources. Every benchmark gets its own copy, benchmarks that relight everything darken it themselves.
+ */
+@State(Scope.Thread)
 public class LightBenchmarkState {
-    @Param({"8","16", "32", "64"})        // verschiedene Chunk-Größen testen
-    public int chunkSize;
+    public static final int CHUNKS_XZ = 4;
+    public static final int CHUNKS_Y = 12;
+    public static final int VOXELS = CHUNKS_XZ * CHUNKS_Y * CHUNKS_XZ * 16 * 16 * 16;
+    /**
+     * Must be a power of two, edit benchmarks cycle through the positions with a mask
+     */
+    private static final int EDIT_POSITIONS = 256;
+
+    public static final BlockBase RED_LAMP = registerLamp("benchmark_red_lamp", 14, 2, 2);
+    public static final BlockBase CYAN_LAMP = registerLamp("benchmark_cyan_lamp", 0, 12, 13);
 
-    public DummyLightAccessor chunk;
-    public DummyLightAccessor above;
-    public long seed;
+    @Param({"1337", "8008"})
+    public int seed;
 
-    @Setup(Level.Invocation)
-    public void setUp() {
-        // Erstelle Accessor für Sky- und Blocklicht
-        chunk = new DummyLightAccessor(chunkSize, chunkSize, chunkSize, (byte)15);
-        above = new DummyLightAccessor(chunkSize, chunkSize, chunkSize, (byte)15);
+    public LevelWorld world;
+    /**
+     * Column by column, every column from the top down
+     */
+    public Chunk[] chunks;
+    /**
+     * Chunk without any block under the open sky
+     */
+    public Chunk airChunk;
+    /**
+     * Chunk full of stone below the generated world, no light ever gets in
+     */
+    public Chunk solidChunk;
+    /**
+     * Highest stone block of random columns, the positions above them are always air
+     */
+    private final List<int[]> surfacePositions = new ArrayList<>();
+    private int nextSurfacePosition;
+    public final LightPropagator propagator = new LightPropagator();
 
-        // Fülle “above” mit vollem Sky-Light
-        for (int x = 0; x < chunkSize; x++) {
-            for (int z = 0; z < chunkSize; z++) {
-                above.setSkyLight((byte)x, (byte)0, (byte)z, (byte)15);
+    @Setup(Level.Trial)
+    public void setup() {
+        Blocks.bootstrap();
+        world = new LevelWorld(UUID.randomUUID());
+        BenchmarkNoiseChunkGenerator generator = new BenchmarkNoiseChunkGenerator(seed);
+        chunks = new Chunk[CHUNKS_XZ * CHUNKS_Y * CHUNKS_XZ];
+        int i = 0;
+        for (int x = 0; x < CHUNKS_XZ; x++) {
+            for (int z = 0; z < CHUNKS_XZ; z++) {
+                for (int y = CHUNKS_Y - 1; y >= 0; y--) {
+                    Chunk chunk = new ChunkBase(world, x, y, z);
+                    generator.generateNoise(chunk);
+                    world.getChunkMap().saveChunkAfterGeneration(chunk);
+                    chunks[i++] = chunk;
+                }
             }
         }
+        airChunk = chunks[0];
+        if (!airChunk.isEmpty()) {
+            throw new IllegalStateException("Seed " + seed + " has terrain in the highest chunk");
+        }
+        solidChunk = new ChunkBase(world, 0, -1, 0);
+        solidChunk.fillBox(Blocks.STONE, 0, 0, 0, 15, 15, 15);
+        solidChunk.getChunkLightData().setUniform((short) 0);
+        world.getChunkMap().saveChunkAfterGeneration(solidChunk);
 
-        // zufällige Opaqueness (z.B. 30% blockende Blöcke)
-        ThreadLocalRandom rnd = ThreadLocalRandom.current();
-        for (int x = 0; x < chunkSize; x++) {
-            for (int y = 0; y < chunkSize; y++) {
-                for (int z = 0; z < chunkSize; z++) {
-                    boolean opa = rnd.nextDouble() < 0.3;
-                    chunk.setOpaque((byte)x, (byte)y, (byte)z, opa);
-                }
+        // Spalten ohne Boden werden übersprungen
+        Random random = new Random(seed);
+        int lamps = 0;
+        while (lamps < CHUNKS_XZ * CHUNKS_XZ * 4) {
+            int[] surface = findSurface(random.nextInt(CHUNKS_XZ * 16), random.nextInt(CHUNKS_XZ * 16));
+            if (surface != null) {
+                setBlock(lamps++ % 2 == 0 ? RED_LAMP : CYAN_LAMP, surface[0], surface[1] + 1, surface[2]);
+            }
+        }
+        while (surfacePositions.size() < EDIT_POSITIONS) {
+            int[] surface = findSurface(random.nextInt(CHUNKS_XZ * 16), random.nextInt(CHUNKS_XZ * 16));
+            if (surface != null && getBlock(surface[0], surface[1], surface[2]).equals(Blocks.STONE)) {
+                surfacePositions.add(surface);
+            }
+        }
+
+        darken();
+        lightAll(true);
+    }
+
+    /**
+     * Resets the light of every chunk. Only sets a uniform value per chunk, so it is cheap compared to lighting.
+     */
+    public void darken() {
+        for (Chunk chunk : chunks) {
+            chunk.getChunkLightData().setUniform((short) 0);
+        }
+    }
+
+    /**
+     * Lights every chunk from the top down in the order the client lights region slices
+     */
+    public boolean lightAll(boolean withBlockLight) {
+        boolean changed = false;
+        for (int i = 0; i < chunks.length; i++) {
+            ChunkLightAccessor accessor = new ChunkLightAccessor(chunks[i]);
+            changed |= propagator.computeSkylight(accessor, i % CHUNKS_Y == 0);
+            if (withBlockLight) {
+                changed |= propagator.computeBlockLight(accessor);
+            }
+        }
+        return changed;
+    }
+
+    public int[] nextSurfacePosition() {
+        return surfacePositions.get(nextSurfacePosition++ & (EDIT_POSITIONS - 1));
+    }
+
+    public Chunk chunkAt(int globalX, int globalY, int globalZ) {
+        return world.getChunkNow(globalX >> 4, globalY >> 4, globalZ >> 4);
+    }
+
+    public BlockBase getBlock(int globalX, int globalY, int globalZ) {
+        return chunkAt(globalX, globalY, globalZ).getBlockAt(globalX & 15, globalY & 15, globalZ & 15);
+    }
+
+    public int setBlock(BlockBase block, int globalX, int globalY, int globalZ) {
+        return chunkAt(globalX, globalY, globalZ).setBlockAt(block, globalX & 15, globalY & 15, globalZ & 15).size();
+    }
+
+    private int[] findSurface(int globalX, int globalZ) {
+        for (int globalY = CHUNKS_Y * 16 - 2; globalY >= 0; globalY--) {
+            if (!getBlock(globalX, globalY, globalZ).equals(Blocks.AIR)) {
+                return new int[]{globalX, globalY, globalZ};
             }
         }
+        return null;
+    }
+
+    private static BlockBase registerLamp(String name, int red, int green, int blue) {
+        BlockBase lamp = new BlockBase() {
+            @Override
+            public byte getEmissionRed() {
+                return (byte) red;
+            }
+
+            @Override
+            public byte getEmissionGreen() {
+                return (byte) green;
+            }
+
+            @Override
+            public byte getEmissionBlue() {
+                return (byte) blue;
+            }
+        };
+        Blocks.bootstrap();
+        Registries.BLOCKS.register(lamp, ResourceLocation.of(name));
+        lamp.setMaterialID((short) Registries.BLOCKS.getIdOrThrow(lamp));
+        return lamp;
     }
 }
@@ -1,40 +1,97 @@
 package de.verdox.voxelgame;
 
-import de.verdox.voxel.shared.lighting.LightAccessor;
-import de.verdox.voxel.shared.lighting.ChunkLightEngine;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.lighting.ChunkLightAccessor;
+import de.verdox.voxel.shared.lighting.LightPropagator;
 import org.openjdk.jmh.annotations.*;
 
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Baseline of the {@link LightPropagator} on the fixed seed worlds of {@link LightBenchmarkState}.
+ * Run it with {@code -prof gc}, the gradle jmh task does that by default, allocations per operation are part of the baseline.
+ * <p>
+ * Full relights report the time for the whole 4x12x4 chunk world, edits and the uniform fast paths the time for one call.
+ */
 @BenchmarkMode(Mode.AverageTime)
-@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
 @Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
 @Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
-@Fork(value = 1)
+@Fork(value = 2)
 public class LightingJmhBenchmark {
     /**
-     * Messen der Skylight-Berechnung.
+     * Sky light of the whole world starting from dark chunks
      */
     @Benchmark
-    public void benchComputeSkylight(LightBenchmarkState state) {
-        computeSkylight(state.chunk, state.above);
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean fullSkylight(LightBenchmarkState state) {
+        state.darken();
+        return state.lightAll(false);
     }
 
     /**
-     * Messen der RGB-Blocklight-Berechnung.
+     * Sky light and the colored light of all lamps starting from dark chunks
      */
     @Benchmark
-    public void benchComputeColoredLight(LightBenchmarkState state) {
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean fullSkylightAndBlockLight(LightBenchmarkState state) {
+        state.darken();
+        return state.lightAll(true);
+    }
 
-        computeColoredLight(state.chunk, state.above);
+    /**
+     * Only the block light pass, every chunk is scanned for light sources
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean blockLightSources(LightBenchmarkState state) {
+        state.darken();
+        boolean changed = false;
+        for (int i = 0; i < state.chunks.length; i++) {
+            changed |= state.propagator.computeBlockLight(new ChunkLightAccessor(state.chunks[i]));
+        }
+        return changed;
     }
 
-    // Deine Methoden hier referenzieren:
-    private void computeSkylight(LightAccessor accessor, LightAccessor above) {
-        // ... implementiert wie zuvor ...
-        computeSkylight(accessor, above);
+    /**
+     * Breaks a surface block and places it again, sky light falls into the hole and is removed again
+     */
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public int singleEditSkylight(LightBenchmarkState state) {
+        int[] position = state.nextSurfacePosition();
+        int dirty = state.setBlock(Blocks.AIR, position[0], position[1], position[2]);
+        dirty += state.setBlock(Blocks.STONE, position[0], position[1], position[2]);
+        return dirty;
     }
-    private void computeColoredLight(LightAccessor accessor, LightAccessor above) {
-        // ... implementiert wie zuvor ...
+
+    /**
+     * Places a lamp on the surface and removes it again, the colored light is spread and removed again
+     */
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public int singleEditBlockLight(LightBenchmarkState state) {
+        int[] position = state.nextSurfacePosition();
+        int dirty = state.setBlock(LightBenchmarkState.RED_LAMP, position[0], position[1] + 1, position[2]);
+        dirty += state.setBlock(Blocks.AIR, position[0], position[1] + 1, position[2]);
+        return dirty;
+    }
+
+    /**
+     * Air chunk under the open sky, lit in one fill without leaving the uniform state
+     */
+    @Benchmark
+    public boolean uniformAirChunk(LightBenchmarkState state) {
+        state.airChunk.getChunkLightData().setUniform((short) 0);
+        return state.propagator.computeSkylight(new ChunkLightAccessor(state.airChunk), true);
+    }
+
+    /**
+     * Chunk full of stone, neither pass has anything to do
+     */
+    @Benchmark
+    public boolean uniformSolidChunk(LightBenchmarkState state) {
+        ChunkLightAccessor accessor = new ChunkLightAccessor(state.solidChunk);
+        return state.propagator.computeSkylight(accessor, false) | state.propagator.computeBlockLight(accessor);
     }
 }
@@ -0,0 +1,166 @@
+package de.verdox.voxelgame;
+
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.util.palette.ThreeDimensionalPalette;
+import de.verdox.voxel.shared.util.palette.strategy.PaletteStorage;
+import de.verdox.voxel.shared.util.palette.strategy.PaletteStrategy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Word-parallel bulk operations of the {@link PaletteStorage}s compared to per-element read / write loops.
+ * The bit widths cover ByteStore (4), ShortStore (12, 16), IntStore (20) and LongStore (40).
+ * One operation equals one full 16x16x16 storage.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class PaletteStorageBenchmark {
+    private static final int SIZE = 16;
+    private static final int TOTAL = SIZE * SIZE * SIZE;
+
+    @Param({"4", "12", "16", "20", "40"})
+    public int bits;
+
+    private PaletteStorage storage;
+    private PaletteStorage widened;
+    private int[] values;
+    private int[] scratch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkPaletted owner = new BenchmarkPaletted(new BenchmarkPalette());
+        storage = PaletteStorage.create(owner, bits);
+        widened = PaletteStorage.create(owner, bits + 1);
+
+        Random random = new Random(42);
+        int maxValue = 1 << Math.min(bits, 30);
+        values = new int[TOTAL];
+        for (int i = 0; i < TOTAL; i++) {
+            // Ein Drittel Default-Einträge, damit das Zählen etwas zu tun hat
+            values[i] = random.nextInt(3) == 0 ? 0 : random.nextInt(maxValue);
+        }
+        scratch = new int[TOTAL];
+        storage.pack(values);
+    }
+
+    @Benchmark
+    public int[] unpackBulk() {
+        storage.unpack(scratch);
+        return scratch;
+    }
+
+    @Benchmark
+    public int[] unpackPerElement() {
+        for (int i = 0; i < TOTAL; i++) {
+            scratch[i] = storage.read(i);
+        }
+        return scratch;
+    }
+
+    @Benchmark
+    public void packBulk(Blackhole blackhole) {
+        storage.pack(values);
+        blackhole.consume(storage);
+    }
+
+    @Benchmark
+    public void packPerElement(Blackhole blackhole) {
+        for (int i = 0; i < TOTAL; i++) {
+            storage.write(i, values[i]);
+        }
+        blackhole.consume(storage);
+    }
+
+    @Benchmark
+    public int countNonZeroBulk() {
+        return storage.countNonZero();
+    }
+
+    @Benchmark
+    public int countNonZeroPerElement() {
+        int count = 0;
+        for (int i = 0; i < TOTAL; i++) {
+            if (storage.read(i) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public void fillRangeBulk(Blackhole blackhole) {
+        widened.fill(SIZE * SIZE + 3, TOTAL - SIZE * SIZE - 5, 1);
+        blackhole.consume(widened);
+    }
+
+    @Benchmark
+    public void fillRangePerElement(Blackhole blackhole) {
+        for (int i = SIZE * SIZE + 3; i < TOTAL - SIZE * SIZE - 5; i++) {
+            widened.write(i, 1);
+        }
+        blackhole.consume(widened);
+    }
+
+    /**
+     * Widening to bits + 1 as done by resizeIfNeeded when the palette grows.
+     */
+    @Benchmark
+    public void widenBulk(Blackhole blackhole) {
+        storage.unpack(scratch);
+        widened.pack(scratch);
+        blackhole.consume(widened);
+    }
+
+    @Benchmark
+    public void widenPerElement(Blackhole blackhole) {
+        for (int i = 0; i < TOTAL; i++) {
+            widened.write(i, storage.read(i));
+        }
+        blackhole.consume(widened);
+    }
+
+    private static class BenchmarkPalette extends ThreeDimensionalPalette<BlockBase> {
+        public BenchmarkPalette() {
+            super(Blocks.AIR, id -> null);
+        }
+
+        @Override
+        public int getSizeX() {
+            return SIZE;
+        }
+
+        @Override
+        public int getSizeY() {
+            return SIZE;
+        }
+
+        @Override
+        public int getSizeZ() {
+            return SIZE;
+        }
+    }
+
+    private static class BenchmarkPaletted extends PaletteStrategy.Paletted<BlockBase> {
+        public BenchmarkPaletted(ThreeDimensionalPalette<BlockBase> ctx) {
+            super(ctx);
+        }
+
+        @Override
+        public int getPaletteSize() {
+            return 1;
+        }
+
+        @Override
+        protected boolean usesGlobalIds() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package de.verdox.voxelgame;
+
+import de.verdox.voxel.server.level.generator.BenchmarkNoiseChunkGenerator;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.lighting.ChunkLightAccessor;
+import de.verdox.voxel.shared.lighting.LightStack;
+import de.verdox.voxel.shared.lighting.ParallelLightScheduler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of the {@link ParallelLightScheduler} over the number of light threads. Every invocation starts from dark chunks
+ * and lights a 12x12x12 chunk area of {@link BenchmarkNoiseChunkGenerator} terrain as one batch of column stacks,
+ * one operation equals one voxel.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelLightBenchmark {
+    private static final int CHUNKS_XZ = 12;
+    private static final int CHUNKS_Y = 12;
+    private static final int VOXELS = CHUNKS_XZ * CHUNKS_Y * CHUNKS_XZ * 16 * 16 * 16;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ParallelLightScheduler scheduler;
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final List<Chunk> highest = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Blocks.bootstrap();
+        scheduler = new ParallelLightScheduler(threads);
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        BenchmarkNoiseChunkGenerator generator = new BenchmarkNoiseChunkGenerator();
+        for (int x = 0; x < CHUNKS_XZ; x++) {
+            for (int z = 0; z < CHUNKS_XZ; z++) {
+                for (int y = CHUNKS_Y - 1; y >= 0; y--) {
+                    Chunk chunk = new ChunkBase(world, x, y, z);
+                    generator.generateNoise(chunk);
+                    world.getChunkMap().saveChunkAfterGeneration(chunk);
+                    chunks.add(chunk);
+                    if (y == CHUNKS_Y - 1) {
+                        highest.add(chunk);
+                    }
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void darken() {
+        for (Chunk chunk : chunks) {
+            chunk.getChunkLightData().setUniform((short) 0);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VOXELS)
+    public void lightAllStacks() {
+        List<LightStack> stacks = new ArrayList<>(highest.size());
+        for (Chunk chunk : highest) {
+            stacks.add(new LightStack(chunk.getChunkX(), chunk.getChunkZ(), new ChunkLightAccessor(chunk), CHUNKS_Y - 1, (x, y, z) -> {
+            }));
+        }
+        scheduler.computeStacks(stacks);
+    }
+}
@@ -0,0 +1,73 @@
+package de.verdox.voxelgame;
+
+import de.verdox.voxel.server.level.chunk.PlayerChunkMap;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One server tick of 500 players that each move up to one chunk in a random direction.
+ * "incremental" moves the view cubes, "rebuild" removes and adds every player again like a naive implementation would.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayerChunkMapBenchmark {
+    private static final int PLAYERS = 500;
+    private static final int RADIUS_XZ = 8;
+    private static final int RADIUS_Y = 4;
+    /**
+     * Players spawn within this many chunks around the origin, so their views overlap
+     */
+    private static final int SPREAD = 128;
+
+    @Param({"incremental", "rebuild"})
+    public String mode;
+
+    private PlayerChunkMap playerChunkMap;
+    private SplittableRandom random;
+    private int[] centerX, centerY, centerZ;
+    private long events;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        playerChunkMap = new PlayerChunkMap();
+        playerChunkMap.addListener(new PlayerChunkMap.Listener() {
+            @Override
+            public void onViewChange(int connectionId, LongList entered, LongList left) {
+                events += entered.size() + left.size();
+            }
+        });
+        random = new SplittableRandom(42);
+        centerX = new int[PLAYERS];
+        centerY = new int[PLAYERS];
+        centerZ = new int[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            centerX[i] = random.nextInt(-SPREAD, SPREAD);
+            centerY[i] = random.nextInt(-4, 4);
+            centerZ[i] = random.nextInt(-SPREAD, SPREAD);
+            playerChunkMap.updatePlayer(i, centerX[i], centerY[i], centerZ[i], RADIUS_XZ, RADIUS_Y);
+        }
+    }
+
+    @Benchmark
+    public void tick(Blackhole blackhole) {
+        boolean rebuild = mode.equals("rebuild");
+        for (int i = 0; i < PLAYERS; i++) {
+            centerX[i] += random.nextInt(-1, 2);
+            centerY[i] += random.nextInt(-1, 2);
+            centerZ[i] += random.nextInt(-1, 2);
+            if (rebuild) {
+                playerChunkMap.removePlayer(i);
+            }
+            playerChunkMap.updatePlayer(i, centerX[i], centerY[i], centerZ[i], RADIUS_XZ, RADIUS_Y);
+        }
+        blackhole.consume(events);
+    }
+}
@@ -0,0 +1,86 @@
+package de.verdox.voxelgame;
+
+import de.verdox.voxel.server.level.chunk.storage.RegionFileChunkStorage;
+import de.verdox.voxel.server.level.generator.BenchmarkNoiseChunkGenerator;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Save / load throughput of the region file chunk storage. One operation equals one chunk.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class RegionFileBenchmark {
+    private static final int CHUNKS_XZ = 16;
+    private static final int CHUNKS_Y = 12;
+    private static final int CHUNK_COUNT = CHUNKS_XZ * CHUNKS_Y * CHUNKS_XZ;
+
+    private LevelWorld world;
+    private Chunk[] chunks;
+    private Path directory;
+    private RegionFileChunkStorage storage;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        world = new LevelWorld(UUID.randomUUID());
+        BenchmarkNoiseChunkGenerator generator = new BenchmarkNoiseChunkGenerator();
+
+        chunks = new Chunk[CHUNK_COUNT];
+        int i = 0;
+        for (int x = 0; x < CHUNKS_XZ; x++) {
+            for (int y = 0; y < CHUNKS_Y; y++) {
+                for (int z = 0; z < CHUNKS_XZ; z++) {
+                    Chunk chunk = new ChunkBase(world, x, y, z);
+                    generator.generateNoise(chunk);
+                    chunks[i++] = chunk;
+                }
+            }
+        }
+
+        directory = Files.createTempDirectory("region-benchmark");
+        storage = new RegionFileChunkStorage(directory);
+        for (Chunk chunk : chunks) {
+            storage.save(chunk);
+        }
+        storage.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        storage.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_COUNT)
+    public void saveChunks() throws IOException {
+        for (Chunk chunk : chunks) {
+            storage.save(chunk);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_COUNT)
+    public void loadChunks(Blackhole blackhole) throws IOException {
+        for (Chunk chunk : chunks) {
+            blackhole.consume(storage.load(world, chunk.getChunkX(), chunk.getChunkY(), chunk.getChunkZ()));
+        }
+    }
+}
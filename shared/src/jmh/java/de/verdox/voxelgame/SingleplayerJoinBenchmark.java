@@ -0,0 +1,150 @@
+package de.verdox.voxelgame;
+
+import com.esotericsoftware.kryonet.Server;
+import de.verdox.voxel.server.network.ServerInterfaceImpl;
+import de.verdox.voxel.shared.VoxelBase;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.world.World;
+import de.verdox.voxel.shared.network.packet.NetworkInterface;
+import de.verdox.voxel.shared.network.packet.client.ClientInterface;
+import de.verdox.voxel.shared.network.packet.client.ClientRequestChunksPacket;
+import de.verdox.voxel.shared.network.packet.server.ServerSetPlayerWorldPacket;
+import de.verdox.voxel.shared.network.packet.server.ServerWorldExistPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerBlockDeltaPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkBatchPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkPacket;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time until a singleplayer client joining an already generated world received every chunk of its view distance.
+ * "packets" is the previous local path: chunks go through the send queue and arrive as {@link ServerChunkBatchPacket}s.
+ * "direct" hands the server chunks to the client in process, like the LocalServerInterface does now.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class SingleplayerJoinBenchmark {
+    private static final int RADIUS_XZ = 8;
+    private static final int RADIUS_Y = 4;
+
+    @Param({"packets", "direct"})
+    public String transport;
+
+    private World world;
+    private ServerInterfaceImpl serverInterface;
+    private volatile CountDownLatch received;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Blocks.bootstrap();
+        VoxelBase.createNewVoxelBase();
+        world = VoxelBase.getInstance().createWorld(UUID.randomUUID());
+
+        CompletableFuture<?>[] futures = new CompletableFuture[chunkCount()];
+        int i = 0;
+        for (int x = -RADIUS_XZ; x < RADIUS_XZ; x++) {
+            for (int y = -RADIUS_Y; y < RADIUS_Y; y++) {
+                for (int z = -RADIUS_XZ; z < RADIUS_XZ; z++) {
+                    futures[i++] = world.getChunkMap().getOrCreateChunkAsync(x, y, z, chunk -> {});
+                }
+            }
+        }
+        CompletableFuture.allOf(futures).get(60, TimeUnit.SECONDS);
+
+        ClientInterface client = new CountingClient();
+        boolean direct = transport.equals("direct");
+        serverInterface = new ServerInterfaceImpl(new Server()) {
+            @Override
+            protected void deliverChunk(int connectionId, Chunk chunk) {
+                if (direct) {
+                    blockDeltaTracker.watch(connectionId, chunk);
+                    client.receiveChunk(chunk);
+                } else {
+                    super.deliverChunk(connectionId, chunk);
+                }
+            }
+
+            @Override
+            public <PACKET> void sendToPlayer(PACKET packet, int connectionId) {
+                client.receive(packet);
+            }
+        };
+        serverInterface.start();
+        serverInterface.onConnect(NetworkInterface.LOCAL_CONNECTION_ID);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        serverInterface.close();
+        world.getChunkMap().getWorld().getWorldGenerator().close();
+    }
+
+    @Benchmark
+    public void join() throws InterruptedException {
+        received = new CountDownLatch(chunkCount());
+        ClientRequestChunksPacket.Builder builder = new ClientRequestChunksPacket.Builder(world.getUuid(), 0, 0, 0);
+        for (int x = -RADIUS_XZ; x < RADIUS_XZ; x++) {
+            for (int y = -RADIUS_Y; y < RADIUS_Y; y++) {
+                for (int z = -RADIUS_XZ; z < RADIUS_XZ; z++) {
+                    if (!builder.add(x, y, z)) {
+                        serverInterface.receive(builder.build(), NetworkInterface.LOCAL_CONNECTION_ID);
+                        builder = new ClientRequestChunksPacket.Builder(world.getUuid(), 0, 0, 0);
+                        builder.add(x, y, z);
+                    }
+                }
+            }
+        }
+        serverInterface.receive(builder.build(), NetworkInterface.LOCAL_CONNECTION_ID);
+        if (!received.await(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException(received.getCount() + " chunks are missing");
+        }
+    }
+
+    private static int chunkCount() {
+        return (2 * RADIUS_XZ) * (2 * RADIUS_Y) * (2 * RADIUS_XZ);
+    }
+
+    private class CountingClient implements ClientInterface {
+        @Override
+        public <PACKET> void sendToServer(PACKET packet) {
+        }
+
+        @Override
+        public void receive(ServerWorldExistPacket packet) {
+        }
+
+        @Override
+        public void receive(ServerSetPlayerWorldPacket packet) {
+        }
+
+        @Override
+        public void receive(ServerChunkPacket packet) {
+            receiveChunk(packet.chunkBase);
+        }
+
+        @Override
+        public void receive(ServerChunkBatchPacket packet) {
+            for (Chunk chunk : packet.getChunks()) {
+                receiveChunk(chunk);
+            }
+        }
+
+        @Override
+        public void receive(ServerBlockDeltaPacket packet) {
+        }
+
+        @Override
+        public void receiveChunk(Chunk chunk) {
+            received.countDown();
+        }
+    }
+}
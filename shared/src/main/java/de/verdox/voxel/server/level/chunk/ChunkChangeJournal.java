@@ -0,0 +1,141 @@
+package de.verdox.voxel.server.level.chunk;
+
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.DelegateChunk;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerBlockDeltaPacket;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * Records the block changes of a server chunk until they are drained into a {@link ServerBlockDeltaPacket}.
+ * Several changes of the same block are coalesced and a filled box replaces all earlier changes inside of it.
+ * If the changes stop being small compared to the chunk, the journal only remembers that the whole chunk has to be sent again.
+ */
+public class ChunkChangeJournal extends DelegateChunk {
+    /**
+     * More single changes than this are sent as the whole chunk instead. With two to three bytes per change
+     * the deflated chunk is usually smaller from here on.
+     */
+    public static final int MAX_CHANGES = 128;
+    /**
+     * More filled boxes than this are sent as the whole chunk instead
+     */
+    public static final int MAX_BOXES = 32;
+
+    @Getter
+    private final IntSet viewers = new IntOpenHashSet();
+    private final Int2ObjectMap<BlockBase> changes = new Int2ObjectOpenHashMap<>();
+    private final ByteArrayList boxes = new ByteArrayList();
+    private final List<BlockBase> boxBlocks = new ObjectArrayList<>();
+    private boolean resendChunk;
+
+    public ChunkChangeJournal(Chunk owner) {
+        super(owner);
+    }
+
+    @Override
+    public synchronized void notifySetBlock(BlockBase newBlock, int localX, int localY, int localZ) {
+        if (resendChunk) {
+            return;
+        }
+        changes.put(localX + getSizeX() * (localY + getSizeY() * localZ), newBlock);
+        if (changes.size() > MAX_CHANGES) {
+            markForResend();
+        }
+    }
+
+    @Override
+    public synchronized void notifyFillBox(BlockBase newBlock, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        if (resendChunk) {
+            return;
+        }
+        if (minX == maxX && minY == maxY && minZ == maxZ) {
+            notifySetBlock(newBlock, minX, minY, minZ);
+            return;
+        }
+
+        // Alles innerhalb der neuen Box wird von ihr überschrieben
+        changes.keySet().removeIf((IntPredicate) index -> {
+            int x = index % getSizeX();
+            int y = (index / getSizeX()) % getSizeY();
+            int z = index / (getSizeX() * getSizeY());
+            return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+        });
+        for (int i = boxBlocks.size() - 1; i >= 0; i--) {
+            int offset = i * 6;
+            if (boxes.getByte(offset) >= minX && boxes.getByte(offset + 1) >= minY && boxes.getByte(offset + 2) >= minZ
+                    && boxes.getByte(offset + 3) <= maxX && boxes.getByte(offset + 4) <= maxY && boxes.getByte(offset + 5) <= maxZ) {
+                boxes.removeElements(offset, offset + 6);
+                boxBlocks.remove(i);
+            }
+        }
+
+        if (boxBlocks.size() >= MAX_BOXES) {
+            markForResend();
+            return;
+        }
+        boxes.add((byte) minX);
+        boxes.add((byte) minY);
+        boxes.add((byte) minZ);
+        boxes.add((byte) maxX);
+        boxes.add((byte) maxY);
+        boxes.add((byte) maxZ);
+        boxBlocks.add(newBlock);
+    }
+
+    public synchronized boolean hasChanges() {
+        return resendChunk || !changes.isEmpty() || !boxBlocks.isEmpty();
+    }
+
+    /**
+     * Returns true and resets the journal if the recorded changes were too many for a delta packet.
+     */
+    public synchronized boolean pollResend() {
+        if (!resendChunk) {
+            return false;
+        }
+        resendChunk = false;
+        return true;
+    }
+
+    /**
+     * Returns the recorded changes as packet and clears them. Returns null if nothing changed or the chunk has to be resent.
+     */
+    public synchronized ServerBlockDeltaPacket drain() {
+        if (resendChunk || (changes.isEmpty() && boxBlocks.isEmpty())) {
+            return null;
+        }
+        int[] indices = new int[changes.size()];
+        BlockBase[] blocks = new BlockBase[changes.size()];
+        int i = 0;
+        for (Int2ObjectMap.Entry<BlockBase> entry : changes.int2ObjectEntrySet()) {
+            indices[i] = entry.getIntKey();
+            blocks[i] = entry.getValue();
+            i++;
+        }
+        ServerBlockDeltaPacket packet = new ServerBlockDeltaPacket(getWorld().getUuid(), getChunkX(), getChunkY(), getChunkZ(),
+                boxes.toByteArray(), boxBlocks.toArray(BlockBase[]::new), indices, blocks);
+        clear();
+        return packet;
+    }
+
+    private void markForResend() {
+        clear();
+        resendChunk = true;
+    }
+
+    private void clear() {
+        changes.clear();
+        boxes.clear();
+        boxBlocks.clear();
+    }
+}
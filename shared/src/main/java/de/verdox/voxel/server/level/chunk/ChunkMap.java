@@ -1,59 +1,427 @@
 package de.verdox.voxel.server.level.chunk;
 
+import de.verdox.voxel.server.level.chunk.storage.ChunkStorage;
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.chunk.DelegateChunk;
 import de.verdox.voxel.shared.level.world.LevelWorld;
 import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.util.ThreadUtil;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntMaps;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 @Getter
-public class ChunkMap {
-    private final Long2ObjectMap<Chunk> chunks = Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>());
+public class ChunkMap implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(ChunkMap.class.getSimpleName());
+
+    /**
+     * Access ordered: the first entry is the least recently used chunk.
+     * Only accessed while holding the lock of {@link #chunks}.
+     */
+    @Getter(AccessLevel.NONE)
+    private final Long2ObjectLinkedOpenHashMap<Chunk> residentChunks = new Long2ObjectLinkedOpenHashMap<>();
+    private final Long2ObjectMap<Chunk> chunks = Long2ObjectMaps.synchronize(residentChunks);
+    private final Long2ObjectMap<CompletableFuture<Chunk>> pendingLoads = Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>());
+    private final LongSet dirtyChunks = LongSets.synchronize(new LongOpenHashSet());
+    private final Long2IntMap pinnedChunks = Long2IntMaps.synchronize(new Long2IntOpenHashMap());
+    /**
+     * Which players watch which chunks of this world. Watched chunks are never evicted.
+     */
+    private final PlayerChunkMap playerChunkMap = new PlayerChunkMap();
+
+    @Getter(AccessLevel.NONE)
+    private final Long2LongOpenHashMap chunkBytes = new Long2LongOpenHashMap();
+    private long residentBytes;
+    @Getter(AccessLevel.NONE)
+    private final ReentrantLock evictionLock = new ReentrantLock();
 
     private final LevelWorld world;
 
+    /**
+     * Persistent backend of this chunk map. If null, chunks only live in memory.
+     */
+    @Setter
+    private ChunkStorage chunkStorage;
+    /**
+     * Receives dirty chunks before they leave memory. Falls back to the {@link ChunkStorage} if null.
+     */
+    @Setter
+    private ChunkSaveCallback saveCallback;
+    @Setter
+    private ChunkResidencyPolicy residencyPolicy = ChunkResidencyPolicy.UNLIMITED;
+    private ExecutorService ioExecutor;
 
     public ChunkMap(LevelWorld world) {
         this.world = world;
+        playerChunkMap.addListener(new PlayerChunkMap.Listener() {
+            @Override
+            public void onUnwatched(LongList chunkKeys) {
+                markLeastRecentlyUsed(chunkKeys);
+            }
+        });
     }
 
     public CompletableFuture<Chunk> getOrCreateChunkAsync(int chunkX, int chunkY, int chunkZ, Consumer<Chunk> whenDone) {
-        return getChunk(chunkX, chunkY, chunkZ)
-                .map(chunk -> CompletableFuture.completedFuture(chunk)
-                                               .whenComplete((chunk1, throwable) -> whenDone.accept(chunk1)))
-                .orElseGet(() -> getWorld().getWorldGenerator()
-                                           .requestChunkGeneration(chunkX, chunkY, chunkZ, whenDone));
+        Optional<Chunk> loadedChunk = getChunk(chunkX, chunkY, chunkZ);
+        if (loadedChunk.isPresent()) {
+            return CompletableFuture.completedFuture(loadedChunk.get())
+                                    .whenComplete((chunk1, throwable) -> whenDone.accept(chunk1));
+        }
+        if (chunkStorage == null) {
+            return getWorld().getWorldGenerator().requestChunkGeneration(chunkX, chunkY, chunkZ, whenDone);
+        }
+        return loadChunkAsync(chunkX, chunkY, chunkZ).thenCompose(chunk -> {
+            if (chunk != null) {
+                whenDone.accept(chunk);
+                return CompletableFuture.completedFuture(chunk);
+            }
+            return getWorld().getWorldGenerator().requestChunkGeneration(chunkX, chunkY, chunkZ, whenDone);
+        });
+    }
+
+    /**
+     * Tries to load a chunk from the {@link ChunkStorage} on the chunk io thread.
+     * The returned future completes with null if the chunk was never saved.
+     */
+    public CompletableFuture<Chunk> loadChunkAsync(int chunkX, int chunkY, int chunkZ) {
+        long chunkKey = Chunk.computeChunkKey(chunkX, chunkY, chunkZ);
+        synchronized (pendingLoads) {
+            CompletableFuture<Chunk> pending = pendingLoads.get(chunkKey);
+            if (pending != null) {
+                return pending;
+            }
+            CompletableFuture<Chunk> future = new CompletableFuture<>();
+            pendingLoads.put(chunkKey, future);
+            getIoExecutor().execute(() -> {
+                try {
+                    Chunk chunk = getChunk(chunkX, chunkY, chunkZ).orElse(null);
+                    if (chunk == null && chunkStorage != null) {
+                        chunk = chunkStorage.load(world, chunkX, chunkY, chunkZ);
+                        if (chunk != null) {
+                            addChunk(chunk);
+                        }
+                    }
+                    future.complete(chunk);
+                } catch (Throwable t) {
+                    LOGGER.log(Level.SEVERE, "Error loading chunk " + chunkX + ", " + chunkY + ", " + chunkZ, t);
+                    // A broken chunk is regenerated instead of blocking the request forever
+                    future.complete(null);
+                } finally {
+                    pendingLoads.remove(chunkKey);
+                }
+            });
+            return future;
+        }
     }
 
+    /**
+     * Returns a loaded chunk and marks it as most recently used.
+     */
     public Optional<Chunk> getChunk(int chunkX, int chunkY, int chunkZ) {
         long chunkKey = Chunk.computeChunkKey(chunkX, chunkY, chunkZ);
-        if (!chunks.containsKey(chunkKey)) {
-            return Optional.empty();
+        synchronized (chunks) {
+            return Optional.ofNullable(residentChunks.getAndMoveToLast(chunkKey));
         }
-        Chunk chunk = chunks.get(chunkKey);
-        return Optional.of(chunk);
     }
 
     public void saveChunkAfterGeneration(Chunk gameChunk) {
-        chunks.put(gameChunk.getChunkKey(), gameChunk);
+        addChunk(gameChunk);
+        markDirty(gameChunk);
+    }
+
+    /**
+     * Marks a chunk as changed since it was last written to the {@link ChunkStorage}.
+     */
+    public void markDirty(Chunk chunk) {
+        dirtyChunks.add(chunk.getChunkKey());
+        synchronized (chunks) {
+            if (residentChunks.containsKey(chunk.getChunkKey())) {
+                long estimate = ChunkResidencyPolicy.estimateBytes(chunk);
+                residentBytes += estimate - chunkBytes.put(chunk.getChunkKey(), estimate);
+            }
+        }
+    }
+
+    /**
+     * Writes a chunk with the {@link ChunkSaveCallback} or the {@link ChunkStorage} if it was changed.
+     *
+     * @return true if the chunk was written
+     */
+    public boolean saveChunk(Chunk chunk) {
+        ChunkSaveCallback callback = getEffectiveSaveCallback();
+        if (callback == null || !dirtyChunks.remove(chunk.getChunkKey())) {
+            return false;
+        }
+        try {
+            callback.save(chunk);
+            return true;
+        } catch (IOException e) {
+            dirtyChunks.add(chunk.getChunkKey());
+            LOGGER.log(Level.SEVERE, "Could not save chunk " + chunk, e);
+            return false;
+        }
+    }
+
+    /**
+     * Writes all changed chunks to the {@link ChunkStorage}.
+     *
+     * @return the amount of written chunks
+     */
+    public int saveDirtyChunks() {
+        if (getEffectiveSaveCallback() == null) {
+            return 0;
+        }
+        long[] keys;
+        synchronized (dirtyChunks) {
+            keys = dirtyChunks.toLongArray();
+        }
+        int saved = 0;
+        for (long chunkKey : keys) {
+            Chunk chunk = chunks.get(chunkKey);
+            if (chunk == null) {
+                dirtyChunks.remove(chunkKey);
+                continue;
+            }
+            if (saveChunk(chunk)) {
+                saved++;
+            }
+        }
+        return saved;
+    }
+
+    public boolean unloadChunk(int chunkX, int chunkY, int chunkZ) {
+        Chunk chunk = chunks.get(Chunk.computeChunkKey(chunkX, chunkY, chunkZ));
+        if (chunk == null) {
+            return false;
+        }
+        saveChunk(chunk);
+        removeChunk(chunk);
+        return true;
+    }
+
+    /**
+     * Prevents a chunk from being evicted until it is unpinned as often as it was pinned.
+     * The chunk does not need to be loaded.
+     */
+    public void pinChunk(int chunkX, int chunkY, int chunkZ) {
+        synchronized (pinnedChunks) {
+            long chunkKey = Chunk.computeChunkKey(chunkX, chunkY, chunkZ);
+            pinnedChunks.put(chunkKey, pinnedChunks.get(chunkKey) + 1);
+        }
+    }
+
+    public void unpinChunk(int chunkX, int chunkY, int chunkZ) {
+        synchronized (pinnedChunks) {
+            long chunkKey = Chunk.computeChunkKey(chunkX, chunkY, chunkZ);
+            int count = pinnedChunks.get(chunkKey);
+            if (count <= 1) {
+                pinnedChunks.remove(chunkKey);
+            } else {
+                pinnedChunks.put(chunkKey, count - 1);
+            }
+        }
+    }
+
+    /**
+     * Pins all chunks in a cube of (2 * radius + 1)³ chunks around the center chunk.
+     */
+    public void pinArea(int centerX, int centerY, int centerZ, int radius) {
+        for (int x = centerX - radius; x <= centerX + radius; x++) {
+            for (int y = centerY - radius; y <= centerY + radius; y++) {
+                for (int z = centerZ - radius; z <= centerZ + radius; z++) {
+                    pinChunk(x, y, z);
+                }
+            }
+        }
+    }
+
+    public void unpinArea(int centerX, int centerY, int centerZ, int radius) {
+        for (int x = centerX - radius; x <= centerX + radius; x++) {
+            for (int y = centerY - radius; y <= centerY + radius; y++) {
+                for (int z = centerZ - radius; z <= centerZ + radius; z++) {
+                    unpinChunk(x, y, z);
+                }
+            }
+        }
+    }
+
+    public boolean isPinned(long chunkKey) {
+        return pinnedChunks.containsKey(chunkKey);
+    }
+
+    /**
+     * Moves chunks nobody watches anymore to the front of the eviction order, so they leave memory before
+     * chunks that were merely not accessed for a while. The eviction itself runs on the IO thread.
+     */
+    private void markLeastRecentlyUsed(LongList chunkKeys) {
+        synchronized (chunks) {
+            for (int i = 0; i < chunkKeys.size(); i++) {
+                residentChunks.getAndMoveToFirst(chunkKeys.getLong(i));
+            }
+        }
+        if (!residencyPolicy.isUnlimited()) {
+            // Aufgerufen vom Netzwerk-Thread, das Speichern der verdrängten Chunks darf ihn nicht aufhalten
+            getIoExecutor().execute(this::evictChunks);
+        }
+    }
+
+    /**
+     * Evicts the least recently used chunks that are neither pinned nor watched by a player until the {@link ChunkResidencyPolicy} is satisfied.
+     * Dirty chunks are handed to the save callback first. Chunks that could not be saved stay loaded.
+     * A chunk map without callback and storage drops its chunks.
+     * Returns immediately if another thread is already evicting.
+     *
+     * @return the amount of evicted chunks
+     */
+    public int evictChunks() {
+        if (residencyPolicy.isUnlimited() || !evictionLock.tryLock()) {
+            return 0;
+        }
+        try {
+            List<Chunk> candidates = new ObjectArrayList<>();
+            synchronized (chunks) {
+                int chunksToFree = residencyPolicy.chunksOverLimit(residentChunks.size());
+                long bytesToFree = residencyPolicy.bytesOverLimit(residentBytes);
+                for (Long2ObjectMap.Entry<Chunk> entry : residentChunks.long2ObjectEntrySet()) {
+                    if (candidates.size() >= chunksToFree && bytesToFree <= 0) {
+                        break;
+                    }
+                    if (isPinned(entry.getLongKey()) || playerChunkMap.isWatched(entry.getLongKey())) {
+                        continue;
+                    }
+                    candidates.add(entry.getValue());
+                    bytesToFree -= chunkBytes.get(entry.getLongKey());
+                }
+            }
+
+            // Without any save target, evicted chunks are simply generated again on the next request
+            boolean canSave = getEffectiveSaveCallback() != null;
+            int evicted = 0;
+            for (int i = 0; i < candidates.size(); i++) {
+                Chunk chunk = candidates.get(i);
+                if (canSave && dirtyChunks.contains(chunk.getChunkKey()) && !saveChunk(chunk)) {
+                    continue;
+                }
+                removeChunk(chunk);
+                evicted++;
+            }
+            return evicted;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Saves all changed chunks and closes the {@link ChunkStorage}.
+     */
+    @Override
+    public void close() {
+        if (ioExecutor != null) {
+            ioExecutor.shutdown();
+        }
+        saveDirtyChunks();
+        if (chunkStorage == null) {
+            return;
+        }
+        try {
+            chunkStorage.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Could not close chunk storage", e);
+        }
+    }
+
+    private ChunkSaveCallback getEffectiveSaveCallback() {
+        if (saveCallback != null) {
+            return saveCallback;
+        }
+        ChunkStorage storage = chunkStorage;
+        return storage != null ? storage::save : null;
+    }
+
+    private void addChunk(Chunk gameChunk) {
+        long estimate = ChunkResidencyPolicy.estimateBytes(gameChunk);
+        Chunk previous;
+        synchronized (chunks) {
+            previous = residentChunks.putAndMoveToLast(gameChunk.getChunkKey(), gameChunk);
+            residentBytes += estimate - chunkBytes.put(gameChunk.getChunkKey(), estimate);
+        }
+        if (previous != gameChunk) {
+            new DirtyTracker(gameChunk);
+        }
         world.addChunk(gameChunk);
         synchronized (world.getGrid()) {
             world.getGrid().addOrUpdateChunk(gameChunk);
         }
+        evictChunks();
     }
 
-    public boolean unloadChunk(int chunkX, int chunkY, int chunkZ) {
-        long chunkKey = Chunk.computeChunkKey(chunkX, chunkY, chunkZ);
-        if (chunks.containsKey(chunkKey)) {
-            Chunk removed = chunks.remove(chunkKey);
-            world.removeChunk(removed);
-            return true;
+    private void removeChunk(Chunk chunk) {
+        long chunkKey = chunk.getChunkKey();
+        synchronized (chunks) {
+            if (residentChunks.get(chunkKey) != chunk) {
+                return;
+            }
+            residentChunks.remove(chunkKey);
+            residentBytes -= chunkBytes.remove(chunkKey);
+        }
+        dirtyChunks.remove(chunkKey);
+        world.removeChunk(chunk);
+        synchronized (world.getGrid()) {
+            world.getGrid().removeChunk(chunk);
+        }
+    }
+
+    /**
+     * Marks a resident chunk dirty after every block change, so edits are saved before the chunk is evicted
+     */
+    private final class DirtyTracker extends DelegateChunk {
+        private DirtyTracker(Chunk owner) {
+            super(owner);
+        }
+
+        @Override
+        public void notifySetBlock(BlockBase newBlock, int localX, int localY, int localZ) {
+            markDirtyIfResident();
+        }
+
+        @Override
+        public void notifyFillBox(BlockBase newBlock, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            markDirtyIfResident();
+        }
+
+        private void markDirtyIfResident() {
+            // Ein verdrängter Chunk kann noch Referenzen haben, seine Änderungen gehören nicht mehr zu dieser Map
+            if (chunks.get(owner.getChunkKey()) == owner) {
+                markDirty(owner);
+            }
+        }
+    }
+
+    private synchronized ExecutorService getIoExecutor() {
+        if (ioExecutor == null) {
+            ioExecutor = Executors.newSingleThreadExecutor(ThreadUtil.createFactoryForName("Chunk IO Thread", true));
         }
-        return false;
+        return ioExecutor;
     }
 }
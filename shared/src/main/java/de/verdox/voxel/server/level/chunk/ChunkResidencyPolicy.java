@@ -0,0 +1,63 @@
+package de.verdox.voxel.server.level.chunk;
+
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.lighting.ChunkLightData;
+import de.verdox.voxel.shared.util.palette.strategy.PaletteStrategy;
+
+/**
+ * Limits how many chunks a {@link ChunkMap} keeps in memory.
+ * A limit of 0 means that the respective limit is disabled.
+ *
+ * @param maxResidentChunks the maximum amount of loaded chunks
+ * @param maxResidentBytes  the maximum estimated heap size of all loaded chunks
+ */
+public record ChunkResidencyPolicy(int maxResidentChunks, long maxResidentBytes) {
+    public static final ChunkResidencyPolicy UNLIMITED = new ChunkResidencyPolicy(0, 0);
+
+    /**
+     * Rough per chunk overhead of the chunk object, its palette, height map and depth map
+     */
+    private static final int CHUNK_OVERHEAD_BYTES = 1024;
+
+    public ChunkResidencyPolicy {
+        if (maxResidentChunks < 0 || maxResidentBytes < 0) {
+            throw new IllegalArgumentException("Limits must not be negative");
+        }
+    }
+
+    public static ChunkResidencyPolicy maxChunks(int maxResidentChunks) {
+        return new ChunkResidencyPolicy(maxResidentChunks, 0);
+    }
+
+    public static ChunkResidencyPolicy heapBudget(long maxResidentBytes) {
+        return new ChunkResidencyPolicy(0, maxResidentBytes);
+    }
+
+    public boolean isUnlimited() {
+        return maxResidentChunks == 0 && maxResidentBytes == 0;
+    }
+
+    public int chunksOverLimit(int residentChunks) {
+        return maxResidentChunks == 0 ? 0 : Math.max(0, residentChunks - maxResidentChunks);
+    }
+
+    public long bytesOverLimit(long residentBytes) {
+        return maxResidentBytes == 0 ? 0 : Math.max(0, residentBytes - maxResidentBytes);
+    }
+
+    /**
+     * Estimates the heap size of a chunk from its block storage and light data.
+     */
+    public static long estimateBytes(Chunk chunk) {
+        long bytes = CHUNK_OVERHEAD_BYTES;
+        if (!chunk.isEmpty() && chunk.getChunkBlockPalette().getStrategy() instanceof PaletteStrategy.Paletted<?> paletted) {
+            bytes += paletted.getStorage().bytesFor(paletted.getStorage().getBitsPerBlock());
+            bytes += (long) paletted.getPaletteSize() * Integer.BYTES;
+        }
+        ChunkLightData lightData = chunk.getChunkLightData();
+        if (lightData != null && lightData.getState() == ChunkLightData.LightState.DETAILED) {
+            bytes += (long) chunk.getSizeX() * chunk.getSizeY() * chunk.getSizeZ() * Short.BYTES;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,14 @@
+package de.verdox.voxel.server.level.chunk;
+
+import de.verdox.voxel.shared.level.chunk.Chunk;
+
+import java.io.IOException;
+
+/**
+ * Receives changed chunks from a {@link ChunkMap} before they are evicted, unloaded or when the map is closed.
+ * If the callback throws, the chunk stays loaded and dirty.
+ */
+@FunctionalInterface
+public interface ChunkSaveCallback {
+    void save(Chunk chunk) throws IOException;
+}
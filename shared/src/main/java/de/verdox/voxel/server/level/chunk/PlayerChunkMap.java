@@ -1,4 +1,392 @@
 package de.verdox.voxel.server.level.chunk;
 
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongLists;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongConsumer;
+
+/**
+ * Keeps track of which players watch which chunks of a world.
+ * Every player sees a cube of chunks around its center, (2 * horizontalRadius + 1)² * (2 * verticalRadius + 1) chunks large.
+ * A reverse index maps each watched chunk to the connections that watch it, so updates can be sent to exactly those
+ * connections and chunks nobody watches can be unloaded.
+ * When a player moves, only the chunks that entered or left its cube are visited.
+ */
 public class PlayerChunkMap {
+    private static final int[] NO_WATCHERS = new int[0];
+    /**
+     * Watchers stored directly in the slot of a chunk. Only crowded chunks need an extra set.
+     */
+    private static final int INLINE_WATCHERS = 3;
+    private static final int SLOT_SIZE = INLINE_WATCHERS + 1;
+    private static final int BRICK_SHIFT = 2;
+    private static final int BRICK_SIZE = 1 << BRICK_SHIFT;
+    private static final int BRICK_MASK = BRICK_SIZE - 1;
+    private static final int BRICK_VOLUME = BRICK_SIZE * BRICK_SIZE * BRICK_SIZE;
+
+    /**
+     * Receives the changes of the player views. Listeners are called after the map was updated and without holding its lock.
+     */
+    public interface Listener {
+        /**
+         * Chunks that entered and left the view of a player
+         */
+        default void onViewChange(int connectionId, LongList entered, LongList left) {
+        }
+
+        /**
+         * Chunks that lost their last watching player
+         */
+        default void onUnwatched(LongList chunkKeys) {
+        }
+    }
+
+    /**
+     * The view cube of a player
+     */
+    public record View(int centerX, int centerY, int centerZ, int horizontalRadius, int verticalRadius) {
+        public int minX() {
+            return centerX - horizontalRadius;
+        }
+
+        public int maxX() {
+            return centerX + horizontalRadius;
+        }
+
+        public int minY() {
+            return centerY - verticalRadius;
+        }
+
+        public int maxY() {
+            return centerY + verticalRadius;
+        }
+
+        public int minZ() {
+            return centerZ - horizontalRadius;
+        }
+
+        public int maxZ() {
+            return centerZ + horizontalRadius;
+        }
+
+        public boolean contains(int chunkX, int chunkY, int chunkZ) {
+            return chunkX >= minX() && chunkX <= maxX() && chunkY >= minY() && chunkY <= maxY() && chunkZ >= minZ() && chunkZ <= maxZ();
+        }
+
+        public int chunkCount() {
+            int horizontal = 2 * horizontalRadius + 1;
+            return horizontal * horizontal * (2 * verticalRadius + 1);
+        }
+
+        /**
+         * Amount of chunks both views contain
+         */
+        public int overlap(View other) {
+            if (other == null) {
+                return 0;
+            }
+            int x = Math.max(0, Math.min(maxX(), other.maxX()) - Math.max(minX(), other.minX()) + 1);
+            int y = Math.max(0, Math.min(maxY(), other.maxY()) - Math.max(minY(), other.minY()) + 1);
+            int z = Math.max(0, Math.min(maxZ(), other.maxZ()) - Math.max(minZ(), other.minZ()) + 1);
+            return x * y * z;
+        }
+    }
+
+    private final Int2ObjectMap<View> views = new Int2ObjectOpenHashMap<>();
+    /**
+     * Reverse index: neighbouring chunks share a brick of {@link #BRICK_SIZE}³ slots in {@link #slotData}.
+     * Views are large cubes, so most bricks are full and a diff touches the same brick many times in a row.
+     */
+    private final Long2IntOpenHashMap bricks = new Long2IntOpenHashMap();
+    /**
+     * Per slot the amount of watchers followed by up to {@link #INLINE_WATCHERS} connection ids.
+     * Keeps the index free of small objects, the server moves thousands of chunks in and out of views per tick.
+     */
+    private int[] slotData = new int[SLOT_SIZE * BRICK_VOLUME * 64];
+    /**
+     * Watched chunks per brick, a brick without watched chunks is freed
+     */
+    private int[] brickUsage = new int[64];
+    private int usedBricks;
+    private final IntArrayList freeBricks = new IntArrayList();
+    private int watchedChunks;
+    private long cachedBrickKey;
+    private int cachedBrick = -1;
+    /**
+     * All watchers of chunks with more than {@link #INLINE_WATCHERS} watchers
+     */
+    private final Long2ObjectMap<IntSet> crowdedChunks = new Long2ObjectOpenHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public PlayerChunkMap() {
+        bricks.defaultReturnValue(-1);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Adds a player or moves its view cube to the new center and radii.
+     */
+    public void updatePlayer(int connectionId, int chunkX, int chunkY, int chunkZ, int horizontalRadius, int verticalRadius) {
+        if (horizontalRadius < 0 || verticalRadius < 0) {
+            throw new IllegalArgumentException("The view radius must not be negative");
+        }
+        View newView = new View(chunkX, chunkY, chunkZ, horizontalRadius, verticalRadius);
+        LongList entered;
+        LongList left;
+        LongList unwatched = new LongArrayList();
+        synchronized (this) {
+            View oldView = views.put(connectionId, newView);
+            if (newView.equals(oldView)) {
+                return;
+            }
+            int overlap = newView.overlap(oldView);
+            entered = new LongArrayList(newView.chunkCount() - overlap);
+            left = new LongArrayList(oldView != null ? oldView.chunkCount() - overlap : 0);
+            forEachOutside(newView, oldView, chunkKey -> {
+                entered.add(chunkKey);
+                addWatcher(connectionId, chunkKey);
+            });
+            if (oldView != null) {
+                forEachOutside(oldView, newView, chunkKey -> {
+                    left.add(chunkKey);
+                    removeWatcher(connectionId, chunkKey, unwatched);
+                });
+            }
+        }
+        fireEvents(connectionId, entered, left, unwatched);
+    }
+
+    /**
+     * Removes a player, e.g. after it disconnected or changed the world. All chunks of its view leave it.
+     */
+    public void removePlayer(int connectionId) {
+        LongList left;
+        LongList unwatched = new LongArrayList();
+        synchronized (this) {
+            View oldView = views.remove(connectionId);
+            if (oldView == null) {
+                return;
+            }
+            left = new LongArrayList(oldView.chunkCount());
+            forEachOutside(oldView, null, chunkKey -> {
+                left.add(chunkKey);
+                removeWatcher(connectionId, chunkKey, unwatched);
+            });
+        }
+        fireEvents(connectionId, LongLists.EMPTY_LIST, left, unwatched);
+    }
+
+    public synchronized View getView(int connectionId) {
+        return views.get(connectionId);
+    }
+
+    public synchronized boolean isWatched(long chunkKey) {
+        int offset = findSlot(chunkKey, false);
+        return offset >= 0 && slotData[offset] > 0;
+    }
+
+    public synchronized boolean isWatchedBy(int connectionId, long chunkKey) {
+        View view = views.get(connectionId);
+        return view != null && view.contains(Chunk.unpackChunkX(chunkKey), Chunk.unpackChunkY(chunkKey), Chunk.unpackChunkZ(chunkKey));
+    }
+
+    /**
+     * The connections that currently watch a chunk. Made for {@code sendToPlayer(packet, int...)}.
+     */
+    public synchronized int[] getWatchers(long chunkKey) {
+        int offset = findSlot(chunkKey, false);
+        if (offset < 0) {
+            return NO_WATCHERS;
+        }
+        int count = slotData[offset];
+        if (count > INLINE_WATCHERS) {
+            return crowdedChunks.get(chunkKey).toIntArray();
+        }
+        return Arrays.copyOfRange(slotData, offset + 1, offset + 1 + count);
+    }
+
+    public synchronized int getPlayerCount() {
+        return views.size();
+    }
+
+    public synchronized int getWatchedChunkCount() {
+        return watchedChunks;
+    }
+
+    /**
+     * The view diff guarantees that a connection is never added twice to the same chunk
+     */
+    private void addWatcher(int connectionId, long chunkKey) {
+        int offset = findSlot(chunkKey, true);
+        int count = slotData[offset];
+        if (count == 0) {
+            watchedChunks++;
+            brickUsage[offset / (SLOT_SIZE * BRICK_VOLUME)]++;
+        }
+        if (count < INLINE_WATCHERS) {
+            slotData[offset + 1 + count] = connectionId;
+        } else if (count == INLINE_WATCHERS) {
+            IntSet connections = new IntOpenHashSet(INLINE_WATCHERS * 2);
+            for (int i = 0; i < INLINE_WATCHERS; i++) {
+                connections.add(slotData[offset + 1 + i]);
+            }
+            connections.add(connectionId);
+            crowdedChunks.put(chunkKey, connections);
+        } else {
+            crowdedChunks.get(chunkKey).add(connectionId);
+        }
+        slotData[offset] = count + 1;
+    }
+
+    private void removeWatcher(int connectionId, long chunkKey, LongList unwatched) {
+        int offset = findSlot(chunkKey, false);
+        if (offset < 0) {
+            return;
+        }
+        int count = slotData[offset];
+        if (count == 0) {
+            return;
+        }
+        if (count > INLINE_WATCHERS) {
+            IntSet connections = crowdedChunks.get(chunkKey);
+            if (!connections.remove(connectionId)) {
+                return;
+            }
+            if (connections.size() == INLINE_WATCHERS) {
+                // Passt wieder in den Slot
+                int i = 0;
+                for (IntIterator iterator = connections.iterator(); iterator.hasNext(); ) {
+                    slotData[offset + 1 + i++] = iterator.nextInt();
+                }
+                crowdedChunks.remove(chunkKey);
+            }
+        } else {
+            int index = -1;
+            for (int i = 0; i < count; i++) {
+                if (slotData[offset + 1 + i] == connectionId) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return;
+            }
+            slotData[offset + 1 + index] = slotData[offset + count];
+        }
+        slotData[offset] = count - 1;
+        if (count == 1) {
+            watchedChunks--;
+            unwatched.add(chunkKey);
+            int brick = offset / (SLOT_SIZE * BRICK_VOLUME);
+            if (--brickUsage[brick] == 0) {
+                long brickKey = brickKey(chunkKey);
+                bricks.remove(brickKey);
+                freeBricks.add(brick);
+                if (cachedBrick == brick) {
+                    cachedBrick = -1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the offset of the slot of a chunk in {@link #slotData} or -1 if its brick does not exist.
+     */
+    private int findSlot(long chunkKey, boolean create) {
+        long brickKey = brickKey(chunkKey);
+        int brick;
+        if (cachedBrick >= 0 && cachedBrickKey == brickKey) {
+            brick = cachedBrick;
+        } else {
+            brick = bricks.get(brickKey);
+            if (brick < 0) {
+                if (!create) {
+                    return -1;
+                }
+                brick = allocateBrick();
+                bricks.put(brickKey, brick);
+            }
+            cachedBrickKey = brickKey;
+            cachedBrick = brick;
+        }
+        int localX = Chunk.unpackChunkX(chunkKey) & BRICK_MASK;
+        int localY = Chunk.unpackChunkY(chunkKey) & BRICK_MASK;
+        int localZ = Chunk.unpackChunkZ(chunkKey) & BRICK_MASK;
+        int local = localX + BRICK_SIZE * (localY + BRICK_SIZE * localZ);
+        return (brick * BRICK_VOLUME + local) * SLOT_SIZE;
+    }
+
+    private static long brickKey(long chunkKey) {
+        return Chunk.computeChunkKey(Chunk.unpackChunkX(chunkKey) >> BRICK_SHIFT, Chunk.unpackChunkY(chunkKey) >> BRICK_SHIFT, Chunk.unpackChunkZ(chunkKey) >> BRICK_SHIFT);
+    }
+
+    private int allocateBrick() {
+        // Freie Bricks sind bereits leer, alle Zähler stehen beim Freigeben auf 0
+        if (!freeBricks.isEmpty()) {
+            return freeBricks.removeInt(freeBricks.size() - 1);
+        }
+        if (usedBricks == brickUsage.length) {
+            brickUsage = Arrays.copyOf(brickUsage, brickUsage.length * 2);
+            slotData = Arrays.copyOf(slotData, slotData.length * 2);
+        }
+        return usedBricks++;
+    }
+
+    private void fireEvents(int connectionId, LongList entered, LongList left, LongList unwatched) {
+        for (Listener listener : listeners) {
+            if (!entered.isEmpty() || !left.isEmpty()) {
+                listener.onViewChange(connectionId, entered, left);
+            }
+            if (!unwatched.isEmpty()) {
+                listener.onUnwatched(unwatched);
+            }
+        }
+    }
+
+    /**
+     * Visits every chunk of the view that is not part of the excluded view.
+     * Apart from one check per z row the cost depends on the amount of visited chunks and not on the volume of the views.
+     */
+    private static void forEachOutside(View view, View excluded, LongConsumer consumer) {
+        for (int x = view.minX(); x <= view.maxX(); x++) {
+            boolean xInside = excluded != null && x >= excluded.minX() && x <= excluded.maxX();
+            for (int y = view.minY(); y <= view.maxY(); y++) {
+                boolean yInside = xInside && y >= excluded.minY() && y <= excluded.maxY();
+                if (!yInside) {
+                    for (int z = view.minZ(); z <= view.maxZ(); z++) {
+                        consumer.accept(Chunk.computeChunkKey(x, y, z));
+                    }
+                    continue;
+                }
+                // Die Zeile liegt zum Teil im anderen Würfel, nur die Enden davor und dahinter zählen
+                for (int z = view.minZ(); z <= Math.min(view.maxZ(), excluded.minZ() - 1); z++) {
+                    consumer.accept(Chunk.computeChunkKey(x, y, z));
+                }
+                for (int z = Math.max(view.minZ(), excluded.maxZ() + 1); z <= view.maxZ(); z++) {
+                    consumer.accept(Chunk.computeChunkKey(x, y, z));
+                }
+            }
+        }
+    }
 }
@@ -7,8 +7,11 @@ import de.verdox.voxel.shared.level.chunk.Chunk;
 import de.verdox.voxel.shared.level.world.World;
 import de.verdox.voxel.shared.util.BitPackingUtil;
 import de.verdox.voxel.shared.util.palette.ThreeDimensionalPalette;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import lombok.Getter;
 
@@ -34,6 +37,15 @@ public class SparseOTChunkGrid {
 
     private final Long2ObjectMap<RegionNode> nodes = new Long2ObjectOpenHashMap<>();
 
+    /**
+     * Chunk keys der aktuell eingetragenen Chunks
+     */
+    private final LongSet trackedChunks = new LongOpenHashSet();
+    /**
+     * Anzahl eingetragener Chunks unterhalb eines Knotens (alle Ebenen, auch für nicht materialisierte Knoten)
+     */
+    private final Long2IntOpenHashMap loadedChunksBelow = new Long2IntOpenHashMap();
+
     @Getter
     private int amountMerged = 0;
 
@@ -64,6 +76,10 @@ public class SparseOTChunkGrid {
         boolean isUniform = isUniform(chunk);
         short prominentMaterial = extractProminentMaterial(chunk);
 
+        if (trackedChunks.add(chunk.getChunkKey())) {
+            countChunkOnPath(chunk, treeX, treeY, treeZ, 1);
+        }
+
         // ========= UPDATE-PFAD: Leaf existiert bereits =========
         if (nodes.containsKey(leafKey)) {
             LeafNode leafNode = (LeafNode) nodes.get(leafKey);
@@ -169,6 +185,78 @@ public class SparseOTChunkGrid {
         }
     }
 
+    /**
+     * Entfernt einen Chunk aus dem Grid, z.B. wenn er entladen wird.
+     * Knoten, unter denen danach kein Chunk mehr eingetragen ist, werden samt ihrer Platzhalter-Kinder entfernt.
+     * Gemergte Knoten mit verbleibenden Chunks bleiben unverändert, da sie den Inhalt und nicht die Residenz beschreiben.
+     *
+     * @return true wenn der Chunk eingetragen war
+     */
+    public boolean removeChunk(Chunk chunk) {
+        if (!trackedChunks.remove(chunk.getChunkKey())) {
+            return false;
+        }
+        int treeX = Math.toIntExact(Math.floorMod((long) chunk.getChunkX() * world.getChunkSizeX(), xBoundsTopWorldLevel));
+        int treeY = Math.toIntExact(Math.floorMod((long) chunk.getChunkY() * world.getChunkSizeY(), yBoundsTopWorldLevel));
+        int treeZ = Math.toIntExact(Math.floorMod((long) chunk.getChunkZ() * world.getChunkSizeZ(), zBoundsTopWorldLevel));
+
+        byte[] pathLx = new byte[maxLevel + 1];
+        byte[] pathLy = new byte[maxLevel + 1];
+        byte[] pathLz = new byte[maxLevel + 1];
+        fillPath(chunk, pathLx, pathLy, pathLz);
+
+        // Von unten nach oben: sobald ein Knoten noch Chunks enthält, gilt das auch für alle Eltern
+        for (int level = maxLevel; level >= 0; level--) {
+            long key = constructKey((byte) level, treeX, treeY, treeZ, pathLx[level], pathLy[level], pathLz[level]);
+            if (loadedChunksBelow.addTo(key, -1) > 1) {
+                return true;
+            }
+            loadedChunksBelow.remove(key);
+
+            RegionNode node = nodes.remove(key);
+            if (node != null && level < maxLevel) {
+                pruneChildrenForMerge((byte) (level + 1), treeX, treeY, treeZ, pathLx[level], pathLy[level], pathLz[level]);
+            }
+            if (level > 0) {
+                long parentKey = constructKey((byte) (level - 1), treeX, treeY, treeZ, pathLx[level - 1], pathLy[level - 1], pathLz[level - 1]);
+                RegionNode parent = nodes.get(parentKey);
+                if (parent != null && !parent.merged) {
+                    parent.clearExisting(pathLx[level], pathLy[level], pathLz[level]);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void countChunkOnPath(Chunk chunk, int treeX, int treeY, int treeZ, int delta) {
+        byte[] pathLx = new byte[maxLevel + 1];
+        byte[] pathLy = new byte[maxLevel + 1];
+        byte[] pathLz = new byte[maxLevel + 1];
+        fillPath(chunk, pathLx, pathLy, pathLz);
+        for (int level = 0; level <= maxLevel; level++) {
+            loadedChunksBelow.addTo(constructKey((byte) level, treeX, treeY, treeZ, pathLx[level], pathLy[level], pathLz[level]), delta);
+        }
+    }
+
+    /**
+     * Pfad-Digits je Ebene: pathL*[level] = lokaler Index auf der Ebene "level"
+     */
+    private void fillPath(Chunk chunk, byte[] pathLx, byte[] pathLy, byte[] pathLz) {
+        long tx = chunk.getChunkX();
+        long ty = chunk.getChunkY();
+        long tz = chunk.getChunkZ();
+        for (int depthFromLeaf = 0; depthFromLeaf <= maxLevel; depthFromLeaf++) {
+            int level = maxLevel - depthFromLeaf;
+            pathLx[level] = (byte) Math.floorMod(tx, SIZE);
+            pathLy[level] = (byte) Math.floorMod(ty, SIZE);
+            pathLz[level] = (byte) Math.floorMod(tz, SIZE);
+
+            tx = Math.floorDiv(tx, SIZE);
+            ty = Math.floorDiv(ty, SIZE);
+            tz = Math.floorDiv(tz, SIZE);
+        }
+    }
+
     /**
      * Materialisiert alle 64 Kinder eines gemergten Parents mit dessen bisherigem Inhalt.
      * Kinder bekommen dieselben (uniform, prominentMaterial) und starten selbst auf merged=true.
@@ -341,6 +429,13 @@ public class SparseOTChunkGrid {
             existMask |= (1L << bitToMarkTrue);
         }
 
+        public void clearExisting(byte lx, byte ly, byte lz) {
+            checkLocals(lx, ly, lz);
+
+            int bitToClear = lz + lx * getSizeX() + ly * getSizeY() * getSizeX();
+            existMask &= ~(1L << bitToClear);
+        }
+
         public boolean exists(byte lx, byte ly, byte lz) {
             int bit = ((ly & 3) << 4) | ((lx & 3) << 2) | (lz & 3);
             return (existMask & (1L << bit)) != 0;
@@ -0,0 +1,35 @@
+package de.verdox.voxel.server.level.chunk.storage;
+
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.world.World;
+
+import java.io.IOException;
+
+/**
+ * Persistent backend of a {@link de.verdox.voxel.server.level.chunk.ChunkMap}.
+ * Implementations have to be safe to call from the chunk io thread and the world generator threads.
+ */
+public interface ChunkStorage extends AutoCloseable {
+
+    /**
+     * Loads a chunk from the storage.
+     *
+     * @return the loaded chunk or null if the chunk was never saved
+     */
+    Chunk load(World world, int chunkX, int chunkY, int chunkZ) throws IOException;
+
+    /**
+     * Writes the chunk to the storage and replaces an older version of it.
+     */
+    void save(Chunk chunk) throws IOException;
+
+    boolean contains(int chunkX, int chunkY, int chunkZ) throws IOException;
+
+    /**
+     * Forces all written data to the underlying device.
+     */
+    void flush() throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,189 @@
+package de.verdox.voxel.server.level.chunk.storage;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * A single region file holding {@link #REGION_SIZE}³ chunks.
+ * <p>
+ * Layout:
+ * <pre>
+ * [magic:int][version:int][reserved:long]
+ * [offset table: ENTRIES * (sectorOffset:int, byteLength:int)]
+ * [payload sectors of SECTOR_SIZE bytes ...]
+ * </pre>
+ * A sector offset of 0 marks a chunk that was never written. Payloads always start on a sector boundary
+ * and occupy ceil(byteLength / SECTOR_SIZE) consecutive sectors.
+ * The whole file is memory mapped. The mapping grows geometrically when new sectors are needed.
+ */
+public class RegionFile implements AutoCloseable {
+    public static final int REGION_SIZE_BITS = 5;
+    public static final int REGION_SIZE = 1 << REGION_SIZE_BITS;
+    public static final int ENTRIES = REGION_SIZE * REGION_SIZE * REGION_SIZE;
+
+    public static final int SECTOR_SIZE = 4096;
+
+    private static final int MAGIC = 0x56585247; // "VXRG"
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_BYTES = 16;
+    private static final int ENTRY_BYTES = 8;
+    private static final int HEADER_SECTORS = (FILE_HEADER_BYTES + ENTRIES * ENTRY_BYTES + SECTOR_SIZE - 1) / SECTOR_SIZE;
+
+    @Getter
+    private final Path path;
+    private final FileChannel channel;
+    private final BitSet usedSectors = new BitSet();
+    private MappedByteBuffer mapped;
+    private int mappedSectors;
+
+    public RegionFile(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long size = channel.size();
+        if (size < (long) HEADER_SECTORS * SECTOR_SIZE) {
+            map(HEADER_SECTORS);
+            mapped.putInt(0, MAGIC);
+            mapped.putInt(4, VERSION);
+        } else {
+            map((int) ((size + SECTOR_SIZE - 1) / SECTOR_SIZE));
+            if (mapped.getInt(0) != MAGIC) {
+                channel.close();
+                throw new IOException("Not a region file: " + path);
+            }
+            if (mapped.getInt(4) != VERSION) {
+                channel.close();
+                throw new IOException("Unsupported region file version " + mapped.getInt(4) + " in " + path);
+            }
+        }
+
+        usedSectors.set(0, HEADER_SECTORS);
+        for (int i = 0; i < ENTRIES; i++) {
+            int sectorOffset = getSectorOffset(i);
+            if (sectorOffset != 0) {
+                usedSectors.set(sectorOffset, sectorOffset + sectorsFor(getByteLength(i)));
+            }
+        }
+    }
+
+    /**
+     * Converts chunk coordinates into the index of the chunk inside its region file.
+     */
+    public static int localIndex(int chunkX, int chunkY, int chunkZ) {
+        int mask = REGION_SIZE - 1;
+        return ((chunkX & mask) << (2 * REGION_SIZE_BITS)) | ((chunkY & mask) << REGION_SIZE_BITS) | (chunkZ & mask);
+    }
+
+    public static int regionCoordinate(int chunkCoordinate) {
+        return chunkCoordinate >> REGION_SIZE_BITS;
+    }
+
+    public synchronized boolean contains(int localIndex) {
+        return getSectorOffset(localIndex) != 0;
+    }
+
+    /**
+     * @return a copy of the stored payload or null if nothing is stored at this index
+     */
+    public synchronized byte[] read(int localIndex) {
+        int sectorOffset = getSectorOffset(localIndex);
+        if (sectorOffset == 0) {
+            return null;
+        }
+        byte[] data = new byte[getByteLength(localIndex)];
+        mapped.get((int) ((long) sectorOffset * SECTOR_SIZE), data);
+        return data;
+    }
+
+    /**
+     * Writes the payload into the sectors of the entry if it still fits, otherwise into the first free run of sectors.
+     * Relocated entries release their old sectors only after the offset table points to the new location.
+     */
+    public synchronized void write(int localIndex, byte[] data, int length) throws IOException {
+        int oldOffset = getSectorOffset(localIndex);
+        int oldSectors = oldOffset == 0 ? 0 : sectorsFor(getByteLength(localIndex));
+        int neededSectors = sectorsFor(length);
+
+        int newOffset;
+        if (oldOffset != 0 && neededSectors <= oldSectors) {
+            // Fits into its old place -> rewrite in place
+            newOffset = oldOffset;
+        } else {
+            newOffset = findFreeRun(neededSectors);
+            if (newOffset + neededSectors > mappedSectors) {
+                map(Math.max(newOffset + neededSectors, mappedSectors * 2));
+            }
+            usedSectors.set(newOffset, newOffset + neededSectors);
+        }
+
+        mapped.put((int) ((long) newOffset * SECTOR_SIZE), data, 0, length);
+        setEntry(localIndex, newOffset, length);
+
+        if (oldOffset != 0) {
+            if (oldOffset != newOffset) {
+                usedSectors.clear(oldOffset, oldOffset + oldSectors);
+            } else if (neededSectors < oldSectors) {
+                usedSectors.clear(oldOffset + neededSectors, oldOffset + oldSectors);
+            }
+        }
+    }
+
+    public synchronized void delete(int localIndex) {
+        int offset = getSectorOffset(localIndex);
+        if (offset == 0) {
+            return;
+        }
+        usedSectors.clear(offset, offset + sectorsFor(getByteLength(localIndex)));
+        setEntry(localIndex, 0, 0);
+    }
+
+    public synchronized void flush() {
+        mapped.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        mapped.force();
+        channel.close();
+    }
+
+    private int findFreeRun(int sectors) {
+        int start = usedSectors.nextClearBit(HEADER_SECTORS);
+        while (true) {
+            int nextUsed = usedSectors.nextSetBit(start);
+            if (nextUsed == -1 || nextUsed - start >= sectors) {
+                return start;
+            }
+            start = usedSectors.nextClearBit(nextUsed);
+        }
+    }
+
+    private void map(int sectors) throws IOException {
+        // Mapping beyond the current file size grows the file
+        this.mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) sectors * SECTOR_SIZE);
+        this.mappedSectors = sectors;
+    }
+
+    private int getSectorOffset(int localIndex) {
+        return mapped.getInt(FILE_HEADER_BYTES + localIndex * ENTRY_BYTES);
+    }
+
+    private int getByteLength(int localIndex) {
+        return mapped.getInt(FILE_HEADER_BYTES + localIndex * ENTRY_BYTES + 4);
+    }
+
+    private void setEntry(int localIndex, int sectorOffset, int byteLength) {
+        mapped.putInt(FILE_HEADER_BYTES + localIndex * ENTRY_BYTES, sectorOffset);
+        mapped.putInt(FILE_HEADER_BYTES + localIndex * ENTRY_BYTES + 4, byteLength);
+    }
+
+    private static int sectorsFor(int byteLength) {
+        return Math.max(1, (byteLength + SECTOR_SIZE - 1) / SECTOR_SIZE);
+    }
+}
@@ -0,0 +1,133 @@
+package de.verdox.voxel.server.level.chunk.storage;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.World;
+import de.verdox.voxel.shared.network.packet.PacketRegistry;
+import de.verdox.voxel.shared.network.packet.serializer.ChunkSerializer;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stores chunks in {@link RegionFile}s inside one directory. Each region file covers
+ * {@link RegionFile#REGION_SIZE}³ chunks and is named after its region coordinates.
+ * A bounded number of region files is kept open; the least recently used one is closed first.
+ */
+public class RegionFileChunkStorage implements ChunkStorage {
+    private static final Logger LOGGER = Logger.getLogger(RegionFileChunkStorage.class.getSimpleName());
+    private static final int DEFAULT_MAX_OPEN_REGIONS = 64;
+
+    @Getter
+    private final Path directory;
+    private final int maxOpenRegions;
+    private final Map<Long, RegionFile> openRegions = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Kryo kryo = new Kryo();
+    private final Output output = new Output(16 * 1024, -1);
+
+    public RegionFileChunkStorage(Path directory) throws IOException {
+        this(directory, DEFAULT_MAX_OPEN_REGIONS);
+    }
+
+    public RegionFileChunkStorage(Path directory, int maxOpenRegions) throws IOException {
+        this.directory = directory;
+        this.maxOpenRegions = maxOpenRegions;
+        new PacketRegistry(kryo);
+        Files.createDirectories(directory);
+    }
+
+    @Override
+    public synchronized Chunk load(World world, int chunkX, int chunkY, int chunkZ) throws IOException {
+        RegionFile regionFile = getRegionFile(chunkX, chunkY, chunkZ, false);
+        if (regionFile == null) {
+            return null;
+        }
+        byte[] data = regionFile.read(RegionFile.localIndex(chunkX, chunkY, chunkZ));
+        if (data == null) {
+            return null;
+        }
+        Chunk chunk = new ChunkBase(world, chunkX, chunkY, chunkZ);
+        ChunkSerializer.readChunkData(kryo, new Input(data), chunk);
+        chunk.init();
+        return chunk;
+    }
+
+    @Override
+    public synchronized void save(Chunk chunk) throws IOException {
+        output.setPosition(0);
+        ChunkSerializer.writeChunkData(kryo, output, chunk);
+
+        RegionFile regionFile = getRegionFile(chunk.getChunkX(), chunk.getChunkY(), chunk.getChunkZ(), true);
+        regionFile.write(RegionFile.localIndex(chunk.getChunkX(), chunk.getChunkY(), chunk.getChunkZ()), output.getBuffer(), output.position());
+    }
+
+    @Override
+    public synchronized boolean contains(int chunkX, int chunkY, int chunkZ) throws IOException {
+        RegionFile regionFile = getRegionFile(chunkX, chunkY, chunkZ, false);
+        return regionFile != null && regionFile.contains(RegionFile.localIndex(chunkX, chunkY, chunkZ));
+    }
+
+    @Override
+    public synchronized void flush() {
+        for (RegionFile regionFile : openRegions.values()) {
+            regionFile.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (RegionFile regionFile : openRegions.values()) {
+            regionFile.close();
+        }
+        openRegions.clear();
+    }
+
+    public static String fileName(int regionX, int regionY, int regionZ) {
+        return "r." + regionX + "." + regionY + "." + regionZ + ".vxr";
+    }
+
+    private RegionFile getRegionFile(int chunkX, int chunkY, int chunkZ, boolean create) throws IOException {
+        int regionX = RegionFile.regionCoordinate(chunkX);
+        int regionY = RegionFile.regionCoordinate(chunkY);
+        int regionZ = RegionFile.regionCoordinate(chunkZ);
+        long regionKey = Chunk.computeChunkKey(regionX, regionY, regionZ);
+
+        RegionFile regionFile = openRegions.get(regionKey);
+        if (regionFile != null) {
+            return regionFile;
+        }
+
+        Path path = directory.resolve(fileName(regionX, regionY, regionZ));
+        if (!create && !Files.exists(path)) {
+            return null;
+        }
+        regionFile = new RegionFile(path);
+        openRegions.put(regionKey, regionFile);
+        closeLeastRecentlyUsed();
+        return regionFile;
+    }
+
+    private void closeLeastRecentlyUsed() {
+        Iterator<RegionFile> iterator = openRegions.values().iterator();
+        while (openRegions.size() > maxOpenRegions && iterator.hasNext()) {
+            RegionFile eldest = iterator.next();
+            iterator.remove();
+            try {
+                eldest.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Could not close region file " + eldest.getPath(), e);
+            }
+        }
+    }
+}
@@ -7,11 +7,25 @@ import personthecat.fastnoise.data.FractalType;
 import personthecat.fastnoise.data.NoiseType;
 
 public class BenchmarkNoiseChunkGenerator implements ChunkGenerator {
-    FastNoise noise = FastNoise.builder()
-            .type(NoiseType.PERLIN)
-            .fractal(FractalType.FBM)
-            .frequency(0.01f)
-            .build();
+    private final FastNoise noise;
+
+    public BenchmarkNoiseChunkGenerator() {
+        this.noise = noiseBuilder().build();
+    }
+
+    /**
+     * Terrain of a fixed seed, so benchmarks can compare runs on the same world
+     */
+    public BenchmarkNoiseChunkGenerator(int seed) {
+        this.noise = noiseBuilder().seed(seed).build();
+    }
+
+    private static FastNoise.Builder noiseBuilder() {
+        return FastNoise.builder()
+                .type(NoiseType.PERLIN)
+                .fractal(FractalType.FBM)
+                .frequency(0.01f);
+    }
 
     @Override
     public void generateNoise(Chunk gameChunk) {
@@ -26,7 +40,9 @@ public class BenchmarkNoiseChunkGenerator implements ChunkGenerator {
         }
 
 
-        for (int x = 0; x < gameChunk.getWorld().getChunkSizeX(); x++) {
+        int sizeX = gameChunk.getWorld().getChunkSizeX();
+        int[] maxLocalY = new int[sizeX * gameChunk.getWorld().getChunkSizeZ()];
+        for (int x = 0; x < sizeX; x++) {
             for (int z = 0; z < gameChunk.getWorld().getChunkSizeZ(); z++) {
                 int globalX = gameChunk.globalX(x);
                 int globalZ = gameChunk.globalZ(z);
@@ -35,16 +51,15 @@ public class BenchmarkNoiseChunkGenerator implements ChunkGenerator {
                 int chunkYOfMaxHeight = Chunk.chunkY(gameChunk.getWorld(), heightAtPos);
 
                 if (chunkYOfMaxHeight == gameChunk.getChunkY()) {
-                    for (int y = 0; y < gameChunk.localY(heightAtPos); y++) {
-                        gameChunk.setBlockAt(Blocks.STONE, x, y, z);
-                    }
+                    maxLocalY[x + z * sizeX] = gameChunk.localY(heightAtPos) - 1;
                 } else if (chunkYOfMaxHeight > gameChunk.getChunkY()) {
-                    for (int y = 0; y < gameChunk.getWorld().getChunkSizeY(); y++) {
-                        gameChunk.setBlockAt(Blocks.STONE, x, y, z);
-                    }
+                    maxLocalY[x + z * sizeX] = gameChunk.getWorld().getChunkSizeY() - 1;
+                } else {
+                    maxLocalY[x + z * sizeX] = -1;
                 }
             }
         }
+        fillColumnsFromBottom(gameChunk, Blocks.STONE, maxLocalY);
     }
 
     @Override
@@ -20,10 +20,35 @@ public interface ChunkGenerator {
     void generateSurfaceBlocks(Chunk gameChunk);
 
     default void fillChunk(Chunk gameChunk, BlockBase blockBase) {
-        for (int x = 0; x < gameChunk.getWorld().getChunkSizeX(); x++) {
-            for (int y = 0; y < gameChunk.getWorld().getChunkSizeY(); y++) {
-                for (int z = 0; z < gameChunk.getWorld().getChunkSizeZ(); z++) {
-                    gameChunk.setBlockAt(blockBase, x, y, z);
+        gameChunk.fillBox(blockBase, 0, 0, 0, gameChunk.getSizeX() - 1, gameChunk.getSizeY() - 1, gameChunk.getSizeZ() - 1);
+    }
+
+    /**
+     * Fills every column from the bottom of the chunk up to maxLocalY[x + z * sizeX] (inclusive).
+     * Columns with a negative entry stay untouched. If all columns are full, the whole chunk is filled at once.
+     */
+    default void fillColumnsFromBottom(Chunk gameChunk, BlockBase blockBase, int[] maxLocalY) {
+        int sizeX = gameChunk.getSizeX();
+        int sizeY = gameChunk.getSizeY();
+        int sizeZ = gameChunk.getSizeZ();
+
+        boolean allFull = true;
+        for (int i = 0; i < sizeX * sizeZ; i++) {
+            if (maxLocalY[i] < sizeY - 1) {
+                allFull = false;
+                break;
+            }
+        }
+        if (allFull) {
+            fillChunk(gameChunk, blockBase);
+            return;
+        }
+
+        for (int z = 0; z < sizeZ; z++) {
+            for (int x = 0; x < sizeX; x++) {
+                int maxY = Math.min(maxLocalY[x + z * sizeX], sizeY - 1);
+                if (maxY >= 0) {
+                    gameChunk.fillColumn(blockBase, x, z, 0, maxY);
                 }
             }
         }
@@ -43,6 +43,7 @@ public class NoiseChunkGenerator implements ChunkGenerator {
         int sizeZ = chunk.getWorld().getChunkSizeZ();
         int seaLevel = 64;
 
+        int[] maxLocalY = new int[sizeX * sizeZ];
         for (int lx = 0; lx < sizeX; lx++) {
             for (int lz = 0; lz < sizeZ; lz++) {
                 int gx = chunk.globalX(lx), gz = chunk.globalZ(lz);
@@ -56,14 +57,16 @@ public class NoiseChunkGenerator implements ChunkGenerator {
 
                 // 5) Fülle Stein bis Höhe
                 int chunkYOfMax = Chunk.chunkY(chunk.getWorld(), height);
-                for (int y = 0; y < chunk.getWorld().getChunkSizeY(); y++) {
-                    if (chunk.getChunkY() < chunkYOfMax ||
-                            (chunk.getChunkY() == chunkYOfMax && y <= chunk.localY(height))) {
-                        chunk.setBlockAt(Blocks.STONE, lx, y, lz);
-                    }
+                if (chunk.getChunkY() < chunkYOfMax) {
+                    maxLocalY[lx + lz * sizeX] = chunk.getWorld().getChunkSizeY() - 1;
+                } else if (chunk.getChunkY() == chunkYOfMax) {
+                    maxLocalY[lx + lz * sizeX] = chunk.localY(height);
+                } else {
+                    maxLocalY[lx + lz * sizeX] = -1;
                 }
             }
         }
+        fillColumnsFromBottom(chunk, Blocks.STONE, maxLocalY);
     }
 
     @Override
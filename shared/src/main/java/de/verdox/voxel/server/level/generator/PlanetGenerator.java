@@ -34,7 +34,9 @@ public class PlanetGenerator implements ChunkGenerator{
         }
 
 
-        for (int x = 0; x < gameChunk.getWorld().getChunkSizeX(); x++) {
+        int sizeX = gameChunk.getWorld().getChunkSizeX();
+        int[] maxLocalY = new int[sizeX * gameChunk.getWorld().getChunkSizeZ()];
+        for (int x = 0; x < sizeX; x++) {
             for (int z = 0; z < gameChunk.getWorld().getChunkSizeZ(); z++) {
                 int globalX = gameChunk.globalX(x);
                 int globalZ = gameChunk.globalZ(z);
@@ -43,16 +45,15 @@ public class PlanetGenerator implements ChunkGenerator{
                 int chunkYOfMaxHeight = Chunk.chunkY(gameChunk.getWorld(), heightAtPos);
 
                 if (chunkYOfMaxHeight == gameChunk.getChunkY()) {
-                    for (int y = 0; y < gameChunk.localY(heightAtPos); y++) {
-                        gameChunk.setBlockAt(Blocks.STONE, x, y, z);
-                    }
+                    maxLocalY[x + z * sizeX] = gameChunk.localY(heightAtPos) - 1;
                 } else if (chunkYOfMaxHeight > gameChunk.getChunkY()) {
-                    for (int y = 0; y < gameChunk.getWorld().getChunkSizeY(); y++) {
-                        gameChunk.setBlockAt(Blocks.STONE, x, y, z);
-                    }
+                    maxLocalY[x + z * sizeX] = gameChunk.getWorld().getChunkSizeY() - 1;
+                } else {
+                    maxLocalY[x + z * sizeX] = -1;
                 }
             }
         }
+        fillColumnsFromBottom(gameChunk, Blocks.STONE, maxLocalY);
     }
 
     @Override
@@ -4,26 +4,58 @@ import de.verdox.voxel.shared.level.chunk.ChunkBase;
 import de.verdox.voxel.shared.level.world.LevelWorld;
 import de.verdox.voxel.shared.level.chunk.Chunk;
 import de.verdox.voxel.shared.util.ThreadUtil;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.LongPredicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * The parent class that handles all tickets for chunk generation and unloading. Also handles parallelism
+ * <p>
+ * Requests are kept in a priority queue ordered by the distance to the nearest interest point (e.g. a player).
+ * Every request submits one drain task to a work-stealing pool, which then generates the most urgent pending request.
  */
 public class WorldGenerator implements AutoCloseable {
     private static final Logger LOGGER = Logger.getLogger(WorldGenerator.class.getSimpleName());
+    private static final int LATENCY_SAMPLES = 1024;
 
     private final LevelWorld world;
     private final ChunkGenerator chunkGenerator;
     private final ExecutorService executor;
     private final Long2ObjectMap<CompletableFuture<Chunk>> chunkFutures = Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>());
 
+    /**
+     * Queued requests. Guarded by its own monitor together with {@link #queuedTasks} and {@link #interests}.
+     */
+    private final PriorityQueue<GenerationTask> queue = new PriorityQueue<>();
+    private final Long2ObjectMap<GenerationTask> queuedTasks = new Long2ObjectOpenHashMap<>();
+    private final Int2ObjectMap<Interest> interests = new Int2ObjectOpenHashMap<>();
+    private long sequence;
+
+    private final AtomicInteger runningTasks = new AtomicInteger();
+    private final AtomicLong generatedChunks = new AtomicLong();
+    private final AtomicLong cancelledChunks = new AtomicLong();
+    private final AtomicLong failedChunks = new AtomicLong();
+    /**
+     * Ring buffers of the most recent completions. Guarded by {@link #latencyNanos}.
+     */
+    private final long[] latencyNanos = new long[LATENCY_SAMPLES];
+    private final long[] completionTimes = new long[LATENCY_SAMPLES];
+    private int samples;
+
     /**
      * @param world       die Welt, in der die Chunks erstellt werden
      * @param threadCount Anzahl Worker-Threads (z.B. Runtime.getRuntime().availableProcessors())
@@ -31,40 +63,164 @@ public class WorldGenerator implements AutoCloseable {
     public WorldGenerator(LevelWorld world, ChunkGenerator chunkGenerator, int threadCount) {
         this.world = world;
         this.chunkGenerator = chunkGenerator;
-        this.executor = Executors.newFixedThreadPool(threadCount, ThreadUtil.createFactoryForName("World Generator Thread", true));
+        this.executor = new ForkJoinPool(threadCount, ThreadUtil.createForkJoinFactoryForName("World Generator Thread"), null, true);
+    }
+
+    public WorldGenerator(LevelWorld world, ChunkGenerator chunkGenerator) {
+        this(world, chunkGenerator, Runtime.getRuntime().availableProcessors());
     }
 
     /**
      * Forder die Erzeugung eines Chunks asynchron an.
-     * Duplicate Calls sind nicht vorgesehen, daher kein Check auf vorhandenen Future.
+     * Doppelte Anfragen teilen sich den Future der ersten Anfrage.
+     * Wird der zurückgegebene Future abgebrochen, wird die Anfrage für alle Anfragenden abgebrochen.
      */
     public CompletableFuture<Chunk> requestChunkGeneration(int chunkX, int chunkY, int chunkZ, Consumer<Chunk> consumer) {
         long chunkKey = Chunk.computeChunkKey(chunkX, chunkY, chunkZ);
-        if (chunkFutures.containsKey(chunkKey)) {
-            return chunkFutures.get(chunkKey);
-        }
-        CompletableFuture<Chunk> future = new CompletableFuture<>();
-
-        chunkFutures.put(chunkKey, future);
-
-        executor.submit(() -> {
-            try {
-                Chunk chunk = new ChunkBase(world, chunkX, chunkY, chunkZ);
-                chunkGenerator.generateNoise(chunk);
-                chunkGenerator.generateSurfaceBlocks(chunk);
-                world.getChunkMap().saveChunkAfterGeneration(chunk);
-                future.complete(chunk);
-                consumer.accept(chunk);
-            } catch (Throwable t) {
-                LOGGER.log(Level.SEVERE, "Error generating chunk " + chunkX + ", " + chunkY + ", " + chunkZ, t);
-                future.completeExceptionally(t);
-            } finally {
-                chunkFutures.remove(chunkKey);
+        CompletableFuture<Chunk> future;
+        synchronized (chunkFutures) {
+            CompletableFuture<Chunk> existing = chunkFutures.get(chunkKey);
+            if (existing != null) {
+                existing.thenAccept(consumer);
+                return existing;
+            }
+            future = new CompletableFuture<>();
+            chunkFutures.put(chunkKey, future);
+        }
+
+        GenerationTask task = new GenerationTask(chunkX, chunkY, chunkZ, future, consumer, System.nanoTime());
+        synchronized (queue) {
+            task.priority = computePriority(chunkX, chunkY, chunkZ);
+            task.sequence = sequence++;
+            queue.add(task);
+            queuedTasks.put(chunkKey, task);
+        }
+        // Abbruch über den Future entfernt die Anfrage aus der Queue
+        future.whenComplete((chunk, throwable) -> {
+            if (future.isCancelled()) {
+                dequeue(task);
             }
         });
+        executor.execute(this::runNextTask);
         return future;
     }
 
+    /**
+     * Bricht eine noch nicht gestartete Anfrage ab.
+     *
+     * @return true if the request was still queued
+     */
+    public boolean cancelChunkGeneration(int chunkX, int chunkY, int chunkZ) {
+        GenerationTask task;
+        synchronized (queue) {
+            task = queuedTasks.get(Chunk.computeChunkKey(chunkX, chunkY, chunkZ));
+        }
+        return task != null && task.future.cancel(false);
+    }
+
+    /**
+     * Bricht alle noch nicht gestarteten Anfragen ab, deren Chunk Key den Filter erfüllt.
+     *
+     * @return the amount of cancelled requests
+     */
+    public int cancelChunkGenerationIf(LongPredicate chunkKeyFilter) {
+        List<GenerationTask> toCancel = new ObjectArrayList<>();
+        synchronized (queue) {
+            for (GenerationTask task : queue) {
+                if (chunkKeyFilter.test(Chunk.computeChunkKey(task.chunkX, task.chunkY, task.chunkZ))) {
+                    toCancel.add(task);
+                }
+            }
+        }
+        int cancelled = 0;
+        for (int i = 0; i < toCancel.size(); i++) {
+            if (toCancel.get(i).future.cancel(false)) {
+                cancelled++;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Bricht alle Anfragen ab, die weiter als radius Chunks (Chebyshev-Distanz) von jedem Interessenpunkt entfernt sind.
+     * Ohne Interessenpunkte wird nichts abgebrochen.
+     */
+    public int cancelChunkGenerationOutside(int radius) {
+        List<Interest> centers;
+        synchronized (queue) {
+            if (interests.isEmpty()) {
+                return 0;
+            }
+            centers = new ObjectArrayList<>(interests.values());
+        }
+        return cancelChunkGenerationIf(chunkKey -> {
+            int x = Chunk.unpackChunkX(chunkKey), y = Chunk.unpackChunkY(chunkKey), z = Chunk.unpackChunkZ(chunkKey);
+            for (int i = 0; i < centers.size(); i++) {
+                Interest center = centers.get(i);
+                if (Math.abs(center.chunkX - x) <= radius && Math.abs(center.chunkY - y) <= radius && Math.abs(center.chunkZ - z) <= radius) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Setzt den Interessenpunkt eines Halters (z.B. die Chunk-Position eines Spielers) und priorisiert alle wartenden Anfragen neu.
+     */
+    public void updateInterest(int holderId, int chunkX, int chunkY, int chunkZ) {
+        synchronized (queue) {
+            Interest old = interests.put(holderId, new Interest(chunkX, chunkY, chunkZ));
+            if (old == null || old.chunkX != chunkX || old.chunkY != chunkY || old.chunkZ != chunkZ) {
+                reprioritize();
+            }
+        }
+    }
+
+    public void removeInterest(int holderId) {
+        synchronized (queue) {
+            if (interests.remove(holderId) != null) {
+                reprioritize();
+            }
+        }
+    }
+
+    public int getQueueDepth() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    public WorldGeneratorStats getStats() {
+        WorldGeneratorStats stats = new WorldGeneratorStats();
+        stats.queueDepth = getQueueDepth();
+        stats.runningTasks = runningTasks.get();
+        stats.generatedChunks = generatedChunks.get();
+        stats.cancelledChunks = cancelledChunks.get();
+        stats.failedChunks = failedChunks.get();
+
+        long[] latencies;
+        long oldestCompletion = Long.MAX_VALUE, newestCompletion = Long.MIN_VALUE;
+        synchronized (latencyNanos) {
+            int count = Math.min(samples, LATENCY_SAMPLES);
+            latencies = Arrays.copyOf(latencyNanos, count);
+            for (int i = 0; i < count; i++) {
+                oldestCompletion = Math.min(oldestCompletion, completionTimes[i]);
+                newestCompletion = Math.max(newestCompletion, completionTimes[i]);
+            }
+        }
+        if (latencies.length > 0) {
+            Arrays.sort(latencies);
+            stats.latencyP50Millis = percentile(latencies, 0.50) / 1_000_000d;
+            stats.latencyP95Millis = percentile(latencies, 0.95) / 1_000_000d;
+            stats.latencyP99Millis = percentile(latencies, 0.99) / 1_000_000d;
+        }
+        if (latencies.length > 1 && newestCompletion > oldestCompletion) {
+            stats.chunksPerSecond = (latencies.length - 1) * 1_000_000_000d / (newestCompletion - oldestCompletion);
+        }
+        return stats;
+    }
+
     /**
      * Sauber herunterfahren, z.B. beim Stoppen der Anwendung.
      */
@@ -72,5 +228,124 @@ public class WorldGenerator implements AutoCloseable {
     public void close() {
         executor.shutdown();
     }
-}
 
+    private void runNextTask() {
+        GenerationTask task;
+        synchronized (queue) {
+            task = queue.poll();
+            if (task == null) {
+                // Abgebrochene Anfragen hinterlassen überzählige Drain-Tasks
+                return;
+            }
+            queuedTasks.remove(Chunk.computeChunkKey(task.chunkX, task.chunkY, task.chunkZ));
+        }
+        if (task.future.isDone()) {
+            return;
+        }
+        runningTasks.incrementAndGet();
+        try {
+            Chunk chunk = new ChunkBase(world, task.chunkX, task.chunkY, task.chunkZ);
+            chunkGenerator.generateNoise(chunk);
+            chunkGenerator.generateSurfaceBlocks(chunk);
+            world.getChunkMap().saveChunkAfterGeneration(chunk);
+            recordCompletion(task.requestTime);
+            // Wurde die Anfrage währenddessen abgebrochen, wird der Chunk nicht mehr ausgeliefert
+            if (task.future.complete(chunk)) {
+                task.consumer.accept(chunk);
+            }
+        } catch (Throwable t) {
+            LOGGER.log(Level.SEVERE, "Error generating chunk " + task.chunkX + ", " + task.chunkY + ", " + task.chunkZ, t);
+            failedChunks.incrementAndGet();
+            task.future.completeExceptionally(t);
+        } finally {
+            runningTasks.decrementAndGet();
+            // Nach einem Abbruch kann schon eine neuere Anfrage für denselben Chunk registriert sein
+            chunkFutures.remove(Chunk.computeChunkKey(task.chunkX, task.chunkY, task.chunkZ), task.future);
+        }
+    }
+
+    private void dequeue(GenerationTask task) {
+        long chunkKey = Chunk.computeChunkKey(task.chunkX, task.chunkY, task.chunkZ);
+        synchronized (queue) {
+            if (queuedTasks.get(chunkKey) == task) {
+                queuedTasks.remove(chunkKey);
+                queue.remove(task);
+            }
+        }
+        chunkFutures.remove(chunkKey, task.future);
+        cancelledChunks.incrementAndGet();
+    }
+
+    /**
+     * Muss mit dem Monitor der Queue aufgerufen werden.
+     */
+    private void reprioritize() {
+        if (queue.isEmpty()) {
+            return;
+        }
+        GenerationTask[] tasks = queue.toArray(new GenerationTask[0]);
+        queue.clear();
+        for (GenerationTask task : tasks) {
+            task.priority = computePriority(task.chunkX, task.chunkY, task.chunkZ);
+            queue.add(task);
+        }
+    }
+
+    /**
+     * Quadrierte Distanz zum nächsten Interessenpunkt. Ohne Interessenpunkte werden alle Anfragen gleich behandelt (FIFO).
+     * Muss mit dem Monitor der Queue aufgerufen werden.
+     */
+    private long computePriority(int chunkX, int chunkY, int chunkZ) {
+        long best = interests.isEmpty() ? 0 : Long.MAX_VALUE;
+        for (Interest interest : interests.values()) {
+            long dx = chunkX - interest.chunkX;
+            long dy = chunkY - interest.chunkY;
+            long dz = chunkZ - interest.chunkZ;
+            best = Math.min(best, dx * dx + dy * dy + dz * dz);
+        }
+        return best;
+    }
+
+    private void recordCompletion(long requestTime) {
+        long now = System.nanoTime();
+        generatedChunks.incrementAndGet();
+        synchronized (latencyNanos) {
+            int index = samples % LATENCY_SAMPLES;
+            latencyNanos[index] = now - requestTime;
+            completionTimes[index] = now;
+            samples++;
+        }
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private record Interest(int chunkX, int chunkY, int chunkZ) {
+    }
+
+    private static class GenerationTask implements Comparable<GenerationTask> {
+        private final int chunkX, chunkY, chunkZ;
+        private final CompletableFuture<Chunk> future;
+        private final Consumer<Chunk> consumer;
+        private final long requestTime;
+        private long priority;
+        private long sequence;
+
+        private GenerationTask(int chunkX, int chunkY, int chunkZ, CompletableFuture<Chunk> future, Consumer<Chunk> consumer, long requestTime) {
+            this.chunkX = chunkX;
+            this.chunkY = chunkY;
+            this.chunkZ = chunkZ;
+            this.future = future;
+            this.consumer = consumer;
+            this.requestTime = requestTime;
+        }
+
+        @Override
+        public int compareTo(GenerationTask other) {
+            int byPriority = Long.compare(priority, other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
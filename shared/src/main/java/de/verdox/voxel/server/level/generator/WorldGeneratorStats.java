@@ -0,0 +1,37 @@
+package de.verdox.voxel.server.level.generator;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import java.util.List;
+
+/**
+ * Snapshot of the {@link WorldGenerator} metrics. Latencies are measured from the request until the chunk is generated
+ * and only cover the most recent requests.
+ */
+public class WorldGeneratorStats {
+    public int queueDepth;
+    public int runningTasks;
+    public long generatedChunks;
+    public long cancelledChunks;
+    public long failedChunks;
+    public double latencyP50Millis;
+    public double latencyP95Millis;
+    public double latencyP99Millis;
+    public double chunksPerSecond;
+
+    public List<String> printToLines() {
+        List<String> print = new ObjectArrayList<>();
+        print.add("World generator: " + queueDepth + " queued, " + runningTasks + " running");
+        print.add(" - Generated: " + generatedChunks + " (" + String.format("%.1f", chunksPerSecond) + " chunks/s)");
+        if (cancelledChunks > 0 || failedChunks > 0) {
+            print.add(" - Cancelled: " + cancelledChunks + ", Failed: " + failedChunks);
+        }
+        print.add(" - Latency p50/p95/p99: " + String.format("%.1f / %.1f / %.1f ms", latencyP50Millis, latencyP95Millis, latencyP99Millis));
+        return print;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(System.lineSeparator(), printToLines());
+    }
+}
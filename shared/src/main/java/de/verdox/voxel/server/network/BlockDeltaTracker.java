@@ -0,0 +1,158 @@
+package de.verdox.voxel.server.network;
+
+import de.verdox.voxel.server.level.chunk.ChunkChangeJournal;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.network.packet.server.ServerInterface;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerBlockDeltaPacket;
+import de.verdox.voxel.shared.util.ThreadUtil;
+import de.verdox.voxel.shared.util.concurrent.TickTimings;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a {@link ChunkChangeJournal} on every chunk that was sent to at least one connection and sends the
+ * recorded changes once per tick as {@link ServerBlockDeltaPacket} to everyone who holds the chunk.
+ * Chunks whose changes got too large are sent again as a whole through the {@link ChunkSendScheduler}.
+ */
+public class BlockDeltaTracker implements AutoCloseable {
+    private ServerInterface serverInterface;
+    private final ChunkSendScheduler chunkSendScheduler;
+    private final Map<UUID, Long2ObjectMap<ChunkChangeJournal>> journals = new HashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(ThreadUtil.createFactoryForName("Block Delta Flusher", true));
+    private final long tickInterval;
+    private final TimeUnit unit;
+    private final TickTimings timings;
+
+    public BlockDeltaTracker(ChunkSendScheduler chunkSendScheduler, long tickInterval, TimeUnit unit) {
+        this.chunkSendScheduler = chunkSendScheduler;
+        this.tickInterval = tickInterval;
+        this.unit = unit;
+        this.timings = new TickTimings(tickInterval, unit);
+    }
+
+    /**
+     * Starts sending the recorded changes through the server interface once per tick interval
+     */
+    public void start(ServerInterface serverInterface) {
+        this.serverInterface = serverInterface;
+        timings.start(tickInterval, unit);
+        flusher.scheduleAtFixedRate(() -> {
+            timings.beginTick();
+            try {
+                flush();
+            } finally {
+                timings.endTick();
+            }
+        }, tickInterval, tickInterval, unit);
+    }
+
+    /**
+     * Duration and lag of the flush ticks since the last call
+     */
+    public TickTimings.Stats pollTimings() {
+        return timings.poll();
+    }
+
+    /**
+     * Called whenever a chunk is sent to a connection. From now on the connection receives the changes of that chunk.
+     */
+    public void watch(int connectionId, Chunk chunk) {
+        synchronized (journals) {
+            Long2ObjectMap<ChunkChangeJournal> worldJournals = journals.computeIfAbsent(chunk.getWorld().getUuid(), uuid -> new Long2ObjectOpenHashMap<>());
+            ChunkChangeJournal journal = worldJournals.get(chunk.getChunkKey());
+            if (journal != null && journal.getOwner() != chunk) {
+                // Der Chunk wurde entladen und neu geladen, das alte Journal sieht keine Änderungen mehr
+                journal.getOwner().unsubscribe(journal);
+                journal = null;
+            }
+            if (journal == null) {
+                journal = new ChunkChangeJournal(chunk);
+                worldJournals.put(chunk.getChunkKey(), journal);
+            }
+            journal.getViewers().add(connectionId);
+        }
+    }
+
+    public void unwatch(int connectionId, UUID world, long chunkKey) {
+        synchronized (journals) {
+            Long2ObjectMap<ChunkChangeJournal> worldJournals = journals.get(world);
+            if (worldJournals == null) {
+                return;
+            }
+            ChunkChangeJournal journal = worldJournals.get(chunkKey);
+            if (journal != null && journal.getViewers().remove(connectionId) && journal.getViewers().isEmpty()) {
+                journal.getOwner().unsubscribe(journal);
+                worldJournals.remove(chunkKey);
+            }
+        }
+    }
+
+    /**
+     * Stops sending changes to a connection, e.g. after it disconnected.
+     */
+    public void unwatchAll(int connectionId) {
+        synchronized (journals) {
+            for (Long2ObjectMap<ChunkChangeJournal> worldJournals : journals.values()) {
+                var iterator = worldJournals.values().iterator();
+                while (iterator.hasNext()) {
+                    ChunkChangeJournal journal = iterator.next();
+                    if (journal.getViewers().remove(connectionId) && journal.getViewers().isEmpty()) {
+                        journal.getOwner().unsubscribe(journal);
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends all changes recorded since the last flush.
+     */
+    public void flush() {
+        List<ChunkChangeJournal> changed = new ObjectArrayList<>();
+        List<int[]> viewers = new ObjectArrayList<>();
+        synchronized (journals) {
+            for (Long2ObjectMap<ChunkChangeJournal> worldJournals : journals.values()) {
+                for (ChunkChangeJournal journal : worldJournals.values()) {
+                    if (journal.hasChanges()) {
+                        changed.add(journal);
+                        viewers.add(journal.getViewers().toIntArray());
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < changed.size(); i++) {
+            ChunkChangeJournal journal = changed.get(i);
+            if (journal.pollResend()) {
+                for (int connectionId : viewers.get(i)) {
+                    chunkSendScheduler.add(connectionId, journal.getOwner());
+                }
+                continue;
+            }
+            ServerBlockDeltaPacket packet = journal.drain();
+            if (packet == null) {
+                continue;
+            }
+            try {
+                serverInterface.sendToPlayer(packet, viewers.get(i));
+            } catch (Exception e) {
+                ServerInterface.LOGGER.warning("Could not send block changes of chunk " + journal.getChunkX() + ", " + journal.getChunkY() + ", " + journal.getChunkZ() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        flusher.shutdownNow();
+    }
+}
@@ -0,0 +1,325 @@
+package de.verdox.voxel.server.network;
+
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.network.packet.server.ServerInterface;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkBatchPacket;
+import de.verdox.voxel.shared.util.ThreadUtil;
+import de.verdox.voxel.shared.util.concurrent.TickTimings;
+import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound chunk queue per connection. Once per send tick every connection may send chunks for its byte budget,
+ * the nearest chunks to the player first and as {@link ServerChunkBatchPacket}s of at most maxBatchSize chunks.
+ * Connections take turns batch by batch, so one player flying fast cannot use up the budget of the others.
+ * Queued chunks the player moved away from are dropped, the client requests them again when it comes back.
+ * Only connections registered with {@link #onConnect(int)} have a queue, chunks for other connections are dropped.
+ */
+public class ChunkSendScheduler implements AutoCloseable {
+    /**
+     * Sends the packets of the scheduler.
+     */
+    public interface Transport {
+        /**
+         * Sends the packet and returns the amount of bytes it took on the wire.
+         */
+        int sendChunks(ServerChunkBatchPacket packet, int connectionId);
+
+        /**
+         * Bytes of a connection that were sent but not written to the socket yet.
+         */
+        int getPendingBytes(int connectionId);
+    }
+
+    private Transport transport;
+    private final int maxBatchSize;
+    private final long bytesPerTick;
+    private final long totalBytesPerTick;
+    private final long tickInterval;
+    private final TimeUnit unit;
+    private final TickTimings timings;
+    private final Int2ObjectMap<ConnectionQueue> queues = new Int2ObjectLinkedOpenHashMap<>();
+    private final ScheduledExecutorService sender = Executors.newSingleThreadScheduledExecutor(ThreadUtil.createFactoryForName("Chunk Send Scheduler", true));
+    private int roundRobinStart;
+
+    /**
+     * @param bytesPerSecond      the budget of a single connection
+     * @param totalBytesPerSecond the budget of all connections together
+     */
+    public ChunkSendScheduler(int maxBatchSize, long bytesPerSecond, long totalBytesPerSecond, long tickInterval, TimeUnit unit) {
+        this.maxBatchSize = maxBatchSize;
+        long ticksPerSecond = Math.max(1, TimeUnit.SECONDS.toNanos(1) / unit.toNanos(tickInterval));
+        this.bytesPerTick = Math.max(1, bytesPerSecond / ticksPerSecond);
+        this.totalBytesPerTick = Math.max(1, totalBytesPerSecond / ticksPerSecond);
+        this.tickInterval = tickInterval;
+        this.unit = unit;
+        this.timings = new TickTimings(tickInterval, unit);
+    }
+
+    /**
+     * Starts sending the queued chunks through the transport once per tick interval
+     */
+    public void start(Transport transport) {
+        this.transport = transport;
+        timings.start(tickInterval, unit);
+        sender.scheduleAtFixedRate(() -> {
+            timings.beginTick();
+            try {
+                tick();
+            } catch (Throwable e) {
+                ServerInterface.LOGGER.warning("Could not send queued chunks: " + e.getMessage());
+            } finally {
+                timings.endTick();
+            }
+        }, tickInterval, tickInterval, unit);
+    }
+
+    /**
+     * Duration and lag of the send ticks since the last call
+     */
+    public TickTimings.Stats pollTimings() {
+        return timings.poll();
+    }
+
+    /**
+     * Creates the queue of a new connection.
+     */
+    public void onConnect(int connectionId) {
+        synchronized (queues) {
+            queues.putIfAbsent(connectionId, new ConnectionQueue(connectionId));
+        }
+    }
+
+    /**
+     * Queues a chunk for the connection. A chunk that is already queued is only sent once.
+     */
+    public void add(int connectionId, Chunk chunk) {
+        ConnectionQueue queue = getQueue(connectionId);
+        if (queue != null) {
+            queue.add(chunk);
+        }
+    }
+
+    /**
+     * Updates the position the queue of a connection is sorted by. Queued chunks further away than the largest radii
+     * reported so far are dropped.
+     */
+    public void updateCenter(int connectionId, UUID world, int chunkX, int chunkY, int chunkZ, int horizontalRadius, int verticalRadius) {
+        ConnectionQueue queue = getQueue(connectionId);
+        if (queue != null) {
+            queue.updateCenter(world, chunkX, chunkY, chunkZ, horizontalRadius, verticalRadius);
+        }
+    }
+
+    /**
+     * Drops all queued chunks of a connection, e.g. after it disconnected.
+     */
+    public void discard(int connectionId) {
+        synchronized (queues) {
+            queues.remove(connectionId);
+        }
+    }
+
+    public ConnectionStats getStats(int connectionId) {
+        ConnectionQueue queue = getQueue(connectionId);
+        return queue == null ? ConnectionStats.EMPTY : queue.stats();
+    }
+
+    /**
+     * The queue of a connected player, null if the connection is unknown or already gone. Generations that finish after a
+     * disconnect must not create a new queue for it.
+     */
+    private ConnectionQueue getQueue(int connectionId) {
+        synchronized (queues) {
+            return queues.get(connectionId);
+        }
+    }
+
+    /**
+     * One send tick. Called by the internal scheduler, only public for tests.
+     */
+    public void tick() {
+        List<ConnectionQueue> turn;
+        synchronized (queues) {
+            turn = new ObjectArrayList<>(queues.values());
+        }
+        if (turn.isEmpty()) {
+            return;
+        }
+        roundRobinStart = (roundRobinStart + 1) % turn.size();
+        for (ConnectionQueue queue : turn) {
+            queue.refill();
+        }
+
+        long totalBudget = totalBytesPerTick;
+        boolean sentAnything = true;
+        while (totalBudget > 0 && sentAnything) {
+            sentAnything = false;
+            for (int i = 0; i < turn.size() && totalBudget > 0; i++) {
+                ConnectionQueue queue = turn.get((roundRobinStart + i) % turn.size());
+                int bytes = queue.sendBatch();
+                if (bytes >= 0) {
+                    totalBudget -= bytes;
+                    sentAnything = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        sender.shutdownNow();
+    }
+
+    /**
+     * @param queueDepth     chunks waiting to be sent
+     * @param bytesPerSecond bytes sent during the last full second
+     * @param sentChunks     chunks sent since the connection was established
+     * @param droppedChunks  chunks dropped because the player moved away before they were sent
+     */
+    public record ConnectionStats(int queueDepth, long bytesPerSecond, long sentChunks, long droppedChunks) {
+        public static final ConnectionStats EMPTY = new ConnectionStats(0, 0, 0, 0);
+    }
+
+    private class ConnectionQueue {
+        private final int connectionId;
+        /**
+         * Sorted descending by distance, so the nearest chunk is removed from the end
+         */
+        private final List<Chunk> pending = new ObjectArrayList<>();
+        private final LongSet pendingKeys = new LongOpenHashSet();
+        private boolean needsSort;
+
+        private UUID centerWorld;
+        private int centerX, centerY, centerZ;
+        private int horizontalRadius;
+        private int verticalRadius;
+
+        private long credit;
+        private long sentChunks;
+        private long droppedChunks;
+        private long bytesThisSecond;
+        private long bytesLastSecond;
+        private long secondStart = System.nanoTime();
+
+        ConnectionQueue(int connectionId) {
+            this.connectionId = connectionId;
+        }
+
+        synchronized void add(Chunk chunk) {
+            if (pendingKeys.add(chunk.getChunkKey())) {
+                pending.add(chunk);
+                needsSort = true;
+            }
+        }
+
+        synchronized void updateCenter(UUID world, int chunkX, int chunkY, int chunkZ, int horizontalRadius, int verticalRadius) {
+            this.centerWorld = world;
+            this.centerX = chunkX;
+            this.centerY = chunkY;
+            this.centerZ = chunkZ;
+            // Die Sichtweite ist die weiteste Anfrage, einzelne Pakete decken oft nur die inneren Schalen ab
+            this.horizontalRadius = Math.max(this.horizontalRadius, horizontalRadius);
+            this.verticalRadius = Math.max(this.verticalRadius, verticalRadius);
+            needsSort = true;
+        }
+
+        synchronized void refill() {
+            // Nicht verbrauchtes Budget verfällt, Schulden aus zu großen Batches werden abgezahlt
+            credit = Math.min(credit + bytesPerTick, bytesPerTick);
+
+            long now = System.nanoTime();
+            if (now - secondStart >= TimeUnit.SECONDS.toNanos(1)) {
+                bytesLastSecond = bytesThisSecond;
+                bytesThisSecond = 0;
+                secondStart = now;
+            }
+        }
+
+        /**
+         * Sends the nearest chunks as one batch. Returns the bytes sent or -1 if nothing could be sent.
+         */
+        int sendBatch() {
+            ServerChunkBatchPacket packet;
+            synchronized (this) {
+                if (credit <= 0 || pending.isEmpty()) {
+                    return -1;
+                }
+                // Der Socket ist mit dem letzten Tick noch nicht fertig
+                if (transport.getPendingBytes(connectionId) >= bytesPerTick) {
+                    return -1;
+                }
+                if (needsSort) {
+                    sort();
+                }
+                packet = null;
+                while (!pending.isEmpty() && (packet == null || packet.size() < maxBatchSize)) {
+                    Chunk chunk = pending.get(pending.size() - 1);
+                    if (packet != null && !packet.getWorld().equals(chunk.getWorld().getUuid())) {
+                        break;
+                    }
+                    pending.remove(pending.size() - 1);
+                    pendingKeys.remove(chunk.getChunkKey());
+                    if (packet == null) {
+                        packet = new ServerChunkBatchPacket(chunk.getWorld().getUuid());
+                    }
+                    packet.add(chunk);
+                }
+            }
+
+            int bytes;
+            try {
+                bytes = transport.sendChunks(packet, connectionId);
+            } catch (Exception e) {
+                ServerInterface.LOGGER.warning("Could not send " + packet.size() + " chunks to " + connectionId + ": " + e.getMessage());
+                return -1;
+            }
+            synchronized (this) {
+                credit -= bytes;
+                bytesThisSecond += bytes;
+                sentChunks += packet.size();
+            }
+            return bytes;
+        }
+
+        private void sort() {
+            if (centerWorld != null) {
+                int before = pending.size();
+                pending.removeIf(chunk -> {
+                    boolean tooFar = chunk.getWorld().getUuid().equals(centerWorld)
+                            && (Math.abs(chunk.getChunkX() - centerX) > horizontalRadius
+                            || Math.abs(chunk.getChunkY() - centerY) > verticalRadius
+                            || Math.abs(chunk.getChunkZ() - centerZ) > horizontalRadius);
+                    if (tooFar) {
+                        pendingKeys.remove(chunk.getChunkKey());
+                    }
+                    return tooFar;
+                });
+                droppedChunks += before - pending.size();
+            }
+            pending.sort(Comparator.comparingLong(this::distanceSquared).reversed());
+            needsSort = false;
+        }
+
+        private long distanceSquared(Chunk chunk) {
+            long dx = chunk.getChunkX() - centerX;
+            long dy = chunk.getChunkY() - centerY;
+            long dz = chunk.getChunkZ() - centerZ;
+            return dx * dx + dy * dy + dz * dz;
+        }
+
+        synchronized ConnectionStats stats() {
+            return new ConnectionStats(pending.size(), bytesLastSecond, sentChunks, droppedChunks);
+        }
+    }
+}
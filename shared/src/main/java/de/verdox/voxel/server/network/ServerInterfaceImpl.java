@@ -1,31 +1,106 @@
 package de.verdox.voxel.server.network;
 
+import com.esotericsoftware.kryonet.Connection;
 import com.esotericsoftware.kryonet.Server;
+import de.verdox.voxel.server.level.chunk.PlayerChunkMap;
+import de.verdox.voxel.server.level.generator.WorldGenerator;
 import de.verdox.voxel.shared.VoxelBase;
-import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
 import de.verdox.voxel.shared.level.world.World;
 import de.verdox.voxel.shared.network.packet.client.ClientRequestChunkPacket;
+import de.verdox.voxel.shared.network.packet.client.ClientRequestChunksPacket;
 import de.verdox.voxel.shared.network.packet.server.ServerInterface;
 import de.verdox.voxel.shared.network.packet.server.ServerSetPlayerWorldPacket;
 import de.verdox.voxel.shared.network.packet.server.ServerWorldExistPacket;
-import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkBatchPacket;
+import de.verdox.voxel.shared.util.concurrent.TickTimings;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMaps;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongList;
 
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public class ServerInterfaceImpl implements ServerInterface, ChunkSendScheduler.Transport, AutoCloseable {
+    /**
+     * Chunks around the spawn of a connected player are never evicted while the player is online
+     */
+    private static final int SPAWN_PIN_RADIUS = 4;
+    /**
+     * Requested chunks are sent in batches of at most this many chunks
+     */
+    private static final int MAX_CHUNK_BATCH_SIZE = 64;
+    /**
+     * Queued chunks are sent every this many milliseconds
+     */
+    private static final long CHUNK_SEND_TICK_MILLIS = 20;
+    /**
+     * Outbound chunk bandwidth of a single connection
+     */
+    private static final long CHUNK_BYTES_PER_SECOND = 4L * 1024 * 1024;
+    /**
+     * Outbound chunk bandwidth of all connections together
+     */
+    private static final long TOTAL_CHUNK_BYTES_PER_SECOND = 32L * 1024 * 1024;
+    /**
+     * Block changes are collected and sent once per server tick
+     */
+    private static final long BLOCK_DELTA_TICK_MILLIS = 50;
 
-public class ServerInterfaceImpl implements ServerInterface {
     protected final Server server;
+    protected final ChunkSendScheduler chunkSendScheduler = new ChunkSendScheduler(MAX_CHUNK_BATCH_SIZE, CHUNK_BYTES_PER_SECOND, TOTAL_CHUNK_BYTES_PER_SECOND, CHUNK_SEND_TICK_MILLIS, TimeUnit.MILLISECONDS);
+    protected final BlockDeltaTracker blockDeltaTracker = new BlockDeltaTracker(chunkSendScheduler, BLOCK_DELTA_TICK_MILLIS, TimeUnit.MILLISECONDS);
+    private final Int2ObjectMap<SpawnArea> pinnedSpawnAreas = Int2ObjectMaps.synchronize(new Int2ObjectOpenHashMap<>());
+    /**
+     * The world whose {@link PlayerChunkMap} currently holds the view of a connection
+     */
+    private final Int2ObjectMap<World> viewWorlds = Int2ObjectMaps.synchronize(new Int2ObjectOpenHashMap<>());
+    private final Set<UUID> observedWorlds = ConcurrentHashMap.newKeySet();
 
     public ServerInterfaceImpl(Server server) {
         this.server = server;
     }
 
+    /**
+     * Starts sending queued chunks and block changes. Must be called before the first connection is accepted.
+     */
+    public void start() {
+        chunkSendScheduler.start(this);
+        blockDeltaTracker.start(this);
+    }
+
     @Override
     public void onConnect(int connectionId) {
+        chunkSendScheduler.onConnect(connectionId);
         VoxelBase.getInstance().getWorlds().forEach(world -> sendToPlayer(ServerWorldExistPacket.fromWorld(world), connectionId));
-        sendToPlayer(new ServerSetPlayerWorldPacket(VoxelBase.getInstance().getStandardWorld().getUuid(), 0, 70, 0), connectionId);
-
+        World world = VoxelBase.getInstance().getStandardWorld();
+        int spawnX = 0, spawnY = 70, spawnZ = 0;
+        sendToPlayer(new ServerSetPlayerWorldPacket(world.getUuid(), spawnX, spawnY, spawnZ), connectionId);
 
+        SpawnArea spawnArea = new SpawnArea(world, Chunk.chunkX(world, spawnX), Chunk.chunkY(world, spawnY), Chunk.chunkZ(world, spawnZ));
+        world.getChunkMap().pinArea(spawnArea.chunkX(), spawnArea.chunkY(), spawnArea.chunkZ(), SPAWN_PIN_RADIUS);
+        world.getChunkMap().getWorld().getWorldGenerator().updateInterest(connectionId, spawnArea.chunkX(), spawnArea.chunkY(), spawnArea.chunkZ());
+        pinnedSpawnAreas.put(connectionId, spawnArea);
+    }
 
+    @Override
+    public void onDisconnect(int connectionId) {
+        chunkSendScheduler.discard(connectionId);
+        World viewWorld = viewWorlds.remove(connectionId);
+        if (viewWorld != null) {
+            viewWorld.getChunkMap().getPlayerChunkMap().removePlayer(connectionId);
+        }
+        blockDeltaTracker.unwatchAll(connectionId);
+        SpawnArea spawnArea = pinnedSpawnAreas.remove(connectionId);
+        if (spawnArea != null) {
+            spawnArea.world().getChunkMap().unpinArea(spawnArea.chunkX(), spawnArea.chunkY(), spawnArea.chunkZ(), SPAWN_PIN_RADIUS);
+            spawnArea.world().getChunkMap().getWorld().getWorldGenerator().removeInterest(connectionId);
+        }
     }
 
     @Override
@@ -45,6 +120,65 @@ public class ServerInterfaceImpl implements ServerInterface {
         server.sendToAllTCP(packet);
     }
 
+    @Override
+    public int sendChunks(ServerChunkBatchPacket packet, int connectionId) {
+        // Vor dem Senden beobachten, damit keine Änderung zwischen Serialisierung und Journal verloren geht
+        for (Chunk chunk : packet.getChunks()) {
+            blockDeltaTracker.watch(connectionId, chunk);
+        }
+        Connection connection = getConnection(connectionId);
+        if (connection == null) {
+            // z.B. die lokale Verbindung im Singleplayer, dort kostet das Senden keine Bytes
+            sendToPlayer(packet, connectionId);
+            return 0;
+        }
+        return connection.sendTCP(packet);
+    }
+
+    @Override
+    public int getPendingBytes(int connectionId) {
+        Connection connection = getConnection(connectionId);
+        return connection != null ? connection.getTcpWriteBufferSize() : 0;
+    }
+
+    /**
+     * Queue depth and bandwidth of the chunks sent to a connection
+     */
+    public ChunkSendScheduler.ConnectionStats getChunkSendStats(int connectionId) {
+        return chunkSendScheduler.getStats(connectionId);
+    }
+
+    /**
+     * Duration and lag of the chunk send ticks since the last call. They run on their own executor, not on the server tick.
+     */
+    public TickTimings.Stats pollChunkSendTimings() {
+        return chunkSendScheduler.pollTimings();
+    }
+
+    /**
+     * Duration and lag of the block delta flushes since the last call. They run on their own executor, not on the server tick.
+     */
+    public TickTimings.Stats pollBlockDeltaTimings() {
+        return blockDeltaTracker.pollTimings();
+    }
+
+    /**
+     * Hands a requested chunk to a connection once it is loaded or generated. Remote connections get it through the
+     * {@link ChunkSendScheduler}.
+     */
+    protected void deliverChunk(int connectionId, Chunk chunk) {
+        chunkSendScheduler.add(connectionId, chunk);
+    }
+
+    private Connection getConnection(int connectionId) {
+        for (Connection connection : server.getConnections()) {
+            if (connection.getID() == connectionId) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
     @Override
     public void receive(ClientRequestChunkPacket packet, int connectionId) {
         Optional<World> optionalWorld = VoxelBase.getInstance().getWorld(packet.getWorld());
@@ -53,7 +187,84 @@ public class ServerInterfaceImpl implements ServerInterface {
         }
 
         optionalWorld.get().getChunkMap().getOrCreateChunkAsync(packet.getChunkX(), packet.getChunkY(), packet.getChunkZ(), serverChunk -> {
-            sendToPlayer(ServerChunkPacket.fromGameChunk((ChunkBase) serverChunk), connectionId);
+            deliverChunk(connectionId, serverChunk);
         });
     }
+
+    @Override
+    public void receive(ClientRequestChunksPacket packet, int connectionId) {
+        Optional<World> optionalWorld = VoxelBase.getInstance().getWorld(packet.getWorld());
+        if (optionalWorld.isEmpty()) {
+            return;
+        }
+
+        // Der Client fordert um seine Position herum an, Ursprung und weiteste Anfrage geben Position und Sichtweite vor
+        int horizontalRadius = 0;
+        int verticalRadius = 0;
+        for (int i = 0; i < packet.size(); i++) {
+            horizontalRadius = Math.max(horizontalRadius, Math.max(Math.abs(packet.getChunkX(i) - packet.getOriginX()), Math.abs(packet.getChunkZ(i) - packet.getOriginZ())));
+            verticalRadius = Math.max(verticalRadius, Math.abs(packet.getChunkY(i) - packet.getOriginY()));
+        }
+        chunkSendScheduler.updateCenter(connectionId, packet.getWorld(), packet.getOriginX(), packet.getOriginY(), packet.getOriginZ(), horizontalRadius, verticalRadius);
+        optionalWorld.get().getChunkMap().getWorld().getWorldGenerator().updateInterest(connectionId, packet.getOriginX(), packet.getOriginY(), packet.getOriginZ());
+        updateView(connectionId, optionalWorld.get(), packet.getOriginX(), packet.getOriginY(), packet.getOriginZ(), horizontalRadius, verticalRadius);
+
+        for (int i = 0; i < packet.size(); i++) {
+            optionalWorld.get().getChunkMap().getOrCreateChunkAsync(packet.getChunkX(i), packet.getChunkY(i), packet.getChunkZ(i), serverChunk -> {
+                deliverChunk(connectionId, serverChunk);
+            });
+        }
+    }
+
+    /**
+     * Moves the view of a connection in the {@link PlayerChunkMap} of its world. Like the send queue the view only grows,
+     * single request packets often cover just the inner shells.
+     */
+    private void updateView(int connectionId, World world, int chunkX, int chunkY, int chunkZ, int horizontalRadius, int verticalRadius) {
+        PlayerChunkMap playerChunkMap = world.getChunkMap().getPlayerChunkMap();
+        if (observedWorlds.add(world.getUuid())) {
+            playerChunkMap.addListener(new PlayerChunkMap.Listener() {
+                @Override
+                public void onViewChange(int connectionId, LongList entered, LongList left) {
+                    // Der Client verwirft Chunks außerhalb seiner Sichtweite, ihre Änderungen braucht er nicht mehr
+                    for (int i = 0; i < left.size(); i++) {
+                        blockDeltaTracker.unwatch(connectionId, world.getUuid(), left.getLong(i));
+                    }
+                }
+
+                @Override
+                public void onUnwatched(LongList chunkKeys) {
+                    // Niemand braucht diese Chunks mehr, noch nicht gestartete Generierungen werden verworfen
+                    WorldGenerator worldGenerator = world.getChunkMap().getWorld().getWorldGenerator();
+                    for (int i = 0; i < chunkKeys.size(); i++) {
+                        long chunkKey = chunkKeys.getLong(i);
+                        worldGenerator.cancelChunkGeneration(Chunk.unpackChunkX(chunkKey), Chunk.unpackChunkY(chunkKey), Chunk.unpackChunkZ(chunkKey));
+                    }
+                }
+            });
+        }
+
+        World oldWorld = viewWorlds.put(connectionId, world);
+        if (oldWorld != null && oldWorld != world) {
+            oldWorld.getChunkMap().getPlayerChunkMap().removePlayer(connectionId);
+        }
+        PlayerChunkMap.View view = playerChunkMap.getView(connectionId);
+        if (view != null) {
+            horizontalRadius = Math.max(horizontalRadius, view.horizontalRadius());
+            verticalRadius = Math.max(verticalRadius, view.verticalRadius());
+        }
+        playerChunkMap.updatePlayer(connectionId, chunkX, chunkY, chunkZ, horizontalRadius, verticalRadius);
+    }
+
+    /**
+     * Stops sending queued chunks and block changes
+     */
+    @Override
+    public void close() {
+        chunkSendScheduler.close();
+        blockDeltaTracker.close();
+    }
+
+    private record SpawnArea(World world, int chunkX, int chunkY, int chunkZ) {
+    }
 }
@@ -47,7 +47,8 @@ public class VoxelBase {
         if (standardWorld == null) {
             standardWorld = world;
         }
-        return worldStorage.put(uuid, world);
+        worldStorage.put(uuid, world);
+        return world;
     }
 
     public Set<World> getWorlds() {
@@ -1,16 +1,33 @@
 package de.verdox.voxel.shared.data.registry;
 
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Stream;
 
+/**
+ * Every entry receives a dense numeric id in registration order. The id lookups in both directions are backed by
+ * arrays / hash maps so they can be used on hot paths like the chunk palettes.
+ */
 public class Registry<T> {
     private final Map<ResourceLocation, T> keyToDataMapping = new HashMap<>();
     private final Map<T, ResourceLocation> dataToKeyMapping = new HashMap<>();
+    private final Object2IntOpenHashMap<T> dataToIdMapping = new Object2IntOpenHashMap<>();
+    private Object[] idToDataMapping = new Object[16];
+    private boolean frozen;
+
+    public Registry() {
+        dataToIdMapping.defaultReturnValue(-1);
+    }
 
     public void register(T data, ResourceLocation location) {
+        if (frozen) {
+            throw new IllegalStateException("Registry is frozen, can not register " + location);
+        }
         if (keyToDataMapping.containsKey(location)) {
             throw new IllegalArgumentException(location + " already used in registry");
         }
@@ -20,6 +37,56 @@ public class Registry<T> {
 
         keyToDataMapping.put(location, data);
         dataToKeyMapping.put(data, location);
+
+        int id = dataToIdMapping.size();
+        if (id == idToDataMapping.length) {
+            idToDataMapping = Arrays.copyOf(idToDataMapping, id * 2);
+        }
+        idToDataMapping[id] = data;
+        dataToIdMapping.put(data, id);
+    }
+
+    /**
+     * Freezes the registry after bootstrap. No more entries can be registered afterward and the id array is trimmed
+     * to its final size.
+     */
+    public void freeze() {
+        if (frozen) {
+            return;
+        }
+        idToDataMapping = Arrays.copyOf(idToDataMapping, dataToIdMapping.size());
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Returns the entry with the given id or null if no such entry exists.
+     */
+    @SuppressWarnings("unchecked")
+    public T byId(int id) {
+        Object[] mapping = idToDataMapping;
+        if (id < 0 || id >= mapping.length) {
+            return null;
+        }
+        return (T) mapping[id];
+    }
+
+    /**
+     * Returns the id of the entry or -1 if it is not registered.
+     */
+    public int getId(T data) {
+        return dataToIdMapping.getInt(data);
+    }
+
+    public int getIdOrThrow(T data) {
+        int id = getId(data);
+        if (id == -1) {
+            throw new NullPointerException("No id found for " + data);
+        }
+        return id;
     }
 
     public T get(ResourceLocation resourceLocation) {
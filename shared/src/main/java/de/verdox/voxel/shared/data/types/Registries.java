@@ -8,5 +8,6 @@ public class Registries {
 
     public static void bootstrap() {
         Blocks.bootstrap();
+        BLOCKS.freeze();
     }
 }
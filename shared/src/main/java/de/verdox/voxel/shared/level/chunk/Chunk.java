@@ -9,8 +9,12 @@ import de.verdox.voxel.shared.level.chunk.data.palette.ChunkBlockPalette;
 import de.verdox.voxel.shared.level.chunk.data.sliced.DepthMap;
 import de.verdox.voxel.shared.level.chunk.data.sliced.HeightMap;
 import de.verdox.voxel.shared.lighting.ChunkLightData;
+import de.verdox.voxel.shared.lighting.ChunkLightEngine;
 import de.verdox.voxel.shared.util.DelegateBase;
 import de.verdox.voxel.shared.util.Direction;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
 
 public interface Chunk extends Box, DelegateBase<DelegateChunk> {
     void init();
@@ -41,7 +45,12 @@ public interface Chunk extends Box, DelegateBase<DelegateChunk> {
         return getChunkBlockPalette().get((short) localX, (short) localY, (short) localZ);
     }
 
-    default void setBlockAt(BlockBase newBlock, int localX, int localY, int localZ) {
+    /**
+     * Sets one block and relights the surrounding area if the chunk is already lit.
+     *
+     * @return keys of the chunks whose light changed, empty if the chunk has no light yet
+     */
+    default LongSet setBlockAt(BlockBase newBlock, int localX, int localY, int localZ) {
         boolean isEmptyBefore = isEmpty();
         boolean didHeightMapChange = false;
 
@@ -102,6 +111,8 @@ public interface Chunk extends Box, DelegateBase<DelegateChunk> {
             }
         }
 
+        LongSet lightChanges = relightAfterBlockChange(localX, localY, localZ, localX, localY, localZ);
+
         for (int i = 0; i < getDelegates().size(); i++) {
             getDelegates().get(i).notifySetBlock(newBlock, localX, localY, localZ);
         }
@@ -110,6 +121,111 @@ public interface Chunk extends Box, DelegateBase<DelegateChunk> {
 /*        if(didHeightMapChange) {
             getWorld().getChunkMap().notifyHeightmapChange(this);
         }*/
+        return lightChanges;
+    }
+
+    /**
+     * Fills a column from minY to maxY (both inclusive) with one block.
+     */
+    default void fillColumn(BlockBase newBlock, int localX, int localZ, int minY, int maxY) {
+        fillBox(newBlock, localX, minY, localZ, localX, maxY, localZ);
+    }
+
+    /**
+     * Fills a box (all bounds inclusive) with one block. Writes straight into the palette storage,
+     * updates the height and depth map once per column and notifies the delegates once.
+     */
+    default void fillBox(BlockBase newBlock, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        if (minX > maxX || minY > maxY || minZ > maxZ) {
+            return;
+        }
+        getChunkBlockPalette().fillBox(minX, minY, minZ, maxX, maxY, maxZ, newBlock);
+
+        HeightMap heightMap = getHeightMap();
+        DepthMap depthMap = getDepthMap();
+        boolean isAir = newBlock.equals(Blocks.AIR);
+
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                if (!isAir) {
+                    if (heightMap != null && maxY > heightMap.get(x, z)) {
+                        heightMap.set(x, z, (byte) maxY);
+                    }
+                    if (depthMap != null && minY < depthMap.get(x, z)) {
+                        depthMap.set(x, z, (byte) minY);
+                    }
+                    continue;
+                }
+
+                if (heightMap != null) {
+                    byte height = heightMap.get(x, z);
+                    if (height >= minY && height <= maxY) {
+                        int newHeight = 0;
+                        for (int y = minY - 1; y >= 0; y--) {
+                            if (!getBlockAt(x, y, z).equals(Blocks.AIR)) {
+                                newHeight = y;
+                                break;
+                            }
+                        }
+                        heightMap.set(x, z, (byte) newHeight);
+                    }
+                }
+                if (depthMap != null) {
+                    byte depth = depthMap.get(x, z);
+                    if (depth >= minY && depth <= maxY) {
+                        int newDepth = 0;
+                        for (int y = maxY + 1; y < getSizeY(); y++) {
+                            if (!getBlockAt(x, y, z).equals(Blocks.AIR)) {
+                                newDepth = y;
+                                break;
+                            }
+                        }
+                        depthMap.set(x, z, (byte) newDepth);
+                    }
+                }
+            }
+        }
+
+        relightAfterBlockChange(minX, minY, minZ, maxX, maxY, maxZ);
+
+        for (int i = 0; i < getDelegates().size(); i++) {
+            getDelegates().get(i).notifyFillBox(newBlock, minX, minY, minZ, maxX, maxY, maxZ);
+        }
+    }
+
+    /**
+     * Relights the changed box incrementally. Chunks without light, like freshly generated ones, are skipped.
+     * Other chunks whose light changed are told through {@link #notifyLightChange()}, this chunk is remeshed by its block change anyway.
+     *
+     * @return keys of the chunks whose light changed
+     */
+    private LongSet relightAfterBlockChange(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        ChunkLightData lightData = getChunkLightData();
+        if (lightData == null || lightData.getState() == ChunkLightData.LightState.UNINITIALIZED) {
+            return LongSets.EMPTY_SET;
+        }
+        LongSet lightChanges = ChunkLightEngine.relightAfterBlockChange(this, minX, minY, minZ, maxX, maxY, maxZ);
+        long ownKey = getChunkKey();
+        for (LongIterator iterator = lightChanges.iterator(); iterator.hasNext(); ) {
+            long chunkKey = iterator.nextLong();
+            if (chunkKey == ownKey) {
+                continue;
+            }
+            Chunk changed = getWorld().getChunkNow(chunkKey);
+            if (changed != null) {
+                changed.notifyLightChange();
+            }
+        }
+        return lightChanges;
+    }
+
+    /**
+     * Called when the light of this chunk changed because of a block change in a neighbor chunk
+     */
+    default void notifyLightChange() {
+        for (int i = 0; i < getDelegates().size(); i++) {
+            getDelegates().get(i).notifyLightChange();
+        }
     }
 
     default long getChunkKey() {
@@ -100,6 +100,19 @@ public abstract class DelegateChunk implements Chunk, Delegate<Chunk> {
 
     }
 
+    /**
+     * Called once after {@link Chunk#fillBox}. Falls back to one {@link #notifySetBlock} per position.
+     */
+    public void notifyFillBox(BlockBase newBlock, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    notifySetBlock(newBlock, x, y, z);
+                }
+            }
+        }
+    }
+
     @Override
     public void subscribe(DelegateChunk delegate) {
 
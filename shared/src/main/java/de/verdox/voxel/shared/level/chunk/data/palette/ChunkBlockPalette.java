@@ -14,7 +14,7 @@ public class ChunkBlockPalette extends ThreeDimensionalPalette<BlockBase> implem
     private Chunk owner;
 
     public ChunkBlockPalette(BlockBase defaultValue) {
-        super(defaultValue, id -> Registries.BLOCKS.streamEntries().filter(blockBase -> blockBase.getMaterialID() == id).findFirst().orElse(null));
+        super(defaultValue, Registries.BLOCKS::byId);
     }
 
     @Override
@@ -28,8 +28,10 @@ public interface SliceMapStrategy {
         @Override
         public SliceMapStrategy set(SliceMap sliceMap, int x, int z, byte v) {
             if (v == 0) return null;
-            // erster non-zero → Uniform
-            return new Uniform(v);
+            // erster non-zero → Dense, alle anderen Einträge bleiben 0
+            Dense dense = new Dense(sliceMap, (byte) 0);
+            dense.set(sliceMap, x, z, v);
+            return dense;
         }
 
         @Override
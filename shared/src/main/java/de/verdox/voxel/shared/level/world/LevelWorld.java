@@ -19,7 +19,7 @@ public class LevelWorld implements World {
     protected final byte chunkSizeY;
     protected final byte chunkSizeZ;
 
-    private final WorldGenerator worldGenerator = new WorldGenerator(this, new BenchmarkNoiseChunkGenerator(), 1);
+    private final WorldGenerator worldGenerator = new WorldGenerator(this, new BenchmarkNoiseChunkGenerator());
     private final ChunkMap chunkMap = new ChunkMap(this);
     @Getter
     private final SparseOTChunkGrid grid;
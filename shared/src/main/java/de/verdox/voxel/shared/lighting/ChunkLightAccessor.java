@@ -0,0 +1,182 @@
+package de.verdox.voxel.shared.lighting;
+
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.util.Direction;
+import de.verdox.voxel.shared.util.palette.strategy.PaletteStrategy;
+import lombok.Getter;
+
+/**
+ * {@link LightAccessor} over a single chunk. Region coordinates are the chunk coordinates and the light is written
+ * into the {@link ChunkLightData} of the chunk.
+ * <p>
+ * Neighbors are looked up once per accessor, an accessor is meant to live for one light update.
+ */
+public class ChunkLightAccessor implements LightAccessor {
+    @Getter
+    private final Chunk chunk;
+    private final ChunkLightData lightData;
+    private final ChunkLightAccessor[] neighbors = new ChunkLightAccessor[Direction.values().length];
+    private byte neighborsLookedUp;
+
+    public ChunkLightAccessor(Chunk chunk) {
+        this.chunk = chunk;
+        this.lightData = chunk.getChunkLightData();
+    }
+
+    @Override
+    public int getRegionX() {
+        return chunk.getChunkX();
+    }
+
+    @Override
+    public int getRegionY() {
+        return chunk.getChunkY();
+    }
+
+    @Override
+    public int getRegionZ() {
+        return chunk.getChunkZ();
+    }
+
+    @Override
+    public int sizeX() {
+        return chunk.getSizeX();
+    }
+
+    @Override
+    public int sizeY() {
+        return chunk.getSizeY();
+    }
+
+    @Override
+    public int sizeZ() {
+        return chunk.getSizeZ();
+    }
+
+    @Override
+    public boolean isOpaque(int localX, int localY, int localZ) {
+        return chunk.getBlockAt(localX, localY, localZ).isOpaque();
+    }
+
+    @Override
+    public byte getEmissionRed(int localX, int localY, int localZ) {
+        return chunk.getBlockAt(localX, localY, localZ).getEmissionRed();
+    }
+
+    @Override
+    public byte getEmissionBlue(int localX, int localY, int localZ) {
+        return chunk.getBlockAt(localX, localY, localZ).getEmissionBlue();
+    }
+
+    @Override
+    public byte getEmissionGreen(int localX, int localY, int localZ) {
+        return chunk.getBlockAt(localX, localY, localZ).getEmissionGreen();
+    }
+
+    @Override
+    public byte getBlockLightRed(int localX, int localY, int localZ) {
+        return lightData.getBlockRed(localX, localY, localZ);
+    }
+
+    @Override
+    public byte getBlockLightBlue(int localX, int localY, int localZ) {
+        return lightData.getBlockBlue(localX, localY, localZ);
+    }
+
+    @Override
+    public byte getBlockLightGreen(int localX, int localY, int localZ) {
+        return lightData.getBlockGreen(localX, localY, localZ);
+    }
+
+    @Override
+    public void setBlockLight(int localX, int localY, int localZ, byte red, byte green, byte blue) {
+        lightData.setBlockLight(localX, localY, localZ, red, green, blue);
+    }
+
+    @Override
+    public byte getSkyLight(int localX, int localY, int localZ) {
+        return lightData.getSkyLight(localX, localY, localZ);
+    }
+
+    @Override
+    public void setSkyLight(int localX, int localY, int localZ, byte light) {
+        lightData.setSkyLight(localX, localY, localZ, light);
+    }
+
+    @Override
+    public byte getWorldSkyLight() {
+        return 15;
+    }
+
+    @Override
+    public boolean isInBounds(int localX, int localY, int localZ) {
+        return localX >= 0 && localX < sizeX() &&
+                localY >= 0 && localY < sizeY() &&
+                localZ >= 0 && localZ < sizeZ();
+    }
+
+    @Override
+    public int getHighestNonAirBlockAt(int localX, int localZ) {
+        if (chunk.isEmpty() || chunk.getHeightMap() == null) {
+            return -1;
+        }
+        return chunk.getHeightMap().get(localX, localZ);
+    }
+
+    @Override
+    public boolean isAirRegion() {
+        return chunk.isEmpty();
+    }
+
+    @Override
+    public ChunkLightAccessor getNeighbor(Direction direction) {
+        int bit = 1 << direction.getId();
+        if ((neighborsLookedUp & bit) == 0) {
+            Chunk neighbor = chunk.getNeighborChunk(direction);
+            neighbors[direction.getId()] = neighbor != null ? new ChunkLightAccessor(neighbor) : null;
+            neighborsLookedUp |= (byte) bit;
+        }
+        return neighbors[direction.getId()];
+    }
+
+    @Override
+    public ChunkLightAccessor getRelative(int x, int y, int z) {
+        Chunk relative = chunk.getWorld().getChunkNow(chunk.getChunkX() + x, chunk.getChunkY() + y, chunk.getChunkZ() + z);
+        return relative != null ? new ChunkLightAccessor(relative) : null;
+    }
+
+    @Override
+    public void fillSkyLight(byte light) {
+        lightData.fillSkyLight(light);
+    }
+
+    @Override
+    public boolean hasLightSources() {
+        PaletteStrategy<BlockBase> strategy = chunk.getChunkBlockPalette().getStrategy();
+        if (strategy instanceof PaletteStrategy.Empty<BlockBase>) {
+            return false;
+        }
+        if (strategy instanceof PaletteStrategy.Uniform<BlockBase> uniform) {
+            return emitsLight(uniform.getUniformValue());
+        }
+        if (strategy instanceof PaletteStrategy.Paletted<BlockBase> paletted) {
+            for (int id = 0; id < paletted.getPaletteSize(); id++) {
+                if (emitsLight(paletted.idToBlock(id))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void compactLight() {
+        lightData.compact();
+    }
+
+    private static boolean emitsLight(BlockBase block) {
+        return block != null && (block.getEmissionRed() | block.getEmissionGreen() | block.getEmissionBlue()) != 0;
+    }
+}
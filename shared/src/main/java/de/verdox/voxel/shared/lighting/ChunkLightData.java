@@ -34,6 +34,7 @@ public class ChunkLightData implements NetworkSerializable, ChunkData<Chunk> {
         if (length != -1) {
             data = input.readShorts(length);
         }
+        version++;
     }
 
     public enum LightState {UNINITIALIZED, UNIFORM, DETAILED}
@@ -45,7 +46,16 @@ public class ChunkLightData implements NetworkSerializable, ChunkData<Chunk> {
     private LightState state = LightState.UNINITIALIZED;
     @Getter
     private short uniformPacked = 0;
+    /**
+     * Packed light per position, only present in {@link LightState#DETAILED}
+     */
+    @Getter
     private short[] data;
+    /**
+     * Counts every change of the light, copies derived from it like the light of LOD chunks compare it to notice that they are stale
+     */
+    @Getter
+    private int version;
 
     private int idx(int x, int y, int z) {
         return x + owner.getSizeX() * (y + owner.getSizeY() * z);
@@ -92,10 +102,16 @@ public class ChunkLightData implements NetworkSerializable, ChunkData<Chunk> {
     }
 
     private void setPacked(int x, int y, int z, short packed) {
+        version++;
         switch (state) {
             case UNINITIALIZED:
-                uniformPacked = packed;
+                // Ungesetztes Licht liest sich als 0, also gilt der Chunk bis hierhin als einheitlich dunkel
+                uniformPacked = 0;
                 state = LightState.UNIFORM;
+                if (packed != uniformPacked) {
+                    ensureDetailed();
+                    data[idx(x, y, z)] = packed;
+                }
                 break;
             case UNIFORM:
                 if (packed != uniformPacked) {
@@ -117,6 +133,51 @@ public class ChunkLightData implements NetworkSerializable, ChunkData<Chunk> {
         this.state = LightState.UNIFORM;
         this.data = null;
         this.uniformPacked = uniformPacked;
+        version++;
+    }
+
+    /**
+     * Replaces the light of every position with the given packed values
+     */
+    public void setDetailed(short[] data) {
+        this.state = LightState.DETAILED;
+        this.data = data;
+        version++;
+    }
+
+    /**
+     * Sets the sky light of every position and keeps the block light
+     */
+    public void fillSkyLight(byte sky) {
+        if (state != LightState.DETAILED) {
+            short old = state == LightState.UNIFORM ? uniformPacked : 0;
+            setUniform(pack(sky, unpackRed(old), unpackGreen(old), unpackBlue(old)));
+            return;
+        }
+        version++;
+        short skyBits = (short) ((sky & 0xF) << 12);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (short) ((data[i] & 0x0FFF) | skyBits);
+        }
+    }
+
+    /**
+     * Switches back to {@link LightState#UNIFORM} if every position carries the same light.
+     *
+     * @return true if the data is uniform afterwards
+     */
+    public boolean compact() {
+        if (state != LightState.DETAILED) {
+            return state == LightState.UNIFORM;
+        }
+        short first = data[0];
+        for (int i = 1; i < data.length; i++) {
+            if (data[i] != first) {
+                return false;
+            }
+        }
+        setUniform(first);
+        return true;
     }
 
     public void setSkyLight(int x, int y, int z, byte sky) {
@@ -1,197 +1,114 @@
 package de.verdox.voxel.shared.lighting;
 
-import de.verdox.voxel.shared.level.world.World;
 import de.verdox.voxel.shared.level.chunk.Chunk;
-import de.verdox.voxel.shared.util.Direction;
+import de.verdox.voxel.shared.level.world.World;
 import de.verdox.voxel.shared.util.ThreadUtil;
-import de.verdox.voxel.shared.util.datastructure.LongQueue;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class ChunkLightEngine {
     private static final Logger LOGGER = Logger.getLogger(ChunkLightEngine.class.getSimpleName());
+    /**
+     * Serializes the relight after a block change with the phases of the light batches, both write the same {@link ChunkLightData}
+     */
+    private static final ReentrantLock LIGHT_DATA_LOCK = new ReentrantLock();
+    /**
+     * Block changes are relit on the thread that changes the block, one at a time under {@link #LIGHT_DATA_LOCK}
+     */
+    private static final LightPropagator EDIT_PROPAGATOR = new LightPropagator();
 
-    private volatile LongQueue longQueue = new LongQueue(512);
+    private final ParallelLightScheduler scheduler;
+    /**
+     * Collects the requested slices until the light engine thread picks them up as one batch
+     */
+    private final Long2ObjectLinkedOpenHashMap<LightStack> pendingSlices = new Long2ObjectLinkedOpenHashMap<>();
+    private boolean batchScheduled;
     private final Executor service = Executors.newSingleThreadExecutor(ThreadUtil.createFactoryForName("Chunk Light Engine", true));
 
-    public void scheduleSkylightUpdateInSlice(World world, int regionSliceX, int regionSliceZ, LightAccessor startAccessor, int stepsToCalculateDown, LightUpdateCallback onDone) {
-/*        service.execute(() -> {
-            int steps = stepsToCalculateDown;
-
-            long start = System.currentTimeMillis();
-            //computeSkylight(startAccessor, true);
-            onDone.regionLightCallback(regionSliceX, startAccessor.getRegionY(), regionSliceZ);
+    public ChunkLightEngine() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
 
-            int relCounter = -1;
+    public ChunkLightEngine(int threads) {
+        this.scheduler = new ParallelLightScheduler(threads, LIGHT_DATA_LOCK);
+    }
 
-            while (steps > 0) {
-                var toCheck = startAccessor.getRelative(0, relCounter, 0);
-                if (toCheck == null) {
-                    onDone.regionLightCallback(regionSliceX, startAccessor.getRegionY() + relCounter, regionSliceZ);
-                    continue;
-                }
-                //computeSkylight(toCheck, false);
-                onDone.regionLightCallback(regionSliceX, toCheck.getRegionY(), regionSliceZ);
-                steps--;
-                relCounter--;
+    /**
+     * Lights a vertical slice of regions from the start accessor downwards. Every region pulls the light of the region above,
+     * so the slice is computed top to bottom. The callback is called for every region once its light is done.
+     * <p>
+     * Slices requested while a batch is running are lit together in the next batch, a slice requested twice is only lit once.
+     */
+    public void scheduleSkylightUpdateInSlice(World world, int regionSliceX, int regionSliceZ, LightAccessor startAccessor, int stepsToCalculateDown, LightUpdateCallback onDone) {
+        LightStack stack = new LightStack(regionSliceX, regionSliceZ, startAccessor, stepsToCalculateDown, onDone);
+        synchronized (pendingSlices) {
+            pendingSlices.put(stack.stackKey(), stack);
+            if (batchScheduled) {
+                return;
             }
-            long end = System.currentTimeMillis() - start;
-            //System.out.println("Took " + end + "ms to calculate sky light for region slice " + regionSliceX + ", " + regionSliceZ);
-        });*/
+            batchScheduled = true;
+        }
+        service.execute(this::computeBatch);
     }
 
-    public static boolean computeSkylight(LightAccessor lightAccessor, boolean isHighest) {
-        boolean wasUpdated = false;
-        LongQueue queue = new LongQueue();
-        LightAccessor upperNeighbor = lightAccessor.getNeighbor(Direction.UP);
-        if (upperNeighbor == null) {
-            return false;
+    private void computeBatch() {
+        List<LightStack> batch;
+        synchronized (pendingSlices) {
+            batch = new ObjectArrayList<>(pendingSlices.values());
+            pendingSlices.clear();
+            batchScheduled = false;
         }
-
-        int sizeX = lightAccessor.sizeX();
-        int sizeY = lightAccessor.sizeY();
-        int sizeZ = lightAccessor.sizeZ();
-        byte worldLight = lightAccessor.getWorldSkyLight();
-        boolean isUpperAir = (isHighest || upperNeighbor.isAirRegion());
-
-        // 1) Initial seeding per column
-        for (int x = 0; x < sizeX; x++) {
-            for (int z = 0; z < sizeZ; z++) {
-                // Find highest non-air block
-                int firstNonAir = lightAccessor.getHighestNonAirBlockAt(x, z);
-
-                // Determine incoming sky light
-                byte incoming;
-                byte attenuation;
-                if (isUpperAir || firstNonAir == -1) {
-                    // No neighbor above or no blocks at all: full sky light
-                    incoming = worldLight;
-                    attenuation = 0;
-                } else if (firstNonAir == sizeY - 1) {
-                    // Our top slice, take from upperNeighbor
-                    incoming = upperNeighbor.getSkyLight(x, 0, z);
-                    attenuation = (byte) (upperNeighbor.isOpaque(x, 0, z) ? 1 : 0);
-                } else {
-                    // Take from our own cell just above the first block
-                    incoming = lightAccessor.getSkyLight(x, firstNonAir + 1, z);
-                    attenuation = (byte) (lightAccessor.isOpaque(x, firstNonAir + 1, z) ? 1 : 0);
-                }
-
-                // Fill all air blocks above the first non-air
-                for (int y = sizeY - 1; y > firstNonAir; y--) {
-                    if (lightAccessor.getSkyLight(x, y, z) != incoming) {
-                        lightAccessor.setSkyLight(x, y, z, incoming);
-                        queue.enqueue(Chunk.computeChunkKey(x, y, z));
-                        wasUpdated = true;
-                    }
-                }
-
-                if (firstNonAir == -1) {
-                    continue;
-                }
-
-                // Seed the first non-air block itself (minus one attenuation)
-
-                byte blockLevel = (byte) Math.max(0, incoming - attenuation);
-                if (lightAccessor.getSkyLight(x, firstNonAir, z) != blockLevel) {
-                    lightAccessor.setSkyLight(x, firstNonAir, z, blockLevel);
-                    queue.enqueue(Chunk.computeChunkKey(x, firstNonAir, z));
-                    wasUpdated = true;
-                }
-            }
+        try {
+            scheduler.computeStacks(batch);
+        } catch (Throwable t) {
+            LOGGER.log(Level.SEVERE, "Error while lighting " + batch.size() + " region slices", t);
         }
-/*
-        // 2) Flood-fill propagation
-        while (!queue.isEmpty()) {
-            long packed = queue.dequeue();
-            int lx = ChunkBase.unpackChunkX(packed);
-            int ly = ChunkBase.unpackChunkY(packed);
-            int lz = ChunkBase.unpackChunkZ(packed);
-            byte baseLight = lightAccessor.getSkyLight(lx, ly, lz);
-
-            for (Direction dir : directions) {
-                int nx = lx + dir.getOffsetX();
-                int ny = ly + dir.getOffsetY();
-                int nz = lz + dir.getOffsetZ();
-
-                if (nx < 0 || ny < 0 || nz < 0
-                    || nx >= sizeX || ny >= sizeY || nz >= sizeZ) {
-                    continue;
-                }
-
-                // attenuation: full block = worldLight, else 1
-                byte attenuation = lightAccessor.isOpaque(nx, ny, nz)
-                    ? (byte) 1
-                    : (byte) 1;
-                byte newLevel = (byte) Math.max(0, baseLight - attenuation);
-
-                if (newLevel > lightAccessor.getSkyLight(nx, ny, nz)) {
-                    lightAccessor.setSkyLight(nx, ny, nz, newLevel);
-                    queue.enqueue(ChunkBase.computeChunkKey(nx, ny, nz));
-                    wasUpdated = true;
-                }
-            }
-        }*/
-
-        return wasUpdated;
     }
 
-
-    /*    */
-
     /**
-     * Füllt die farbigen Block-Licht-Quellen (z.B. Fackeln, Leuchtstein, etc.).
-     * Jeder Block liefert chunk.getBlock(x,y,z).getEmissionRGB() zurück – ein
-     * Tupel (r,g,b) im Bereich 0–15. Auch hier fällt das Licht um 1 pro Block ab.
-     *//*
-    public void computeColoredLight(Chunk chunk, ChunkLightData light) {
-        int sizeX = chunk.getSizeX(), sizeY = chunk.getSizeY(), sizeZ = chunk.getSizeZ();
-        Deque<LightNode> q = new ArrayDeque<>();
-
-        // 1) Block-Licht-Quellen initialisieren
-        for (int x = 0; x < sizeX; x++) {
-            for (int y = 0; y < sizeY; y++) {
-                for (int z = 0; z < sizeZ; z++) {
-                    Block block = chunk.getBlock(x, y, z);
-                    byte er = block.getEmissionRed();
-                    byte eg = block.getEmissionGreen();
-                    byte eb = block.getEmissionBlue();
-                    if ((er | eg | eb) != 0) {
-                        light.set(x, y, z, er, eg, eb);
-                        q.add(new LightNode(x, y, z, er, eg, eb));
-                    }
-                }
-            }
-        }
-
-        // 2) BFS-Loop für RGB
-        while (!q.isEmpty()) {
-            LightNode n = q.poll();
-            for (int[] d : DIRS) {
-                int nx = n.x + d[0], ny = n.y + d[1], nz = n.z + d[2];
-                if (nx < 0 || ny < 0 || nz < 0
-                    || nx >= sizeX || ny >= sizeY || nz >= sizeZ) continue;
-
-                int attenuation = chunk.isOpaque(nx, ny, nz) ? 15 : 1;
-
-                int newR = Math.max(n.r - attenuation, 0);
-                int newG = Math.max(n.g - attenuation, 0);
-                int newB = Math.max(n.b - attenuation, 0);
+     * Computes the sky light of one accessor and spreads it into its neighbors.
+     *
+     * @param isHighest true if nothing is above the accessor, so it is lit by the open sky
+     * @return true if any light level changed
+     * @see LightPropagator#computeSkylight(LightAccessor, boolean)
+     */
+    public static boolean computeSkylight(LightAccessor lightAccessor, boolean isHighest) {
+        return new LightPropagator().computeSkylight(lightAccessor, isHighest);
+    }
 
-                boolean updated = false;
-                if (newR > light.getR(nx, ny, nz)) updated = true;
-                if (newG > light.getG(nx, ny, nz)) updated = true;
-                if (newB > light.getB(nx, ny, nz)) updated = true;
+    /**
+     * Computes the colored light of all light sources in one accessor and spreads it into its neighbors.
+     *
+     * @return true if any light level changed
+     * @see LightPropagator#computeBlockLight(LightAccessor)
+     */
+    public static boolean computeBlockLight(LightAccessor lightAccessor) {
+        return new LightPropagator().computeBlockLight(lightAccessor);
+    }
 
-                if (updated) {
-                    light.set(nx, ny, nz, (byte) newR, (byte) newG, (byte) newB);
-                    q.add(new LightNode(nx, ny, nz, newR, newG, newB));
-                }
-            }
+    /**
+     * Relights the chunk and its neighbors after the blocks in the box (bounds inclusive) changed.
+     * Waits for a running light phase to finish, so the relight never writes light data at the same time as a batch.
+     *
+     * @return keys of all chunks whose light changed
+     * @see LightPropagator#relightAfterBlockChange(LightAccessor, int, int, int, int, int, int)
+     */
+    public static LongSet relightAfterBlockChange(Chunk chunk, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        LIGHT_DATA_LOCK.lock();
+        try {
+            return EDIT_PROPAGATOR.relightAfterBlockChange(new ChunkLightAccessor(chunk), minX, minY, minZ, maxX, maxY, maxZ);
+        } finally {
+            LIGHT_DATA_LOCK.unlock();
         }
-    }*/
+    }
 
     public interface LightUpdateCallback {
         void regionLightCallback(int regionX, int regionY, int regionZ);
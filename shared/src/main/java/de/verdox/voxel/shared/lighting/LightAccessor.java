@@ -45,4 +45,30 @@ public interface LightAccessor {
     LightAccessor getNeighbor(Direction direction);
 
     LightAccessor getRelative(int x, int y, int z);
+
+    /**
+     * Sets the sky light of every position. Implementations backed by {@link ChunkLightData} keep it uniform.
+     */
+    default void fillSkyLight(byte light) {
+        for (int x = 0; x < sizeX(); x++) {
+            for (int y = 0; y < sizeY(); y++) {
+                for (int z = 0; z < sizeZ(); z++) {
+                    setSkyLight(x, y, z, light);
+                }
+            }
+        }
+    }
+
+    /**
+     * False if no block in this accessor emits light, so the block light pass can skip the emission scan
+     */
+    default boolean hasLightSources() {
+        return true;
+    }
+
+    /**
+     * Called once the engine is done writing light into this accessor
+     */
+    default void compactLight() {
+    }
 }
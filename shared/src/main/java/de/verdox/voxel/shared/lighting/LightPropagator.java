@@ -0,0 +1,629 @@
+package de.verdox.voxel.shared.lighting;
+
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.util.Direction;
+import de.verdox.voxel.shared.util.datastructure.LongQueue;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Breadth first flood fill of sky light and RGB block light over {@link LightAccessor}s.
+ * <p>
+ * Sky light of the world sky level travels straight down without loss, in every other direction light loses one level per block.
+ * Opaque blocks never receive light. Block light spreads every color channel on its own.
+ * <p>
+ * Light that leaves an accessor is written into its neighbor and the neighbor keeps propagating it, so a single update
+ * can spread over several chunks or regions. Block changes are relit incrementally, see {@link #relightAfterBlockChange}. Every touched accessor is compacted at the end of an update so its light
+ * stays {@link ChunkLightData.LightState#UNIFORM} if the result is uniform.
+ * <p>
+ * Not thread safe, the queues are reused between updates.
+ */
+public class LightPropagator {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int SKY = 0, RED = 1, GREEN = 2, BLUE = 3;
+
+    private final Long2ObjectOpenHashMap<Pending> pendingByRegion = new Long2ObjectOpenHashMap<>();
+    private final ObjectArrayList<Pending> touched = new ObjectArrayList<>();
+    private final ArrayDeque<Pending> work = new ArrayDeque<>();
+    private final ArrayDeque<Pending> removalWork = new ArrayDeque<>();
+    private final ObjectArrayList<Pending> pool = new ObjectArrayList<>();
+    private int[] columnFloors = new int[0];
+    private int changedVoxels;
+
+    /**
+     * Positions of one accessor that still have to spread their light
+     */
+    private static final class Pending {
+        private final LongQueue queue = new LongQueue(256);
+        /**
+         * Darkened positions, each followed by the light level it had before
+         */
+        private final LongQueue removalQueue = new LongQueue(64);
+        private final Pending[] neighbors = new Pending[DIRECTIONS.length];
+        private LightAccessor accessor;
+        private long regionKey;
+        private byte neighborsLookedUp;
+        private boolean scheduled;
+        private boolean removalScheduled;
+        private boolean changed;
+    }
+
+    /**
+     * Computes the sky light of the accessor and spreads it into its neighbors.
+     * Light from the neighbors that were computed before flows into the accessor as well.
+     *
+     * @param isHighest true if there is nothing above this accessor, so every column starts with the world sky light
+     * @return true if any light level changed
+     */
+    public boolean computeSkylight(LightAccessor accessor, boolean isHighest) {
+        try {
+            Pending pending = pending(accessor);
+            seedSkylight(pending, isHighest);
+            pullFromNeighbors(pending, true);
+            drain(true);
+            return changedVoxels > 0;
+        } finally {
+            finish(null);
+        }
+    }
+
+    /**
+     * Computes the colored light of all light sources of the accessor and spreads it into its neighbors.
+     * Light from the neighbors that were computed before flows into the accessor as well.
+     *
+     * @return true if any light level changed
+     */
+    public boolean computeBlockLight(LightAccessor accessor) {
+        try {
+            Pending pending = pending(accessor);
+            seedBlockLight(pending);
+            pullFromNeighbors(pending, false);
+            drain(false);
+            return changedVoxels > 0;
+        } finally {
+            finish(null);
+        }
+    }
+
+    /**
+     * Updates the light after the blocks in the box (bounds inclusive) changed. Light that depended on the old blocks is removed
+     * first and the darkened area is filled again from the light around it, so only the affected positions are touched,
+     * also across accessor borders.
+     *
+     * @return region keys of all accessors whose light changed
+     */
+    public LongSet relightAfterBlockChange(LightAccessor accessor, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        LongSet dirty = new LongOpenHashSet();
+        try {
+            Pending pending = pending(accessor);
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        if (accessor.isOpaque(x, y, z)) {
+                            darken(pending, SKY, x, y, z);
+                        } else {
+                            // Ein geöffneter Block kann nur heller werden
+                            enqueueLitNeighbors(pending, SKY, x, y, z);
+                        }
+                    }
+                }
+            }
+            drainRemoval(SKY);
+            drain(true);
+        } finally {
+            finish(dirty);
+        }
+
+        try {
+            Pending pending = pending(accessor);
+            for (int channel = RED; channel <= BLUE; channel++) {
+                for (int x = minX; x <= maxX; x++) {
+                    for (int y = minY; y <= maxY; y++) {
+                        for (int z = minZ; z <= maxZ; z++) {
+                            darken(pending, channel, x, y, z);
+                        }
+                    }
+                }
+                drainRemoval(channel);
+            }
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        byte red = accessor.getEmissionRed(x, y, z);
+                        byte green = accessor.getEmissionGreen(x, y, z);
+                        byte blue = accessor.getEmissionBlue(x, y, z);
+                        if ((red | green | blue) != 0 && trySetBlock(pending, x, y, z, red, green, blue, true)) {
+                            enqueue(pending, x, y, z);
+                        }
+                        if (!accessor.isOpaque(x, y, z)) {
+                            enqueueLitNeighbors(pending, RED, x, y, z);
+                        }
+                    }
+                }
+            }
+            drain(false);
+        } finally {
+            finish(dirty);
+        }
+        return dirty;
+    }
+
+    /**
+     * Lights every column from the top until the first opaque block and queues only the lit positions
+     * that border something darker.
+     */
+    private void seedSkylight(Pending pending, boolean isHighest) {
+        LightAccessor accessor = pending.accessor;
+        int sizeX = accessor.sizeX();
+        int sizeY = accessor.sizeY();
+        int sizeZ = accessor.sizeZ();
+        byte worldLight = accessor.getWorldSkyLight();
+        if (worldLight <= 0) {
+            return;
+        }
+        if (columnFloors.length < sizeX * sizeZ) {
+            columnFloors = new int[sizeX * sizeZ];
+        }
+        int[] floors = columnFloors;
+
+        // 1) Welche Spalten bekommen von oben den vollen Himmel
+        LightAccessor upper = accessor.getNeighbor(Direction.UP);
+        boolean allOpen = true;
+        for (int z = 0; z < sizeZ; z++) {
+            for (int x = 0; x < sizeX; x++) {
+                boolean open;
+                if (upper == null) {
+                    open = isHighest;
+                } else {
+                    open = !upper.isOpaque(x, 0, z) && upper.getSkyLight(x, 0, z) == worldLight;
+                }
+                floors[x + z * sizeX] = open ? 0 : sizeY;
+                allOpen &= open;
+            }
+        }
+
+        // 2) Spalten von oben bis zum ersten opaken Block füllen, Luft-Chunks bleiben dabei uniform
+        if (allOpen && accessor.isAirRegion()) {
+            accessor.fillSkyLight(worldLight);
+            pending.changed = true;
+            changedVoxels += sizeX * sizeY * sizeZ;
+        } else {
+            for (int z = 0; z < sizeZ; z++) {
+                for (int x = 0; x < sizeX; x++) {
+                    int column = x + z * sizeX;
+                    if (floors[column] == sizeY) {
+                        continue;
+                    }
+                    int floor = sizeY;
+                    for (int y = sizeY - 1; y >= 0; y--) {
+                        if (accessor.isOpaque(x, y, z)) {
+                            break;
+                        }
+                        if (accessor.getSkyLight(x, y, z) != worldLight) {
+                            accessor.setSkyLight(x, y, z, worldLight);
+                            pending.changed = true;
+                            changedVoxels++;
+                        }
+                        floor = y;
+                    }
+                    floors[column] = floor;
+                }
+            }
+        }
+
+        // 3) Nur Positionen einreihen, neben denen es dunkler sein kann
+        LightAccessor west = accessor.getNeighbor(Direction.WEST);
+        LightAccessor east = accessor.getNeighbor(Direction.EAST);
+        LightAccessor north = accessor.getNeighbor(Direction.NORTH);
+        LightAccessor south = accessor.getNeighbor(Direction.SOUTH);
+        LightAccessor down = accessor.getNeighbor(Direction.DOWN);
+        int sideLight = worldLight - 1;
+        for (int z = 0; z < sizeZ; z++) {
+            for (int x = 0; x < sizeX; x++) {
+                int floor = floors[x + z * sizeX];
+                for (int y = floor; y < sizeY; y++) {
+                    boolean border = (x == 0 ? isDarker(west, sizeX - 1, y, z, sideLight) : floors[x - 1 + z * sizeX] > y)
+                            || (x == sizeX - 1 ? isDarker(east, 0, y, z, sideLight) : floors[x + 1 + z * sizeX] > y)
+                            || (z == 0 ? isDarker(north, x, y, sizeZ - 1, sideLight) : floors[x + (z - 1) * sizeX] > y)
+                            || (z == sizeZ - 1 ? isDarker(south, x, y, 0, sideLight) : floors[x + (z + 1) * sizeX] > y)
+                            || (y == 0 && isDarker(down, x, sizeY - 1, z, worldLight));
+                    if (border) {
+                        enqueue(pending, x, y, z);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * True if the position of the neighbor could take the light level
+     */
+    private static boolean isDarker(LightAccessor neighbor, int x, int y, int z, int level) {
+        return neighbor != null && neighbor.getSkyLight(x, y, z) < level && !neighbor.isOpaque(x, y, z);
+    }
+
+    private void seedBlockLight(Pending pending) {
+        LightAccessor accessor = pending.accessor;
+        if (!accessor.hasLightSources()) {
+            return;
+        }
+        for (int x = 0; x < accessor.sizeX(); x++) {
+            for (int y = 0; y < accessor.sizeY(); y++) {
+                for (int z = 0; z < accessor.sizeZ(); z++) {
+                    byte red = accessor.getEmissionRed(x, y, z);
+                    byte green = accessor.getEmissionGreen(x, y, z);
+                    byte blue = accessor.getEmissionBlue(x, y, z);
+                    if ((red | green | blue) == 0) {
+                        continue;
+                    }
+                    byte oldRed = accessor.getBlockLightRed(x, y, z);
+                    byte oldGreen = accessor.getBlockLightGreen(x, y, z);
+                    byte oldBlue = accessor.getBlockLightBlue(x, y, z);
+                    if (red > oldRed || green > oldGreen || blue > oldBlue) {
+                        accessor.setBlockLight(x, y, z, (byte) Math.max(red, oldRed), (byte) Math.max(green, oldGreen), (byte) Math.max(blue, oldBlue));
+                        pending.changed = true;
+                        changedVoxels++;
+                    }
+                    enqueue(pending, x, y, z);
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes over the light that neighbors computed earlier have at the shared faces
+     */
+    private void pullFromNeighbors(Pending pending, boolean sky) {
+        LightAccessor accessor = pending.accessor;
+        int sizeX = accessor.sizeX();
+        int sizeY = accessor.sizeY();
+        int sizeZ = accessor.sizeZ();
+        byte worldLight = accessor.getWorldSkyLight();
+
+        for (Direction direction : DIRECTIONS) {
+            LightAccessor neighbor = accessor.getNeighbor(direction);
+            if (neighbor == null) {
+                continue;
+            }
+            int minX = direction.getOffsetX() > 0 ? sizeX - 1 : 0, maxX = direction.getOffsetX() < 0 ? 0 : sizeX - 1;
+            int minY = direction.getOffsetY() > 0 ? sizeY - 1 : 0, maxY = direction.getOffsetY() < 0 ? 0 : sizeY - 1;
+            int minZ = direction.getOffsetZ() > 0 ? sizeZ - 1 : 0, maxZ = direction.getOffsetZ() < 0 ? 0 : sizeZ - 1;
+
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        int nx = wrap(x + direction.getOffsetX(), sizeX);
+                        int ny = wrap(y + direction.getOffsetY(), sizeY);
+                        int nz = wrap(z + direction.getOffsetZ(), sizeZ);
+
+                        if (sky) {
+                            byte level = neighbor.getSkyLight(nx, ny, nz);
+                            int incoming = direction == Direction.UP && level == worldLight ? level : level - 1;
+                            if (incoming > 0 && trySetSky(pending, x, y, z, incoming)) {
+                                enqueue(pending, x, y, z);
+                            }
+                        } else {
+                            int red = neighbor.getBlockLightRed(nx, ny, nz) - 1;
+                            int green = neighbor.getBlockLightGreen(nx, ny, nz) - 1;
+                            int blue = neighbor.getBlockLightBlue(nx, ny, nz) - 1;
+                            if ((red > 0 || green > 0 || blue > 0) && trySetBlock(pending, x, y, z, red, green, blue)) {
+                                enqueue(pending, x, y, z);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void drain(boolean sky) {
+        Pending pending;
+        while ((pending = work.poll()) != null) {
+            pending.scheduled = false;
+            LightAccessor accessor = pending.accessor;
+            int sizeX = accessor.sizeX();
+            int sizeY = accessor.sizeY();
+            int sizeZ = accessor.sizeZ();
+            byte worldLight = accessor.getWorldSkyLight();
+            LongQueue queue = pending.queue;
+
+            while (!queue.isEmpty()) {
+                long key = queue.dequeue();
+                int x = Chunk.unpackChunkX(key);
+                int y = Chunk.unpackChunkY(key);
+                int z = Chunk.unpackChunkZ(key);
+
+                int level = 0, red = 0, green = 0, blue = 0;
+                if (sky) {
+                    level = accessor.getSkyLight(x, y, z);
+                    if (level <= 1) {
+                        continue;
+                    }
+                } else {
+                    red = accessor.getBlockLightRed(x, y, z);
+                    green = accessor.getBlockLightGreen(x, y, z);
+                    blue = accessor.getBlockLightBlue(x, y, z);
+                    if (red <= 1 && green <= 1 && blue <= 1) {
+                        continue;
+                    }
+                }
+
+                for (Direction direction : DIRECTIONS) {
+                    int nx = x + direction.getOffsetX();
+                    int ny = y + direction.getOffsetY();
+                    int nz = z + direction.getOffsetZ();
+
+                    Pending target = pending;
+                    if (nx < 0 || ny < 0 || nz < 0 || nx >= sizeX || ny >= sizeY || nz >= sizeZ) {
+                        target = neighborOf(pending, direction);
+                        if (target == null) {
+                            continue;
+                        }
+                        nx = wrap(nx, sizeX);
+                        ny = wrap(ny, sizeY);
+                        nz = wrap(nz, sizeZ);
+                    }
+
+                    boolean changed;
+                    if (sky) {
+                        int spread = direction == Direction.DOWN && level == worldLight ? level : level - 1;
+                        changed = trySetSky(target, nx, ny, nz, spread);
+                    } else {
+                        changed = trySetBlock(target, nx, ny, nz, red - 1, green - 1, blue - 1);
+                    }
+                    if (changed) {
+                        enqueue(target, nx, ny, nz);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Darkens everything that got its light through the removed positions. Positions that are at least as bright as
+     * the removed light have another source and are queued to fill the darkened area again.
+     */
+    private void drainRemoval(int channel) {
+        Pending pending;
+        while ((pending = removalWork.poll()) != null) {
+            pending.removalScheduled = false;
+            LightAccessor accessor = pending.accessor;
+            int sizeX = accessor.sizeX();
+            int sizeY = accessor.sizeY();
+            int sizeZ = accessor.sizeZ();
+            byte worldLight = accessor.getWorldSkyLight();
+            LongQueue queue = pending.removalQueue;
+
+            while (!queue.isEmpty()) {
+                long key = queue.dequeue();
+                int level = (int) queue.dequeue();
+                int x = Chunk.unpackChunkX(key);
+                int y = Chunk.unpackChunkY(key);
+                int z = Chunk.unpackChunkZ(key);
+
+                for (Direction direction : DIRECTIONS) {
+                    int nx = x + direction.getOffsetX();
+                    int ny = y + direction.getOffsetY();
+                    int nz = z + direction.getOffsetZ();
+
+                    Pending target = pending;
+                    if (nx < 0 || ny < 0 || nz < 0 || nx >= sizeX || ny >= sizeY || nz >= sizeZ) {
+                        target = neighborOf(pending, direction);
+                        if (target == null) {
+                            continue;
+                        }
+                        nx = wrap(nx, sizeX);
+                        ny = wrap(ny, sizeY);
+                        nz = wrap(nz, sizeZ);
+                    }
+
+                    int neighborLevel = getLevel(target.accessor, channel, nx, ny, nz);
+                    if (neighborLevel == 0) {
+                        continue;
+                    }
+                    boolean dependent = neighborLevel < level
+                            || (channel == SKY && direction == Direction.DOWN && level == worldLight && neighborLevel == worldLight);
+                    if (!dependent) {
+                        enqueue(target, nx, ny, nz);
+                        continue;
+                    }
+                    setLevel(target, channel, nx, ny, nz, 0);
+                    enqueueRemoval(target, nx, ny, nz, neighborLevel);
+                    if (channel != SKY) {
+                        // Eine schwächere Lichtquelle im abgedunkelten Bereich leuchtet sofort wieder
+                        int emission = getEmission(target.accessor, channel, nx, ny, nz);
+                        if (emission > 0) {
+                            setLevel(target, channel, nx, ny, nz, emission);
+                            enqueue(target, nx, ny, nz);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void darken(Pending pending, int channel, int x, int y, int z) {
+        int level = getLevel(pending.accessor, channel, x, y, z);
+        if (level == 0) {
+            return;
+        }
+        setLevel(pending, channel, x, y, z, 0);
+        enqueueRemoval(pending, x, y, z, level);
+    }
+
+    /**
+     * Queues the lit neighbors of a position so their light flows into it. For block light any lit channel counts.
+     */
+    private void enqueueLitNeighbors(Pending pending, int channel, int x, int y, int z) {
+        LightAccessor accessor = pending.accessor;
+        for (Direction direction : DIRECTIONS) {
+            int nx = x + direction.getOffsetX();
+            int ny = y + direction.getOffsetY();
+            int nz = z + direction.getOffsetZ();
+
+            Pending target = pending;
+            if (nx < 0 || ny < 0 || nz < 0 || nx >= accessor.sizeX() || ny >= accessor.sizeY() || nz >= accessor.sizeZ()) {
+                target = neighborOf(pending, direction);
+                if (target == null) {
+                    continue;
+                }
+                nx = wrap(nx, accessor.sizeX());
+                ny = wrap(ny, accessor.sizeY());
+                nz = wrap(nz, accessor.sizeZ());
+            }
+            boolean lit = channel == SKY
+                    ? target.accessor.getSkyLight(nx, ny, nz) > 0
+                    : (target.accessor.getBlockLightRed(nx, ny, nz) | target.accessor.getBlockLightGreen(nx, ny, nz) | target.accessor.getBlockLightBlue(nx, ny, nz)) > 0;
+            if (lit) {
+                enqueue(target, nx, ny, nz);
+            }
+        }
+    }
+
+    private static int getLevel(LightAccessor accessor, int channel, int x, int y, int z) {
+        return switch (channel) {
+            case SKY -> accessor.getSkyLight(x, y, z);
+            case RED -> accessor.getBlockLightRed(x, y, z);
+            case GREEN -> accessor.getBlockLightGreen(x, y, z);
+            default -> accessor.getBlockLightBlue(x, y, z);
+        };
+    }
+
+    private static int getEmission(LightAccessor accessor, int channel, int x, int y, int z) {
+        return switch (channel) {
+            case RED -> accessor.getEmissionRed(x, y, z);
+            case GREEN -> accessor.getEmissionGreen(x, y, z);
+            case BLUE -> accessor.getEmissionBlue(x, y, z);
+            default -> 0;
+        };
+    }
+
+    private void setLevel(Pending pending, int channel, int x, int y, int z, int level) {
+        LightAccessor accessor = pending.accessor;
+        if (channel == SKY) {
+            accessor.setSkyLight(x, y, z, (byte) level);
+        } else {
+            byte red = channel == RED ? (byte) level : accessor.getBlockLightRed(x, y, z);
+            byte green = channel == GREEN ? (byte) level : accessor.getBlockLightGreen(x, y, z);
+            byte blue = channel == BLUE ? (byte) level : accessor.getBlockLightBlue(x, y, z);
+            accessor.setBlockLight(x, y, z, red, green, blue);
+        }
+        pending.changed = true;
+        changedVoxels++;
+    }
+
+    private void enqueueRemoval(Pending pending, int x, int y, int z, int level) {
+        pending.removalQueue.enqueue(Chunk.computeChunkKey(x, y, z));
+        pending.removalQueue.enqueue(level);
+        if (!pending.removalScheduled) {
+            pending.removalScheduled = true;
+            removalWork.add(pending);
+        }
+    }
+
+    private boolean trySetSky(Pending pending, int x, int y, int z, int level) {
+        LightAccessor accessor = pending.accessor;
+        if (accessor.getSkyLight(x, y, z) >= level || accessor.isOpaque(x, y, z)) {
+            return false;
+        }
+        accessor.setSkyLight(x, y, z, (byte) level);
+        pending.changed = true;
+        changedVoxels++;
+        return true;
+    }
+
+    private boolean trySetBlock(Pending pending, int x, int y, int z, int red, int green, int blue) {
+        return trySetBlock(pending, x, y, z, red, green, blue, false);
+    }
+
+    private boolean trySetBlock(Pending pending, int x, int y, int z, int red, int green, int blue, boolean isSource) {
+        LightAccessor accessor = pending.accessor;
+        byte oldRed = accessor.getBlockLightRed(x, y, z);
+        byte oldGreen = accessor.getBlockLightGreen(x, y, z);
+        byte oldBlue = accessor.getBlockLightBlue(x, y, z);
+        if ((red <= oldRed && green <= oldGreen && blue <= oldBlue) || (!isSource && accessor.isOpaque(x, y, z))) {
+            return false;
+        }
+        accessor.setBlockLight(x, y, z, (byte) Math.max(red, oldRed), (byte) Math.max(green, oldGreen), (byte) Math.max(blue, oldBlue));
+        pending.changed = true;
+        changedVoxels++;
+        return true;
+    }
+
+    private void enqueue(Pending pending, int x, int y, int z) {
+        pending.queue.enqueue(Chunk.computeChunkKey(x, y, z));
+        if (!pending.scheduled) {
+            pending.scheduled = true;
+            work.add(pending);
+        }
+    }
+
+    private Pending neighborOf(Pending pending, Direction direction) {
+        int bit = 1 << direction.getId();
+        if ((pending.neighborsLookedUp & bit) == 0) {
+            LightAccessor neighbor = pending.accessor.getNeighbor(direction);
+            pending.neighbors[direction.getId()] = neighbor != null ? pending(neighbor) : null;
+            pending.neighborsLookedUp |= (byte) bit;
+        }
+        return pending.neighbors[direction.getId()];
+    }
+
+    /**
+     * Accessors are identified by their region coordinates, so different accessor instances of the same chunk share one queue
+     */
+    private Pending pending(LightAccessor accessor) {
+        long regionKey = Chunk.computeChunkKey(accessor.getRegionX(), accessor.getRegionY(), accessor.getRegionZ());
+        Pending pending = pendingByRegion.get(regionKey);
+        if (pending == null) {
+            pending = pool.isEmpty() ? new Pending() : pool.remove(pool.size() - 1);
+            pending.accessor = accessor;
+            pending.regionKey = regionKey;
+            pendingByRegion.put(regionKey, pending);
+            touched.add(pending);
+        }
+        return pending;
+    }
+
+    /**
+     * Compacts and releases all touched accessors
+     *
+     * @param dirty receives the region keys of the accessors whose light changed, may be null
+     */
+    private void finish(LongSet dirty) {
+        for (int i = 0; i < touched.size(); i++) {
+            Pending pending = touched.get(i);
+            if (pending.changed) {
+                pending.accessor.compactLight();
+                if (dirty != null) {
+                    dirty.add(pending.regionKey);
+                }
+            }
+            pending.accessor = null;
+            pending.queue.clear();
+            pending.removalQueue.clear();
+            pending.scheduled = false;
+            pending.removalScheduled = false;
+            pending.changed = false;
+            pending.neighborsLookedUp = 0;
+            Arrays.fill(pending.neighbors, null);
+            pool.add(pending);
+        }
+        touched.clear();
+        pendingByRegion.clear();
+        work.clear();
+        removalWork.clear();
+        changedVoxels = 0;
+    }
+
+    private static int wrap(int coordinate, int size) {
+        if (coordinate < 0) {
+            return coordinate + size;
+        }
+        return coordinate >= size ? coordinate - size : coordinate;
+    }
+}
@@ -0,0 +1,16 @@
+package de.verdox.voxel.shared.lighting;
+
+/**
+ * A vertical stack of accessors that is lit from the highest accessor downwards.
+ *
+ * @param stackX    x coordinate of the stack in accessor units
+ * @param stackZ    z coordinate of the stack in accessor units
+ * @param highest   the accessor at the top of the stack, lit by the open sky
+ * @param stepsDown how many accessors below the highest one belong to the stack
+ * @param onDone    called for every accessor once its light is done
+ */
+public record LightStack(int stackX, int stackZ, LightAccessor highest, int stepsDown, ChunkLightEngine.LightUpdateCallback onDone) {
+    public long stackKey() {
+        return ((long) stackX << 32) | (stackZ & 0xFFFFFFFFL);
+    }
+}
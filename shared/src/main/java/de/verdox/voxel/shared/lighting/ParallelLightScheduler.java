@@ -0,0 +1,147 @@
+package de.verdox.voxel.shared.lighting;
+
+import de.verdox.voxel.shared.util.ThreadUtil;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lights many {@link LightStack}s at once on a thread pool.
+ * <p>
+ * Light never travels further than {@link #MAX_LIGHT_DISTANCE} blocks, so a stack only writes into itself and the stacks right next to it.
+ * The stacks are colored by their coordinates so that stacks of the same color are far enough apart to never touch the same accessor.
+ * Within a phase the stacks need no locks against each other, the barrier between two phases hands the border light over to the next phase.
+ * Since light propagation only ever raises levels to the same fixed point, the result is identical to lighting the stacks one after another.
+ * <p>
+ * Other writers of the same light data, like the relight after a block change, are kept out by the phase lock. It is held for one phase
+ * at a time, so such a writer waits at most one phase and runs between two phases.
+ */
+public class ParallelLightScheduler {
+    /**
+     * Farthest a light level of 15 can spread sideways
+     */
+    private static final int MAX_LIGHT_DISTANCE = 15;
+
+    @Getter
+    private final int threads;
+    private final ExecutorService pool;
+    private final Lock phaseLock;
+    private final ThreadLocal<LightPropagator> propagators = ThreadLocal.withInitial(LightPropagator::new);
+
+    public ParallelLightScheduler(int threads) {
+        this(threads, new ReentrantLock());
+    }
+
+    /**
+     * @param phaseLock held while a phase writes light data
+     */
+    public ParallelLightScheduler(int threads, Lock phaseLock) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one light thread is needed");
+        }
+        this.threads = threads;
+        this.phaseLock = phaseLock;
+        this.pool = threads > 1 ? Executors.newFixedThreadPool(threads, ThreadUtil.createFactoryForName("Chunk Light Worker", true)) : null;
+    }
+
+    /**
+     * Lights all stacks and blocks until every phase is done. If a stack is given more than once only the last one is lit.
+     */
+    public void computeStacks(Collection<LightStack> stacks) {
+        if (stacks.isEmpty()) {
+            return;
+        }
+        Long2ObjectLinkedOpenHashMap<LightStack> unique = new Long2ObjectLinkedOpenHashMap<>(stacks.size());
+        int minSize = Integer.MAX_VALUE;
+        for (LightStack stack : stacks) {
+            unique.put(stack.stackKey(), stack);
+            minSize = Math.min(minSize, Math.min(stack.highest().sizeX(), stack.highest().sizeZ()));
+        }
+
+        if (pool == null || unique.size() == 1) {
+            for (LightStack stack : unique.values()) {
+                phaseLock.lock();
+                try {
+                    computeStack(stack);
+                } finally {
+                    phaseLock.unlock();
+                }
+            }
+            return;
+        }
+
+        // Stacks mit gleicher Farbe liegen mindestens 2 * reach + 1 auseinander und teilen sich keine Nachbarn
+        int reach = (MAX_LIGHT_DISTANCE + minSize - 1) / minSize;
+        int spacing = 2 * reach + 1;
+        List<List<Callable<Void>>> phases = new ObjectArrayList<>(spacing * spacing);
+        for (int i = 0; i < spacing * spacing; i++) {
+            phases.add(new ObjectArrayList<>());
+        }
+        for (LightStack stack : unique.values()) {
+            int color = Math.floorMod(stack.stackX(), spacing) * spacing + Math.floorMod(stack.stackZ(), spacing);
+            phases.get(color).add(() -> {
+                computeStack(stack);
+                return null;
+            });
+        }
+
+        for (List<Callable<Void>> phase : phases) {
+            if (phase.isEmpty()) {
+                continue;
+            }
+            phaseLock.lock();
+            try {
+                for (Future<Void> future : pool.invokeAll(phase)) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error while lighting a stack", e.getCause());
+            } finally {
+                phaseLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Lights one stack from the top down, every accessor pulls the light of the one above it
+     */
+    private void computeStack(LightStack stack) {
+        LightPropagator propagator = propagators.get();
+        LightAccessor highest = stack.highest();
+        computeLight(propagator, highest, true);
+        stack.onDone().regionLightCallback(stack.stackX(), highest.getRegionY(), stack.stackZ());
+
+        for (int step = 1; step <= stack.stepsDown(); step++) {
+            LightAccessor toCheck = highest.getRelative(0, -step, 0);
+            if (toCheck == null) {
+                continue;
+            }
+            computeLight(propagator, toCheck, false);
+            stack.onDone().regionLightCallback(stack.stackX(), toCheck.getRegionY(), stack.stackZ());
+        }
+    }
+
+    private static void computeLight(LightPropagator propagator, LightAccessor lightAccessor, boolean isHighest) {
+        propagator.computeSkylight(lightAccessor, isHighest);
+        propagator.computeBlockLight(lightAccessor);
+    }
+
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
@@ -14,11 +14,16 @@ import de.verdox.voxel.shared.level.world.LevelWorld;
 import de.verdox.voxel.shared.lighting.ChunkLightData;
 import de.verdox.voxel.shared.network.packet.client.ClientInputPacket;
 import de.verdox.voxel.shared.network.packet.client.ClientRequestChunkPacket;
+import de.verdox.voxel.shared.network.packet.client.ClientRequestChunksPacket;
+import de.verdox.voxel.shared.network.packet.serializer.BlockDeltaSerializer;
+import de.verdox.voxel.shared.network.packet.serializer.ChunkBatchSerializer;
 import de.verdox.voxel.shared.network.packet.serializer.ChunkSerializer;
 import de.verdox.voxel.shared.network.packet.serializer.WorldSerializer;
 import de.verdox.voxel.shared.network.packet.server.ServerPlayerPositionPacket;
 import de.verdox.voxel.shared.network.packet.server.ServerSetPlayerWorldPacket;
 import de.verdox.voxel.shared.network.packet.server.ServerWorldExistPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerBlockDeltaPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkBatchPacket;
 import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkPacket;
 import de.verdox.voxel.shared.util.palette.ThreeDimensionalPalette;
 
@@ -42,10 +47,14 @@ public class PacketRegistry {
     public PacketRegistry(Kryo kryo) {
         kryo.register(ClientInputPacket.class);
         kryo.register(ClientRequestChunkPacket.class);
+        kryo.register(ClientRequestChunksPacket.class);
+        kryo.register(byte[].class);
 
 
         kryo.register(ServerPlayerPositionPacket.class);
         kryo.register(ServerChunkPacket.class);
+        kryo.register(ServerChunkBatchPacket.class, new ChunkBatchSerializer());
+        kryo.register(ServerBlockDeltaPacket.class, new BlockDeltaSerializer());
         kryo.register(ServerSetPlayerWorldPacket.class);
         kryo.register(ServerWorldExistPacket.class);
         kryo.register(ChunkLightData.LightState.class, new DefaultSerializers.EnumSerializer(ChunkLightData.LightState.class));
@@ -1,9 +1,12 @@
 package de.verdox.voxel.shared.network.packet.client;
 
+import de.verdox.voxel.shared.level.chunk.Chunk;
 import de.verdox.voxel.shared.level.world.World;
 import de.verdox.voxel.shared.network.packet.NetworkInterface;
 import de.verdox.voxel.shared.network.packet.server.ServerSetPlayerWorldPacket;
 import de.verdox.voxel.shared.network.packet.server.ServerWorldExistPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerBlockDeltaPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkBatchPacket;
 import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkPacket;
 
 import java.util.logging.Logger;
@@ -22,6 +25,12 @@ public interface ClientInterface extends NetworkInterface {
         else if (packet instanceof ServerChunkPacket p) {
             receive(p);
         }
+        else if (packet instanceof ServerChunkBatchPacket p) {
+            receive(p);
+        }
+        else if (packet instanceof ServerBlockDeltaPacket p) {
+            receive(p);
+        }
         else {
             LOGGER.warning("Received an unknown packet " + packet.getClass().getSimpleName());
             return;
@@ -34,4 +43,13 @@ public interface ClientInterface extends NetworkInterface {
     void receive(ServerSetPlayerWorldPacket packet);
 
     void receive(ServerChunkPacket packet);
+
+    void receive(ServerChunkBatchPacket packet);
+
+    void receive(ServerBlockDeltaPacket packet);
+
+    /**
+     * Takes a chunk from the server, whether it arrived in a packet or was handed over in process by the singleplayer server.
+     */
+    void receiveChunk(Chunk chunk);
 }
@@ -0,0 +1,89 @@
+package de.verdox.voxel.shared.network.packet.client;
+
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Requests several chunks at once. Every chunk is stored as three signed byte offsets relative to the origin,
+ * so one requested chunk costs three bytes on the wire.
+ */
+@Getter
+public class ClientRequestChunksPacket {
+    public static final int MAX_CHUNKS = 1024;
+
+    public UUID world;
+    public int originX;
+    public int originY;
+    public int originZ;
+    public byte[] offsets;
+
+    public ClientRequestChunksPacket() {
+    }
+
+    public int size() {
+        return offsets.length / 3;
+    }
+
+    public int getChunkX(int index) {
+        return originX + offsets[index * 3];
+    }
+
+    public int getChunkY(int index) {
+        return originY + offsets[index * 3 + 1];
+    }
+
+    public int getChunkZ(int index) {
+        return originZ + offsets[index * 3 + 2];
+    }
+
+    public static class Builder {
+        private final UUID world;
+        private final int originX;
+        private final int originY;
+        private final int originZ;
+        private final ByteArrayList offsets = new ByteArrayList();
+
+        public Builder(UUID world, int originX, int originY, int originZ) {
+            this.world = world;
+            this.originX = originX;
+            this.originY = originY;
+            this.originZ = originZ;
+        }
+
+        /**
+         * Adds a chunk to the request. Returns false if the packet is full or the chunk is too far away from the origin.
+         */
+        public boolean add(int chunkX, int chunkY, int chunkZ) {
+            int dx = chunkX - originX;
+            int dy = chunkY - originY;
+            int dz = chunkZ - originZ;
+            if (size() >= MAX_CHUNKS || dx != (byte) dx || dy != (byte) dy || dz != (byte) dz) {
+                return false;
+            }
+            offsets.add((byte) dx);
+            offsets.add((byte) dy);
+            offsets.add((byte) dz);
+            return true;
+        }
+
+        public int size() {
+            return offsets.size() / 3;
+        }
+
+        public boolean isEmpty() {
+            return offsets.isEmpty();
+        }
+
+        public ClientRequestChunksPacket build() {
+            ClientRequestChunksPacket packet = new ClientRequestChunksPacket();
+            packet.world = world;
+            packet.originX = originX;
+            packet.originY = originY;
+            packet.originZ = originZ;
+            packet.offsets = offsets.toByteArray();
+            return packet;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package de.verdox.voxel.shared.network.packet.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import de.verdox.voxel.shared.data.types.Registries;
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerBlockDeltaPacket;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Layout:
+ * <pre>
+ * world uuid
+ * chunkX, chunkY, chunkZ      zigzag varints
+ * palette size, palette ids   varints, the registry ids of all blocks used in this packet
+ * box count                   varint
+ *   min/max                   6 bytes per box
+ *   palette slot              varint
+ * change count                varint
+ *   index delta               varint, the indices are written sorted and relative to the previous one
+ *   palette slot              varint
+ * </pre>
+ * A single block change costs two to three bytes this way.
+ */
+public class BlockDeltaSerializer extends Serializer<ServerBlockDeltaPacket> {
+
+    @Override
+    public void write(Kryo kryo, Output output, ServerBlockDeltaPacket packet) {
+        kryo.writeObject(output, packet.getWorld());
+        output.writeVarInt(packet.getChunkX(), false);
+        output.writeVarInt(packet.getChunkY(), false);
+        output.writeVarInt(packet.getChunkZ(), false);
+
+        Int2IntOpenHashMap slots = new Int2IntOpenHashMap();
+        IntArrayList palette = new IntArrayList();
+        int[] boxSlots = new int[packet.boxCount()];
+        for (int i = 0; i < boxSlots.length; i++) {
+            boxSlots[i] = slotOf(packet.getBoxBlocks()[i], slots, palette);
+        }
+
+        // Sortiert schreiben, damit die Index-Deltas klein bleiben
+        long[] changes = new long[packet.changeCount()];
+        for (int i = 0; i < changes.length; i++) {
+            changes[i] = ((long) packet.getIndices()[i] << 32) | slotOf(packet.getBlocks()[i], slots, palette);
+        }
+        Arrays.sort(changes);
+
+        output.writeVarInt(palette.size(), true);
+        for (int i = 0; i < palette.size(); i++) {
+            output.writeVarInt(palette.getInt(i), true);
+        }
+
+        output.writeVarInt(boxSlots.length, true);
+        for (int i = 0; i < boxSlots.length; i++) {
+            output.writeBytes(packet.getBoxes(), i * 6, 6);
+            output.writeVarInt(boxSlots[i], true);
+        }
+
+        output.writeVarInt(changes.length, true);
+        int previous = 0;
+        for (long change : changes) {
+            int index = (int) (change >>> 32);
+            output.writeVarInt(index - previous, true);
+            output.writeVarInt((int) change, true);
+            previous = index;
+        }
+    }
+
+    @Override
+    public ServerBlockDeltaPacket read(Kryo kryo, Input input, Class<? extends ServerBlockDeltaPacket> type) {
+        UUID world = kryo.readObject(input, UUID.class);
+        int chunkX = input.readVarInt(false);
+        int chunkY = input.readVarInt(false);
+        int chunkZ = input.readVarInt(false);
+
+        BlockBase[] palette = new BlockBase[input.readVarInt(true)];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = Registries.BLOCKS.byId(input.readVarInt(true));
+        }
+
+        int boxCount = input.readVarInt(true);
+        byte[] boxes = new byte[boxCount * 6];
+        BlockBase[] boxBlocks = new BlockBase[boxCount];
+        for (int i = 0; i < boxCount; i++) {
+            input.readBytes(boxes, i * 6, 6);
+            boxBlocks[i] = paletteEntry(palette, input.readVarInt(true));
+        }
+
+        int changeCount = input.readVarInt(true);
+        int[] indices = new int[changeCount];
+        BlockBase[] blocks = new BlockBase[changeCount];
+        int previous = 0;
+        for (int i = 0; i < changeCount; i++) {
+            previous += input.readVarInt(true);
+            indices[i] = previous;
+            blocks[i] = paletteEntry(palette, input.readVarInt(true));
+        }
+        return new ServerBlockDeltaPacket(world, chunkX, chunkY, chunkZ, boxes, boxBlocks, indices, blocks);
+    }
+
+    private static int slotOf(BlockBase block, Int2IntOpenHashMap slots, IntArrayList palette) {
+        int id = block.getPaletteID();
+        if (!slots.containsKey(id)) {
+            slots.put(id, palette.size());
+            palette.add(id);
+        }
+        return slots.get(id);
+    }
+
+    private static BlockBase paletteEntry(BlockBase[] palette, int slot) {
+        if (slot < 0 || slot >= palette.length) {
+            throw new KryoException("Block delta references palette slot " + slot + " but the palette only has " + palette.length + " entries");
+        }
+        return palette[slot];
+    }
+}
@@ -0,0 +1,65 @@
+package de.verdox.voxel.shared.network.packet.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import de.verdox.voxel.shared.VoxelBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.world.World;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkBatchPacket;
+
+import java.util.UUID;
+
+/**
+ * Writes the world once and every chunk with the {@link ChunkWireFormat}, using the first chunk as origin for the coordinates.
+ */
+public class ChunkBatchSerializer extends Serializer<ServerChunkBatchPacket> {
+    private final ChunkWireFormat wireFormat;
+
+    public ChunkBatchSerializer() {
+        this(ChunkWireFormat.DEFLATED);
+    }
+
+    public ChunkBatchSerializer(ChunkWireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, ServerChunkBatchPacket packet) {
+        kryo.writeObject(output, packet.getWorld());
+        output.writeVarInt(packet.size(), true);
+        if (packet.size() == 0) {
+            return;
+        }
+        Chunk origin = packet.getChunks().get(0);
+        output.writeInt(origin.getChunkX());
+        output.writeInt(origin.getChunkY());
+        output.writeInt(origin.getChunkZ());
+        for (Chunk chunk : packet.getChunks()) {
+            wireFormat.write(kryo, output, chunk, origin.getChunkX(), origin.getChunkY(), origin.getChunkZ());
+        }
+    }
+
+    @Override
+    public ServerChunkBatchPacket read(Kryo kryo, Input input, Class<? extends ServerChunkBatchPacket> type) {
+        UUID worldUUID = kryo.readObject(input, UUID.class);
+        ServerChunkBatchPacket packet = new ServerChunkBatchPacket(worldUUID);
+        int size = input.readVarInt(true);
+        if (size == 0) {
+            return packet;
+        }
+        int originX = input.readInt();
+        int originY = input.readInt();
+        int originZ = input.readInt();
+        // Chunks of unknown worlds are skipped, the packet stays empty then
+        World world = VoxelBase.getInstance().getWorld(worldUUID).orElse(null);
+        for (int i = 0; i < size; i++) {
+            Chunk chunk = wireFormat.read(kryo, input, world, originX, originY, originZ);
+            if (chunk != null) {
+                packet.add(chunk);
+            }
+        }
+        return packet;
+    }
+}
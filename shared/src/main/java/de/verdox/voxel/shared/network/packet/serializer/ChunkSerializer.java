@@ -7,18 +7,38 @@ import com.esotericsoftware.kryo.io.Output;
 import de.verdox.voxel.shared.VoxelBase;
 import de.verdox.voxel.shared.level.chunk.Chunk;
 import de.verdox.voxel.shared.level.world.World;
-import de.verdox.voxel.shared.level.chunk.ChunkBase;
 
 import java.util.UUID;
 
 public class ChunkSerializer extends Serializer<Chunk> {
+    private final ChunkWireFormat wireFormat;
+
+    public ChunkSerializer() {
+        this(ChunkWireFormat.DEFLATED);
+    }
+
+    public ChunkSerializer(ChunkWireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+    }
 
     @Override
     public void write(Kryo kryo, Output output, Chunk chunk) {
         kryo.writeObject(output, chunk.getWorld().getUuid());
-        output.writeInt(chunk.getChunkX());
-        output.writeInt(chunk.getChunkY());
-        output.writeInt(chunk.getChunkZ());
+        wireFormat.write(kryo, output, chunk, 0, 0, 0);
+    }
+
+    @Override
+    public Chunk read(Kryo kryo, Input input, Class<? extends Chunk> type) {
+        UUID worldUUID = kryo.readObject(input, UUID.class);
+        // Chunks of unknown worlds are skipped, so the rest of the stream stays readable
+        return wireFormat.read(kryo, input, getWorld(worldUUID), 0, 0, 0);
+    }
+
+    /**
+     * Writes the content of a chunk (light, height / depth map and palette) without its world and coordinates.
+     * Used by the region file storage, the network uses the compact {@link ChunkWireFormat}.
+     */
+    public static void writeChunkData(Kryo kryo, Output output, Chunk chunk) {
         output.writeBoolean(chunk.isEmpty());
         chunk.getChunkLightData().write(kryo, output);
         chunk.getHeightMap().write(kryo, output);
@@ -29,33 +49,19 @@ public class ChunkSerializer extends Serializer<Chunk> {
         chunk.getChunkBlockPalette().write(kryo, output);
     }
 
-    @Override
-    public Chunk read(Kryo kryo, Input input, Class<? extends Chunk> type) {
-        UUID worldUUID = kryo.readObject(input, UUID.class);
-        World world = getWorld(worldUUID);
-
-        if (world == null) {
-            return null;
-        }
-        int chunkX = input.readInt();
-        int chunkY = input.readInt();
-        int chunkZ = input.readInt();
+    /**
+     * Reads the content written by {@link #writeChunkData(Kryo, Output, Chunk)} into an already created chunk.
+     */
+    public static void readChunkData(Kryo kryo, Input input, Chunk chunk) {
         boolean isEmpty = input.readBoolean();
 
-        Chunk chunk = new ChunkBase(world, chunkX, chunkY, chunkZ);
-
         chunk.getChunkLightData().readAndUpdate(kryo, input);
         chunk.getHeightMap().readAndUpdate(kryo, input);
         chunk.getDepthMap().readAndUpdate(kryo, input);
 
-
         if (!isEmpty) {
             chunk.getChunkBlockPalette().readAndUpdate(kryo, input);
         }
-
-        chunk.init();
-
-        return chunk;
     }
 
     private World getWorld(UUID worldUUID) {
@@ -0,0 +1,409 @@
+package de.verdox.voxel.shared.network.packet.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.chunk.data.palette.ChunkBlockPalette;
+import de.verdox.voxel.shared.level.world.World;
+import de.verdox.voxel.shared.lighting.ChunkLightData;
+import de.verdox.voxel.shared.util.palette.ThreeDimensionalPalette;
+import de.verdox.voxel.shared.util.palette.strategy.PaletteStorage;
+import de.verdox.voxel.shared.util.palette.strategy.PaletteStrategy;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact and versioned network encoding of a chunk.
+ * <p>
+ * Layout: version, flags, the chunk coordinates as zigzag varints relative to an origin (e.g. the center of a request),
+ * the varint length of the body and the body itself, which is deflated if {@link #FLAG_DEFLATED} is set.
+ * The body contains the blocks as a table of registry ids followed by run-length encoded or bit-packed indices into that table
+ * (whichever is smaller), the light as uniform value or as runs of deltas, and the height and depth map.
+ * <p>
+ * Registry ids are only valid between a client and a server that bootstrapped the same blocks in the same order.
+ */
+public class ChunkWireFormat {
+    public static final int VERSION = 1;
+    /**
+     * Smaller bodies are sent uncompressed since the deflate header would eat most of the gain
+     */
+    public static final int DEFLATE_THRESHOLD = 128;
+
+    public static final ChunkWireFormat RAW = new ChunkWireFormat(false);
+    public static final ChunkWireFormat DEFLATED = new ChunkWireFormat(true);
+
+    private static final int FLAG_DEFLATED = 1;
+
+    private static final byte BLOCKS_EMPTY = 0;
+    private static final byte BLOCKS_UNIFORM = 1;
+    private static final byte BLOCKS_PACKED = 2;
+    private static final byte BLOCKS_RUNS = 3;
+
+    private static final byte LIGHT_NONE = 0;
+    private static final byte LIGHT_UNIFORM = 1;
+    private static final byte LIGHT_RUNS = 2;
+
+    /**
+     * Buffers are reused per thread, chunks are encoded by the sending and decoded by the receiving network thread
+     */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private final boolean deflate;
+
+    public ChunkWireFormat(boolean deflate) {
+        this.deflate = deflate;
+    }
+
+    public void write(Kryo kryo, Output output, Chunk chunk, int originX, int originY, int originZ) {
+        Scratch scratch = SCRATCH.get();
+        Output body = scratch.body;
+        body.setPosition(0);
+        writeBlocks(body, chunk.getChunkBlockPalette(), scratch);
+        writeLight(body, chunk.getChunkLightData());
+        chunk.getHeightMap().write(kryo, body);
+        chunk.getDepthMap().write(kryo, body);
+
+        int length = body.position();
+        int compressedLength = deflate && length >= DEFLATE_THRESHOLD ? scratch.deflate(body.getBuffer(), length) : length;
+        boolean deflated = compressedLength < length;
+
+        output.writeByte(VERSION);
+        output.writeByte(deflated ? FLAG_DEFLATED : 0);
+        output.writeVarInt(chunk.getChunkX() - originX, false);
+        output.writeVarInt(chunk.getChunkY() - originY, false);
+        output.writeVarInt(chunk.getChunkZ() - originZ, false);
+        output.writeVarInt(length, true);
+        if (deflated) {
+            output.writeVarInt(compressedLength, true);
+            output.writeBytes(scratch.compressed, 0, compressedLength);
+        } else {
+            output.writeBytes(body.getBuffer(), 0, length);
+        }
+    }
+
+    /**
+     * Reads a chunk written by {@link #write(Kryo, Output, Chunk, int, int, int)}.
+     * If world is null, the chunk is skipped and null is returned.
+     */
+    public Chunk read(Kryo kryo, Input input, World world, int originX, int originY, int originZ) {
+        int version = input.readByte() & 0xFF;
+        if (version != VERSION) {
+            throw new KryoException("Unsupported chunk wire format version " + version);
+        }
+        int flags = input.readByte();
+        int chunkX = originX + input.readVarInt(false);
+        int chunkY = originY + input.readVarInt(false);
+        int chunkZ = originZ + input.readVarInt(false);
+        int length = input.readVarInt(true);
+        boolean deflated = (flags & FLAG_DEFLATED) != 0;
+        int compressedLength = deflated ? input.readVarInt(true) : length;
+
+        if (world == null) {
+            input.skip(compressedLength);
+            return null;
+        }
+
+        Scratch scratch = SCRATCH.get();
+        Input body = deflated ? scratch.inflate(input, compressedLength, length) : input;
+
+        Chunk chunk = new ChunkBase(world, chunkX, chunkY, chunkZ);
+        readBlocks(body, chunk.getChunkBlockPalette(), scratch);
+        readLight(body, chunk.getChunkLightData(), chunk.getSizeX() * chunk.getSizeY() * chunk.getSizeZ());
+        chunk.getHeightMap().readAndUpdate(kryo, body);
+        chunk.getDepthMap().readAndUpdate(kryo, body);
+        chunk.init();
+        return chunk;
+    }
+
+    private static void writeBlocks(Output out, ChunkBlockPalette palette, Scratch scratch) {
+        PaletteStrategy<BlockBase> strategy = palette.getStrategy();
+        if (strategy instanceof PaletteStrategy.Uniform<BlockBase> uniform) {
+            out.writeByte(BLOCKS_UNIFORM);
+            out.writeVarInt(uniform.getUniformValue().getPaletteID(), true);
+            return;
+        }
+        if (!(strategy instanceof PaletteStrategy.Paletted<BlockBase> paletted)) {
+            out.writeByte(BLOCKS_EMPTY);
+            return;
+        }
+
+        // Map the storage ids to a dense table of the blocks actually used, the default value always keeps id 0
+        int total = paletted.getTotalSize();
+        int[] ids = scratch.ids(total);
+        paletted.getStorage().unpack(ids);
+        int[] remap = scratch.remap(paletted.getPaletteSize());
+        List<BlockBase> entries = scratch.entries;
+        entries.clear();
+        entries.add(palette.getDefaultValue());
+        remap[0] = 0;
+        for (int i = 0; i < total; i++) {
+            int id = ids[i];
+            int wireId = remap[id];
+            if (wireId < 0) {
+                wireId = entries.size();
+                remap[id] = wireId;
+                entries.add(paletted.idToBlock(id));
+            }
+            ids[i] = wireId;
+        }
+
+        int bits = PaletteStorage.computeRequiredBitsPerEntry(entries.size());
+        int packedBytes = (total * bits + 7) >>> 3;
+        boolean useRuns = runLengthBytes(ids, total, packedBytes) < packedBytes;
+
+        out.writeByte(useRuns ? BLOCKS_RUNS : BLOCKS_PACKED);
+        out.writeVarInt(entries.size(), true);
+        for (BlockBase entry : entries) {
+            out.writeVarInt(entry.getPaletteID(), true);
+        }
+        if (useRuns) {
+            for (int i = 0; i < total; ) {
+                int end = runEnd(ids, i, total);
+                out.writeVarInt(end - i, true);
+                out.writeVarInt(ids[i], true);
+                i = end;
+            }
+        } else {
+            writePacked(out, ids, total, bits);
+        }
+    }
+
+    private static void readBlocks(Input in, ChunkBlockPalette palette, Scratch scratch) {
+        byte mode = in.readByte();
+        switch (mode) {
+            case BLOCKS_EMPTY -> palette.setStrategy(new PaletteStrategy.Empty<>(), ThreeDimensionalPalette.State.EMPTY);
+            case BLOCKS_UNIFORM -> {
+                BlockBase block = palette.getPaletteIDMapper().byID(in.readVarInt(true));
+                palette.setStrategy(new PaletteStrategy.Uniform<>(block), ThreeDimensionalPalette.State.UNIFORM);
+            }
+            case BLOCKS_PACKED, BLOCKS_RUNS -> {
+                int size = in.readVarInt(true);
+                List<BlockBase> entries = new ObjectArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    entries.add(palette.getPaletteIDMapper().byID(in.readVarInt(true)));
+                }
+
+                int total = palette.getSizeX() * palette.getSizeY() * palette.getSizeZ();
+                int[] ids = scratch.ids(total);
+                if (mode == BLOCKS_RUNS) {
+                    for (int i = 0; i < total; ) {
+                        int run = in.readVarInt(true);
+                        int id = in.readVarInt(true);
+                        if (run <= 0 || run > total - i || id >= size) {
+                            throw new KryoException("Corrupt block runs in chunk data");
+                        }
+                        Arrays.fill(ids, i, i + run, id);
+                        i += run;
+                    }
+                } else {
+                    readPacked(in, ids, total, PaletteStorage.computeRequiredBitsPerEntry(size), size, scratch);
+                }
+                palette.setStrategy(PaletteStrategy.Paletted.fromIds(palette, entries, ids), ThreeDimensionalPalette.State.PALETTED);
+            }
+            default -> throw new KryoException("Unknown block encoding " + mode + " in chunk data");
+        }
+    }
+
+    private static void writeLight(Output out, ChunkLightData light) {
+        switch (light.getState()) {
+            case UNINITIALIZED -> out.writeByte(LIGHT_NONE);
+            case UNIFORM -> {
+                out.writeByte(LIGHT_UNIFORM);
+                out.writeShort(light.getUniformPacked());
+            }
+            case DETAILED -> {
+                out.writeByte(LIGHT_RUNS);
+                short[] data = light.getData();
+                int previous = 0;
+                for (int i = 0; i < data.length; ) {
+                    int end = i + 1;
+                    while (end < data.length && data[end] == data[i]) {
+                        end++;
+                    }
+                    out.writeVarInt(end - i, true);
+                    out.writeVarInt(data[i] - previous, false);
+                    previous = data[i];
+                    i = end;
+                }
+            }
+        }
+    }
+
+    private static void readLight(Input in, ChunkLightData light, int total) {
+        byte mode = in.readByte();
+        switch (mode) {
+            case LIGHT_NONE -> {
+            }
+            case LIGHT_UNIFORM -> light.setUniform(in.readShort());
+            case LIGHT_RUNS -> {
+                short[] data = new short[total];
+                int previous = 0;
+                for (int i = 0; i < total; ) {
+                    int run = in.readVarInt(true);
+                    if (run <= 0 || run > total - i) {
+                        throw new KryoException("Corrupt light runs in chunk data");
+                    }
+                    previous = (short) (previous + in.readVarInt(false));
+                    Arrays.fill(data, i, i + run, (short) previous);
+                    i += run;
+                }
+                light.setDetailed(data);
+            }
+            default -> throw new KryoException("Unknown light encoding " + mode + " in chunk data");
+        }
+    }
+
+    /**
+     * Size of the run-length encoding, stops counting as soon as limit is reached
+     */
+    private static int runLengthBytes(int[] ids, int total, int limit) {
+        int bytes = 0;
+        for (int i = 0; i < total && bytes < limit; ) {
+            int end = runEnd(ids, i, total);
+            bytes += varIntLength(end - i) + varIntLength(ids[i]);
+            i = end;
+        }
+        return bytes;
+    }
+
+    private static int runEnd(int[] ids, int start, int total) {
+        int end = start + 1;
+        while (end < total && ids[end] == ids[start]) {
+            end++;
+        }
+        return end;
+    }
+
+    private static int varIntLength(int value) {
+        return value >>> 7 == 0 ? 1 : value >>> 14 == 0 ? 2 : value >>> 21 == 0 ? 3 : value >>> 28 == 0 ? 4 : 5;
+    }
+
+    /**
+     * Little-endian bit stream, the same layout as the palette storages use
+     */
+    private static void writePacked(Output out, int[] ids, int total, int bits) {
+        long buffer = 0;
+        int buffered = 0;
+        for (int i = 0; i < total; i++) {
+            buffer |= (long) ids[i] << buffered;
+            buffered += bits;
+            while (buffered >= 8) {
+                out.writeByte((byte) buffer);
+                buffer >>>= 8;
+                buffered -= 8;
+            }
+        }
+        if (buffered > 0) {
+            out.writeByte((byte) buffer);
+        }
+    }
+
+    private static void readPacked(Input in, int[] ids, int total, int bits, int paletteSize, Scratch scratch) {
+        int length = (total * bits + 7) >>> 3;
+        byte[] bytes = scratch.compressed(length);
+        in.readBytes(bytes, 0, length);
+
+        long mask = (1L << bits) - 1;
+        long buffer = 0;
+        int buffered = 0;
+        int pos = 0;
+        for (int i = 0; i < total; i++) {
+            while (buffered < bits) {
+                buffer |= (long) (bytes[pos++] & 0xFF) << buffered;
+                buffered += 8;
+            }
+            int id = (int) (buffer & mask);
+            if (id >= paletteSize) {
+                throw new KryoException("Corrupt block indices in chunk data");
+            }
+            ids[i] = id;
+            buffer >>>= bits;
+            buffered -= bits;
+        }
+    }
+
+    private static class Scratch {
+        private final Output body = new Output(8192, -1);
+        private final Input bodyInput = new Input();
+        private final List<BlockBase> entries = new ObjectArrayList<>();
+        // Deflater and inflater live as long as the thread, so their native state is not created per chunk
+        private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        private final Inflater inflater = new Inflater();
+        private int[] ids = new int[0];
+        private int[] remap = new int[0];
+        private byte[] compressed = new byte[0];
+        private byte[] inflated = new byte[0];
+
+        int[] ids(int size) {
+            if (ids.length < size) {
+                ids = new int[size];
+            }
+            return ids;
+        }
+
+        /**
+         * Returns an array of at least size entries, the first size of them set to -1
+         */
+        int[] remap(int size) {
+            if (remap.length < size) {
+                remap = new int[size];
+            }
+            Arrays.fill(remap, 0, size, -1);
+            return remap;
+        }
+
+        byte[] compressed(int size) {
+            if (compressed.length < size) {
+                compressed = new byte[size];
+            }
+            return compressed;
+        }
+
+        /**
+         * Deflates data into {@link #compressed}. Returns length if the result would not be smaller.
+         */
+        int deflate(byte[] data, int length) {
+            compressed(length);
+            deflater.reset();
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            int size = deflater.deflate(compressed, 0, length);
+            return deflater.finished() ? size : length;
+        }
+
+        Input inflate(Input input, int compressedLength, int length) {
+            input.readBytes(compressed(compressedLength), 0, compressedLength);
+            if (inflated.length < length) {
+                inflated = new byte[length];
+            }
+            inflater.reset();
+            inflater.setInput(compressed, 0, compressedLength);
+            try {
+                int size = 0;
+                while (size < length && !inflater.finished()) {
+                    int read = inflater.inflate(inflated, size, length - size);
+                    if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    size += read;
+                }
+                if (size != length) {
+                    throw new KryoException("Deflated chunk data is truncated");
+                }
+            } catch (DataFormatException e) {
+                throw new KryoException("Corrupt deflated chunk data", e);
+            }
+            bodyInput.setBuffer(inflated, 0, length);
+            return bodyInput;
+        }
+    }
+}
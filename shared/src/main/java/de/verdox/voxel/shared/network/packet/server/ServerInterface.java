@@ -1,8 +1,10 @@
 package de.verdox.voxel.shared.network.packet.server;
 
 import de.verdox.voxel.shared.network.packet.NetworkInterface;
+import de.verdox.voxel.shared.network.packet.client.ClientInputPacket;
 import de.verdox.voxel.shared.network.packet.client.ClientInterface;
 import de.verdox.voxel.shared.network.packet.client.ClientRequestChunkPacket;
+import de.verdox.voxel.shared.network.packet.client.ClientRequestChunksPacket;
 
 import java.util.logging.Logger;
 
@@ -11,6 +13,8 @@ public interface ServerInterface extends NetworkInterface {
 
     void onConnect(int connectionId);
 
+    void onDisconnect(int connectionId);
+
     <PACKET> void sendToPlayer(PACKET packet, int connectionId);
 
     <PACKET> void sendToPlayer(PACKET packet, int... connectionIDs);
@@ -20,6 +24,10 @@ public interface ServerInterface extends NetworkInterface {
     default <PACKET> void receive(PACKET packet, int connectionId) {
         if (packet instanceof ClientRequestChunkPacket p) {
             receive(p, connectionId);
+        } else if (packet instanceof ClientRequestChunksPacket p) {
+            receive(p, connectionId);
+        } else if (packet instanceof ClientInputPacket p) {
+            receive(p, connectionId);
         } else {
             LOGGER.warning("Received an unknown packet " + packet.getClass().getSimpleName() + " from " + connectionId);
             return;
@@ -28,4 +36,13 @@ public interface ServerInterface extends NetworkInterface {
     }
 
     void receive(ClientRequestChunkPacket clientRequestChunkPacket, int connectionId);
+
+    void receive(ClientRequestChunksPacket clientRequestChunksPacket, int connectionId);
+
+    /**
+     * Players still move on the client, the server learns their position from the chunk requests.
+     * Inputs are accepted so clients may already send them.
+     */
+    default void receive(ClientInputPacket clientInputPacket, int connectionId) {
+    }
 }
@@ -0,0 +1,101 @@
+package de.verdox.voxel.shared.network.packet.server.level.chunk;
+
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.util.Direction;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * The block changes of one chunk during one server tick. Filled boxes are applied first, then the single block changes,
+ * see {@link de.verdox.voxel.shared.network.packet.serializer.BlockDeltaSerializer} for the wire format.
+ */
+@Getter
+public class ServerBlockDeltaPacket {
+    public UUID world;
+    public int chunkX;
+    public int chunkY;
+    public int chunkZ;
+    /**
+     * Six bytes per box: minX, minY, minZ, maxX, maxY, maxZ (all inclusive)
+     */
+    public byte[] boxes;
+    public BlockBase[] boxBlocks;
+    /**
+     * Local indices x + sizeX * (y + sizeY * z) of the single block changes
+     */
+    public int[] indices;
+    public BlockBase[] blocks;
+
+    public ServerBlockDeltaPacket() {
+    }
+
+    public ServerBlockDeltaPacket(UUID world, int chunkX, int chunkY, int chunkZ, byte[] boxes, BlockBase[] boxBlocks, int[] indices, BlockBase[] blocks) {
+        this.world = world;
+        this.chunkX = chunkX;
+        this.chunkY = chunkY;
+        this.chunkZ = chunkZ;
+        this.boxes = boxes;
+        this.boxBlocks = boxBlocks;
+        this.indices = indices;
+        this.blocks = blocks;
+    }
+
+    public int boxCount() {
+        return boxBlocks.length;
+    }
+
+    public int changeCount() {
+        return blocks.length;
+    }
+
+    /**
+     * Applies all changes to the chunk. The chunk notifies its delegates as with any other block change.
+     */
+    public void applyTo(Chunk chunk) {
+        for (int i = 0; i < boxBlocks.length; i++) {
+            int offset = i * 6;
+            chunk.fillBox(boxBlocks[i], boxes[offset], boxes[offset + 1], boxes[offset + 2], boxes[offset + 3], boxes[offset + 4], boxes[offset + 5]);
+        }
+        int sizeX = chunk.getSizeX();
+        int sizeY = chunk.getSizeY();
+        for (int i = 0; i < blocks.length; i++) {
+            int index = indices[i];
+            chunk.setBlockAt(blocks[i], index % sizeX, (index / sizeX) % sizeY, index / (sizeX * sizeY));
+        }
+    }
+
+    /**
+     * Sides of the chunk that a change lies on. The neighbors across these sides cull their border faces against this chunk.
+     *
+     * @return bit mask of the {@link Direction#getId()} of the touched sides
+     */
+    public int getTouchedSides(Chunk chunk) {
+        int sizeX = chunk.getSizeX();
+        int sizeY = chunk.getSizeY();
+        int sizeZ = chunk.getSizeZ();
+        int sides = 0;
+        for (int i = 0; i < boxBlocks.length; i++) {
+            int offset = i * 6;
+            sides |= touchedSides(boxes[offset], boxes[offset + 1], boxes[offset + 2], boxes[offset + 3], boxes[offset + 4], boxes[offset + 5], sizeX, sizeY, sizeZ);
+        }
+        for (int i = 0; i < blocks.length; i++) {
+            int index = indices[i];
+            int x = index % sizeX, y = (index / sizeX) % sizeY, z = index / (sizeX * sizeY);
+            sides |= touchedSides(x, y, z, x, y, z, sizeX, sizeY, sizeZ);
+        }
+        return sides;
+    }
+
+    private static int touchedSides(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int sizeX, int sizeY, int sizeZ) {
+        int sides = 0;
+        if (minX == 0) sides |= 1 << Direction.WEST.getId();
+        if (maxX == sizeX - 1) sides |= 1 << Direction.EAST.getId();
+        if (minY == 0) sides |= 1 << Direction.DOWN.getId();
+        if (maxY == sizeY - 1) sides |= 1 << Direction.UP.getId();
+        if (minZ == 0) sides |= 1 << Direction.NORTH.getId();
+        if (maxZ == sizeZ - 1) sides |= 1 << Direction.SOUTH.getId();
+        return sides;
+    }
+}
@@ -0,0 +1,35 @@
+package de.verdox.voxel.shared.network.packet.server.level.chunk;
+
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Several chunks of one world in one packet. The coordinates are encoded relative to the first chunk,
+ * see {@link de.verdox.voxel.shared.network.packet.serializer.ChunkBatchSerializer}.
+ */
+@Getter
+public class ServerChunkBatchPacket {
+    public UUID world;
+    public List<Chunk> chunks;
+
+    public ServerChunkBatchPacket() {
+        this.chunks = new ObjectArrayList<>();
+    }
+
+    public ServerChunkBatchPacket(UUID world) {
+        this();
+        this.world = world;
+    }
+
+    public void add(Chunk chunk) {
+        chunks.add(chunk);
+    }
+
+    public int size() {
+        return chunks.size();
+    }
+}
@@ -1,5 +1,7 @@
 package de.verdox.voxel.shared.util;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -16,4 +18,17 @@ public class ThreadUtil {
             }
         };
     }
+
+    public static ForkJoinPool.ForkJoinWorkerThreadFactory createForkJoinFactoryForName(String name) {
+        return new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            private final AtomicInteger idx = new AtomicInteger(1);
+
+            @Override
+            public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                t.setName(name + " - " + idx.getAndIncrement());
+                return t;
+            }
+        };
+    }
 }
@@ -0,0 +1,55 @@
+package de.verdox.voxel.shared.util.concurrent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Duration and lag of a task that runs at a fixed rate on a single thread, like the ticks of a scheduled executor.
+ * The lag is how far a tick started after its planned start. The stats are collected on the ticking thread and polled from any other.
+ */
+public class TickTimings {
+    private final long intervalNanos;
+    private long plannedStartNanos;
+    private long tickStartNanos;
+    private final AtomicLong tickCount = new AtomicLong();
+    private final AtomicLong maxTickNanos = new AtomicLong();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+
+    public TickTimings(long interval, TimeUnit unit) {
+        this.intervalNanos = unit.toNanos(interval);
+    }
+
+    /**
+     * Called right before the task is scheduled with the same initial delay
+     */
+    public void start(long initialDelay, TimeUnit unit) {
+        plannedStartNanos = System.nanoTime() + unit.toNanos(initialDelay);
+    }
+
+    public void beginTick() {
+        tickStartNanos = System.nanoTime();
+        maxLagNanos.accumulateAndGet(Math.max(0, tickStartNanos - plannedStartNanos), Math::max);
+        // Wie bei scheduleAtFixedRate hängt der Plan nicht davon ab, wann der letzte Tick tatsächlich lief
+        plannedStartNanos += intervalNanos;
+    }
+
+    public void endTick() {
+        maxTickNanos.accumulateAndGet(System.nanoTime() - tickStartNanos, Math::max);
+        tickCount.incrementAndGet();
+    }
+
+    /**
+     * Returns the stats since the last call and starts collecting new ones.
+     */
+    public Stats poll() {
+        return new Stats(tickCount.get(), maxTickNanos.getAndSet(0), maxLagNanos.getAndSet(0));
+    }
+
+    /**
+     * @param tickCount    ticks executed since the start
+     * @param maxTickNanos the longest tick since the last poll
+     * @param maxLagNanos  how far a tick started after its planned start at most since the last poll
+     */
+    public record Stats(long tickCount, long maxTickNanos, long maxLagNanos) {
+    }
+}
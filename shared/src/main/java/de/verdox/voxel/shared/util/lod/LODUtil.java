@@ -15,6 +15,10 @@ public class LODUtil {
         return (int) Math.floor(Math.log(minSize) / Math.log(2));
     }
 
+    /**
+     * Level of detail of a region by its distance to the region of the camera. Level n starts at 2^n times the base distance,
+     * the view distance divided by the maximum level.
+     */
     public static int computeLodLevel(
             RegionBounds bounds,
             int viewDistanceChunksX, int viewDistanceChunksY, int viewDistanceChunksZ,
@@ -23,29 +27,66 @@ public class LODUtil {
             int targetRegionX, int targetRegionY, int targetRegionZ,
             int maxLOD
     ) {
+        if (maxLOD <= 0) {
+            return 0;
+        }
         int regionSizeX = bounds.regionSizeX() * chunkSizeX;
         int regionSizeY = bounds.regionSizeY() * chunkSizeY;
         int regionSizeZ = bounds.regionSizeZ() * chunkSizeZ;
 
-        int dx = (targetRegionX - centerRegionX) * regionSizeX;
-        int dy = (targetRegionY - centerRegionY) * regionSizeY;
-        int dz = (targetRegionZ - centerRegionZ) * regionSizeZ;
+        long dx = (long) (targetRegionX - centerRegionX) * regionSizeX;
+        long dy = (long) (targetRegionY - centerRegionY) * regionSizeY;
+        long dz = (long) (targetRegionZ - centerRegionZ) * regionSizeZ;
 
-        int distanceSquared = dx * dx + dy * dy + dz * dz;
+        long baseDistance = computeBaseDistance(viewDistanceChunksX, viewDistanceChunksY, viewDistanceChunksZ, chunkSizeX, chunkSizeY, chunkSizeZ, maxLOD);
+        return toLodLevel(computeExactLod(dx * dx + dy * dy + dz * dz, baseDistance), maxLOD);
+    }
 
-        int baseDistanceX = viewDistanceChunksX * chunkSizeX / maxLOD;
-        int baseDistanceY = viewDistanceChunksY * chunkSizeY / maxLOD;
-        int baseDistanceZ = viewDistanceChunksZ * chunkSizeZ / maxLOD;
+    /**
+     * Level of detail of a region by the distance of the camera chunk to the nearest chunk of the region, not rounded to a level.
+     * Moving the camera by one chunk only moves the result a little, so a hysteresis on it keeps jitter from flipping levels.
+     */
+    public static double computeExactLod(
+            RegionBounds bounds,
+            int viewDistanceChunksX, int viewDistanceChunksY, int viewDistanceChunksZ,
+            int chunkSizeX, int chunkSizeY, int chunkSizeZ,
+            int centerChunkX, int centerChunkY, int centerChunkZ,
+            int targetRegionX, int targetRegionY, int targetRegionZ,
+            int maxLOD
+    ) {
+        if (maxLOD <= 0) {
+            return 0;
+        }
+        long dx = (long) distanceToRange(centerChunkX, bounds.getMinChunkX(targetRegionX), bounds.getMaxChunkX(targetRegionX)) * chunkSizeX;
+        long dy = (long) distanceToRange(centerChunkY, bounds.getMinChunkY(targetRegionY), bounds.getMaxChunkY(targetRegionY)) * chunkSizeY;
+        long dz = (long) distanceToRange(centerChunkZ, bounds.getMinChunkZ(targetRegionZ), bounds.getMaxChunkZ(targetRegionZ)) * chunkSizeZ;
 
-        int baseDistance = Math.max(baseDistanceX, Math.max(baseDistanceY, baseDistanceZ));
+        long baseDistance = computeBaseDistance(viewDistanceChunksX, viewDistanceChunksY, viewDistanceChunksZ, chunkSizeX, chunkSizeY, chunkSizeZ, maxLOD);
+        return computeExactLod(dx * dx + dy * dy + dz * dz, baseDistance);
+    }
 
-        if (distanceSquared < 1)
+    /**
+     * log2 of the distance in base distances, 0 for everything closer than the base distance
+     */
+    public static double computeExactLod(long distanceSquared, long baseDistance) {
+        if (distanceSquared < 1) {
             return 0;
+        }
+        return Math.max(0, 0.5 * Math.log(distanceSquared / (double) (baseDistance * baseDistance)) / LOG_2);
+    }
+
+    public static int toLodLevel(double exactLod, int maxLOD) {
+        return Math.clamp((long) Math.floor(exactLod), 0, Math.max(0, maxLOD));
+    }
 
-        double lodExact = 0.5 * Math.log(distanceSquared / (double) (baseDistance * baseDistance)) / LOG_2;
-        int lod = (int) Math.floor(lodExact);
+    private static long computeBaseDistance(int viewDistanceChunksX, int viewDistanceChunksY, int viewDistanceChunksZ, int chunkSizeX, int chunkSizeY, int chunkSizeZ, int maxLOD) {
+        int baseDistanceX = viewDistanceChunksX * chunkSizeX / maxLOD;
+        int baseDistanceY = viewDistanceChunksY * chunkSizeY / maxLOD;
+        int baseDistanceZ = viewDistanceChunksZ * chunkSizeZ / maxLOD;
+        return Math.max(1, Math.max(baseDistanceX, Math.max(baseDistanceY, baseDistanceZ)));
+    }
 
-        //return MathUtils.clamp(lod, 0, maxLOD);
-        return 0;
+    private static int distanceToRange(int value, int min, int max) {
+        return value < min ? min - value : value > max ? value - max : 0;
     }
 }
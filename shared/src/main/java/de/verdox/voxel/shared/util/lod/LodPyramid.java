@@ -2,82 +2,98 @@ package de.verdox.voxel.shared.util.lod;
 
 import de.verdox.voxel.shared.level.chunk.Box;
 
-import java.util.BitSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
+/**
+ * Downsampled copies of a block grid for the levels of detail 1 to {@link #levels()}. A cell of level n covers 2^n blocks per axis.
+ * <p>
+ * Every cell counts its occupied blocks. With {@link Fold#MAJORITY} a cell is occupied if more than half of its blocks are, with
+ * {@link Fold#ANY} the occupancy is OR-folded and a cell is occupied as soon as one of its blocks is, so thin walls and single blocks
+ * do not vanish in the distance. Every cell with an occupied block also carries the most prominent occupied id, voted from the
+ * 2x2x2 cells of the level below and weighted by their occupied counts.
+ * <p>
+ * Not thread safe, changes have to come from one thread at a time.
+ */
 public final class LodPyramid implements Box {
+    public enum Fold {
+        /**
+         * Occupied if more than half of the blocks of the cell are occupied
+         */
+        MAJORITY,
+        /**
+         * Occupied if any block of the cell is occupied
+         */
+        ANY
+    }
+
     private final class Level {
         final int[] volumes;   // Zellvolumen (Randzellen kleiner)
         final int[] counts;    // Anzahl "belegt" in Zelle
-        final BitSet occupied; // >50%
+        final int[] prominent; // häufigste belegte ID, emptyId wenn counts == 0
+        final BitSet occupied;
 
         private final byte level;
+        private final int step;
+        private final int sizeX, sizeY, sizeZ;
 
         Level(int lodLevel) {
             this.level = (byte) lodLevel;
-            int size = getSize(getStep());
+            this.step = LODUtil.getLodScale(lodLevel);
+            this.sizeX = ceilDiv(getSizeX(), step);
+            this.sizeY = ceilDiv(getSizeY(), step);
+            this.sizeZ = ceilDiv(getSizeZ(), step);
+            int size = sizeX * sizeY * sizeZ;
             this.volumes = new int[size];
             this.counts = new int[size];
+            this.prominent = new int[size];
             this.occupied = new BitSet(size);
         }
 
         int index(int lx, int ly, int lz) {
-            int step = getStep();
-
-            return lx + getLevelSizeX(step) * (ly + getLevelSizeY(step) * lz);
-        }
-
-        private int getStep() {
-            return LODUtil.getLodScale(level);
-        }
-
-        private int getLevelSizeX(int step) {
-            return ceilDiv(getSizeX(), step);
-        }
-
-        private int getLevelSizeY(int step) {
-            return ceilDiv(getSizeY(), step);
-        }
-
-        private int getLevelSizeZ(int step) {
-            return ceilDiv(getSizeZ(), step);
-        }
-
-        private int getSize(int step) {
-            return getLevelSizeX(step) * getLevelSizeY(step) * getLevelSizeZ(step);
+            return lx + sizeX * (ly + sizeY * lz);
         }
 
-        private int getLevelSizeX() {
-            return getLevelSizeX(getStep());
+        boolean contains(int lx, int ly, int lz) {
+            return lx >= 0 && ly >= 0 && lz >= 0 && lx < sizeX && ly < sizeY && lz < sizeZ;
         }
 
-        private int getLevelSizeY() {
-            return getLevelSizeY(getStep());
+        int size() {
+            return volumes.length;
         }
 
-        private int getLevelSizeZ() {
-            return getLevelSizeZ(getStep());
-        }
-
-        private int getSize() {
-            return getSize(getStep());
+        boolean isOccupiedCount(int count, int volume) {
+            return fold == Fold.ANY ? count > 0 : count > (volume >> 1);
         }
     }
 
     private final GridDim baseDim;
     private final int maxLevel;
+    private final Fold fold;
     private final OccupancyFn occ;
-    private final int lodBlockId; // ID, die zurückgegeben wird, wenn occupied (oder -1, wenn uninteressant)
+    private final IntIdReader source;
+    private final int emptyId; // ID für unbelegte Zellen
 
     private final List<Level> levels;
 
-    public LodPyramid(GridDim baseDim, int maxLevel, OccupancyFn occupancyFn, int lodBlockId) {
+    // Wahlzettel für höchstens acht Kinder, wiederverwendet weil Änderungen nur aus einem Thread kommen
+    private final int[] voteIds = new int[8];
+    private final int[] voteWeights = new int[8];
+
+    /**
+     * @param source  reads the id of a base block, also used by {@link #onCellChange} to re-read the changed cell
+     * @param emptyId the id of cells without an occupied block, usually air
+     */
+    public LodPyramid(GridDim baseDim, int maxLevel, Fold fold, OccupancyFn occupancyFn, IntIdReader source, int emptyId) {
         if (maxLevel < 1) throw new IllegalArgumentException("maxLevel must be >= 1");
         this.baseDim = baseDim;
         this.maxLevel = maxLevel;
+        this.fold = fold;
         this.occ = occupancyFn;
-        this.lodBlockId = lodBlockId;
+        this.source = source;
+        this.emptyId = emptyId;
         this.levels = new ArrayList<>(maxLevel);
         buildLevelDescriptors();
     }
@@ -101,26 +117,20 @@ public final class LodPyramid implements Box {
         final int X = baseDim.sx(), Y = baseDim.sy(), Z = baseDim.sz();
         for (int level = 1; level <= maxLevel; level++) {
             Level lodLevelStorage = new Level(level);
-
-            final int step = lodLevelStorage.getStep();
-            final int sx = lodLevelStorage.getLevelSizeX(step);
-            final int sy = lodLevelStorage.getLevelSizeY(step);
-            final int sz = lodLevelStorage.getLevelSizeZ(step);
+            final int step = lodLevelStorage.step;
 
             // Volumina je Zelle (Rand beachten)
-            for (int lz = 0; lz < sz; lz++) {
-                final int z0 = lz << level;
-                final int dz = Math.min(step, Z - z0);
-                for (int ly = 0; ly < sy; ly++) {
-                    final int y0 = ly << level;
-                    final int dy = Math.min(step, Y - y0);
-                    for (int lx = 0; lx < sx; lx++) {
-                        final int x0 = lx << level;
-                        final int dx = Math.min(step, X - x0);
+            for (int lz = 0; lz < lodLevelStorage.sizeZ; lz++) {
+                final int dz = Math.min(step, Z - (lz << level));
+                for (int ly = 0; ly < lodLevelStorage.sizeY; ly++) {
+                    final int dy = Math.min(step, Y - (ly << level));
+                    for (int lx = 0; lx < lodLevelStorage.sizeX; lx++) {
+                        final int dx = Math.min(step, X - (lx << level));
                         lodLevelStorage.volumes[lodLevelStorage.index(lx, ly, lz)] = dx * dy * dz;
                     }
                 }
             }
+            Arrays.fill(lodLevelStorage.prominent, emptyId);
             levels.add(lodLevelStorage);
         }
     }
@@ -132,86 +142,208 @@ public final class LodPyramid implements Box {
     /**
      * Einmaliger Aufbau aus der Quelle.
      */
-    public void rebuildFromSource(IntIdReader src) {
-        // Counts leeren
+    public void rebuildFromSource() {
         for (Level L : levels) {
-            java.util.Arrays.fill(L.counts, 0);
+            Arrays.fill(L.counts, 0);
+            Arrays.fill(L.prominent, emptyId);
             L.occupied.clear();
         }
 
-        final int X = baseDim.sx(), Y = baseDim.sy(), Z = baseDim.sz();
-        for (int z = 0; z < Z; z++) {
-            for (int y = 0; y < Y; y++) {
-                for (int x = 0; x < X; x++) {
-                    final int id = src.readId(x, y, z);
-                    if (!occ.test(id)) continue;
-
-                    // Inkrementiere alle Level-Zellen, die (x,y,z) enthalten
-                    for (Level L : levels) {
-                        final int lx = x >> L.level;
-                        final int ly = y >> L.level;
-                        final int lz = z >> L.level;
-                        final int li = L.index(lx, ly, lz);
-                        L.counts[li]++;
-                    }
+        // Level 1 direkt aus den Blöcken, alle weiteren aus ihren Kindern
+        Level first = levels.getFirst();
+        for (int lz = 0; lz < first.sizeZ; lz++) {
+            for (int ly = 0; ly < first.sizeY; ly++) {
+                for (int lx = 0; lx < first.sizeX; lx++) {
+                    recountFromSource(first, lx, ly, lz);
                 }
             }
         }
-
-        // Occupancy aus counts ableiten (>50%)
-        for (Level L : levels) {
-            final int n = L.getSize();
-            for (int i = 0; i < n; i++) {
-                final boolean occ = L.counts[i] > (L.volumes[i] >> 1);
-                if (occ) L.occupied.set(i);
+        for (int level = 2; level <= maxLevel; level++) {
+            Level L = levels.get(level - 1);
+            for (int lz = 0; lz < L.sizeZ; lz++) {
+                for (int ly = 0; ly < L.sizeY; ly++) {
+                    for (int lx = 0; lx < L.sizeX; lx++) {
+                        int li = L.index(lx, ly, lz);
+                        L.counts[li] = sumChildCounts(level, lx, ly, lz);
+                        L.prominent[li] = voteFromChildren(level, lx, ly, lz);
+                        L.occupied.set(li, L.isOccupiedCount(L.counts[li], L.volumes[li]));
+                    }
+                }
             }
         }
     }
 
     /**
-     * Inkrementelles Update einer Zelle (alter → neuer ID).
+     * Inkrementelles Update nach der Änderung einer Zelle. The source has to return the new id already.
+     * Only the 2x2x2 blocks of the level 1 cell are read again, every level above is updated from its children.
+     *
+     * @return bit {@code level - 1} is set for every level whose {@link #getLodIdOrDefault} changed at this position
      */
-    public void onCellChange(int x, int y, int z, int oldId, int newId) {
-        final boolean was = occ.test(oldId);
-        final boolean now = occ.test(newId);
-        if (was == now) return;
+    public int onCellChange(int x, int y, int z) {
+        int changedLevels = 0;
+
+        Level first = levels.getFirst();
+        int lx = x >> 1, ly = y >> 1, lz = z >> 1;
+        int li = first.index(lx, ly, lz);
+        int oldCount = first.counts[li];
+        int oldProminent = first.prominent[li];
+        int oldId = idOf(first, li);
+        recountFromSource(first, lx, ly, lz);
+        if (idOf(first, li) != oldId) {
+            changedLevels |= 1;
+        }
 
-        final int delta = now ? 1 : -1;
-        for (Level L : levels) {
-            final int lx = x >> L.level;
-            final int ly = y >> L.level;
-            final int lz = z >> L.level;
-            final int li = L.index(lx, ly, lz);
-
-            final int c = (L.counts[li] += delta);
-            final boolean prev = L.occupied.get(li);
-            final boolean cur = c > (L.volumes[li] >> 1);
-            if (prev != cur) {
-                if (cur) L.occupied.set(li);
-                else L.occupied.clear(li);
+        final int delta = first.counts[li] - oldCount;
+        boolean childChanged = delta != 0 || first.prominent[li] != oldProminent;
+        for (int level = 2; level <= maxLevel && childChanged; level++) {
+            Level L = levels.get(level - 1);
+            lx = x >> level;
+            ly = y >> level;
+            lz = z >> level;
+            li = L.index(lx, ly, lz);
+
+            oldProminent = L.prominent[li];
+            oldId = idOf(L, li);
+            L.counts[li] += delta;
+            L.prominent[li] = voteFromChildren(level, lx, ly, lz);
+            L.occupied.set(li, L.isOccupiedCount(L.counts[li], L.volumes[li]));
+            if (idOf(L, li) != oldId) {
+                changedLevels |= 1 << (level - 1);
             }
+            childChanged = delta != 0 || L.prominent[li] != oldProminent;
         }
+        return changedLevels;
     }
 
     public int levels() {
         return maxLevel;
     }
 
+    public int getLevelSizeX(int level) {
+        checkLevel(level);
+        return levels.get(level - 1).sizeX;
+    }
+
+    public int getLevelSizeY(int level) {
+        checkLevel(level);
+        return levels.get(level - 1).sizeY;
+    }
+
+    public int getLevelSizeZ(int level) {
+        checkLevel(level);
+        return levels.get(level - 1).sizeZ;
+    }
+
     public boolean isOccupied(int level, int lx, int ly, int lz) {
         checkLevel(level);
         Level L = levels.get(level - 1);
-        int step = L.getStep();
-        if ((lx | ly | lz) < 0 || lx >= L.getLevelSizeX(step) || ly >= L.getLevelSizeY(step) || lz >= L.getLevelSizeZ(step))
+        if (!L.contains(lx, ly, lz))
             return false;
         return L.occupied.get(L.index(lx, ly, lz));
     }
 
     /**
-     * Liefert entweder lodBlockId (falls occupied) oder 0 (Default).
+     * Amount of occupied blocks in the cell
+     */
+    public int getCount(int level, int lx, int ly, int lz) {
+        checkLevel(level);
+        Level L = levels.get(level - 1);
+        if (!L.contains(lx, ly, lz))
+            return 0;
+        return L.counts[L.index(lx, ly, lz)];
+    }
+
+    /**
+     * Liefert die häufigste belegte ID der Zelle, falls sie belegt ist, sonst die leere ID.
      */
     public int getLodIdOrDefault(int level, int lx, int ly, int lz) {
-        final boolean occ = isOccupied(level, lx, ly, lz);
-        return occ ? (lodBlockId >= 0 ? lodBlockId : 1) : 0; // falls -1: gib 1 als "belegt"-ID zurück
+        checkLevel(level);
+        Level L = levels.get(level - 1);
+        if (!L.contains(lx, ly, lz))
+            return emptyId;
+        return idOf(L, L.index(lx, ly, lz));
+    }
+
+    private int idOf(Level L, int li) {
+        return L.occupied.get(li) ? L.prominent[li] : emptyId;
+    }
+
+    /**
+     * Counts and votes a level 1 cell from its blocks
+     */
+    private void recountFromSource(Level first, int lx, int ly, int lz) {
+        int votes = 0;
+        int count = 0;
+        int maxX = Math.min((lx << 1) + 2, baseDim.sx());
+        int maxY = Math.min((ly << 1) + 2, baseDim.sy());
+        int maxZ = Math.min((lz << 1) + 2, baseDim.sz());
+        for (int z = lz << 1; z < maxZ; z++) {
+            for (int y = ly << 1; y < maxY; y++) {
+                for (int x = lx << 1; x < maxX; x++) {
+                    int id = source.readId(x, y, z);
+                    if (!occ.test(id)) continue;
+                    count++;
+                    votes = addVote(votes, id, 1);
+                }
+            }
+        }
+        int li = first.index(lx, ly, lz);
+        first.counts[li] = count;
+        first.prominent[li] = winner(votes);
+        first.occupied.set(li, first.isOccupiedCount(count, first.volumes[li]));
+    }
+
+    private int sumChildCounts(int level, int lx, int ly, int lz) {
+        Level child = levels.get(level - 2);
+        int sum = 0;
+        for (int i = 0; i < 8; i++) {
+            int cx = (lx << 1) + (i & 1), cy = (ly << 1) + ((i >> 1) & 1), cz = (lz << 1) + (i >> 2);
+            if (child.contains(cx, cy, cz)) {
+                sum += child.counts[child.index(cx, cy, cz)];
+            }
+        }
+        return sum;
+    }
+
+    private int voteFromChildren(int level, int lx, int ly, int lz) {
+        Level child = levels.get(level - 2);
+        int votes = 0;
+        for (int i = 0; i < 8; i++) {
+            int cx = (lx << 1) + (i & 1), cy = (ly << 1) + ((i >> 1) & 1), cz = (lz << 1) + (i >> 2);
+            if (!child.contains(cx, cy, cz)) continue;
+            int ci = child.index(cx, cy, cz);
+            if (child.counts[ci] > 0) {
+                votes = addVote(votes, child.prominent[ci], child.counts[ci]);
+            }
+        }
+        return winner(votes);
+    }
+
+    private int addVote(int votes, int id, int weight) {
+        for (int i = 0; i < votes; i++) {
+            if (voteIds[i] == id) {
+                voteWeights[i] += weight;
+                return votes;
+            }
+        }
+        voteIds[votes] = id;
+        voteWeights[votes] = weight;
+        return votes + 1;
+    }
+
+    /**
+     * Bei Gleichstand gewinnt die zuerst gezählte ID
+     */
+    private int winner(int votes) {
+        int best = emptyId;
+        int bestWeight = 0;
+        for (int i = 0; i < votes; i++) {
+            if (voteWeights[i] > bestWeight) {
+                best = voteIds[i];
+                bestWeight = voteWeights[i];
+            }
+        }
+        return best;
     }
 
     private void checkLevel(int level) {
@@ -220,4 +352,3 @@ public final class LodPyramid implements Box {
         }
     }
 }
-
@@ -27,7 +27,7 @@ public abstract class ThreeDimensionalPalette<T extends PaletteIDHolder> impleme
         this.strategy = switch (this.state) {
             case EMPTY -> new PaletteStrategy.Empty<>();
             case UNIFORM -> new PaletteStrategy.Uniform<>(null);
-            case PALETTED -> PaletteStrategy.Paletted.create(this);
+            case PALETTED -> PaletteStrategy.Paletted.createForRead(this, input);
         };
         strategy.read(kryo, input, this);
     }
@@ -61,6 +61,13 @@ public abstract class ThreeDimensionalPalette<T extends PaletteIDHolder> impleme
         strategy.set(x, y, z, block, this);
     }
 
+    /**
+     * Setzt alle Positionen der Box (Grenzen inklusive) auf block.
+     */
+    public void fillBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, T block) {
+        strategy.fillBox(minX, minY, minZ, maxX, maxY, maxZ, block, this);
+    }
+
     public void setStrategy(PaletteStrategy<T> strategy, State state) {
         this.strategy = strategy;
         this.state = state;
@@ -0,0 +1,421 @@
+package de.verdox.voxel.shared.util.palette.strategy;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Bulk-Operationen auf dicht gepackten Bit-Streams wie sie die {@link PaletteStorage}s verwenden.
+ * Eintrag i liegt ab Bit i * bits (Little Endian), egal ob das Backing ein byte[] oder long[] ist.
+ * Statt jeden Eintrag einzeln per Bit-Read/Write anzufassen wird immer ein ganzes 64-Bit-Wort geladen bzw. geschrieben.
+ */
+final class PackedBits {
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Die Vector API ist nur verfügbar, wenn die JVM mit --add-modules jdk.incubator.vector gestartet wurde.
+     */
+    static final boolean VECTOR_SUPPORT = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    private static final long[] FIELD_START_MASKS = new long[7];
+
+    static {
+        for (int log = 0; log < FIELD_START_MASKS.length; log++) {
+            int bits = 1 << log;
+            long mask = 0;
+            for (int i = 0; i < 64; i += bits) {
+                mask |= 1L << i;
+            }
+            FIELD_START_MASKS[log] = mask;
+        }
+    }
+
+    private PackedBits() {
+    }
+
+    static long mask(int bits) {
+        return bits >= 64 ? -1L : (1L << bits) - 1L;
+    }
+
+    static int wordCount(byte[] data) {
+        return (data.length + 7) >>> 3;
+    }
+
+    /**
+     * Liest 8 Bytes ab byteOffset als Little-Endian-Long. Bytes hinter dem Array-Ende werden als 0 gelesen.
+     */
+    static long longAt(byte[] data, int byteOffset) {
+        if (byteOffset + 8 <= data.length) {
+            return (long) LONG_LE.get(data, byteOffset);
+        }
+        long word = 0;
+        for (int i = 0; byteOffset + i < data.length; i++) {
+            word |= (data[byteOffset + i] & 0xFFL) << (i << 3);
+        }
+        return word;
+    }
+
+    /**
+     * Schreibt 8 Bytes ab byteOffset. Bytes hinter dem Array-Ende werden verworfen.
+     */
+    static void setLongAt(byte[] data, int byteOffset, long word) {
+        if (byteOffset + 8 <= data.length) {
+            LONG_LE.set(data, byteOffset, word);
+            return;
+        }
+        for (int i = 0; byteOffset + i < data.length; i++) {
+            data[byteOffset + i] = (byte) (word >>> (i << 3));
+        }
+    }
+
+    static long wordAt(byte[] data, int wordIdx) {
+        return longAt(data, wordIdx << 3);
+    }
+
+    // ---------------------------------------------------------------- unpack
+
+    static void unpack(byte[] data, int bits, int[] out, int count) {
+        long mask = mask(bits);
+        long word = 0;
+        int available = 0;
+        int wordIdx = 0;
+        for (int i = 0; i < count; i++) {
+            if (available >= bits) {
+                out[i] = (int) (word & mask);
+                word >>>= bits;
+                available -= bits;
+            } else {
+                long next = wordAt(data, wordIdx++);
+                out[i] = (int) ((word | (next << available)) & mask);
+                int used = bits - available;
+                word = used == 64 ? 0 : next >>> used;
+                available = 64 - used;
+            }
+        }
+    }
+
+    static void unpack(long[] data, int bits, int[] out, int count) {
+        long mask = mask(bits);
+        long word = 0;
+        int available = 0;
+        int wordIdx = 0;
+        for (int i = 0; i < count; i++) {
+            if (available >= bits) {
+                out[i] = (int) (word & mask);
+                word >>>= bits;
+                available -= bits;
+            } else {
+                long next = data[wordIdx++];
+                out[i] = (int) ((word | (next << available)) & mask);
+                int used = bits - available;
+                word = used == 64 ? 0 : next >>> used;
+                available = 64 - used;
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- pack
+
+    /**
+     * Überschreibt data komplett, Padding-Bits am Ende werden auf 0 gesetzt.
+     */
+    static void pack(byte[] data, int bits, int[] values, int count) {
+        long mask = mask(bits);
+        long word = 0;
+        int filled = 0;
+        int wordIdx = 0;
+        for (int i = 0; i < count; i++) {
+            long value = values[i] & mask;
+            word |= value << filled;
+            filled += bits;
+            if (filled >= 64) {
+                setLongAt(data, (wordIdx++) << 3, word);
+                filled -= 64;
+                word = filled == 0 ? 0 : value >>> (bits - filled);
+            }
+        }
+        if (filled > 0) {
+            setLongAt(data, (wordIdx++) << 3, word);
+        }
+        for (int words = wordCount(data); wordIdx < words; wordIdx++) {
+            setLongAt(data, wordIdx << 3, 0);
+        }
+    }
+
+    static void pack(long[] data, int bits, int[] values, int count) {
+        long mask = mask(bits);
+        long word = 0;
+        int filled = 0;
+        int wordIdx = 0;
+        for (int i = 0; i < count; i++) {
+            long value = values[i] & mask;
+            word |= value << filled;
+            filled += bits;
+            if (filled >= 64) {
+                data[wordIdx++] = word;
+                filled -= 64;
+                word = filled == 0 ? 0 : value >>> (bits - filled);
+            }
+        }
+        if (filled > 0) {
+            data[wordIdx++] = word;
+        }
+        for (; wordIdx < data.length; wordIdx++) {
+            data[wordIdx] = 0;
+        }
+    }
+
+    // ---------------------------------------------------------------- count
+
+    static boolean isPowerOfTwo(int bits) {
+        return bits > 0 && bits <= 64 && (bits & (bits - 1)) == 0;
+    }
+
+    /**
+     * Maske mit einem gesetzten Bit am Anfang jedes Feldes. Nur für Zweierpotenzen.
+     */
+    static long fieldStartMask(int bits) {
+        return FIELD_START_MASKS[Integer.numberOfTrailingZeros(bits)];
+    }
+
+    /**
+     * Anzahl der Felder ungleich 0 in einem Wort. Die Bits jedes Feldes werden auf sein unterstes Bit ge-odert,
+     * danach reicht ein popcount. Funktioniert nur, wenn bits eine Zweierpotenz ist, da sonst Felder über Wortgrenzen liegen.
+     */
+    static int nonZeroFields(long word, int bits) {
+        long folded = word;
+        for (int shift = 1; shift < bits; shift <<= 1) {
+            folded |= folded >>> shift;
+        }
+        return Long.bitCount(folded & fieldStartMask(bits));
+    }
+
+    static int countNonZero(byte[] data, int bits, int count) {
+        if (bits == 0 || count == 0) {
+            return 0;
+        }
+        if (!isPowerOfTwo(bits)) {
+            return countNonZeroSequential(data, bits, count);
+        }
+        long totalBits = (long) count * bits;
+        int fullWords = (int) (totalBits >>> 6);
+
+        int result;
+        if (VECTOR_SUPPORT) {
+            result = PackedBitsVector.countNonZero(data, bits, fullWords);
+        } else {
+            result = 0;
+            for (int w = 0; w < fullWords; w++) {
+                result += nonZeroFields(wordAt(data, w), bits);
+            }
+        }
+        int restBits = (int) (totalBits & 63);
+        if (restBits > 0) {
+            result += nonZeroFields(wordAt(data, fullWords) & mask(restBits), bits);
+        }
+        return result;
+    }
+
+    static int countNonZero(long[] data, int bits, int count) {
+        if (bits == 0 || count == 0) {
+            return 0;
+        }
+        if (!isPowerOfTwo(bits)) {
+            return countNonZeroSequential(data, bits, count);
+        }
+        long totalBits = (long) count * bits;
+        int fullWords = (int) (totalBits >>> 6);
+
+        int result;
+        if (VECTOR_SUPPORT) {
+            result = PackedBitsVector.countNonZero(data, bits, fullWords);
+        } else {
+            result = 0;
+            for (int w = 0; w < fullWords; w++) {
+                result += nonZeroFields(data[w], bits);
+            }
+        }
+        int restBits = (int) (totalBits & 63);
+        if (restBits > 0) {
+            result += nonZeroFields(data[fullWords] & mask(restBits), bits);
+        }
+        return result;
+    }
+
+    private static int countNonZeroSequential(byte[] data, int bits, int count) {
+        long mask = mask(bits);
+        long word = 0;
+        int available = 0;
+        int wordIdx = 0;
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            long value;
+            if (available >= bits) {
+                value = word & mask;
+                word >>>= bits;
+                available -= bits;
+            } else {
+                long next = wordAt(data, wordIdx++);
+                value = (word | (next << available)) & mask;
+                int used = bits - available;
+                word = used == 64 ? 0 : next >>> used;
+                available = 64 - used;
+            }
+            if (value != 0) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    private static int countNonZeroSequential(long[] data, int bits, int count) {
+        long mask = mask(bits);
+        long word = 0;
+        int available = 0;
+        int wordIdx = 0;
+        int result = 0;
+        for (int i = 0; i < count; i++) {
+            long value;
+            if (available >= bits) {
+                value = word & mask;
+                word >>>= bits;
+                available -= bits;
+            } else {
+                long next = data[wordIdx++];
+                value = (word | (next << available)) & mask;
+                int used = bits - available;
+                word = used == 64 ? 0 : next >>> used;
+                available = 64 - used;
+            }
+            if (value != 0) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    // ---------------------------------------------------------------- fill
+
+    /**
+     * Setzt einen einzelnen Eintrag. Für bits <= 32 liegt ein Eintrag immer in den 8 Bytes ab seinem Start-Byte.
+     */
+    static void set(byte[] data, int bits, int idx, int value) {
+        long bitPos = (long) idx * bits;
+        int byteOffset = (int) (bitPos >>> 3);
+        int shift = (int) (bitPos & 7);
+        long mask = mask(bits) << shift;
+        long word = longAt(data, byteOffset);
+        setLongAt(data, byteOffset, (word & ~mask) | (((long) value << shift) & mask));
+    }
+
+    static void set(long[] data, int bits, int idx, int value) {
+        long bitPos = (long) idx * bits;
+        int off = (int) (bitPos & 63);
+        int wordIdx = (int) (bitPos >>> 6);
+        long valueBits = value & mask(bits);
+        long mask = mask(bits) << off;
+        data[wordIdx] = (data[wordIdx] & ~mask) | ((valueBits << off) & mask);
+        int overflow = off + bits - 64;
+        if (overflow > 0) {
+            long mask2 = mask(overflow);
+            data[wordIdx + 1] = (data[wordIdx + 1] & ~mask2) | ((valueBits >>> (bits - overflow)) & mask2);
+        }
+    }
+
+    /**
+     * Setzt die Einträge [from, to) auf value. Kopf und Ende werden einzeln geschrieben, der Bereich dazwischen
+     * mit einem Byte-Muster gefüllt, das sich alle 8 / gcd(bits, 8) Einträge wiederholt.
+     */
+    static void fill(byte[] data, int bits, int from, int to, int value) {
+        if (from >= to || bits == 0) {
+            return;
+        }
+        int gcd = gcd(bits, 8);
+        int patternEntries = 8 / gcd;
+        int patternBytes = bits / gcd;
+
+        int alignedFrom = Math.min(to, ((from + patternEntries - 1) / patternEntries) * patternEntries);
+        int alignedTo = Math.max(alignedFrom, (to / patternEntries) * patternEntries);
+
+        for (int i = from; i < alignedFrom; i++) {
+            set(data, bits, i, value);
+        }
+        if (alignedTo > alignedFrom) {
+            int start = (int) ((long) alignedFrom * bits >>> 3);
+            int end = (int) ((long) alignedTo * bits >>> 3);
+            byte[] pattern = pattern(value, bits, patternBytes);
+            System.arraycopy(pattern, 0, data, start, patternBytes);
+            int filled = patternBytes;
+            while (start + filled < end) {
+                int copy = Math.min(filled, end - start - filled);
+                System.arraycopy(data, start, data, start + filled, copy);
+                filled += copy;
+            }
+        }
+        for (int i = alignedTo; i < to; i++) {
+            set(data, bits, i, value);
+        }
+    }
+
+    static void fill(long[] data, int bits, int from, int to, int value) {
+        if (from >= to || bits == 0) {
+            return;
+        }
+        int gcd = gcd(bits, 64);
+        int patternEntries = 64 / gcd;
+        int patternWords = bits / gcd;
+
+        int alignedFrom = Math.min(to, ((from + patternEntries - 1) / patternEntries) * patternEntries);
+        int alignedTo = Math.max(alignedFrom, (to / patternEntries) * patternEntries);
+
+        for (int i = from; i < alignedFrom; i++) {
+            set(data, bits, i, value);
+        }
+        if (alignedTo > alignedFrom) {
+            int start = (int) ((long) alignedFrom * bits >>> 6);
+            int end = (int) ((long) alignedTo * bits >>> 6);
+            long[] pattern = patternWords(value, bits, patternWords);
+            System.arraycopy(pattern, 0, data, start, patternWords);
+            int filled = patternWords;
+            while (start + filled < end) {
+                int copy = Math.min(filled, end - start - filled);
+                System.arraycopy(data, start, data, start + filled, copy);
+                filled += copy;
+            }
+        }
+        for (int i = alignedTo; i < to; i++) {
+            set(data, bits, i, value);
+        }
+    }
+
+    private static byte[] pattern(int value, int bits, int patternBytes) {
+        long id = value & mask(bits);
+        byte[] pattern = new byte[patternBytes];
+        for (int bit = 0; bit < patternBytes * 8; bit++) {
+            if (((id >>> (bit % bits)) & 1) != 0) {
+                pattern[bit >>> 3] |= (byte) (1 << (bit & 7));
+            }
+        }
+        return pattern;
+    }
+
+    private static long[] patternWords(int value, int bits, int patternWords) {
+        long id = value & mask(bits);
+        long[] pattern = new long[patternWords];
+        for (int bit = 0; bit < patternWords * 64; bit++) {
+            if (((id >>> (bit % bits)) & 1L) != 0) {
+                pattern[bit >>> 6] |= 1L << (bit & 63);
+            }
+        }
+        return pattern;
+    }
+
+    private static int gcd(int a, int b) {
+        while (b != 0) {
+            int t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,60 @@
+package de.verdox.voxel.shared.util.palette.strategy;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector-API-Varianten der {@link PackedBits}-Operationen. Wird nur geladen, wenn {@link PackedBits#VECTOR_SUPPORT} gesetzt ist.
+ */
+final class PackedBitsVector {
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+    private PackedBitsVector() {
+    }
+
+    /**
+     * Zählt die Felder ungleich 0 in den ersten words Wörtern. bits muss eine Zweierpotenz sein.
+     * Die Byte-Reihenfolge beim Reinterpretieren spielt dabei keine Rolle, da Felder immer auf ihre Größe ausgerichtet sind.
+     */
+    static int countNonZero(byte[] data, int bits, int words) {
+        int lanes = LONGS.length();
+        long fieldStarts = PackedBits.fieldStartMask(bits);
+        LongVector sum = LongVector.zero(LONGS);
+        int w = 0;
+        for (; w + lanes <= words; w += lanes) {
+            LongVector vector = ByteVector.fromArray(BYTES, data, w << 3).reinterpretAsLongs();
+            sum = sum.add(nonZeroFields(vector, bits, fieldStarts));
+        }
+        long result = sum.reduceLanes(VectorOperators.ADD);
+        for (; w < words; w++) {
+            result += PackedBits.nonZeroFields(PackedBits.wordAt(data, w), bits);
+        }
+        return (int) result;
+    }
+
+    static int countNonZero(long[] data, int bits, int words) {
+        int lanes = LONGS.length();
+        long fieldStarts = PackedBits.fieldStartMask(bits);
+        LongVector sum = LongVector.zero(LONGS);
+        int w = 0;
+        for (; w + lanes <= words; w += lanes) {
+            sum = sum.add(nonZeroFields(LongVector.fromArray(LONGS, data, w), bits, fieldStarts));
+        }
+        long result = sum.reduceLanes(VectorOperators.ADD);
+        for (; w < words; w++) {
+            result += PackedBits.nonZeroFields(data[w], bits);
+        }
+        return (int) result;
+    }
+
+    private static LongVector nonZeroFields(LongVector vector, int bits, long fieldStarts) {
+        LongVector folded = vector;
+        for (int shift = 1; shift < bits; shift <<= 1) {
+            folded = folded.or(folded.lanewise(VectorOperators.LSHR, shift));
+        }
+        return folded.and(fieldStarts).lanewise(VectorOperators.BIT_COUNT);
+    }
+}
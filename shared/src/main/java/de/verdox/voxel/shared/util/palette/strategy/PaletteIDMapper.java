@@ -1,5 +1,8 @@
 package de.verdox.voxel.shared.util.palette.strategy;
 
+/**
+ * Maps a palette id back to its value. Called for every palette read, so implementations should be O(1).
+ */
 public interface PaletteIDMapper<T extends PaletteIDHolder> {
     T byID(int id);
 }
@@ -5,7 +5,6 @@ import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
 import lombok.Getter;
 
-import java.util.Arrays;
 
 public interface PaletteStorage {
 
@@ -24,10 +23,9 @@ public interface PaletteStorage {
             return current;
         } else {
             PaletteStorage next = create(owner, needed);
-            for (int i = 0; i < owner.getTotalSize(); i++) {
-                next.write(i, current.read(i));
-            }
-            next.setBitsPerBlock(needed);
+            int[] values = new int[owner.getTotalSize()];
+            current.unpack(values);
+            next.pack(values);
             return next;
         }
     }
@@ -52,6 +50,26 @@ public interface PaletteStorage {
 
     void fill(int id);
 
+    /**
+     * Setzt die Einträge [fromIdx, toIdx) auf id.
+     */
+    void fill(int fromIdx, int toIdx, int id);
+
+    /**
+     * Dekodiert alle Einträge nach out. out muss mindestens owner.getTotalSize() lang sein.
+     */
+    void unpack(int[] out);
+
+    /**
+     * Kodiert alle Einträge aus values mit der aktuellen Bit-Breite und überschreibt den bisherigen Inhalt.
+     */
+    void pack(int[] values);
+
+    /**
+     * Anzahl der Einträge ungleich 0.
+     */
+    int countNonZero();
+
     void setBitsPerBlock(int bitsPerBlock);
 
     int getBitsPerBlock();
@@ -71,7 +89,7 @@ public interface PaletteStorage {
         @Override
         public void setBitsPerBlock(int bitsPerBlock) {
             this.bitsPerBlock = bitsPerBlock;
-            this.bitMask = (1 << bitsPerBlock) - 1;
+            this.bitMask = bitsPerBlock >= 32 ? -1 : (1 << bitsPerBlock) - 1;
         }
     }
 
@@ -91,36 +109,27 @@ public interface PaletteStorage {
 
         @Override
         public void fill(int id) {
-            int total = owner.getTotalSize();
-            int bpe = getBitsPerBlock();
-
-            int totalBits = total * bpe;
-            int bytesLen = (totalBits + 7) >>> 3;
-
-            if (bpe == 8) {
-                Arrays.fill(data, 0, bytesLen, (byte) id);
-                return;
-            }
+            fill(0, owner.getTotalSize(), id);
+        }
 
-            int g = gcd(bpe, 8);
-            int pLen = bpe / g;
+        @Override
+        public void fill(int fromIdx, int toIdx, int id) {
+            PackedBits.fill(data, bitsPerBlock, fromIdx, toIdx, id);
+        }
 
-            int mask = (1 << bpe) - 1;
-            id &= mask;
+        @Override
+        public void unpack(int[] out) {
+            PackedBits.unpack(data, bitsPerBlock, out, owner.getTotalSize());
+        }
 
-            byte[] pattern = new byte[pLen];
-            for (int i = 0; i < pLen; i++) {
-                int start = (i * 8) % bpe;
-                pattern[i] = (byte) (((id >>> start) | (id << (bpe - start))) & 0xFF);
-            }
+        @Override
+        public void pack(int[] values) {
+            PackedBits.pack(data, bitsPerBlock, values, owner.getTotalSize());
+        }
 
-            System.arraycopy(pattern, 0, data, 0, pLen);
-            int filled = pLen;
-            while (filled < bytesLen) {
-                int copy = Math.min(filled, bytesLen - filled);
-                System.arraycopy(data, 0, data, filled, copy);
-                filled += copy;
-            }
+        @Override
+        public int countNonZero() {
+            return PackedBits.countNonZero(data, bitsPerBlock, owner.getTotalSize());
         }
 
         @Override
@@ -164,44 +173,12 @@ public interface PaletteStorage {
             int needed = computeRequiredBitsPerEntry(owner.getPaletteSize());
             if (needed == bitsPerBlock) return;
 
-            int total = owner.getTotalSize();
-            int bytesLen = ((total * needed) + 7) >>> 3;
-            byte[] newData = new byte[bytesLen];
-
-            // alle alten Werte umpacken
-            for (int i = 0; i < total; i++) {
-                int v = read(i);
-                int bitPos = i * needed;
-                int off = bitPos & 7;
-                int byteIdx = bitPos >>> 3;
-                int mask = ((1 << needed) - 1) << off;
-
-                // write low part
-                int b = newData[byteIdx] & 0xFF;
-                b = (b & ~mask) | ((v << off) & mask);
-                newData[byteIdx] = (byte) b;
-
-                int overflow = off + needed - 8;
-                if (overflow > 0) {
-                    int mask2 = (1 << overflow) - 1;
-                    int b2 = newData[byteIdx + 1] & 0xFF;
-                    b2 = (b2 & ~mask2) | ((v >>> (needed - overflow)) & mask2);
-                    newData[byteIdx + 1] = (byte) b2;
-                }
-            }
-
-            this.data = newData;
+            // alle alten Werte wortweise umpacken
+            int[] values = new int[owner.getTotalSize()];
+            unpack(values);
+            this.data = new byte[bytesFor(needed)];
             setBitsPerBlock(needed);
-        }
-
-        // Hilfsfunktion (wie gehabt)
-        private static int gcd(int a, int b) {
-            while (b != 0) {
-                int t = a % b;
-                a = b;
-                b = t;
-            }
-            return a;
+            pack(values);
         }
 
         @Override
@@ -248,33 +225,27 @@ public interface PaletteStorage {
 
         @Override
         public void fill(int id) {
-            int total = owner.getTotalSize();
-            int bpe = bitsPerBlock;
-            int mask = (1 << bpe) - 1;
-            id &= mask;
-
-            // Spezialfall: wenn bpe == 16 könnte man Arrays.fill(shortArray, (short)id) nutzen,
-            // hier aber byte[]-Backing → voll bit-packed vorgehen.
-
-            // 1) Pattern berechnen
-            int g = gcd(bpe, 8);
-            int pLen = bpe / g;               // patternBytes
-            byte[] pattern = new byte[pLen];
-            for (int i = 0; i < pLen; i++) {
-                int start = (i * 8) % bpe;
-                pattern[i] = (byte) (((id >>> start) | (id << (bpe - start))) & 0xFF);
-            }
+            fill(0, owner.getTotalSize(), id);
+        }
 
-            // 2) Array in O(log N) befüllen
-            int bitsNeeded = total * bpe;
-            int bytesLen = (bitsNeeded + 7) >>> 3;
-            System.arraycopy(pattern, 0, data, 0, pLen);
-            int filled = pLen;
-            while (filled < bytesLen) {
-                int copy = Math.min(filled, bytesLen - filled);
-                System.arraycopy(data, 0, data, filled, copy);
-                filled += copy;
-            }
+        @Override
+        public void fill(int fromIdx, int toIdx, int id) {
+            PackedBits.fill(data, bitsPerBlock, fromIdx, toIdx, id);
+        }
+
+        @Override
+        public void unpack(int[] out) {
+            PackedBits.unpack(data, bitsPerBlock, out, owner.getTotalSize());
+        }
+
+        @Override
+        public void pack(int[] values) {
+            PackedBits.pack(data, bitsPerBlock, values, owner.getTotalSize());
+        }
+
+        @Override
+        public int countNonZero() {
+            return PackedBits.countNonZero(data, bitsPerBlock, owner.getTotalSize());
         }
 
         @Override
@@ -327,36 +298,12 @@ public interface PaletteStorage {
             int needed = computeRequiredBitsPerEntry(owner.getPaletteSize());
             if (needed == bitsPerBlock) return;
 
-            byte[] newData = new byte[bytesFor(needed)];
-            // alle alten Werte umpacken
-            for (int i = 0; i < owner.getTotalSize(); i++) {
-                int v = read(i);
-                // Manuelles Schreiben in newData mit neuer Bit-Tiefe
-                int bitPos = i * needed;
-                int off = bitPos & 7;
-                int byteIdx = bitPos >>> 3;
-                int mask = ((1 << needed) - 1) << off;
-                int b = newData[byteIdx] & 0xFF;
-                b = (b & ~mask) | ((v << off) & mask);
-                newData[byteIdx] = (byte) b;
-
-                int rem = needed - (8 - off);
-                int shiftOut = 8 - off;
-                while (rem > 0) {
-                    byteIdx++;
-                    int take = Math.min(8, rem);
-                    int mask2 = (1 << take) - 1;
-                    int part = (v >>> shiftOut) & mask2;
-                    int b2 = newData[byteIdx] & 0xFF;
-                    b2 = (b2 & ~mask2) | part;
-                    newData[byteIdx] = (byte) b2;
-                    shiftOut += take;
-                    rem -= take;
-                }
-            }
-
+            // alle alten Werte wortweise umpacken
+            int[] values = new int[owner.getTotalSize()];
+            unpack(values);
+            this.data = new byte[bytesFor(needed)];
             setBitsPerBlock(needed);
-            this.data = newData;
+            pack(values);
         }
 
         @Override
@@ -403,30 +350,27 @@ public interface PaletteStorage {
 
         @Override
         public void fill(int id) {
-            int total = owner.getTotalSize();
-            int bpe = bitsPerBlock;
-            int mask = (1 << bpe) - 1;
-            id &= mask;
-
-            // 1) Pattern berechnen
-            int g = gcd(bpe, 8);
-            int pLen = bpe / g;
-            byte[] pattern = new byte[pLen];
-            for (int i = 0; i < pLen; i++) {
-                int start = (i * 8) % bpe;
-                pattern[i] = (byte) (((id >>> start) | (id << (bpe - start))) & 0xFF);
-            }
+            fill(0, owner.getTotalSize(), id);
+        }
 
-            // 2) Array in O(log N) befüllen
-            int bitsNeeded = total * bpe;
-            int bytesLen = (bitsNeeded + 7) >>> 3;
-            System.arraycopy(pattern, 0, data, 0, pLen);
-            int filled = pLen;
-            while (filled < bytesLen) {
-                int copy = Math.min(filled, bytesLen - filled);
-                System.arraycopy(data, 0, data, filled, copy);
-                filled += copy;
-            }
+        @Override
+        public void fill(int fromIdx, int toIdx, int id) {
+            PackedBits.fill(data, bitsPerBlock, fromIdx, toIdx, id);
+        }
+
+        @Override
+        public void unpack(int[] out) {
+            PackedBits.unpack(data, bitsPerBlock, out, owner.getTotalSize());
+        }
+
+        @Override
+        public void pack(int[] values) {
+            PackedBits.pack(data, bitsPerBlock, values, owner.getTotalSize());
+        }
+
+        @Override
+        public int countNonZero() {
+            return PackedBits.countNonZero(data, bitsPerBlock, owner.getTotalSize());
         }
 
         @Override
@@ -477,34 +421,12 @@ public interface PaletteStorage {
             int needed = computeRequiredBitsPerEntry(owner.getPaletteSize());
             if (needed == bitsPerBlock) return;
 
-            byte[] newData = new byte[bytesFor(needed)];
-            for (int i = 0; i < owner.getTotalSize(); i++) {
-                int v = read(i);
-                int bitPos = i * needed;
-                int off = bitPos & 7;
-                int byteIdx = bitPos >>> 3;
-                int mask = ((1 << needed) - 1) << off;
-                int b = newData[byteIdx] & 0xFF;
-                b = (b & ~mask) | ((v << off) & mask);
-                newData[byteIdx] = (byte) b;
-
-                int rem = needed - (8 - off);
-                int shiftOut = 8 - off;
-                while (rem > 0) {
-                    byteIdx++;
-                    int take = Math.min(8, rem);
-                    int mask2 = (1 << take) - 1;
-                    int part = (v >>> shiftOut) & mask2;
-                    int b2 = newData[byteIdx] & 0xFF;
-                    b2 = (b2 & ~mask2) | part;
-                    newData[byteIdx] = (byte) b2;
-                    shiftOut += take;
-                    rem -= take;
-                }
-            }
-
+            // alle alten Werte wortweise umpacken
+            int[] values = new int[owner.getTotalSize()];
+            unpack(values);
+            this.data = new byte[bytesFor(needed)];
             setBitsPerBlock(needed);
-            this.data = newData;
+            pack(values);
         }
 
         @Override
@@ -563,18 +485,7 @@ public interface PaletteStorage {
 
         @Override
         public void write(int idx, int value) {
-            int bitPos = idx * bitsPerBlock;
-            int off = bitPos & 63;
-            int wordIdx = bitPos >>> 6;
-            long mask = (long) bitMask << off;
-            data[wordIdx] = (data[wordIdx] & ~mask)
-                    | (((long) value << off) & mask);
-            int overflow = off + bitsPerBlock - 64;
-            if (overflow > 0) {
-                long mask2 = (1L << overflow) - 1L;
-                data[wordIdx + 1] = (data[wordIdx + 1] & ~mask2)
-                        | ((long) value >>> (bitsPerBlock - overflow) & mask2);
-            }
+            PackedBits.set(data, bitsPerBlock, idx, value);
         }
 
         @Override
@@ -582,26 +493,12 @@ public interface PaletteStorage {
             int needed = computeRequiredBitsPerEntry(owner.getPaletteSize());
             if (needed == bitsPerBlock) return;
 
-            long[] newData = new long[wordsFor(needed)];
-            for (int i = 0; i < owner.getTotalSize(); i++) {
-                int v = read(i);
-                // pack into newData per needed, analog zu write(...)
-                int bitPos = i * needed;
-                int off = bitPos & 63;
-                int wi = bitPos >>> 6;
-                long mask = ((1L << needed) - 1L) << off;
-                newData[wi] = (newData[wi] & ~mask)
-                        | (((long) v << off) & mask);
-                int ov = off + needed - 64;
-                if (ov > 0) {
-                    long m2 = (1L << ov) - 1L;
-                    newData[wi + 1] = (newData[wi + 1] & ~m2)
-                            | ((long) v >>> (needed - ov) & m2);
-                }
-            }
-
-            this.data = newData;
+            // alle alten Werte wortweise umpacken
+            int[] values = new int[owner.getTotalSize()];
+            unpack(values);
+            this.data = new long[wordsFor(needed)];
             setBitsPerBlock(needed);
+            pack(values);
         }
 
         @Override
@@ -628,30 +525,27 @@ public interface PaletteStorage {
 
         @Override
         public void fill(int id) {
-            int total = owner.getTotalSize();
-            int bpe = bitsPerBlock;
-            long mask = ((1L << bpe) - 1L);
-            long vid = id & mask;
-
-            // 1) Pattern berechnen
-            int g = gcd(bpe, 64);
-            int pLenW = bpe / g;               // patternWords
-            long[] pattern = new long[pLenW];
-            for (int i = 0; i < pLenW; i++) {
-                int start = (i * 64) % bpe;
-                pattern[i] = ((vid >>> start) | (vid << (bpe - start)));
-            }
+            fill(0, owner.getTotalSize(), id);
+        }
 
-            // 2) Array in O(log N) befüllen
-            int bitsNeeded = total * bpe;
-            int wordsLen = (bitsNeeded + 63) >>> 6;
-            System.arraycopy(pattern, 0, data, 0, pLenW);
-            int filled = pLenW;
-            while (filled < wordsLen) {
-                int copy = Math.min(filled, wordsLen - filled);
-                System.arraycopy(data, 0, data, filled, copy);
-                filled += copy;
-            }
+        @Override
+        public void fill(int fromIdx, int toIdx, int id) {
+            PackedBits.fill(data, bitsPerBlock, fromIdx, toIdx, id);
+        }
+
+        @Override
+        public void unpack(int[] out) {
+            PackedBits.unpack(data, bitsPerBlock, out, owner.getTotalSize());
+        }
+
+        @Override
+        public void pack(int[] values) {
+            PackedBits.pack(data, bitsPerBlock, values, owner.getTotalSize());
+        }
+
+        @Override
+        public int countNonZero() {
+            return PackedBits.countNonZero(data, bitsPerBlock, owner.getTotalSize());
         }
 
         @Override
@@ -671,9 +565,4 @@ public interface PaletteStorage {
         }
         return (byte) Math.max(1, 32 - java.lang.Integer.numberOfLeadingZeros(amountOfEntries - 1));
     }
-
-    // Hilfsfunktion zum gcd
-    private static int gcd(int a, int b) {
-        return b == 0 ? a : gcd(b, a % b);
-    }
 }
@@ -9,6 +9,7 @@ import de.verdox.voxel.shared.util.lod.GridDim;
 import de.verdox.voxel.shared.util.lod.LodPyramid;
 import de.verdox.voxel.shared.util.lod.OccupancyFn;
 import de.verdox.voxel.shared.util.palette.ThreeDimensionalPalette;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import lombok.Getter;
@@ -20,6 +21,24 @@ public interface PaletteStrategy<T extends PaletteIDHolder> {
 
     void set(short x, short y, short z, T block, ThreeDimensionalPalette<T> context);
 
+    /**
+     * Setzt alle Positionen der Box (Grenzen inklusive) auf block.
+     * Der Standard schreibt jede Position einzeln über die Palette.
+     */
+    default void fillBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, T block, ThreeDimensionalPalette<T> context) {
+        for (int z = minZ; z <= maxZ; z++) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    context.set((short) x, (short) y, (short) z, block);
+                }
+            }
+        }
+    }
+
+    static boolean coversWholeBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, ThreeDimensionalPalette<?> context) {
+        return minX == 0 && minY == 0 && minZ == 0 && maxX == context.getSizeX() - 1 && maxY == context.getSizeY() - 1 && maxZ == context.getSizeZ() - 1;
+    }
+
     void write(Kryo kryo, Output output);
 
     void read(Kryo kryo, Input input, ThreeDimensionalPalette<T> context);
@@ -44,6 +63,20 @@ public interface PaletteStrategy<T extends PaletteIDHolder> {
             }
         }
 
+        @Override
+        public void fillBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, T block, ThreeDimensionalPalette<T> ctx) {
+            if (block.equals(ctx.getDefaultValue())) {
+                return;
+            }
+            if (PaletteStrategy.coversWholeBox(minX, minY, minZ, maxX, maxY, maxZ, ctx)) {
+                ctx.setStrategy(new Uniform<>(block), ThreeDimensionalPalette.State.UNIFORM);
+                return;
+            }
+            Paletted<T> paletted = Paletted.create(ctx);
+            ctx.setStrategy(paletted, ThreeDimensionalPalette.State.PALETTED);
+            paletted.fillBox(minX, minY, minZ, maxX, maxY, maxZ, block, ctx);
+        }
+
         @Override
         public void write(Kryo kryo, Output output) {
         }
@@ -82,6 +115,25 @@ public interface PaletteStrategy<T extends PaletteIDHolder> {
             }
         }
 
+        @Override
+        public void fillBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, T block, ThreeDimensionalPalette<T> ctx) {
+            if (block.equals(uniformValue)) {
+                return;
+            }
+            if (PaletteStrategy.coversWholeBox(minX, minY, minZ, maxX, maxY, maxZ, ctx)) {
+                if (block.equals(ctx.getDefaultValue())) {
+                    ctx.setStrategy(new Empty<>(), ThreeDimensionalPalette.State.EMPTY);
+                } else {
+                    ctx.setStrategy(new Uniform<>(block), ThreeDimensionalPalette.State.UNIFORM);
+                }
+                return;
+            }
+            Paletted<T> paletted = PaletteStrategy.Paletted.create(ctx);
+            ctx.setStrategy(paletted, ThreeDimensionalPalette.State.PALETTED);
+            paletted.fill(uniformValue);
+            paletted.fillBox(minX, minY, minZ, maxX, maxY, maxZ, block, ctx);
+        }
+
         @Override
         public void write(Kryo kryo, Output output) {
             kryo.writeClassAndObject(output, uniformValue);
@@ -99,10 +151,25 @@ public interface PaletteStrategy<T extends PaletteIDHolder> {
         }
     }
 
+    /**
+     * Speichert pro Eintrag eine lokale ID in eine kleine Palette. Die Bit-Breite richtet sich nach der lokalen Palette,
+     * ein Chunk mit 3 Blocktypen braucht also 2 Bits pro Block, egal wie viele Blöcke registriert sind.
+     * Nicht mehr verwendete Einträge werden freigegeben und wiederverwendet, die Palette wird kompaktiert, sobald sich dadurch Bits sparen lassen.
+     * Wächst die Palette über {@link #GLOBAL_PROMOTION_THRESHOLD} Einträge, wird auf {@link PalettedGlobalID} umgestellt.
+     */
     class PalettedLocalID<T extends PaletteIDHolder> extends Paletted<T> {
-        private Map<T, Integer> blockToId;
+        public static final int GLOBAL_PROMOTION_THRESHOLD = 256;
+
+        private Object2IntOpenHashMap<T> blockToId;
         @Getter
         private List<T> idToBlock;
+        private IntArrayList freeIds;
+        private int[] usages;
+        private int liveEntries;
+        private boolean compactionPending;
+        // Zuletzt nachgeschlagener Block, Generatoren und Spieler setzen meist mehrmals hintereinander denselben Block
+        private T lastBlock;
+        private int lastId;
 
         public PalettedLocalID(ThreeDimensionalPalette<T> ctx) {
             super(ctx);
@@ -110,69 +177,173 @@ public interface PaletteStrategy<T extends PaletteIDHolder> {
 
         @Override
         protected void initFromContext() {
-            super.initFromContext();
             blockToId = new Object2IntOpenHashMap<>();
+            blockToId.defaultReturnValue(-1);
             idToBlock = new ObjectArrayList<>();
+            freeIds = new IntArrayList();
+            usages = new int[4];
+
             blockToId.put(ctx.getDefaultValue(), 0);
             idToBlock.add(ctx.getDefaultValue());
+            usages[0] = getTotalSize();
+            liveEntries = 1;
+            compactionPending = false;
+            lastBlock = null;
+
+            storage = PaletteStorage.create(this, 1);
+            nonDefaultCount = 0;
+        }
+
+        @Override
+        public T idToBlock(int id) {
+            return idToBlock.get(id);
         }
 
         @Override
         public T get(short x, short y, short z, ThreeDimensionalPalette<T> ctx) {
-            int idx = ctx.computeIndex(x, y, z);
-            int id = storage.read(idx);
-            return idToBlock(id);
+            return idToBlock.get(storage.read(ctx.computeIndex(x, y, z)));
         }
 
         @Override
         public void set(short x, short y, short z, T block, ThreeDimensionalPalette<T> ctx) {
-            int idx = ctx.computeIndex(x, y, z);
-            int oldId = storage.read(idx);
-            final int defaultId = 0;
+            if (needsPromotion(block)) {
+                promoteToGlobal().set(x, y, z, block, ctx);
+                return;
+            }
+            super.set(x, y, z, block, ctx);
+        }
+
+        @Override
+        public void fillBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, T block, ThreeDimensionalPalette<T> ctx) {
+            if (needsPromotion(block)) {
+                promoteToGlobal().fillBox(minX, minY, minZ, maxX, maxY, maxZ, block, ctx);
+                return;
+            }
+            super.fillBox(minX, minY, minZ, maxX, maxY, maxZ, block, ctx);
+        }
+
+        @Override
+        public void fill(T block) {
+            initFromContext();
+            if (block.equals(ctx.getDefaultValue())) {
+                return;
+            }
+            int id = idFor(block);
+            storage.fill(id);
+            usages[0] = 0;
+            usages[id] = getTotalSize();
+            nonDefaultCount = getTotalSize();
+        }
 
-            Integer id = blockToId.get(block);
-            if (id == null) {
+        @Override
+        protected int idFor(T block) {
+            if (block == lastBlock) {
+                return lastId;
+            }
+            int id = blockToId.getInt(block);
+            if (id == -1) {
+                id = addEntry(block);
+            }
+            lastBlock = block;
+            lastId = id;
+            return id;
+        }
+
+        private int addEntry(T block) {
+            int id;
+            if (!freeIds.isEmpty()) {
+                id = freeIds.popInt();
+                idToBlock.set(id, block);
+            } else {
                 id = idToBlock.size();
                 idToBlock.add(block);
-                blockToId.put(block, id);
+                if (id >= usages.length) {
+                    usages = Arrays.copyOf(usages, usages.length * 2);
+                }
                 storage = PaletteStorage.resizeIfNeeded(this, storage);
             }
+            blockToId.put(block, id);
+            liveEntries++;
+            return id;
+        }
+
+        @Override
+        protected void replaced(int oldId, int newId) {
+            super.replaced(oldId, newId);
+            usages[newId]++;
+            if (--usages[oldId] == 0 && oldId != 0) {
+                release(oldId);
+            }
+        }
 
-            boolean wasDefault = (oldId == defaultId);
-            boolean nowDefault = (id == defaultId);
-            if (wasDefault && !nowDefault) nonDefaultCount++;
-            else if (!wasDefault && nowDefault) nonDefaultCount--;
+        @Override
+        protected boolean isUniform(int id) {
+            return usages[id] == getTotalSize();
+        }
 
-            if (oldId != id) {
-                storage.write(idx, id);
+        @Override
+        protected void afterChange(T block, int id) {
+            super.afterChange(block, id);
+            if (compactionPending && ctx.getStrategy() == this) {
+                compact();
             }
+        }
 
-            if (nonDefaultCount == getTotalSize()) {
-                ctx.setStrategy(new Uniform<>(block), ThreeDimensionalPalette.State.UNIFORM);
+        /**
+         * Gibt eine lokale ID frei, die von keinem Eintrag mehr verwendet wird.
+         */
+        private void release(int id) {
+            lastBlock = null;
+            blockToId.removeInt(idToBlock.get(id));
+            idToBlock.set(id, null);
+            freeIds.add(id);
+            liveEntries--;
+            // Erst kompaktieren, wenn mindestens 2 Bits frei werden, sonst pendelt die Breite an der Grenze hin und her
+            if (PaletteStorage.computeRequiredBitsPerEntry(liveEntries) + 1 < storage.getBitsPerBlock()) {
+                compactionPending = true;
             }
         }
 
-        public void fill(T block) {
-            blockToId.clear();
-            idToBlock.clear();
-            nonDefaultCount = getTotalSize();
+        private boolean needsPromotion(T block) {
+            return freeIds.isEmpty() && idToBlock.size() >= GLOBAL_PROMOTION_THRESHOLD && blockToId.getInt(block) == -1;
+        }
 
-            blockToId.put(ctx.getDefaultValue(), 0);
-            idToBlock.add(ctx.getDefaultValue());
+        /**
+         * Stellt auf globale IDs um. Danach ist die neue Strategie im Kontext gesetzt.
+         */
+        public PalettedGlobalID<T> promoteToGlobal() {
+            PalettedGlobalID<T> global = new PalettedGlobalID<>(ctx);
+            int[] globalIds = new int[idToBlock.size()];
+            for (int i = 0; i < globalIds.length; i++) {
+                T entry = idToBlock.get(i);
+                globalIds[i] = entry == null ? 0 : entry.getPaletteID();
+            }
 
-            int id = idToBlock.size();
-            idToBlock.add(block);
-            blockToId.put(block, id);
-            storage.fill(id);
+            int[] ids = new int[getTotalSize()];
+            storage.unpack(ids);
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = globalIds[ids[i]];
+            }
+            global.storage.pack(ids);
+            global.nonDefaultCount = nonDefaultCount;
+            ctx.setStrategy(global, ThreeDimensionalPalette.State.PALETTED);
+            return global;
+        }
+
+        @Override
+        protected boolean usesGlobalIds() {
+            return false;
         }
 
         @Override
         public void write(Kryo kryo, Output output) {
-            remap();
+            compact();
+            output.writeBoolean(usesGlobalIds());
             output.writeInt(idToBlock.size(), true);
             for (T entry : idToBlock) {
                 kryo.writeClassAndObject(output, entry);
             }
+            output.writeByte(storage.getBitsPerBlock());
             storage.write(kryo, output);
         }
 
@@ -180,26 +351,49 @@ public interface PaletteStrategy<T extends PaletteIDHolder> {
         public void read(Kryo kryo, Input input, ThreeDimensionalPalette<T> ctx) {
             blockToId.clear();
             idToBlock.clear();
+            freeIds.clear();
 
             int paletteSize = input.readInt(true);
             for (int i = 0; i < paletteSize; i++) {
                 @SuppressWarnings("unchecked")
                 T block = (T) kryo.readClassAndObject(input);
-                if (blockToId.containsKey(block)) {
-                    return;
-                }
                 blockToId.put(block, i);
                 idToBlock.add(block);
             }
-            storage = PaletteStorage.create(this, 1);
+            storage = PaletteStorage.create(this, input.readByte());
             storage.read(kryo, input);
 
-            nonDefaultCount = 0;
-            for (int i = 0; i < getTotalSize(); i++) {
-                if (storage.read(i) != 0) {
-                    nonDefaultCount++;
-                }
+            int[] ids = new int[getTotalSize()];
+            storage.unpack(ids);
+            countUsages(ids);
+        }
+
+        /**
+         * Übernimmt eine fertige Palette. entries[0] muss der Default-Wert sein, ids enthält pro Eintrag den Index in entries.
+         */
+        void load(List<T> entries, int[] ids) {
+            blockToId.clear();
+            idToBlock.clear();
+            freeIds.clear();
+            for (int i = 0; i < entries.size(); i++) {
+                blockToId.put(entries.get(i), i);
+                idToBlock.add(entries.get(i));
             }
+            storage = PaletteStorage.create(this, PaletteStorage.computeRequiredBitsPerEntry(entries.size()));
+            storage.pack(ids);
+            countUsages(ids);
+        }
+
+        private void countUsages(int[] ids) {
+            int paletteSize = idToBlock.size();
+            usages = new int[Math.max(4, paletteSize)];
+            for (int i = 0, total = getTotalSize(); i < total; i++) {
+                usages[ids[i]]++;
+            }
+            liveEntries = paletteSize;
+            nonDefaultCount = getTotalSize() - usages[0];
+            compactionPending = false;
+            lastBlock = null;
         }
 
         @Override
@@ -207,9 +401,24 @@ public interface PaletteStrategy<T extends PaletteIDHolder> {
             return idToBlock.size();
         }
 
-        public void remap() {
+        /**
+         * Anzahl der lokalen IDs, die aktuell verwendet werden.
+         */
+        public int getLiveEntries() {
+            return liveEntries;
+        }
+
+        /**
+         * Entfernt freigegebene IDs, vergibt die verbleibenden dicht neu und verkleinert den Storage auf die benötigte Bit-Breite.
+         */
+        public void compact() {
+            compactionPending = false;
+            if (freeIds.isEmpty()) {
+                return;
+            }
             int oldSize = idToBlock.size();
-            List<T> newIdToBlock = new ArrayList<>();
+            List<T> newIdToBlock = new ObjectArrayList<>(liveEntries);
+            int[] newUsages = new int[Math.max(4, liveEntries)];
             int[] reMap = new int[oldSize];
             for (int oldId = 0; oldId < oldSize; oldId++) {
                 T oldEntry = idToBlock.get(oldId);
@@ -218,23 +427,32 @@ public interface PaletteStrategy<T extends PaletteIDHolder> {
                 }
                 int newId = newIdToBlock.size();
                 newIdToBlock.add(oldEntry);
+                newUsages[newId] = usages[oldId];
                 reMap[oldId] = newId;
             }
 
-            for (int i = 0; i < getTotalSize(); i++) {
-                int oldId = storage.read(i);
-                storage.write(i, reMap[oldId]);
+            int[] ids = new int[getTotalSize()];
+            storage.unpack(ids);
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = reMap[ids[i]];
             }
+            storage.pack(ids);
 
             blockToId.clear();
             this.idToBlock = newIdToBlock;
             for (int i = 0; i < this.idToBlock.size(); i++) {
-                T value = this.idToBlock.get(i);
-                blockToId.put(value, i);
+                blockToId.put(this.idToBlock.get(i), i);
             }
+            this.usages = newUsages;
+            freeIds.clear();
+            lastBlock = null;
+            storage = PaletteStorage.resizeIfNeeded(this, storage);
         }
     }
 
+    /**
+     * Speichert direkt die Registry-IDs. Wird nur verwendet, wenn eine lokale Palette zu groß geworden ist.
+     */
     class PalettedGlobalID<T extends PaletteIDHolder> extends Paletted<T> {
         public PalettedGlobalID(ThreeDimensionalPalette<T> ctx) {
             super(ctx);
@@ -244,12 +462,61 @@ public interface PaletteStrategy<T extends PaletteIDHolder> {
         public int getPaletteSize() {
             return Registries.BLOCKS.getAmountValues();
         }
+
+        /**
+         * Global ids are written directly into the storage, so it needs enough bits for every registered id.
+         */
+        @Override
+        protected void initFromContext() {
+            storage = PaletteStorage.create(this, PaletteStorage.computeRequiredBitsPerEntry(getPaletteSize()));
+            nonDefaultCount = 0;
+        }
+
+        @Override
+        protected boolean usesGlobalIds() {
+            return true;
+        }
     }
 
     abstract class Paletted<T extends PaletteIDHolder> implements PaletteStrategy<T> {
 
         public static <T extends PaletteIDHolder> Paletted<T> create(ThreeDimensionalPalette<T> ctx) {
-            return new PalettedGlobalID<>(ctx);
+            return new PalettedLocalID<>(ctx);
+        }
+
+        /**
+         * Liest die Markierung, die {@link #write(Kryo, Output)} vor die Daten schreibt, und erzeugt die passende Strategie.
+         */
+        public static <T extends PaletteIDHolder> Paletted<T> createForRead(ThreeDimensionalPalette<T> ctx, Input input) {
+            return input.readBoolean() ? new PalettedGlobalID<>(ctx) : new PalettedLocalID<>(ctx);
+        }
+
+        /**
+         * Erzeugt eine Palette aus einer Eintragsliste und dem Index in diese Liste für jede Position. entries[0] muss der Default-Wert sein.
+         * Bis {@link PalettedLocalID#GLOBAL_PROMOTION_THRESHOLD} Einträge wird lokal gespeichert, sonst mit globalen IDs. ids wird dabei überschrieben.
+         */
+        public static <T extends PaletteIDHolder> Paletted<T> fromIds(ThreeDimensionalPalette<T> ctx, List<T> entries, int[] ids) {
+            if (entries.size() <= PalettedLocalID.GLOBAL_PROMOTION_THRESHOLD) {
+                PalettedLocalID<T> local = new PalettedLocalID<>(ctx);
+                local.load(entries, ids);
+                return local;
+            }
+            PalettedGlobalID<T> global = new PalettedGlobalID<>(ctx);
+            int[] globalIds = new int[entries.size()];
+            for (int i = 0; i < globalIds.length; i++) {
+                globalIds[i] = entries.get(i).getPaletteID();
+            }
+            int total = global.getTotalSize();
+            int nonDefault = 0;
+            for (int i = 0; i < total; i++) {
+                ids[i] = globalIds[ids[i]];
+                if (ids[i] != 0) {
+                    nonDefault++;
+                }
+            }
+            global.storage.pack(ids);
+            global.nonDefaultCount = nonDefault;
+            return global;
         }
 
         @Getter
@@ -277,7 +544,10 @@ public interface PaletteStrategy<T extends PaletteIDHolder> {
             return ctx.getSizeX() * ctx.getSizeY() * ctx.getSizeZ();
         }
 
-        protected T idToBlock(int id) {
+        /**
+         * Liefert den Block zu einer Storage-ID.
+         */
+        public T idToBlock(int id) {
             return ctx.getPaletteIDMapper().byID(id);
         }
 
@@ -289,47 +559,105 @@ public interface PaletteStrategy<T extends PaletteIDHolder> {
         }
 
         public void fill(T block) {
-            storage.fill(block.getPaletteID());
+            int id = idFor(block);
+            storage.fill(id);
+            nonDefaultCount = id == 0 ? 0 : getTotalSize();
         }
 
-        @Override
-        public void set(short x, short y, short z, T block, ThreeDimensionalPalette<T> ctx) {
-            int idx = ctx.computeIndex(x, y, z);
-            int oldId = storage.read(idx);
-            final int defaultId = 0;
+        /**
+         * Liefert die Storage-ID eines Blocks
+         */
+        protected int idFor(T block) {
+            return block.getPaletteID();
+        }
+
+        /**
+         * Wird aufgerufen, nachdem ein Eintrag von oldId auf newId geändert wurde.
+         */
+        protected void replaced(int oldId, int newId) {
+            if (oldId == 0) nonDefaultCount++;
+            else if (newId == 0) nonDefaultCount--;
+        }
+
+        /**
+         * Ob alle Einträge die ID id haben. Globale IDs führen keine Zähler pro ID, eine so große Palette ist nie uniform.
+         */
+        protected boolean isUniform(int id) {
+            return false;
+        }
+
+        /**
+         * Wechselt zu Empty oder Uniform, wenn die Palette nur noch einen Wert enthält.
+         */
+        protected void afterChange(T block, int id) {
+            if (nonDefaultCount == 0) {
+                ctx.setStrategy(new Empty<>(), ThreeDimensionalPalette.State.EMPTY);
+            } else if (nonDefaultCount == getTotalSize() && isUniform(id)) {
+                ctx.setStrategy(new Uniform<>(block), ThreeDimensionalPalette.State.UNIFORM);
+            }
+        }
 
-            int id = block.getPaletteID();
+        protected abstract boolean usesGlobalIds();
 
-            boolean wasDefault = (oldId == defaultId);
-            boolean nowDefault = (id == defaultId);
-            if (wasDefault && !nowDefault) nonDefaultCount++;
-            else if (!wasDefault && nowDefault) nonDefaultCount--;
+        /**
+         * Schreibt die Box direkt in den Storage. Der Zustandswechsel zu Empty oder Uniform
+         * passiert sofort, wenn die Box den gesamten Bereich abdeckt.
+         */
+        @Override
+        public void fillBox(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, T block, ThreeDimensionalPalette<T> ctx) {
+            if (PaletteStrategy.coversWholeBox(minX, minY, minZ, maxX, maxY, maxZ, ctx)) {
+                if (block.equals(ctx.getDefaultValue())) {
+                    ctx.setStrategy(new Empty<>(), ThreeDimensionalPalette.State.EMPTY);
+                } else {
+                    ctx.setStrategy(new Uniform<>(block), ThreeDimensionalPalette.State.UNIFORM);
+                }
+                return;
+            }
 
-            if (oldId != id) {
-                storage.write(idx, id);
+            int id = idFor(block);
+            int width = maxX - minX + 1;
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int y = minY; y <= maxY; y++) {
+                    int rowStart = ctx.computeIndex((short) minX, (short) y, (short) z);
+                    for (int idx = rowStart; idx < rowStart + width; idx++) {
+                        int oldId = storage.read(idx);
+                        if (oldId == id) {
+                            continue;
+                        }
+                        storage.write(idx, id);
+                        replaced(oldId, id);
+                    }
+                }
             }
+            afterChange(block, id);
+        }
 
-            if (nonDefaultCount == getTotalSize()) {
-                ctx.setStrategy(new Uniform<>(block), ThreeDimensionalPalette.State.UNIFORM);
+        @Override
+        public void set(short x, short y, short z, T block, ThreeDimensionalPalette<T> ctx) {
+            int idx = ctx.computeIndex(x, y, z);
+            int oldId = storage.read(idx);
+            int id = idFor(block);
+            if (oldId == id) {
+                return;
             }
+            storage.write(idx, id);
+            replaced(oldId, id);
+            afterChange(block, id);
         }
 
         @Override
         public void write(Kryo kryo, Output output) {
+            output.writeBoolean(usesGlobalIds());
+            output.writeByte(storage.getBitsPerBlock());
             storage.write(kryo, output);
         }
 
         @Override
         public void read(Kryo kryo, Input input, ThreeDimensionalPalette<T> ctx) {
-            storage = PaletteStorage.create(this, 1);
+            storage = PaletteStorage.create(this, input.readByte());
             storage.read(kryo, input);
 
-            nonDefaultCount = 0;
-            for (int i = 0; i < getTotalSize(); i++) {
-                if (storage.read(i) != 0) {
-                    nonDefaultCount++;
-                }
-            }
+            nonDefaultCount = storage.countNonZero();
         }
 
         @Override
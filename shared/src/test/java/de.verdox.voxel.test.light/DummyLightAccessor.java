@@ -9,7 +9,11 @@ public class DummyLightAccessor implements LightAccessor {
     private final int sizeX, sizeY, sizeZ;
     private final boolean[][][] opaque;
     private final byte[][][] skyLight;
+    private final byte[][][][] blockLight;
+    private final byte[][][][] emission;
     private final byte worldSkyLight;
+    private final DummyLightAccessor[] neighbors = new DummyLightAccessor[Direction.values().length];
+    private int regionX, regionY, regionZ;
 
     public DummyLightAccessor(int sizeX, int sizeY, int sizeZ, byte worldSkyLight) {
         this.sizeX = sizeX;
@@ -19,6 +23,8 @@ public class DummyLightAccessor implements LightAccessor {
 
         this.opaque    = new boolean[sizeX][sizeY][sizeZ];
         this.skyLight  = new byte   [sizeX][sizeY][sizeZ];
+        this.blockLight = new byte[3][sizeX][sizeY][sizeZ];
+        this.emission = new byte[3][sizeX][sizeY][sizeZ];
 
         // Initialisiere SkyLight-Array mit 0
         for (int x = 0; x < sizeX; x++) {
@@ -28,19 +34,35 @@ public class DummyLightAccessor implements LightAccessor {
         }
     }
 
+    /** Verknüpft zwei Accessoren, die Regionskoordinaten des Nachbarn werden passend gesetzt. */
+    public void link(Direction direction, DummyLightAccessor neighbor) {
+        neighbors[direction.getId()] = neighbor;
+        neighbor.neighbors[direction.getOpposite().getId()] = this;
+        neighbor.regionX = regionX + direction.getOffsetX();
+        neighbor.regionY = regionY + direction.getOffsetY();
+        neighbor.regionZ = regionZ + direction.getOffsetZ();
+    }
+
+    /** Setze die Lichtemission eines Blocks (Testdaten). */
+    public void setEmission(int x, int y, int z, int red, int green, int blue) {
+        emission[0][x][y][z] = (byte) red;
+        emission[1][x][y][z] = (byte) green;
+        emission[2][x][y][z] = (byte) blue;
+    }
+
     @Override
     public int getRegionX() {
-        return 0;
+        return regionX;
     }
 
     @Override
     public int getRegionY() {
-        return 0;
+        return regionY;
     }
 
     @Override
     public int getRegionZ() {
-        return 0;
+        return regionZ;
     }
 
     @Override
@@ -62,31 +84,31 @@ public class DummyLightAccessor implements LightAccessor {
         return opaque[localX][localY][localZ];
     }
 
-    // Da wir hier nur SkyLight testen, liefern alle Emissions-Methoden 0:
-    @Override public byte getEmissionRed  (int x, int y, int z) { return 0; }
-    @Override public byte getEmissionGreen(int x, int y, int z) { return 0; }
+    @Override public byte getEmissionRed  (int x, int y, int z) { return emission[0][x][y][z]; }
+    @Override public byte getEmissionGreen(int x, int y, int z) { return emission[1][x][y][z]; }
+    @Override public byte getEmissionBlue (int x, int y, int z) { return emission[2][x][y][z]; }
 
     @Override
     public byte getBlockLightRed(int localX, int localY, int localZ) {
-        return 0;
+        return blockLight[0][localX][localY][localZ];
     }
 
     @Override
     public byte getBlockLightBlue(int localX, int localY, int localZ) {
-        return 0;
+        return blockLight[2][localX][localY][localZ];
     }
 
     @Override
     public byte getBlockLightGreen(int localX, int localY, int localZ) {
-        return 0;
+        return blockLight[1][localX][localY][localZ];
     }
 
-    @Override public byte getEmissionBlue (int x, int y, int z) { return 0; }
-
     @Override
     public void setBlockLight(int localX, int localY, int localZ,
                               byte red, byte green, byte blue) {
-        // nicht benötigt für Skylight-Tests
+        blockLight[0][localX][localY][localZ] = red;
+        blockLight[1][localX][localY][localZ] = green;
+        blockLight[2][localX][localY][localZ] = blue;
     }
 
     @Override
@@ -121,12 +143,25 @@ public class DummyLightAccessor implements LightAccessor {
 
     @Override
     public LightAccessor getNeighbor(Direction direction) {
-        return null;
+        return neighbors[direction.getId()];
     }
 
     @Override
     public LightAccessor getRelative(int x, int y, int z) {
-        return null;
+        // Über die verknüpften Nachbarn laufen
+        DummyLightAccessor current = this;
+        current = current.walk(x > 0 ? Direction.EAST : Direction.WEST, Math.abs(x));
+        current = current != null ? current.walk(y > 0 ? Direction.UP : Direction.DOWN, Math.abs(y)) : null;
+        current = current != null ? current.walk(z > 0 ? Direction.SOUTH : Direction.NORTH, Math.abs(z)) : null;
+        return current;
+    }
+
+    private DummyLightAccessor walk(Direction direction, int steps) {
+        DummyLightAccessor current = this;
+        for (int i = 0; i < steps && current != null; i++) {
+            current = current.neighbors[direction.getId()];
+        }
+        return current;
     }
 }
 
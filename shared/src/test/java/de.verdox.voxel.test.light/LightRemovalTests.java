@@ -0,0 +1,235 @@
+package de.verdox.voxel.test.light;
+
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.lighting.ChunkLightAccessor;
+import de.verdox.voxel.shared.lighting.ChunkLightEngine;
+import de.verdox.voxel.shared.lighting.LightPropagator;
+import de.verdox.voxel.shared.util.Direction;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LightRemovalTests {
+    private static final int SIZE = 16;
+
+    @BeforeAll
+    public static void setup() {
+        Blocks.bootstrap();
+    }
+
+    @Test
+    public void testIncrementalRelightMatchesFullRelight() {
+        Random random = new Random(42);
+        Grid incremental = new Grid(2, 2, 2);
+        Grid full = new Grid(2, 2, 2);
+        for (int i = 0; i < 6000; i++) {
+            int gx = random.nextInt(incremental.width * SIZE), gy = random.nextInt(incremental.height * SIZE), gz = random.nextInt(incremental.width * SIZE);
+            // Unten dichter Stein, oben fast nur Luft
+            boolean opaque = random.nextFloat() < (gy < SIZE ? 0.4f : 0.03f);
+            incremental.setOpaque(gx, gy, gz, opaque);
+            full.setOpaque(gx, gy, gz, opaque);
+        }
+        for (int i = 0; i < 6; i++) {
+            int gx = random.nextInt(incremental.width * SIZE), gy = random.nextInt(incremental.height * SIZE), gz = random.nextInt(incremental.width * SIZE);
+            int red = random.nextInt(16), green = random.nextInt(16), blue = random.nextInt(16);
+            incremental.setEmission(gx, gy, gz, red, green, blue);
+            full.setEmission(gx, gy, gz, red, green, blue);
+        }
+        incremental.lightFully();
+
+        LightPropagator propagator = new LightPropagator();
+        for (int edit = 1; edit <= 300; edit++) {
+            int gx = random.nextInt(incremental.width * SIZE), gy = random.nextInt(incremental.height * SIZE), gz = random.nextInt(incremental.width * SIZE);
+            if (random.nextInt(10) == 0) {
+                int red = random.nextInt(16), green = random.nextInt(16), blue = random.nextInt(16);
+                incremental.setEmission(gx, gy, gz, red, green, blue);
+                full.setEmission(gx, gy, gz, red, green, blue);
+            } else {
+                boolean opaque = !incremental.isOpaque(gx, gy, gz);
+                incremental.setOpaque(gx, gy, gz, opaque);
+                full.setOpaque(gx, gy, gz, opaque);
+            }
+            DummyLightAccessor accessor = incremental.accessorAt(gx, gy, gz);
+            propagator.relightAfterBlockChange(accessor, gx % SIZE, gy % SIZE, gz % SIZE, gx % SIZE, gy % SIZE, gz % SIZE);
+
+            if (edit % 50 == 0) {
+                full.clearLight();
+                full.lightFully();
+                incremental.assertSameLight(full, "after edit " + edit);
+            }
+        }
+    }
+
+    @Test
+    public void testRelightOnlyTouchesAffectedAccessors() {
+        Grid grid = new Grid(2, 1, 1);
+        grid.lightFully();
+        LightPropagator propagator = new LightPropagator();
+        DummyLightAccessor west = grid.accessorAt(0, 0, 0);
+
+        // Ein Block an der Grenze beschattet nur die eigene Spalte, der Nachbar bleibt voll beleuchtet
+        west.setOpaque(15, 15, 8, true);
+        LongSet dirty = propagator.relightAfterBlockChange(west, 15, 15, 8, 15, 15, 8);
+        assertEquals(1, dirty.size());
+        assertTrue(dirty.contains(Chunk.computeChunkKey(0, 0, 0)));
+        assertEquals(14, west.getSkyLight(15, 3, 8));
+
+        // Ein Block im Dunkeln ändert gar nichts
+        west.setOpaque(15, 14, 8, true);
+        west.setOpaque(15, 13, 8, true);
+        propagator.relightAfterBlockChange(west, 15, 14, 8, 15, 14, 8);
+        west.setOpaque(15, 14, 8, false);
+        west.setOpaque(15, 14, 8, true);
+        assertTrue(propagator.relightAfterBlockChange(west, 15, 14, 8, 15, 14, 8).isEmpty());
+    }
+
+    @Test
+    public void testRemovedLightSourceDarkensNeighbor() {
+        Grid grid = new Grid(2, 1, 1);
+        grid.setOpaque(0, 0, 0, false);
+        DummyLightAccessor west = grid.accessorAt(0, 0, 0);
+        DummyLightAccessor east = grid.accessorAt(SIZE, 0, 0);
+        west.setEmission(14, 4, 4, 12, 0, 9);
+        ChunkLightEngine.computeBlockLight(west);
+        assertEquals(10, east.getBlockLightRed(0, 4, 4));
+
+        west.setEmission(14, 4, 4, 0, 0, 0);
+        LongSet dirty = new LightPropagator().relightAfterBlockChange(west, 14, 4, 4, 14, 4, 4);
+        assertEquals(2, dirty.size());
+        for (int x = 0; x < SIZE; x++) {
+            assertEquals(0, east.getBlockLightRed(x, 4, 4));
+            assertEquals(0, west.getBlockLightBlue(x, 4, 4));
+        }
+    }
+
+    @Test
+    public void testSetBlockAtRelightsLitChunks() {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        Chunk air = new ChunkBase(world, 0, 1, 0);
+        Chunk ground = new ChunkBase(world, 0, 0, 0);
+        ground.fillBox(Blocks.STONE, 0, 0, 0, 15, 7, 15);
+        world.getChunkMap().saveChunkAfterGeneration(air);
+        world.getChunkMap().saveChunkAfterGeneration(ground);
+        ChunkLightEngine.computeSkylight(new ChunkLightAccessor(air), true);
+        ChunkLightEngine.computeSkylight(new ChunkLightAccessor(ground), false);
+
+        // Loch graben: der Himmel fällt hinein
+        LongSet dirty = ground.setBlockAt(Blocks.AIR, 4, 7, 4);
+        assertEquals(15, ground.getChunkLightData().getSkyLight(4, 7, 4));
+        assertTrue(dirty.contains(ground.getChunkKey()));
+
+        // Loch abdecken: darunter wird es dunkel
+        ground.setBlockAt(Blocks.STONE, 4, 8, 4);
+        assertEquals(0, ground.getChunkLightData().getSkyLight(4, 7, 4));
+
+        // Ein Block an der Unterseite des Luft-Chunks beschattet den Boden-Chunk
+        dirty = air.setBlockAt(Blocks.STONE, 9, 0, 9);
+        assertEquals(14, ground.getChunkLightData().getSkyLight(9, 15, 9));
+        assertTrue(dirty.contains(air.getChunkKey()));
+        assertTrue(dirty.contains(ground.getChunkKey()));
+
+        // Ungelichtete Chunks werden nicht angefasst
+        Chunk unlit = new ChunkBase(world, 5, 5, 5);
+        assertTrue(unlit.setBlockAt(Blocks.STONE, 1, 1, 1).isEmpty());
+    }
+
+    /**
+     * Linked dummy accessors of the same size, addressed with grid wide coordinates
+     */
+    private static class Grid {
+        private final int width, height;
+        private final DummyLightAccessor[] accessors;
+
+        Grid(int width, int height, int depth) {
+            this.width = width;
+            this.height = height;
+            this.accessors = new DummyLightAccessor[width * height * depth];
+            for (int i = 0; i < accessors.length; i++) {
+                accessors[i] = new DummyLightAccessor(SIZE, SIZE, SIZE, (byte) 15);
+            }
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    for (int z = 0; z < depth; z++) {
+                        DummyLightAccessor accessor = get(x, y, z);
+                        if (x + 1 < width) accessor.link(Direction.EAST, get(x + 1, y, z));
+                        if (y + 1 < height) accessor.link(Direction.UP, get(x, y + 1, z));
+                        if (z + 1 < depth) accessor.link(Direction.SOUTH, get(x, y, z + 1));
+                    }
+                }
+            }
+        }
+
+        DummyLightAccessor get(int x, int y, int z) {
+            return accessors[x + width * (y + height * z)];
+        }
+
+        DummyLightAccessor accessorAt(int gx, int gy, int gz) {
+            return get(gx / SIZE, gy / SIZE, gz / SIZE);
+        }
+
+        boolean isOpaque(int gx, int gy, int gz) {
+            return accessorAt(gx, gy, gz).isOpaque(gx % SIZE, gy % SIZE, gz % SIZE);
+        }
+
+        void setOpaque(int gx, int gy, int gz, boolean opaque) {
+            accessorAt(gx, gy, gz).setOpaque(gx % SIZE, gy % SIZE, gz % SIZE, opaque);
+        }
+
+        void setEmission(int gx, int gy, int gz, int red, int green, int blue) {
+            accessorAt(gx, gy, gz).setEmission(gx % SIZE, gy % SIZE, gz % SIZE, red, green, blue);
+        }
+
+        /**
+         * Lights every accessor from scratch, top to bottom like the region slices of the client
+         */
+        void lightFully() {
+            LightPropagator propagator = new LightPropagator();
+            int depth = accessors.length / (width * height);
+            for (int y = height - 1; y >= 0; y--) {
+                for (int x = 0; x < width; x++) {
+                    for (int z = 0; z < depth; z++) {
+                        propagator.computeSkylight(get(x, y, z), y == height - 1);
+                    }
+                }
+            }
+            for (DummyLightAccessor accessor : accessors) {
+                propagator.computeBlockLight(accessor);
+            }
+        }
+
+        void clearLight() {
+            for (DummyLightAccessor accessor : accessors) {
+                for (int x = 0; x < SIZE; x++)
+                    for (int y = 0; y < SIZE; y++)
+                        for (int z = 0; z < SIZE; z++) {
+                            accessor.setSkyLight(x, y, z, (byte) 0);
+                            accessor.setBlockLight(x, y, z, (byte) 0, (byte) 0, (byte) 0);
+                        }
+            }
+        }
+
+        void assertSameLight(Grid expected, String message) {
+            for (int i = 0; i < accessors.length; i++) {
+                DummyLightAccessor actual = accessors[i];
+                DummyLightAccessor reference = expected.accessors[i];
+                for (int x = 0; x < SIZE; x++)
+                    for (int y = 0; y < SIZE; y++)
+                        for (int z = 0; z < SIZE; z++) {
+                            String position = message + " at accessor " + i + " (" + x + ", " + y + ", " + z + ")";
+                            assertEquals(reference.getSkyLight(x, y, z), actual.getSkyLight(x, y, z), "sky " + position);
+                            assertEquals(reference.getBlockLightRed(x, y, z), actual.getBlockLightRed(x, y, z), "red " + position);
+                            assertEquals(reference.getBlockLightGreen(x, y, z), actual.getBlockLightGreen(x, y, z), "green " + position);
+                            assertEquals(reference.getBlockLightBlue(x, y, z), actual.getBlockLightBlue(x, y, z), "blue " + position);
+                        }
+            }
+        }
+    }
+}
@@ -1,17 +1,33 @@
 package de.verdox.voxel.test.light;
 
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.lighting.ChunkLightAccessor;
+import de.verdox.voxel.shared.lighting.ChunkLightData;
 import de.verdox.voxel.shared.lighting.ChunkLightEngine;
+import de.verdox.voxel.shared.util.Direction;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class LightingTests {
+    @BeforeAll
+    public static void setup() {
+        Blocks.bootstrap();
+    }
+
     @Test
     public void testSimpleSkylightPropagation() {
         int CX = 16, CY = 16, CZ = 16;
         byte worldSky = 15;
         DummyLightAccessor chunk = new DummyLightAccessor(CX, CY, CZ, worldSky);
         DummyLightAccessor above = new DummyLightAccessor(CX, CY, CZ, worldSky);
+        chunk.link(Direction.UP, above);
 
         for (byte x=0; x<CX; x++)
             for (byte z=0; z<CZ; z++)
@@ -19,9 +35,117 @@ public class LightingTests {
 
         ChunkLightEngine.computeSkylight(chunk, false);
 
-        byte expected = (byte)(worldSky - 1);
+        // Voller Himmel fällt ohne Verlust nach unten
         for (byte x=0; x<CX; x++)
-            for (byte z=0; z<CZ; z++)
-                assertEquals(expected, chunk.getSkyLight(x, (byte)(CY-1), z));
+            for (byte z=0; z<CZ; z++) {
+                assertEquals(worldSky, chunk.getSkyLight(x, (byte)(CY-1), z));
+                assertEquals(worldSky, chunk.getSkyLight(x, (byte)0, z));
+            }
+    }
+
+    @Test
+    public void testSkylightSpreadsBelowOverhang() {
+        int size = 16;
+        DummyLightAccessor chunk = new DummyLightAccessor(size, size, size, (byte) 15);
+        // Dach über x < 8 auf Höhe 10
+        for (int x = 0; x < 8; x++)
+            for (int z = 0; z < size; z++)
+                chunk.setOpaque(x, 10, z, true);
+
+        ChunkLightEngine.computeSkylight(chunk, true);
+
+        assertEquals(15, chunk.getSkyLight(8, 5, 4));
+        assertEquals(14, chunk.getSkyLight(7, 5, 4));
+        assertEquals(8, chunk.getSkyLight(1, 5, 4));
+        assertEquals(0, chunk.getSkyLight(3, 10, 4));
+        assertEquals(15, chunk.getSkyLight(3, 11, 4));
+    }
+
+    @Test
+    public void testSkylightCrossesIntoNeighbor() {
+        int size = 16;
+        DummyLightAccessor chunk = new DummyLightAccessor(size, size, size, (byte) 15);
+        DummyLightAccessor east = new DummyLightAccessor(size, size, size, (byte) 15);
+        DummyLightAccessor eastAbove = new DummyLightAccessor(size, size, size, (byte) 15);
+        chunk.link(Direction.EAST, east);
+        east.link(Direction.UP, eastAbove);
+        // Der östliche Nachbar ist oben komplett abgedeckt
+        for (int x = 0; x < size; x++)
+            for (int z = 0; z < size; z++)
+                eastAbove.setOpaque(x, 0, z, true);
+
+        ChunkLightEngine.computeSkylight(chunk, true);
+
+        assertEquals(14, east.getSkyLight(0, 3, 3));
+        assertEquals(10, east.getSkyLight(4, 3, 3));
+        assertEquals(0, east.getSkyLight(14, 3, 3));
+    }
+
+    @Test
+    public void testColoredBlockLightChannelsSpreadIndependently() {
+        int size = 16;
+        DummyLightAccessor chunk = new DummyLightAccessor(size, size, size, (byte) 15);
+        DummyLightAccessor west = new DummyLightAccessor(size, size, size, (byte) 15);
+        chunk.link(Direction.WEST, west);
+        chunk.setEmission(1, 8, 8, 14, 0, 6);
+        chunk.setEmission(6, 8, 8, 0, 10, 0);
+        // Wand zwischen den beiden Quellen mit einer Lücke
+        for (int y = 0; y < size; y++)
+            for (int z = 0; z < size; z++)
+                if (y != 8 || z != 12)
+                    chunk.setOpaque(4, y, z, true);
+
+        ChunkLightEngine.computeBlockLight(chunk);
+
+        assertEquals(14, chunk.getBlockLightRed(1, 8, 8));
+        assertEquals(6, chunk.getBlockLightBlue(1, 8, 8));
+        assertEquals(12, west.getBlockLightRed(15, 8, 8));
+        assertEquals(4, west.getBlockLightBlue(15, 8, 8));
+        assertEquals(0, west.getBlockLightGreen(15, 8, 8));
+        assertEquals(0, chunk.getBlockLightRed(4, 8, 8));
+        // Rot kommt nur durch die Lücke bei z = 12, 8 Schritte von der Quelle
+        assertEquals(14 - 8, chunk.getBlockLightRed(5, 8, 12));
+        assertEquals(14 - 10, chunk.getBlockLightRed(5, 8, 10));
+        assertEquals(10, chunk.getBlockLightGreen(6, 8, 8));
+        assertEquals(10 - 2, chunk.getBlockLightGreen(5, 8, 9));
+    }
+
+    @Test
+    public void testLightIsNeverDarkenedByAnUpdate() {
+        int size = 8;
+        DummyLightAccessor chunk = new DummyLightAccessor(size, size, size, (byte) 15);
+        chunk.setEmission(3, 3, 3, 15, 15, 15);
+        ChunkLightEngine.computeBlockLight(chunk);
+        assertFalse(ChunkLightEngine.computeBlockLight(chunk));
+        assertEquals(15 - 3, chunk.getBlockLightRed(0, 3, 3));
+    }
+
+    @Test
+    public void testAirChunkUnderOpenSkyStaysUniform() {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        Chunk air = new ChunkBase(world, 0, 1, 0);
+        Chunk ground = new ChunkBase(world, 0, 0, 0);
+        ground.fillBox(Blocks.STONE, 0, 0, 0, 15, 7, 15);
+        world.getChunkMap().saveChunkAfterGeneration(air);
+        world.getChunkMap().saveChunkAfterGeneration(ground);
+
+        ChunkLightEngine.computeSkylight(new ChunkLightAccessor(air), true);
+
+        ChunkLightData airLight = air.getChunkLightData();
+        assertEquals(ChunkLightData.LightState.UNIFORM, airLight.getState());
+        assertEquals(15, airLight.getSkyLight(4, 4, 4));
+
+        // Das Licht wurde in den Boden-Chunk weitergereicht
+        ChunkLightData groundLight = ground.getChunkLightData();
+        assertEquals(ChunkLightData.LightState.DETAILED, groundLight.getState());
+        assertEquals(15, groundLight.getSkyLight(4, 8, 4));
+        assertEquals(0, groundLight.getSkyLight(4, 7, 4));
+
+        // Vollständig unterirdisch ohne Licht bleibt uniform
+        Chunk deep = new ChunkBase(world, 0, -1, 0);
+        deep.fillBox(Blocks.STONE, 0, 0, 0, 15, 15, 15);
+        world.getChunkMap().saveChunkAfterGeneration(deep);
+        assertFalse(ChunkLightEngine.computeSkylight(new ChunkLightAccessor(deep), false));
+        assertNotEquals(ChunkLightData.LightState.DETAILED, deep.getChunkLightData().getState());
     }
 }
@@ -0,0 +1,196 @@
+package de.verdox.voxel.test.light;
+
+import de.verdox.voxel.server.level.generator.BenchmarkNoiseChunkGenerator;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.lighting.ChunkLightAccessor;
+import de.verdox.voxel.shared.lighting.ChunkLightData;
+import de.verdox.voxel.shared.lighting.LightPropagator;
+import de.verdox.voxel.shared.lighting.LightStack;
+import de.verdox.voxel.shared.lighting.ParallelLightScheduler;
+import de.verdox.voxel.shared.util.Direction;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ParallelLightingTests {
+    private static final int CHUNKS_XZ = 7;
+    private static final int CHUNKS_Y = 12;
+
+    @BeforeAll
+    public static void setup() {
+        Blocks.bootstrap();
+    }
+
+    @Test
+    public void testParallelSkylightMatchesSerial() {
+        Chunk[][] serial = generateTerrain();
+        Chunk[][] parallel = generateTerrain();
+
+        LightPropagator propagator = new LightPropagator();
+        for (Chunk[] stack : serial) {
+            for (int y = 0; y < stack.length; y++) {
+                ChunkLightAccessor accessor = new ChunkLightAccessor(stack[y]);
+                propagator.computeSkylight(accessor, y == 0);
+                propagator.computeBlockLight(accessor);
+            }
+        }
+
+        ParallelLightScheduler scheduler = new ParallelLightScheduler(4);
+        try {
+            List<LightStack> stacks = new ArrayList<>();
+            for (Chunk[] stack : parallel) {
+                stacks.add(new LightStack(stack[0].getChunkX(), stack[0].getChunkZ(), new ChunkLightAccessor(stack[0]), CHUNKS_Y - 1, (x, y, z) -> {
+                }));
+            }
+            scheduler.computeStacks(stacks);
+        } finally {
+            scheduler.shutdown();
+        }
+
+        for (int i = 0; i < serial.length; i++) {
+            for (int y = 0; y < CHUNKS_Y; y++) {
+                ChunkLightData expected = serial[i][y].getChunkLightData();
+                ChunkLightData actual = parallel[i][y].getChunkLightData();
+                for (int x = 0; x < 16; x++)
+                    for (int ly = 0; ly < 16; ly++)
+                        for (int z = 0; z < 16; z++)
+                            assertEquals(expected.getSkyLight(x, ly, z), actual.getSkyLight(x, ly, z), "sky in " + serial[i][y].getChunkKey() + " at " + x + ", " + ly + ", " + z);
+            }
+        }
+    }
+
+    @Test
+    public void testStacksAreOnlyLitWhileHoldingThePhaseLock() {
+        // Eine Neuberechnung nach einer Blockänderung nimmt dieselbe Sperre und läuft nie gleichzeitig mit einer Phase
+        for (int threads : new int[]{1, 3}) {
+            ReentrantLock lock = new ReentrantLock();
+            List<Boolean> locked = new ArrayList<>();
+            ParallelLightScheduler scheduler = new ParallelLightScheduler(threads, lock);
+            try {
+                List<LightStack> stacks = new ArrayList<>();
+                for (DummyLightAccessor[] stack : createGrid()) {
+                    stacks.add(new LightStack(stack[0].getRegionX(), stack[0].getRegionZ(), stack[0], stack.length - 1, (x, y, z) -> {
+                        synchronized (locked) {
+                            locked.add(lock.isLocked());
+                        }
+                    }));
+                }
+                scheduler.computeStacks(stacks);
+            } finally {
+                scheduler.shutdown();
+            }
+            assertFalse(locked.isEmpty());
+            assertFalse(locked.contains(false), threads + " threads");
+            assertFalse(lock.isLocked());
+        }
+    }
+
+    @Test
+    public void testParallelBlockLightMatchesSerial() {
+        DummyLightAccessor[][] serial = createGrid();
+        DummyLightAccessor[][] parallel = createGrid();
+
+        LightPropagator propagator = new LightPropagator();
+        for (DummyLightAccessor[] stack : serial) {
+            for (int y = 0; y < stack.length; y++) {
+                propagator.computeSkylight(stack[y], y == 0);
+                propagator.computeBlockLight(stack[y]);
+            }
+        }
+
+        List<Long> calledBack = new ArrayList<>();
+        ParallelLightScheduler scheduler = new ParallelLightScheduler(3);
+        try {
+            List<LightStack> stacks = new ArrayList<>();
+            for (DummyLightAccessor[] stack : parallel) {
+                stacks.add(new LightStack(stack[0].getRegionX(), stack[0].getRegionZ(), stack[0], stack.length - 1, (x, y, z) -> {
+                    synchronized (calledBack) {
+                        calledBack.add(Chunk.computeChunkKey(x, y, z));
+                    }
+                }));
+            }
+            scheduler.computeStacks(stacks);
+        } finally {
+            scheduler.shutdown();
+        }
+        assertEquals(parallel.length * parallel[0].length, calledBack.size());
+
+        for (int i = 0; i < serial.length; i++) {
+            for (int y = 0; y < serial[i].length; y++) {
+                DummyLightAccessor expected = serial[i][y];
+                DummyLightAccessor actual = parallel[i][y];
+                for (int x = 0; x < 8; x++)
+                    for (int ly = 0; ly < 8; ly++)
+                        for (int z = 0; z < 8; z++) {
+                            assertEquals(expected.getSkyLight(x, ly, z), actual.getSkyLight(x, ly, z));
+                            assertEquals(expected.getBlockLightRed(x, ly, z), actual.getBlockLightRed(x, ly, z));
+                            assertEquals(expected.getBlockLightGreen(x, ly, z), actual.getBlockLightGreen(x, ly, z));
+                            assertEquals(expected.getBlockLightBlue(x, ly, z), actual.getBlockLightBlue(x, ly, z));
+                        }
+            }
+        }
+    }
+
+    /**
+     * Noise terrain with carved caves, stacks are ordered top to bottom
+     */
+    private static Chunk[][] generateTerrain() {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        BenchmarkNoiseChunkGenerator generator = new BenchmarkNoiseChunkGenerator();
+        Random random = new Random(7);
+        Chunk[][] stacks = new Chunk[CHUNKS_XZ * CHUNKS_XZ][CHUNKS_Y];
+        for (int x = 0; x < CHUNKS_XZ; x++) {
+            for (int z = 0; z < CHUNKS_XZ; z++) {
+                for (int y = 0; y < CHUNKS_Y; y++) {
+                    Chunk chunk = new ChunkBase(world, x, CHUNKS_Y - 1 - y, z);
+                    generator.generateNoise(chunk);
+                    int minX = random.nextInt(12), minY = random.nextInt(12), minZ = random.nextInt(12);
+                    chunk.fillBox(Blocks.AIR, minX, minY, minZ, minX + 4, minY + 3, minZ + 4);
+                    world.getChunkMap().saveChunkAfterGeneration(chunk);
+                    stacks[x * CHUNKS_XZ + z][y] = chunk;
+                }
+            }
+        }
+        return stacks;
+    }
+
+    /**
+     * Linked 8³ accessors with overhangs and colored light sources, stacks are ordered top to bottom
+     */
+    private static DummyLightAccessor[][] createGrid() {
+        int width = 10, height = 3, size = 8;
+        Random random = new Random(11);
+        DummyLightAccessor[][] stacks = new DummyLightAccessor[width * width][height];
+        for (int i = 0; i < stacks.length; i++) {
+            for (int y = 0; y < height; y++) {
+                DummyLightAccessor accessor = new DummyLightAccessor(size, size, size, (byte) 15);
+                for (int j = 0; j < 60; j++) {
+                    accessor.setOpaque(random.nextInt(size), random.nextInt(size), random.nextInt(size), true);
+                }
+                accessor.setEmission(random.nextInt(size), random.nextInt(size), random.nextInt(size), random.nextInt(16), random.nextInt(16), random.nextInt(16));
+                stacks[i][y] = accessor;
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int z = 0; z < width; z++) {
+                for (int y = 0; y < height; y++) {
+                    DummyLightAccessor accessor = stacks[x * width + z][y];
+                    if (x + 1 < width) accessor.link(Direction.EAST, stacks[(x + 1) * width + z][y]);
+                    if (z + 1 < width) accessor.link(Direction.SOUTH, stacks[x * width + z + 1][y]);
+                    if (y + 1 < height) accessor.link(Direction.DOWN, stacks[x * width + z][y + 1]);
+                }
+            }
+        }
+        return stacks;
+    }
+}
@@ -0,0 +1,174 @@
+package de.verdox.voxel.server.level.chunk;
+
+import de.verdox.voxel.server.level.chunk.storage.RegionFileChunkStorage;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkMapEvictionTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testLeastRecentlyUsedChunkIsEvictedAndSaved() {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        ChunkMap chunkMap = world.getChunkMap();
+        LongList saved = new LongArrayList();
+        chunkMap.setSaveCallback(chunk -> saved.add(chunk.getChunkKey()));
+        chunkMap.setResidencyPolicy(ChunkResidencyPolicy.maxChunks(3));
+
+        chunkMap.saveChunkAfterGeneration(new ChunkBase(world, 0, 0, 0));
+        chunkMap.saveChunkAfterGeneration(new ChunkBase(world, 1, 0, 0));
+        chunkMap.saveChunkAfterGeneration(new ChunkBase(world, 2, 0, 0));
+
+        // Access makes chunk 0 the most recently used one
+        assertTrue(chunkMap.getChunk(0, 0, 0).isPresent());
+
+        chunkMap.saveChunkAfterGeneration(new ChunkBase(world, 3, 0, 0));
+
+        assertEquals(3, chunkMap.getChunks().size());
+        assertTrue(chunkMap.getChunk(1, 0, 0).isEmpty());
+        assertTrue(chunkMap.getChunk(0, 0, 0).isPresent());
+        assertEquals(1, saved.size());
+        assertEquals(Chunk.computeChunkKey(1, 0, 0), saved.getLong(0));
+        assertFalse(chunkMap.getDirtyChunks().contains(Chunk.computeChunkKey(1, 0, 0)));
+    }
+
+    @Test
+    void testPinnedChunksAreNotEvicted() {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        ChunkMap chunkMap = world.getChunkMap();
+        chunkMap.setResidencyPolicy(ChunkResidencyPolicy.maxChunks(2));
+        chunkMap.pinChunk(0, 0, 0);
+
+        for (int x = 0; x < 5; x++) {
+            chunkMap.saveChunkAfterGeneration(new ChunkBase(world, x, 0, 0));
+        }
+
+        assertTrue(chunkMap.getChunk(0, 0, 0).isPresent());
+        assertTrue(chunkMap.getChunk(4, 0, 0).isPresent());
+        assertEquals(2, chunkMap.getChunks().size());
+
+        chunkMap.unpinChunk(0, 0, 0);
+        chunkMap.saveChunkAfterGeneration(new ChunkBase(world, 5, 0, 0));
+        assertTrue(chunkMap.getChunk(0, 0, 0).isEmpty());
+    }
+
+    @Test
+    void testFailedSaveKeepsChunkLoaded() {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        ChunkMap chunkMap = world.getChunkMap();
+        chunkMap.setSaveCallback(chunk -> {
+            throw new IOException("disk full");
+        });
+        chunkMap.setResidencyPolicy(ChunkResidencyPolicy.maxChunks(1));
+
+        chunkMap.saveChunkAfterGeneration(new ChunkBase(world, 0, 0, 0));
+        chunkMap.saveChunkAfterGeneration(new ChunkBase(world, 1, 0, 0));
+
+        assertEquals(2, chunkMap.getChunks().size());
+        assertTrue(chunkMap.getDirtyChunks().contains(Chunk.computeChunkKey(0, 0, 0)));
+    }
+
+    @Test
+    void testHeapBudgetEvictsUntilBelowBudget() {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        ChunkMap chunkMap = world.getChunkMap();
+
+        Chunk sample = new ChunkBase(world, 0, 0, 0);
+        long chunkBytes = ChunkResidencyPolicy.estimateBytes(sample);
+        chunkMap.setResidencyPolicy(ChunkResidencyPolicy.heapBudget(chunkBytes * 4));
+
+        for (int x = 0; x < 10; x++) {
+            chunkMap.saveChunkAfterGeneration(new ChunkBase(world, x, 0, 0));
+        }
+        assertEquals(4, chunkMap.getChunks().size());
+        assertEquals(chunkBytes * 4, chunkMap.getResidentBytes());
+    }
+
+    @Test
+    void testEvictionKeepsGridConsistent() {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        ChunkMap chunkMap = world.getChunkMap();
+
+        Chunk filled = new ChunkBase(world, 0, 0, 0);
+        filled.setBlockAt(Blocks.STONE, 1, 1, 1);
+        chunkMap.saveChunkAfterGeneration(filled);
+        chunkMap.saveChunkAfterGeneration(new ChunkBase(world, 1, 0, 0));
+        assertTrue(world.getGrid().getSize() > 0);
+
+        chunkMap.unloadChunk(0, 0, 0);
+        assertTrue(world.getGrid().getSize() > 0);
+        chunkMap.unloadChunk(1, 0, 0);
+        assertEquals(0, world.getGrid().getSize());
+        assertFalse(world.getGrid().removeChunk(filled));
+    }
+
+    @Test
+    void testEditsAfterTheFirstSaveSurviveEviction() throws IOException {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        ChunkMap chunkMap = world.getChunkMap();
+        chunkMap.setChunkStorage(new RegionFileChunkStorage(directory));
+        chunkMap.setResidencyPolicy(ChunkResidencyPolicy.maxChunks(1));
+
+        Chunk edited = new ChunkBase(world, 0, 0, 0);
+        chunkMap.saveChunkAfterGeneration(edited);
+        assertEquals(1, chunkMap.saveDirtyChunks());
+        assertFalse(chunkMap.getDirtyChunks().contains(edited.getChunkKey()));
+
+        edited.setBlockAt(Blocks.STONE, 3, 4, 5);
+        edited.fillBox(Blocks.STONE, 0, 0, 0, 1, 1, 1);
+        assertTrue(chunkMap.getDirtyChunks().contains(edited.getChunkKey()));
+
+        // Der zweite Chunk verdrängt den bearbeiteten
+        chunkMap.saveChunkAfterGeneration(new ChunkBase(world, 1, 0, 0));
+        assertTrue(chunkMap.getChunk(0, 0, 0).isEmpty());
+
+        // Änderungen am verdrängten Objekt gehören nicht mehr zur Map
+        edited.setBlockAt(Blocks.STONE, 9, 9, 9);
+        assertFalse(chunkMap.getDirtyChunks().contains(edited.getChunkKey()));
+
+        Chunk reloaded = chunkMap.loadChunkAsync(0, 0, 0).join();
+        assertNotNull(reloaded);
+        assertEquals(Blocks.STONE, reloaded.getBlockAt(3, 4, 5));
+        assertEquals(Blocks.STONE, reloaded.getBlockAt(1, 1, 1));
+        assertEquals(Blocks.AIR, reloaded.getBlockAt(9, 9, 9));
+        chunkMap.close();
+    }
+
+    @Test
+    void testUnwatchedChunksAreEvictedOnTheIoThread() {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        ChunkMap chunkMap = world.getChunkMap();
+        List<String> savingThreads = new CopyOnWriteArrayList<>();
+        chunkMap.setSaveCallback(chunk -> savingThreads.add(Thread.currentThread().getName()));
+        chunkMap.setResidencyPolicy(ChunkResidencyPolicy.maxChunks(1));
+
+        chunkMap.getPlayerChunkMap().updatePlayer(1, 0, 0, 0, 1, 1);
+        chunkMap.saveChunkAfterGeneration(new ChunkBase(world, 0, 0, 0));
+        chunkMap.saveChunkAfterGeneration(new ChunkBase(world, 1, 0, 0));
+        assertEquals(2, chunkMap.getChunks().size(), "Watched chunks stay loaded");
+
+        // Der Spieler zieht weiter, das Verdrängen darf den aufrufenden Thread nicht aufhalten.
+        // Der IO-Thread arbeitet der Reihe nach, nach dem Laden ist auch das Verdrängen fertig
+        chunkMap.getPlayerChunkMap().updatePlayer(1, 100, 0, 0, 1, 1);
+        chunkMap.loadChunkAsync(50, 0, 0).join();
+        assertEquals(1, savingThreads.size());
+        assertTrue(savingThreads.get(0).startsWith("Chunk IO Thread"), savingThreads.get(0));
+        assertEquals(1, chunkMap.getChunks().size());
+        chunkMap.close();
+    }
+}
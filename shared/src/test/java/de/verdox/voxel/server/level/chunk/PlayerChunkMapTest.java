@@ -0,0 +1,140 @@
+package de.verdox.voxel.server.level.chunk;
+
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PlayerChunkMapTest {
+
+    @BeforeAll
+    static void bootstrap() {
+        Blocks.bootstrap();
+    }
+
+    @Test
+    void testMoveReportsOnlyTheDifference() {
+        PlayerChunkMap playerChunkMap = new PlayerChunkMap();
+        LongList entered = new LongArrayList();
+        LongList left = new LongArrayList();
+        playerChunkMap.addListener(new PlayerChunkMap.Listener() {
+            @Override
+            public void onViewChange(int connectionId, LongList enteredChunks, LongList leftChunks) {
+                entered.addAll(enteredChunks);
+                left.addAll(leftChunks);
+            }
+        });
+
+        playerChunkMap.updatePlayer(1, 0, 0, 0, 2, 1);
+        assertEquals(5 * 5 * 3, entered.size());
+        assertEquals(5 * 5 * 3, playerChunkMap.getWatchedChunkCount());
+        entered.clear();
+
+        playerChunkMap.updatePlayer(1, 1, 0, 0, 2, 1);
+        assertEquals(5 * 3, entered.size());
+        assertEquals(5 * 3, left.size());
+        assertTrue(entered.contains(Chunk.computeChunkKey(3, 1, -2)));
+        assertTrue(left.contains(Chunk.computeChunkKey(-2, -1, 2)));
+        assertFalse(playerChunkMap.isWatched(Chunk.computeChunkKey(-2, 0, 0)));
+        assertArrayEquals(new int[]{1}, playerChunkMap.getWatchers(Chunk.computeChunkKey(3, 0, 0)));
+    }
+
+    @Test
+    void testReverseIndexMatchesViewsAfterRandomMoves() {
+        PlayerChunkMap playerChunkMap = new PlayerChunkMap();
+        Random random = new Random(1234);
+        for (int step = 0; step < 200; step++) {
+            int connectionId = random.nextInt(5);
+            if (random.nextInt(10) == 0) {
+                playerChunkMap.removePlayer(connectionId);
+                continue;
+            }
+            // Meist kleine Schritte, ab und zu ein Teleport oder eine neue Sichtweite
+            PlayerChunkMap.View view = playerChunkMap.getView(connectionId);
+            int jump = random.nextInt(8) == 0 ? 20 : 2;
+            int centerX = (view != null ? view.centerX() : 0) + random.nextInt(2 * jump + 1) - jump;
+            int centerY = (view != null ? view.centerY() : 0) + random.nextInt(3) - 1;
+            int centerZ = (view != null ? view.centerZ() : 0) + random.nextInt(2 * jump + 1) - jump;
+            playerChunkMap.updatePlayer(connectionId, centerX, centerY, centerZ, 1 + random.nextInt(3), random.nextInt(3));
+        }
+
+        LongSet expectedChunks = new LongOpenHashSet();
+        for (int x = -80; x <= 80; x++) {
+            for (int y = -20; y <= 20; y++) {
+                for (int z = -80; z <= 80; z++) {
+                    IntSet expected = new IntOpenHashSet();
+                    for (int connectionId = 0; connectionId < 5; connectionId++) {
+                        PlayerChunkMap.View view = playerChunkMap.getView(connectionId);
+                        if (view != null && view.contains(x, y, z)) {
+                            expected.add(connectionId);
+                        }
+                    }
+                    long chunkKey = Chunk.computeChunkKey(x, y, z);
+                    assertEquals(expected, new IntOpenHashSet(playerChunkMap.getWatchers(chunkKey)), "watchers of " + x + ", " + y + ", " + z);
+                    if (!expected.isEmpty()) {
+                        expectedChunks.add(chunkKey);
+                    }
+                }
+            }
+        }
+        assertEquals(expectedChunks.size(), playerChunkMap.getWatchedChunkCount());
+    }
+
+    @Test
+    void testRemovingLastWatcherReportsUnwatchedChunks() {
+        PlayerChunkMap playerChunkMap = new PlayerChunkMap();
+        LongSet unwatched = new LongOpenHashSet();
+        playerChunkMap.addListener(new PlayerChunkMap.Listener() {
+            @Override
+            public void onUnwatched(LongList chunkKeys) {
+                unwatched.addAll(chunkKeys);
+            }
+        });
+        playerChunkMap.updatePlayer(1, 0, 0, 0, 1, 0);
+        playerChunkMap.updatePlayer(2, 1, 0, 0, 1, 0);
+
+        playerChunkMap.removePlayer(1);
+        // Nur die Spalte x = -1 sieht Spieler 2 nicht
+        assertEquals(3, unwatched.size());
+        assertTrue(unwatched.contains(Chunk.computeChunkKey(-1, 0, 1)));
+        assertArrayEquals(new int[]{2}, playerChunkMap.getWatchers(Chunk.computeChunkKey(0, 0, 0)));
+
+        playerChunkMap.removePlayer(2);
+        assertEquals(12, unwatched.size());
+        assertEquals(0, playerChunkMap.getWatchedChunkCount());
+        assertEquals(0, playerChunkMap.getPlayerCount());
+    }
+
+    @Test
+    void testWatchedChunksAreNotEvicted() {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        ChunkMap chunkMap = world.getChunkMap();
+        chunkMap.setResidencyPolicy(ChunkResidencyPolicy.maxChunks(2));
+        chunkMap.getPlayerChunkMap().updatePlayer(1, 0, 0, 0, 0, 0);
+
+        for (int x = 0; x < 5; x++) {
+            chunkMap.saveChunkAfterGeneration(new ChunkBase(world, x, 0, 0));
+        }
+        assertTrue(chunkMap.getChunk(0, 0, 0).isPresent());
+        assertEquals(2, chunkMap.getChunks().size());
+
+        // Verlässt der letzte Spieler den Chunk, ist er als Nächstes dran, auch wenn er gerade benutzt wurde
+        chunkMap.getPlayerChunkMap().updatePlayer(1, 10, 0, 0, 0, 0);
+        chunkMap.saveChunkAfterGeneration(new ChunkBase(world, 5, 0, 0));
+        assertTrue(chunkMap.getChunk(0, 0, 0).isEmpty());
+        assertTrue(chunkMap.getChunk(4, 0, 0).isPresent());
+    }
+}
@@ -0,0 +1,90 @@
+package de.verdox.voxel.server.level.chunk.storage;
+
+import de.verdox.voxel.server.level.generator.BenchmarkNoiseChunkGenerator;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegionFileChunkStorageTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRoundTripAcrossReopen() throws IOException {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        BenchmarkNoiseChunkGenerator generator = new BenchmarkNoiseChunkGenerator();
+
+        Chunk paletted = new ChunkBase(world, 3, 4, -7);
+        generator.generateNoise(paletted);
+        paletted.setBlockAt(Blocks.AIR, 1, 0, 1);
+        paletted.setBlockAt(Blocks.STONE, 2, 15, 2);
+
+        Chunk empty = new ChunkBase(world, -40, 0, 12);
+
+        try (RegionFileChunkStorage storage = new RegionFileChunkStorage(directory)) {
+            storage.save(paletted);
+            storage.save(empty);
+        }
+
+        try (RegionFileChunkStorage storage = new RegionFileChunkStorage(directory)) {
+            assertTrue(storage.contains(3, 4, -7));
+            assertFalse(storage.contains(3, 4, -6));
+            assertNull(storage.load(world, 3, 4, -6));
+
+            assertSameBlocks(paletted, storage.load(world, 3, 4, -7));
+            assertSameBlocks(empty, storage.load(world, -40, 0, 12));
+        }
+    }
+
+    @Test
+    void testRewriteGrowingPayloadKeepsOtherEntries() throws IOException {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+
+        Chunk first = new ChunkBase(world, 0, 0, 0);
+        Chunk second = new ChunkBase(world, 0, 0, 1);
+        second.setBlockAt(Blocks.STONE, 5, 5, 5);
+
+        try (RegionFileChunkStorage storage = new RegionFileChunkStorage(directory)) {
+            storage.save(first);
+            storage.save(second);
+
+            // The paletted version of the first chunk no longer fits into its old sector
+            for (int x = 0; x < first.getSizeX(); x += 2) {
+                for (int z = 0; z < first.getSizeZ(); z++) {
+                    first.setBlockAt(Blocks.STONE, x, 3, z);
+                }
+            }
+            storage.save(first);
+
+            assertSameBlocks(first, storage.load(world, 0, 0, 0));
+            assertSameBlocks(second, storage.load(world, 0, 0, 1));
+        }
+    }
+
+    private static void assertSameBlocks(Chunk expected, Chunk actual) {
+        assertNotNull(actual);
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        for (int x = 0; x < expected.getSizeX(); x++) {
+            for (int y = 0; y < expected.getSizeY(); y++) {
+                for (int z = 0; z < expected.getSizeZ(); z++) {
+                    assertEquals(expected.getBlockAt(x, y, z), actual.getBlockAt(x, y, z), "Block mismatch at " + x + ", " + y + ", " + z);
+                }
+            }
+        }
+        for (int x = 0; x < expected.getSizeX(); x++) {
+            for (int z = 0; z < expected.getSizeZ(); z++) {
+                assertEquals(expected.getHeightMap().get(x, z), actual.getHeightMap().get(x, z));
+                assertEquals(expected.getDepthMap().get(x, z), actual.getDepthMap().get(x, z));
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package de.verdox.voxel.server.level.generator;
+
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntLists;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorldGeneratorTest {
+
+    @Test
+    void testNearRequestsAreGeneratedFirst() throws Exception {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        BlockingGenerator chunkGenerator = new BlockingGenerator();
+        try (WorldGenerator worldGenerator = new WorldGenerator(world, chunkGenerator, 1)) {
+            worldGenerator.updateInterest(0, 0, 0, 0);
+
+            // Occupies the only worker until released
+            CompletableFuture<Chunk> blocker = worldGenerator.requestChunkGeneration(100, 0, 0, chunk -> {});
+            assertTrue(chunkGenerator.started.await(5, TimeUnit.SECONDS));
+
+            CompletableFuture<?>[] futures = new CompletableFuture[4];
+            futures[0] = worldGenerator.requestChunkGeneration(30, 0, 0, chunk -> {});
+            futures[1] = worldGenerator.requestChunkGeneration(10, 0, 0, chunk -> {});
+            futures[2] = worldGenerator.requestChunkGeneration(1, 0, 0, chunk -> {});
+            futures[3] = worldGenerator.requestChunkGeneration(20, 0, 0, chunk -> {});
+            assertEquals(4, worldGenerator.getQueueDepth());
+
+            chunkGenerator.release.countDown();
+            CompletableFuture.allOf(futures).get(5, TimeUnit.SECONDS);
+            blocker.get(5, TimeUnit.SECONDS);
+
+            assertEquals(IntArrayList.wrap(new int[]{100, 1, 10, 20, 30}), chunkGenerator.generatedX);
+        }
+    }
+
+    @Test
+    void testMovingInterestReprioritizesQueue() throws Exception {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        BlockingGenerator chunkGenerator = new BlockingGenerator();
+        try (WorldGenerator worldGenerator = new WorldGenerator(world, chunkGenerator, 1)) {
+            worldGenerator.updateInterest(0, 0, 0, 0);
+            CompletableFuture<Chunk> blocker = worldGenerator.requestChunkGeneration(100, 0, 0, chunk -> {});
+            assertTrue(chunkGenerator.started.await(5, TimeUnit.SECONDS));
+
+            CompletableFuture<Chunk> near = worldGenerator.requestChunkGeneration(1, 0, 0, chunk -> {});
+            CompletableFuture<Chunk> far = worldGenerator.requestChunkGeneration(50, 0, 0, chunk -> {});
+            worldGenerator.updateInterest(0, 50, 0, 0);
+
+            chunkGenerator.release.countDown();
+            CompletableFuture.allOf(blocker, near, far).get(5, TimeUnit.SECONDS);
+            assertEquals(IntArrayList.wrap(new int[]{100, 50, 1}), chunkGenerator.generatedX);
+        }
+    }
+
+    @Test
+    void testCancelledRequestsAreSkipped() throws Exception {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        BlockingGenerator chunkGenerator = new BlockingGenerator();
+        try (WorldGenerator worldGenerator = new WorldGenerator(world, chunkGenerator, 1)) {
+            worldGenerator.updateInterest(0, 0, 0, 0);
+            CompletableFuture<Chunk> blocker = worldGenerator.requestChunkGeneration(0, 0, 0, chunk -> {});
+            assertTrue(chunkGenerator.started.await(5, TimeUnit.SECONDS));
+
+            CompletableFuture<Chunk> cancelledByCaller = worldGenerator.requestChunkGeneration(1, 0, 0, chunk -> {});
+            worldGenerator.requestChunkGeneration(2, 0, 0, chunk -> {});
+            worldGenerator.requestChunkGeneration(40, 0, 0, chunk -> {});
+            CompletableFuture<Chunk> kept = worldGenerator.requestChunkGeneration(3, 0, 0, chunk -> {});
+
+            assertTrue(cancelledByCaller.cancel(false));
+            assertTrue(worldGenerator.cancelChunkGeneration(2, 0, 0));
+            assertFalse(worldGenerator.cancelChunkGeneration(0, 0, 0), "Running requests can not be cancelled");
+            assertEquals(1, worldGenerator.cancelChunkGenerationOutside(8));
+            assertEquals(1, worldGenerator.getQueueDepth());
+
+            chunkGenerator.release.countDown();
+            kept.get(5, TimeUnit.SECONDS);
+            blocker.get(5, TimeUnit.SECONDS);
+
+            assertEquals(IntArrayList.wrap(new int[]{0, 3}), chunkGenerator.generatedX);
+            WorldGeneratorStats stats = worldGenerator.getStats();
+            assertEquals(2, stats.generatedChunks);
+            assertEquals(3, stats.cancelledChunks);
+            assertEquals(0, stats.queueDepth);
+            assertTrue(stats.latencyP99Millis >= stats.latencyP50Millis);
+        }
+    }
+
+    @Test
+    void testDuplicateRequestNotifiesEveryConsumer() throws Exception {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        BlockingGenerator chunkGenerator = new BlockingGenerator();
+        try (WorldGenerator worldGenerator = new WorldGenerator(world, chunkGenerator, 1)) {
+            CountDownLatch notified = new CountDownLatch(2);
+            CompletableFuture<Chunk> first = worldGenerator.requestChunkGeneration(5, 0, 0, chunk -> notified.countDown());
+            CompletableFuture<Chunk> second = worldGenerator.requestChunkGeneration(5, 0, 0, chunk -> notified.countDown());
+            assertSame(first, second);
+
+            chunkGenerator.release.countDown();
+            assertTrue(notified.await(5, TimeUnit.SECONDS));
+            assertEquals(1, chunkGenerator.generatedX.size());
+        }
+    }
+
+    @Test
+    void testCancellingARunningRequestKeepsTheNewerRequest() throws Exception {
+        LevelWorld world = new LevelWorld(UUID.randomUUID());
+        SteppingGenerator chunkGenerator = new SteppingGenerator();
+        try (WorldGenerator worldGenerator = new WorldGenerator(world, chunkGenerator, 1)) {
+            AtomicInteger delivered = new AtomicInteger();
+            CompletableFuture<Chunk> cancelled = worldGenerator.requestChunkGeneration(7, 0, 0, chunk -> delivered.incrementAndGet());
+            assertTrue(chunkGenerator.started.tryAcquire(5, TimeUnit.SECONDS));
+            assertTrue(cancelled.cancel(false));
+
+            CompletableFuture<Chunk> newer = worldGenerator.requestChunkGeneration(7, 0, 0, chunk -> {});
+            assertNotSame(cancelled, newer);
+
+            // Der abgebrochene Task endet, danach läuft die neuere Anfrage
+            chunkGenerator.steps.release();
+            assertTrue(chunkGenerator.started.tryAcquire(5, TimeUnit.SECONDS));
+            assertSame(newer, worldGenerator.requestChunkGeneration(7, 0, 0, chunk -> {}), "The cancelled task must not remove the newer request");
+            assertEquals(0, delivered.get(), "A cancelled request must not deliver its chunk");
+
+            chunkGenerator.steps.release();
+            newer.get(5, TimeUnit.SECONDS);
+            assertEquals(0, delivered.get());
+        }
+    }
+
+    /**
+     * Generates one chunk per released step
+     */
+    private static class SteppingGenerator implements ChunkGenerator {
+        private final Semaphore started = new Semaphore(0);
+        private final Semaphore steps = new Semaphore(0);
+
+        @Override
+        public void generateNoise(Chunk gameChunk) {
+            started.release();
+            try {
+                if (!steps.tryAcquire(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("No step was released");
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void generateSurfaceBlocks(Chunk gameChunk) {
+        }
+    }
+
+    private static class BlockingGenerator implements ChunkGenerator {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final IntList generatedX = IntLists.synchronize(new IntArrayList());
+
+        @Override
+        public void generateNoise(Chunk gameChunk) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            generatedX.add(gameChunk.getChunkX());
+        }
+
+        @Override
+        public void generateSurfaceBlocks(Chunk gameChunk) {
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package de.verdox.voxel.server.network;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryonet.Client;
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.Listener;
+import com.esotericsoftware.kryonet.Server;
+import de.verdox.voxel.server.level.chunk.ChunkChangeJournal;
+import de.verdox.voxel.server.level.generator.BenchmarkNoiseChunkGenerator;
+import de.verdox.voxel.shared.VoxelBase;
+import de.verdox.voxel.shared.data.registry.ResourceLocation;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.data.types.Registries;
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.World;
+import de.verdox.voxel.shared.network.packet.PacketRegistry;
+import de.verdox.voxel.shared.network.packet.client.ClientRequestChunkPacket;
+import de.verdox.voxel.shared.network.packet.serializer.ChunkWireFormat;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerBlockDeltaPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkBatchPacket;
+import de.verdox.voxel.shared.util.Direction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockDeltaTest {
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static BlockBase GRAVEL;
+
+    private final Kryo kryo = createKryo();
+    private World world;
+
+    @BeforeAll
+    static void registerBlocks() {
+        Blocks.bootstrap();
+        ResourceLocation location = ResourceLocation.of("delta_test_gravel");
+        GRAVEL = Registries.BLOCKS.get(location);
+        if (GRAVEL == null) {
+            GRAVEL = new BlockBase();
+            Registries.BLOCKS.register(GRAVEL, location);
+            GRAVEL.setMaterialID((short) Registries.BLOCKS.getIdOrThrow(GRAVEL));
+        }
+    }
+
+    @BeforeEach
+    void createWorld() {
+        VoxelBase.createNewVoxelBase();
+        world = VoxelBase.getInstance().createWorld(UUID.randomUUID());
+    }
+
+    @AfterEach
+    void closeGenerator() {
+        world.getChunkMap().getWorld().getWorldGenerator().close();
+    }
+
+    @Test
+    void testRepeatedChangesAreCoalesced() {
+        Chunk chunk = new ChunkBase(world, 0, 0, 0);
+        ChunkChangeJournal journal = new ChunkChangeJournal(chunk);
+
+        chunk.setBlockAt(Blocks.STONE, 1, 2, 3);
+        chunk.setBlockAt(GRAVEL, 1, 2, 3);
+        chunk.setBlockAt(Blocks.STONE, 4, 5, 6);
+        ServerBlockDeltaPacket packet = journal.drain();
+        assertEquals(2, packet.changeCount());
+        assertEquals(0, packet.boxCount());
+        assertNull(journal.drain());
+
+        // Eine Box ersetzt die Änderungen in ihr, spätere Änderungen bleiben erhalten
+        chunk.setBlockAt(Blocks.STONE, 1, 1, 1);
+        chunk.setBlockAt(Blocks.STONE, 15, 15, 15);
+        chunk.fillBox(GRAVEL, 0, 0, 0, 7, 7, 7);
+        chunk.setBlockAt(Blocks.AIR, 2, 2, 2);
+        chunk.fillBox(Blocks.STONE, 0, 0, 0, 15, 7, 15);
+        packet = journal.drain();
+        assertEquals(1, packet.boxCount());
+        assertEquals(1, packet.changeCount());
+        assertEquals(15 + 16 * (15 + 16 * 15), packet.getIndices()[0]);
+    }
+
+    @Test
+    void testBorderEditsTouchTheNeighborSides() {
+        Chunk chunk = new ChunkBase(world, 0, 0, 0);
+        ChunkChangeJournal journal = new ChunkChangeJournal(chunk);
+
+        chunk.setBlockAt(Blocks.STONE, 5, 6, 7);
+        assertEquals(0, journal.drain().getTouchedSides(chunk), "Inner edits do not expose faces of a neighbor");
+
+        // Ein abgebauter Block auf x = 0 legt eine Face des westlichen Nachbarn frei
+        chunk.setBlockAt(Blocks.AIR, 0, 6, 7);
+        assertEquals(1 << Direction.WEST.getId(), journal.drain().getTouchedSides(chunk));
+
+        chunk.setBlockAt(Blocks.STONE, 15, 15, 0);
+        chunk.fillBox(GRAVEL, 2, 0, 3, 4, 4, 15);
+        ServerBlockDeltaPacket packet = journal.drain();
+        assertEquals(1, packet.boxCount());
+        assertEquals(1 << Direction.EAST.getId() | 1 << Direction.UP.getId() | 1 << Direction.NORTH.getId() | 1 << Direction.DOWN.getId() | 1 << Direction.SOUTH.getId(),
+                serialize(packet).getTouchedSides(chunk));
+    }
+
+    @Test
+    void testDeltasReproduceServerChunk() {
+        Chunk serverChunk = new ChunkBase(world, 2, 1, -1);
+        new BenchmarkNoiseChunkGenerator().generateNoise(serverChunk);
+        Chunk clientChunk = copy(serverChunk);
+        ChunkChangeJournal journal = new ChunkChangeJournal(serverChunk);
+
+        Random random = new Random(11);
+        BlockBase[] blocks = {Blocks.AIR, Blocks.STONE, GRAVEL};
+        for (int tick = 0; tick < 20; tick++) {
+            for (int i = 0; i < 20; i++) {
+                serverChunk.setBlockAt(blocks[random.nextInt(blocks.length)], random.nextInt(16), random.nextInt(16), random.nextInt(16));
+            }
+            if (tick % 4 == 0) {
+                int minX = random.nextInt(16), minY = random.nextInt(16), minZ = random.nextInt(16);
+                serverChunk.fillBox(blocks[random.nextInt(blocks.length)], minX, minY, minZ, Math.min(15, minX + 3), Math.min(15, minY + 5), Math.min(15, minZ + 2));
+            }
+            serialize(journal.drain()).applyTo(clientChunk);
+        }
+        assertSameBlocks(serverChunk, clientChunk);
+    }
+
+    @Test
+    void testTooManyChangesResendTheChunk() {
+        Chunk chunk = new ChunkBase(world, 0, 0, 0);
+        ChunkChangeJournal journal = new ChunkChangeJournal(chunk);
+        for (int i = 0; i <= ChunkChangeJournal.MAX_CHANGES; i++) {
+            chunk.setBlockAt(Blocks.STONE, i % 16, (i / 16) % 16, i / 256);
+        }
+        assertNull(journal.drain());
+        assertTrue(journal.pollResend());
+        assertFalse(journal.hasChanges());
+    }
+
+    @Test
+    void testDeltasOverTheNetworkReproduceServerChunk() throws Exception {
+        Server server = new Server(BUFFER_SIZE, BUFFER_SIZE);
+        new PacketRegistry(server.getKryo());
+        ServerInterfaceImpl serverInterface = new ServerInterfaceImpl(server);
+        serverInterface.start();
+        server.addListener(new Listener() {
+            @Override
+            public void connected(Connection connection) {
+                serverInterface.onConnect(connection.getID());
+            }
+
+            @Override
+            public void received(Connection connection, Object object) {
+                serverInterface.receive(object, connection.getID());
+            }
+        });
+        int port = findFreePort();
+        server.bind(port);
+        server.start();
+
+        BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+        Client client = new Client(BUFFER_SIZE, BUFFER_SIZE);
+        new PacketRegistry(client.getKryo());
+        client.addListener(new Listener() {
+            @Override
+            public void received(Connection connection, Object object) {
+                if (object instanceof ServerChunkBatchPacket || object instanceof ServerBlockDeltaPacket) {
+                    received.add(object);
+                }
+            }
+        });
+        client.start();
+        try {
+            client.connect(5000, "localhost", port);
+            client.sendTCP(new ClientRequestChunkPacket(world.getUuid(), 0, 3, 0));
+            ServerChunkBatchPacket chunkPacket = (ServerChunkBatchPacket) received.poll(30, TimeUnit.SECONDS);
+            assertNotNull(chunkPacket);
+            Chunk serverChunk = world.getChunkMap().getChunk(0, 3, 0).orElseThrow();
+            Chunk clientChunk = chunkPacket.getChunks().get(0);
+
+            for (int i = 0; i < 40; i++) {
+                serverChunk.setBlockAt(i % 2 == 0 ? Blocks.STONE : GRAVEL, i % 16, 8, (i / 16) % 16);
+                serverInterface.blockDeltaTracker.flush();
+                ServerBlockDeltaPacket delta = (ServerBlockDeltaPacket) received.poll(5, TimeUnit.SECONDS);
+                assertNotNull(delta);
+                delta.applyTo(clientChunk);
+            }
+            assertSameBlocks(serverChunk, clientChunk);
+        } finally {
+            client.stop();
+            server.stop();
+            serverInterface.close();
+        }
+    }
+
+    private ServerBlockDeltaPacket serialize(ServerBlockDeltaPacket packet) {
+        Output output = new Output(1024, -1);
+        kryo.writeObject(output, packet);
+        Input input = new Input(output.toBytes());
+        ServerBlockDeltaPacket read = kryo.readObject(input, ServerBlockDeltaPacket.class);
+        assertEquals(input.limit(), input.position(), "Unread bytes");
+        return read;
+    }
+
+    private Chunk copy(Chunk chunk) {
+        Output output = new Output(1024, -1);
+        ChunkWireFormat.RAW.write(kryo, output, chunk, 0, 0, 0);
+        return ChunkWireFormat.RAW.read(kryo, new Input(output.toBytes()), world, 0, 0, 0);
+    }
+
+    private static void assertSameBlocks(Chunk expected, Chunk actual) {
+        for (int x = 0; x < expected.getSizeX(); x++) {
+            for (int y = 0; y < expected.getSizeY(); y++) {
+                for (int z = 0; z < expected.getSizeZ(); z++) {
+                    assertEquals(expected.getBlockAt(x, y, z), actual.getBlockAt(x, y, z), "Block mismatch at " + x + ", " + y + ", " + z);
+                }
+            }
+        }
+    }
+
+    private static Kryo createKryo() {
+        Kryo kryo = new Kryo();
+        new PacketRegistry(kryo);
+        return kryo;
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package de.verdox.voxel.server.network;
+
+import com.esotericsoftware.kryonet.Client;
+import com.esotericsoftware.kryonet.Connection;
+import com.esotericsoftware.kryonet.Listener;
+import com.esotericsoftware.kryonet.Server;
+import de.verdox.voxel.shared.VoxelBase;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.world.World;
+import de.verdox.voxel.shared.network.packet.PacketRegistry;
+import de.verdox.voxel.shared.network.packet.client.ClientRequestChunksPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkBatchPacket;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkPacket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Requests already generated chunks in batches end to end through kryonet on localhost and checks that every chunk arrives.
+ * The responses are batched by the {@link ChunkSendScheduler}. The throughput is measured by the ChunkBatchThroughputBenchmark.
+ */
+public class ChunkBatchDeliveryTest {
+    private static final int RADIUS_XZ = 8;
+    private static final int RADIUS_Y = 4;
+    private static final int BUFFER_SIZE = 1024 * 1024 * 16;
+
+    private Server server;
+    private Client client;
+    private ServerInterfaceImpl serverInterface;
+    private World world;
+    private CountDownLatch received;
+    private final AtomicInteger receivedChunks = new AtomicInteger();
+
+    @BeforeEach
+    void startServerAndClient() throws Exception {
+        Blocks.bootstrap();
+        VoxelBase.createNewVoxelBase();
+        world = VoxelBase.getInstance().createWorld(UUID.randomUUID());
+
+        server = new Server(BUFFER_SIZE, BUFFER_SIZE);
+        new PacketRegistry(server.getKryo());
+        serverInterface = new ServerInterfaceImpl(server);
+        serverInterface.start();
+        server.addListener(new Listener() {
+            @Override
+            public void connected(Connection connection) {
+                serverInterface.onConnect(connection.getID());
+            }
+
+            @Override
+            public void received(Connection connection, Object object) {
+                serverInterface.receive(object, connection.getID());
+            }
+        });
+        int port = findFreePort();
+        server.bind(port);
+        server.start();
+
+        client = new Client(BUFFER_SIZE, BUFFER_SIZE);
+        new PacketRegistry(client.getKryo());
+        client.addListener(new Listener() {
+            @Override
+            public void received(Connection connection, Object object) {
+                int chunks = object instanceof ServerChunkPacket ? 1 : object instanceof ServerChunkBatchPacket batch ? batch.size() : 0;
+                receivedChunks.addAndGet(chunks);
+                for (int i = 0; i < chunks; i++) {
+                    received.countDown();
+                }
+            }
+        });
+        client.start();
+        client.connect(5000, "localhost", port);
+
+        // Die Chunks werden vorher generiert, geprüft wird nur die Übertragung
+        CompletableFuture<?>[] futures = new CompletableFuture[chunkCount()];
+        int i = 0;
+        for (int x = -RADIUS_XZ; x < RADIUS_XZ; x++) {
+            for (int y = -RADIUS_Y; y < RADIUS_Y; y++) {
+                for (int z = -RADIUS_XZ; z < RADIUS_XZ; z++) {
+                    futures[i++] = world.getChunkMap().getOrCreateChunkAsync(x, y, z, chunk -> {});
+                }
+            }
+        }
+        CompletableFuture.allOf(futures).get(60, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        client.stop();
+        server.stop();
+        serverInterface.close();
+        world.getChunkMap().getWorld().getWorldGenerator().close();
+    }
+
+    @Test
+    void testBatchedRequestsDeliverAllChunks() throws Exception {
+        received = new CountDownLatch(chunkCount());
+        ClientRequestChunksPacket.Builder builder = new ClientRequestChunksPacket.Builder(world.getUuid(), 0, 0, 0);
+        int packets = 1;
+        for (int x = -RADIUS_XZ; x < RADIUS_XZ; x++) {
+            for (int y = -RADIUS_Y; y < RADIUS_Y; y++) {
+                for (int z = -RADIUS_XZ; z < RADIUS_XZ; z++) {
+                    if (!builder.add(x, y, z)) {
+                        client.sendTCP(builder.build());
+                        builder = new ClientRequestChunksPacket.Builder(world.getUuid(), 0, 0, 0);
+                        assertTrue(builder.add(x, y, z));
+                        packets++;
+                    }
+                }
+            }
+        }
+        client.sendTCP(builder.build());
+        assertTrue(packets < chunkCount());
+
+        assertTrue(received.await(60, TimeUnit.SECONDS), "Only received " + receivedChunks.get() + " of " + chunkCount() + " chunks");
+        assertEquals(chunkCount(), receivedChunks.get());
+    }
+
+    private static int chunkCount() {
+        return (2 * RADIUS_XZ) * (2 * RADIUS_Y) * (2 * RADIUS_XZ);
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package de.verdox.voxel.server.network;
+
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.network.packet.server.level.chunk.ServerChunkBatchPacket;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkSendSchedulerTest {
+    private static final int BYTES_PER_CHUNK = 100;
+
+    private final LevelWorld world = new LevelWorld(UUID.randomUUID());
+    private final List<Chunk> sentChunks = new ObjectArrayList<>();
+    private final IntList sentTo = new IntArrayList();
+    private int pendingBytes;
+    private ChunkSendScheduler scheduler;
+
+    @BeforeAll
+    static void bootstrap() {
+        Blocks.bootstrap();
+    }
+
+    @AfterEach
+    void close() {
+        scheduler.close();
+    }
+
+    @Test
+    void testNearestChunksAreSentFirst() {
+        scheduler = createScheduler(2, 10_000, 10_000);
+        scheduler.updateCenter(1, world.getUuid(), 10, 0, 10, 8, 8);
+        scheduler.add(1, chunk(3, 0, 10));
+        scheduler.add(1, chunk(10, 0, 11));
+        scheduler.add(1, chunk(10, 0, 10));
+        scheduler.add(1, chunk(14, 0, 10));
+
+        scheduler.tick();
+        assertEquals(List.of(chunk(10, 0, 10).getChunkKey(), chunk(10, 0, 11).getChunkKey(), chunk(14, 0, 10).getChunkKey(), chunk(3, 0, 10).getChunkKey()),
+                sentChunks.stream().map(Chunk::getChunkKey).toList());
+    }
+
+    @Test
+    void testChunksOutOfRangeAreDropped() {
+        scheduler = createScheduler(64, 10_000, 10_000);
+        scheduler.updateCenter(1, world.getUuid(), 0, 0, 0, 4, 2);
+        for (int x = 0; x <= 4; x++) {
+            scheduler.add(1, chunk(x, 0, 0));
+        }
+        scheduler.add(1, chunk(0, 0, 0));
+        assertEquals(5, scheduler.getStats(1).queueDepth());
+
+        // Der Spieler fliegt in negative x Richtung davon
+        scheduler.updateCenter(1, world.getUuid(), -2, 0, 0, 4, 2);
+        scheduler.tick();
+        assertEquals(3, sentChunks.size());
+        assertEquals(2, scheduler.getStats(1).droppedChunks());
+        assertEquals(0, scheduler.getStats(1).queueDepth());
+    }
+
+    @Test
+    void testByteBudgetLimitsEachConnection() {
+        scheduler = createScheduler(1, 3 * BYTES_PER_CHUNK, 10_000);
+        for (int x = 0; x < 10; x++) {
+            scheduler.add(1, chunk(x, 0, 0));
+        }
+        scheduler.tick();
+        assertEquals(3, sentChunks.size());
+        scheduler.tick();
+        assertEquals(6, sentChunks.size());
+        assertEquals(4, scheduler.getStats(1).queueDepth());
+        assertEquals(6, scheduler.getStats(1).sentChunks());
+
+        // Ein voller Socket-Puffer hält die Verbindung an
+        pendingBytes = 3 * BYTES_PER_CHUNK;
+        scheduler.tick();
+        assertEquals(6, sentChunks.size());
+    }
+
+    @Test
+    void testConnectionsTakeTurns() {
+        scheduler = createScheduler(1, 10_000, 4 * BYTES_PER_CHUNK);
+        for (int x = 0; x < 100; x++) {
+            scheduler.add(1, chunk(x, 0, 0));
+        }
+        for (int x = 0; x < 2; x++) {
+            scheduler.add(2, chunk(x, 0, 0));
+        }
+
+        scheduler.tick();
+        assertEquals(4, sentTo.size());
+        assertEquals(2, sentTo.stream().filter(id -> id == 2).count());
+        scheduler.tick();
+        assertEquals(8, sentTo.size());
+        assertEquals(2, sentTo.stream().filter(id -> id == 2).count());
+    }
+
+    @Test
+    void testChunksForDisconnectedConnectionsAreDropped() {
+        scheduler = createScheduler(64, 10_000, 10_000);
+        scheduler.add(1, chunk(0, 0, 0));
+        scheduler.discard(1);
+
+        // Eine Generierung wird erst nach dem Disconnect fertig
+        scheduler.add(1, chunk(1, 0, 0));
+        scheduler.updateCenter(1, world.getUuid(), 0, 0, 0, 4, 2);
+        scheduler.add(3, chunk(2, 0, 0));
+        scheduler.tick();
+        assertTrue(sentChunks.isEmpty());
+        assertEquals(ChunkSendScheduler.ConnectionStats.EMPTY, scheduler.getStats(1));
+        assertEquals(ChunkSendScheduler.ConnectionStats.EMPTY, scheduler.getStats(3));
+    }
+
+    private ChunkSendScheduler createScheduler(int maxBatchSize, long bytesPerConnection, long totalBytes) {
+        // Die Ticks werden von Hand ausgelöst, ein Tick pro Sekunde macht aus den Budgets Bytes pro Tick
+        ChunkSendScheduler scheduler = new ChunkSendScheduler(maxBatchSize, bytesPerConnection, totalBytes, 1, TimeUnit.HOURS);
+        scheduler.start(new ChunkSendScheduler.Transport() {
+            @Override
+            public int sendChunks(ServerChunkBatchPacket packet, int connectionId) {
+                sentChunks.addAll(packet.getChunks());
+                for (int i = 0; i < packet.size(); i++) {
+                    sentTo.add(connectionId);
+                }
+                return packet.size() * BYTES_PER_CHUNK;
+            }
+
+            @Override
+            public int getPendingBytes(int connectionId) {
+                return pendingBytes;
+            }
+        });
+        scheduler.onConnect(1);
+        scheduler.onConnect(2);
+        return scheduler;
+    }
+
+    private Chunk chunk(int chunkX, int chunkY, int chunkZ) {
+        return new ChunkBase(world, chunkX, chunkY, chunkZ);
+    }
+}
@@ -0,0 +1,36 @@
+package de.verdox.voxel.shared.data.registry;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RegistryTest {
+
+    @Test
+    void testIdsAreDenseInRegistrationOrder() {
+        Registry<String> registry = new Registry<>();
+        for (int i = 0; i < 40; i++) {
+            registry.register("entry" + i, ResourceLocation.of("entry" + i));
+        }
+
+        for (int i = 0; i < 40; i++) {
+            assertEquals("entry" + i, registry.byId(i));
+            assertEquals(i, registry.getId("entry" + i));
+        }
+        assertNull(registry.byId(-1));
+        assertNull(registry.byId(40));
+        assertEquals(-1, registry.getId("unknown"));
+    }
+
+    @Test
+    void testFrozenRegistryRejectsEntries() {
+        Registry<String> registry = new Registry<>();
+        registry.register("a", ResourceLocation.of("a"));
+        registry.freeze();
+        registry.freeze();
+
+        assertTrue(registry.isFrozen());
+        assertEquals("a", registry.byId(0));
+        assertThrows(IllegalStateException.class, () -> registry.register("b", ResourceLocation.of("b")));
+    }
+}
@@ -0,0 +1,73 @@
+package de.verdox.voxel.shared.level.chunk;
+
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.util.palette.ThreeDimensionalPalette;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkFillTest {
+    private final LevelWorld world = new LevelWorld(UUID.randomUUID());
+
+    @Test
+    void testFillBoxMatchesSetBlock() {
+        Chunk bulk = new ChunkBase(world, 0, 0, 0);
+        Chunk perBlock = new ChunkBase(world, 0, 0, 0);
+
+        bulk.fillBox(Blocks.STONE, 2, 0, 3, 9, 7, 12);
+        setBox(perBlock, Blocks.STONE, 2, 0, 3, 9, 7, 12);
+        assertSameChunk(perBlock, bulk);
+
+        bulk.fillColumn(Blocks.AIR, 4, 5, 3, 7);
+        setBox(perBlock, Blocks.AIR, 4, 3, 5, 4, 7, 5);
+        assertSameChunk(perBlock, bulk);
+
+        bulk.fillBox(Blocks.STONE, 0, 10, 0, 15, 10, 15);
+        setBox(perBlock, Blocks.STONE, 0, 10, 0, 15, 10, 15);
+        assertSameChunk(perBlock, bulk);
+    }
+
+    @Test
+    void testFillWholeChunkSwitchesState() {
+        Chunk chunk = new ChunkBase(world, 0, 0, 0);
+        chunk.fillBox(Blocks.STONE, 0, 0, 0, 15, 15, 15);
+        assertEquals(ThreeDimensionalPalette.State.UNIFORM, chunk.getChunkBlockPalette().getState());
+        assertEquals(15, chunk.getHeightMap().get(3, 3));
+
+        chunk.fillColumn(Blocks.AIR, 3, 3, 8, 15);
+        assertEquals(ThreeDimensionalPalette.State.PALETTED, chunk.getChunkBlockPalette().getState());
+        assertEquals(Blocks.AIR, chunk.getBlockAt(3, 8, 3));
+        assertEquals(Blocks.STONE, chunk.getBlockAt(3, 7, 3));
+        assertEquals(7, chunk.getHeightMap().get(3, 3));
+        assertEquals(Blocks.STONE, chunk.getBlockAt(4, 15, 3));
+
+        chunk.fillBox(Blocks.AIR, 0, 0, 0, 15, 15, 15);
+        assertTrue(chunk.isEmpty());
+    }
+
+    private static void setBox(Chunk chunk, BlockBase block, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    chunk.setBlockAt(block, x, y, z);
+                }
+            }
+        }
+    }
+
+    private static void assertSameChunk(Chunk expected, Chunk actual) {
+        for (int x = 0; x < expected.getSizeX(); x++) {
+            for (int z = 0; z < expected.getSizeZ(); z++) {
+                for (int y = 0; y < expected.getSizeY(); y++) {
+                    assertEquals(expected.getBlockAt(x, y, z), actual.getBlockAt(x, y, z), "Block mismatch at " + x + ", " + y + ", " + z);
+                }
+                assertEquals(expected.getHeightMap().get(x, z), actual.getHeightMap().get(x, z), "Height mismatch at " + x + ", " + z);
+                assertEquals(expected.getDepthMap().get(x, z), actual.getDepthMap().get(x, z), "Depth mismatch at " + x + ", " + z);
+            }
+        }
+    }
+}
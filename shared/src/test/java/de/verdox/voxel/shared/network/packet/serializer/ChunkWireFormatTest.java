@@ -0,0 +1,181 @@
+package de.verdox.voxel.shared.network.packet.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import de.verdox.voxel.server.level.generator.BenchmarkNoiseChunkGenerator;
+import de.verdox.voxel.shared.data.registry.ResourceLocation;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.data.types.Registries;
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.network.packet.PacketRegistry;
+import de.verdox.voxel.shared.util.palette.ThreeDimensionalPalette;
+import de.verdox.voxel.shared.util.palette.strategy.PaletteStrategy;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkWireFormatTest {
+    private static final int TEST_BLOCKS = PaletteStrategy.PalettedLocalID.GLOBAL_PROMOTION_THRESHOLD + 8;
+    private static final BlockBase[] BLOCKS = new BlockBase[TEST_BLOCKS];
+
+    private final LevelWorld world = new LevelWorld(UUID.randomUUID());
+    private final Kryo kryo = createKryo();
+
+    @BeforeAll
+    static void registerBlocks() {
+        Blocks.bootstrap();
+        for (int i = 0; i < TEST_BLOCKS; i++) {
+            ResourceLocation location = ResourceLocation.of("wire_test_" + i);
+            BlockBase block = Registries.BLOCKS.get(location);
+            if (block == null) {
+                block = new BlockBase();
+                Registries.BLOCKS.register(block, location);
+                block.setMaterialID((short) Registries.BLOCKS.getIdOrThrow(block));
+            }
+            BLOCKS[i] = block;
+        }
+    }
+
+    @Test
+    void testGeneratedChunksRoundTrip() {
+        BenchmarkNoiseChunkGenerator generator = new BenchmarkNoiseChunkGenerator();
+        for (ChunkWireFormat format : new ChunkWireFormat[]{ChunkWireFormat.RAW, ChunkWireFormat.DEFLATED}) {
+            for (int y = 0; y < 8; y++) {
+                Chunk chunk = new ChunkBase(world, 5, y, -3);
+                generator.generateNoise(chunk);
+                assertSameChunk(chunk, roundTrip(format, chunk, 4, 2, -4));
+            }
+        }
+    }
+
+    @Test
+    void testEmptyAndUniformChunksRoundTrip() {
+        Chunk empty = new ChunkBase(world, 0, 0, 0);
+        Chunk uniform = new ChunkBase(world, 0, 1, 0);
+        uniform.fillBox(Blocks.STONE, 0, 0, 0, 15, 15, 15);
+
+        assertEquals(ThreeDimensionalPalette.State.EMPTY, roundTrip(ChunkWireFormat.DEFLATED, empty, 0, 0, 0).getChunkBlockPalette().getState());
+        Chunk read = roundTrip(ChunkWireFormat.DEFLATED, uniform, 0, 0, 0);
+        assertEquals(ThreeDimensionalPalette.State.UNIFORM, read.getChunkBlockPalette().getState());
+        assertSameChunk(uniform, read);
+    }
+
+    @Test
+    void testNoisyChunkUsesLocalPaletteAfterRead() {
+        Random random = new Random(7);
+        Chunk chunk = new ChunkBase(world, -1000, 3, 77);
+        for (int i = 0; i < 2000; i++) {
+            chunk.setBlockAt(BLOCKS[random.nextInt(20)], random.nextInt(16), random.nextInt(16), random.nextInt(16));
+        }
+
+        Chunk read = roundTrip(ChunkWireFormat.RAW, chunk, 0, 0, 0);
+        assertInstanceOf(PaletteStrategy.PalettedLocalID.class, read.getChunkBlockPalette().getStrategy());
+        assertSameChunk(chunk, read);
+    }
+
+    @Test
+    void testLargePaletteRoundTrip() {
+        Chunk chunk = new ChunkBase(world, 1, 1, 1);
+        for (int i = 0; i < TEST_BLOCKS; i++) {
+            chunk.setBlockAt(BLOCKS[i], i % 16, (i / 16) % 16, i / 256);
+        }
+
+        Chunk read = roundTrip(ChunkWireFormat.DEFLATED, chunk, 0, 0, 0);
+        assertInstanceOf(PaletteStrategy.PalettedGlobalID.class, read.getChunkBlockPalette().getStrategy());
+        assertSameChunk(chunk, read);
+    }
+
+    @Test
+    void testLightRoundTrip() {
+        Chunk uniform = new ChunkBase(world, 0, 0, 0);
+        uniform.getChunkLightData().setUniform((byte) 15, (byte) 0, (byte) 0, (byte) 0);
+        assertSameChunk(uniform, roundTrip(ChunkWireFormat.RAW, uniform, 0, 0, 0));
+
+        Chunk detailed = new ChunkBase(world, 0, 0, 0);
+        detailed.getChunkLightData().setUniform((byte) 15, (byte) 0, (byte) 0, (byte) 0);
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 16; x++) {
+                for (int z = 0; z < 16; z++) {
+                    detailed.getChunkLightData().setSkyLight(x, y, z, (byte) (y + 4));
+                }
+            }
+        }
+        detailed.getChunkLightData().setBlockLight(3, 3, 3, (byte) 14, (byte) 2, (byte) 9);
+        Chunk read = roundTrip(ChunkWireFormat.DEFLATED, detailed, 0, 0, 0);
+        assertEquals(detailed.getChunkLightData().getState(), read.getChunkLightData().getState());
+        assertSameChunk(detailed, read);
+    }
+
+    @Test
+    void testUnknownWorldIsSkipped() {
+        Chunk first = new ChunkBase(world, 0, 0, 0);
+        first.setBlockAt(Blocks.STONE, 1, 2, 3);
+        Chunk second = new ChunkBase(world, 0, 0, 1);
+        second.setBlockAt(Blocks.STONE, 4, 5, 6);
+
+        Output output = new Output(1024, -1);
+        ChunkWireFormat.DEFLATED.write(kryo, output, first, 0, 0, 0);
+        ChunkWireFormat.DEFLATED.write(kryo, output, second, 0, 0, 0);
+
+        Input input = new Input(output.toBytes());
+        assertNull(ChunkWireFormat.DEFLATED.read(kryo, input, null, 0, 0, 0));
+        assertSameChunk(second, ChunkWireFormat.DEFLATED.read(kryo, input, world, 0, 0, 0));
+    }
+
+    @Test
+    void testUnknownVersionIsRejected() {
+        Output output = new Output(1024, -1);
+        ChunkWireFormat.RAW.write(kryo, output, new ChunkBase(world, 0, 0, 0), 0, 0, 0);
+        byte[] bytes = output.toBytes();
+        bytes[0] = (byte) (ChunkWireFormat.VERSION + 1);
+
+        assertThrows(KryoException.class, () -> ChunkWireFormat.RAW.read(kryo, new Input(bytes), world, 0, 0, 0));
+    }
+
+    private Chunk roundTrip(ChunkWireFormat format, Chunk chunk, int originX, int originY, int originZ) {
+        Output output = new Output(1024, -1);
+        format.write(kryo, output, chunk, originX, originY, originZ);
+        Input input = new Input(output.toBytes());
+        Chunk read = format.read(kryo, input, world, originX, originY, originZ);
+        assertEquals(input.limit(), input.position(), "Unread bytes");
+        return read;
+    }
+
+    private static void assertSameChunk(Chunk expected, Chunk actual) {
+        assertNotNull(actual);
+        assertEquals(expected.getChunkX(), actual.getChunkX());
+        assertEquals(expected.getChunkY(), actual.getChunkY());
+        assertEquals(expected.getChunkZ(), actual.getChunkZ());
+        for (int x = 0; x < expected.getSizeX(); x++) {
+            for (int y = 0; y < expected.getSizeY(); y++) {
+                for (int z = 0; z < expected.getSizeZ(); z++) {
+                    assertEquals(expected.getBlockAt(x, y, z), actual.getBlockAt(x, y, z), "Block mismatch at " + x + ", " + y + ", " + z);
+                    assertEquals(expected.getChunkLightData().getSkyLight(x, y, z), actual.getChunkLightData().getSkyLight(x, y, z));
+                    assertEquals(expected.getChunkLightData().getBlockRed(x, y, z), actual.getChunkLightData().getBlockRed(x, y, z));
+                    assertEquals(expected.getChunkLightData().getBlockBlue(x, y, z), actual.getChunkLightData().getBlockBlue(x, y, z));
+                }
+            }
+        }
+        for (int x = 0; x < expected.getSizeX(); x++) {
+            for (int z = 0; z < expected.getSizeZ(); z++) {
+                assertEquals(expected.getHeightMap().get(x, z), actual.getHeightMap().get(x, z));
+                assertEquals(expected.getDepthMap().get(x, z), actual.getDepthMap().get(x, z));
+            }
+        }
+    }
+
+    private static Kryo createKryo() {
+        Kryo kryo = new Kryo();
+        new PacketRegistry(kryo);
+        return kryo;
+    }
+}
@@ -0,0 +1,138 @@
+package de.verdox.voxel.shared.util.lod;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LodPyramidTest {
+    private static final int SIZE = 16;
+    private static final int EMPTY = 0;
+
+    private final int[] ids = new int[SIZE * SIZE * SIZE];
+
+    private int idAt(int x, int y, int z) {
+        return ids[x + SIZE * (y + SIZE * z)];
+    }
+
+    private void setId(int id, int x, int y, int z) {
+        ids[x + SIZE * (y + SIZE * z)] = id;
+    }
+
+    private LodPyramid pyramid(LodPyramid.Fold fold) {
+        LodPyramid pyramid = new LodPyramid(new GridDim(SIZE, SIZE, SIZE), 4, fold, id -> id != EMPTY, this::idAt, EMPTY);
+        pyramid.rebuildFromSource();
+        return pyramid;
+    }
+
+    @Test
+    void testAnyKeepsSingleBlocks() {
+        setId(3, 5, 5, 5);
+
+        LodPyramid any = pyramid(LodPyramid.Fold.ANY);
+        LodPyramid majority = pyramid(LodPyramid.Fold.MAJORITY);
+        for (int level = 1; level <= 4; level++) {
+            int lx = 5 >> level;
+            assertTrue(any.isOccupied(level, lx, lx, lx), "Level " + level);
+            assertEquals(3, any.getLodIdOrDefault(level, lx, lx, lx));
+            assertEquals(1, any.getCount(level, lx, lx, lx));
+
+            assertFalse(majority.isOccupied(level, lx, lx, lx), "Level " + level);
+            assertEquals(EMPTY, majority.getLodIdOrDefault(level, lx, lx, lx));
+        }
+        assertFalse(any.isOccupied(1, 0, 0, 0));
+    }
+
+    @Test
+    void testMajorityNeedsMoreThanHalf() {
+        // Vier von acht Blöcken reichen nicht, fünf schon
+        setId(1, 0, 0, 0);
+        setId(1, 1, 0, 0);
+        setId(1, 0, 1, 0);
+        setId(1, 1, 1, 0);
+        assertFalse(pyramid(LodPyramid.Fold.MAJORITY).isOccupied(1, 0, 0, 0));
+
+        setId(1, 0, 0, 1);
+        assertTrue(pyramid(LodPyramid.Fold.MAJORITY).isOccupied(1, 0, 0, 0));
+    }
+
+    @Test
+    void testProminentIdIsVotedByCount() {
+        // Level 1: drei Erde gegen zwei Stein
+        setId(2, 0, 0, 0);
+        setId(2, 1, 0, 0);
+        setId(2, 0, 1, 0);
+        setId(7, 1, 1, 0);
+        setId(7, 0, 0, 1);
+        LodPyramid pyramid = pyramid(LodPyramid.Fold.ANY);
+        assertEquals(2, pyramid.getLodIdOrDefault(1, 0, 0, 0));
+
+        // Level 2 wählt aus den Kindern, jedes stimmt mit seiner Anzahl: 5 für Erde gegen 6 für Stein
+        setId(7, 2, 0, 0);
+        setId(7, 3, 0, 0);
+        setId(7, 2, 1, 0);
+        setId(7, 3, 1, 0);
+        setId(7, 2, 0, 1);
+        setId(7, 3, 0, 1);
+        pyramid = pyramid(LodPyramid.Fold.ANY);
+        assertEquals(2, pyramid.getLodIdOrDefault(1, 0, 0, 0));
+        assertEquals(7, pyramid.getLodIdOrDefault(1, 1, 0, 0));
+        assertEquals(7, pyramid.getLodIdOrDefault(2, 0, 0, 0));
+        assertEquals(11, pyramid.getCount(2, 0, 0, 0));
+    }
+
+    @Test
+    void testIncrementalUpdatesMatchRebuild() {
+        Random random = new Random(5);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = random.nextInt(4) == 0 ? 1 + random.nextInt(3) : EMPTY;
+        }
+        for (LodPyramid.Fold fold : LodPyramid.Fold.values()) {
+            LodPyramid incremental = pyramid(fold);
+            for (int change = 0; change < 2000; change++) {
+                int x = random.nextInt(SIZE), y = random.nextInt(SIZE), z = random.nextInt(SIZE);
+                setId(random.nextBoolean() ? EMPTY : 1 + random.nextInt(3), x, y, z);
+                incremental.onCellChange(x, y, z);
+            }
+            assertSamePyramid(pyramid(fold), incremental);
+        }
+    }
+
+    @Test
+    void testChangedLevelsAreReported() {
+        LodPyramid pyramid = pyramid(LodPyramid.Fold.ANY);
+
+        setId(4, 9, 9, 9);
+        assertEquals(0b1111, pyramid.onCellChange(9, 9, 9), "The first block shows up on every level");
+
+        setId(4, 8, 9, 9);
+        assertEquals(0, pyramid.onCellChange(8, 9, 9), "Another block of the same id changes no visible cell");
+
+        setId(5, 0, 0, 0);
+        assertEquals(0b0111, pyramid.onCellChange(0, 0, 0), "Level 4 still shows the two blocks of id 4");
+
+        setId(EMPTY, 8, 9, 9);
+        setId(EMPTY, 9, 9, 9);
+        pyramid.onCellChange(8, 9, 9);
+        assertEquals(5, pyramid.getLodIdOrDefault(4, 0, 0, 0));
+        pyramid.onCellChange(9, 9, 9);
+        assertEquals(EMPTY, pyramid.getLodIdOrDefault(1, 4, 4, 4));
+        assertEquals(5, pyramid.getLodIdOrDefault(4, 0, 0, 0));
+    }
+
+    private static void assertSamePyramid(LodPyramid expected, LodPyramid actual) {
+        for (int level = 1; level <= expected.levels(); level++) {
+            for (int x = 0; x < expected.getLevelSizeX(level); x++) {
+                for (int y = 0; y < expected.getLevelSizeY(level); y++) {
+                    for (int z = 0; z < expected.getLevelSizeZ(level); z++) {
+                        String cell = "Level " + level + " at " + x + ", " + y + ", " + z;
+                        assertEquals(expected.getCount(level, x, y, z), actual.getCount(level, x, y, z), cell);
+                        assertEquals(expected.isOccupied(level, x, y, z), actual.isOccupied(level, x, y, z), cell);
+                        assertEquals(expected.getLodIdOrDefault(level, x, y, z), actual.getLodIdOrDefault(level, x, y, z), cell);
+                    }
+                }
+            }
+        }
+    }
+}
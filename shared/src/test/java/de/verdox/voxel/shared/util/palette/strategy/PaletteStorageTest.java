@@ -0,0 +1,149 @@
+package de.verdox.voxel.shared.util.palette.strategy;
+
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.util.palette.ThreeDimensionalPalette;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PaletteStorageTest {
+    private static final int SIZE = 16;
+    private static final int TOTAL = SIZE * SIZE * SIZE;
+
+    @Test
+    void testPackUnpackMatchesPerEntryAccess() {
+        Random random = new Random(1);
+        for (int bits = 1; bits <= 40; bits++) {
+            PaletteStorage storage = createStorage(bits);
+            int[] values = randomValues(random, bits);
+            storage.pack(values);
+
+            for (int i = 0; i < TOTAL; i++) {
+                assertEquals(values[i], storage.read(i), "bits=" + bits + " idx=" + i);
+            }
+
+            for (int i = 0; i < TOTAL; i += 7) {
+                values[i] = 0;
+                storage.write(i, 0);
+            }
+            int[] unpacked = new int[TOTAL];
+            storage.unpack(unpacked);
+            assertArrayEquals(values, unpacked, "bits=" + bits);
+        }
+    }
+
+    @Test
+    void testCountNonZero() {
+        Random random = new Random(2);
+        for (int bits = 1; bits <= 40; bits++) {
+            PaletteStorage storage = createStorage(bits);
+            int[] values = randomValues(random, bits);
+            int expected = 0;
+            for (int i = 0; i < TOTAL; i++) {
+                if (random.nextInt(3) == 0) {
+                    values[i] = 0;
+                }
+                if (values[i] != 0) {
+                    expected++;
+                }
+            }
+            storage.pack(values);
+            assertEquals(expected, storage.countNonZero(), "bits=" + bits);
+        }
+    }
+
+    @Test
+    void testRangeFill() {
+        Random random = new Random(3);
+        for (int bits = 1; bits <= 40; bits++) {
+            PaletteStorage storage = createStorage(bits);
+            int[] values = randomValues(random, bits);
+            storage.pack(values);
+
+            int from = random.nextInt(TOTAL);
+            int to = from + random.nextInt(TOTAL - from + 1);
+            int id = (int) (random.nextLong() & PackedBits.mask(Math.min(bits, 31)));
+            storage.fill(from, to, id);
+            for (int i = from; i < to; i++) {
+                values[i] = id;
+            }
+
+            int[] unpacked = new int[TOTAL];
+            storage.unpack(unpacked);
+            assertArrayEquals(values, unpacked, "bits=" + bits + " range=" + from + ".." + to);
+        }
+    }
+
+    @Test
+    void testResizeKeepsValues() {
+        Random random = new Random(4);
+        TestPaletted owner = new TestPaletted(new TestPalette(), 1 << 3);
+        PaletteStorage storage = PaletteStorage.create(owner, 3);
+        int[] values = randomValues(random, 3);
+        storage.pack(values);
+
+        owner.paletteSize = 1 << 6;
+        storage.resizeIfNeeded();
+        assertEquals(6, storage.getBitsPerBlock());
+
+        int[] unpacked = new int[TOTAL];
+        storage.unpack(unpacked);
+        assertArrayEquals(values, unpacked);
+    }
+
+    private static PaletteStorage createStorage(int bits) {
+        return PaletteStorage.create(new TestPaletted(new TestPalette(), 1), bits);
+    }
+
+    private static int[] randomValues(Random random, int bits) {
+        long mask = PackedBits.mask(Math.min(bits, 31));
+        int[] values = new int[TOTAL];
+        for (int i = 0; i < TOTAL; i++) {
+            values[i] = (int) (random.nextLong() & mask);
+        }
+        return values;
+    }
+
+    private static class TestPalette extends ThreeDimensionalPalette<BlockBase> {
+        public TestPalette() {
+            super(Blocks.AIR, id -> null);
+        }
+
+        @Override
+        public int getSizeX() {
+            return SIZE;
+        }
+
+        @Override
+        public int getSizeY() {
+            return SIZE;
+        }
+
+        @Override
+        public int getSizeZ() {
+            return SIZE;
+        }
+    }
+
+    private static class TestPaletted extends PaletteStrategy.Paletted<BlockBase> {
+        private int paletteSize;
+
+        public TestPaletted(ThreeDimensionalPalette<BlockBase> ctx, int paletteSize) {
+            super(ctx);
+            this.paletteSize = paletteSize;
+        }
+
+        @Override
+        public int getPaletteSize() {
+            return paletteSize;
+        }
+
+        @Override
+        protected boolean usesGlobalIds() {
+            return false;
+        }
+    }
+}
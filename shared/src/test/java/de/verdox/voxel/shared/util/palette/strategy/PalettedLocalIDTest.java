@@ -0,0 +1,106 @@
+package de.verdox.voxel.shared.util.palette.strategy;
+
+import de.verdox.voxel.shared.data.registry.ResourceLocation;
+import de.verdox.voxel.shared.data.types.Blocks;
+import de.verdox.voxel.shared.data.types.Registries;
+import de.verdox.voxel.shared.level.block.BlockBase;
+import de.verdox.voxel.shared.level.chunk.Chunk;
+import de.verdox.voxel.shared.level.chunk.ChunkBase;
+import de.verdox.voxel.shared.level.world.LevelWorld;
+import de.verdox.voxel.shared.util.palette.ThreeDimensionalPalette;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PalettedLocalIDTest {
+    private static final int TEST_BLOCKS = PaletteStrategy.PalettedLocalID.GLOBAL_PROMOTION_THRESHOLD + 8;
+    private static final BlockBase[] BLOCKS = new BlockBase[TEST_BLOCKS];
+
+    private final LevelWorld world = new LevelWorld(UUID.randomUUID());
+
+    @BeforeAll
+    static void registerBlocks() {
+        Blocks.bootstrap();
+        for (int i = 0; i < TEST_BLOCKS; i++) {
+            ResourceLocation location = ResourceLocation.of("palette_test_" + i);
+            BlockBase block = Registries.BLOCKS.get(location);
+            if (block == null) {
+                block = new BlockBase();
+                Registries.BLOCKS.register(block, location);
+                block.setMaterialID((short) Registries.BLOCKS.getIdOrThrow(block));
+            }
+            BLOCKS[i] = block;
+        }
+    }
+
+    @Test
+    void testBitsFollowLocalPalette() {
+        Chunk chunk = new ChunkBase(world, 0, 0, 0);
+        chunk.setBlockAt(BLOCKS[0], 0, 0, 0);
+        chunk.setBlockAt(BLOCKS[1], 1, 0, 0);
+        chunk.setBlockAt(BLOCKS[2], 2, 0, 0);
+
+        PaletteStrategy.PalettedLocalID<BlockBase> paletted = localPalette(chunk);
+        assertEquals(4, paletted.getPaletteSize());
+        assertEquals(2, paletted.getStorage().getBitsPerBlock());
+        assertEquals(BLOCKS[2], chunk.getBlockAt(2, 0, 0));
+    }
+
+    @Test
+    void testUnusedEntriesAreCompacted() {
+        Chunk chunk = new ChunkBase(world, 0, 0, 0);
+        for (int i = 0; i < 10; i++) {
+            chunk.setBlockAt(BLOCKS[i], i, 0, 0);
+        }
+        assertEquals(4, localPalette(chunk).getStorage().getBitsPerBlock());
+
+        for (int i = 1; i < 10; i++) {
+            chunk.setBlockAt(Blocks.AIR, i, 0, 0);
+        }
+        PaletteStrategy.PalettedLocalID<BlockBase> paletted = localPalette(chunk);
+        assertEquals(2, paletted.getLiveEntries());
+        // Automatisch wird nur kompaktiert, wenn mindestens 2 Bits frei werden
+        assertEquals(2, paletted.getStorage().getBitsPerBlock());
+
+        paletted.compact();
+        assertEquals(2, paletted.getPaletteSize());
+        assertEquals(1, paletted.getStorage().getBitsPerBlock());
+        assertEquals(BLOCKS[0], chunk.getBlockAt(0, 0, 0));
+        assertEquals(Blocks.AIR, chunk.getBlockAt(1, 0, 0));
+
+        // Freie IDs werden wiederverwendet
+        chunk.setBlockAt(BLOCKS[5], 5, 5, 5);
+        assertEquals(3, localPalette(chunk).getPaletteSize());
+        assertEquals(BLOCKS[5], chunk.getBlockAt(5, 5, 5));
+    }
+
+    @Test
+    void testRemovingAllBlocksSwitchesToEmpty() {
+        Chunk chunk = new ChunkBase(world, 0, 0, 0);
+        chunk.setBlockAt(BLOCKS[3], 3, 3, 3);
+        chunk.setBlockAt(Blocks.AIR, 3, 3, 3);
+        assertEquals(ThreeDimensionalPalette.State.EMPTY, chunk.getChunkBlockPalette().getState());
+    }
+
+    @Test
+    void testLargePalettePromotesToGlobalIds() {
+        Chunk chunk = new ChunkBase(world, 0, 0, 0);
+        for (int i = 0; i < TEST_BLOCKS; i++) {
+            chunk.setBlockAt(BLOCKS[i], i % 16, (i / 16) % 16, i / 256);
+        }
+
+        assertInstanceOf(PaletteStrategy.PalettedGlobalID.class, chunk.getChunkBlockPalette().getStrategy());
+        for (int i = 0; i < TEST_BLOCKS; i++) {
+            assertEquals(BLOCKS[i], chunk.getBlockAt(i % 16, (i / 16) % 16, i / 256), "Block " + i);
+        }
+        assertEquals(Blocks.AIR, chunk.getBlockAt(15, 15, 15));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static PaletteStrategy.PalettedLocalID<BlockBase> localPalette(Chunk chunk) {
+        return assertInstanceOf(PaletteStrategy.PalettedLocalID.class, chunk.getChunkBlockPalette().getStrategy());
+    }
+}